@@ -1,40 +1,71 @@
 package org.jquantlib;
 
+import org.jquantlib.time.Date;
+
 
 /**
  * helper class to temporarily and safely change the settings
+ * <p>
+ * The settings of the current thread are copied when an instance is created, and are written back by {@link #restore()}.
+ * As {@link Settings} are kept by thread, restoring a copy on another thread is also the way to hand the settings of a
+ * calling thread over to worker threads.
+ * <p>
+ * We cannot rely on finalize() for restoring the settings, as it is neither deterministic nor reliable and may even never
+ * happen at all. Callers must invoke {@link #restore()} explicitly, usually in a <code>finally</code> block.
+ *
  * @author goovy
  */
 public class SavedSettings {
 
-    // PLEASE REVIEW THIS IMPLEMENTATION
     //
-    // We cannot rely on finalize() for anything.
-    // Method finalize() is called by GC when GC decides it's time for reclaiming memory occupied by this class.
-    // This behaviour is neither deterministic nor reliable and may even never happen at all.
+    // private final fields
     //
 
+    private final Date evaluationDate;
+    private final boolean enforcesTodaysHistoricFixings;
+    private final boolean negativeRates;
+    private final boolean extraSafetyChecks;
+    private final boolean todaysPayments;
+    private final boolean useIndexedCoupon;
+    private final boolean refineHighPrecisionUsingHalleysMethod;
 
 
+    //
+    // public constructors
+    //
+
+    public SavedSettings() {
+        final Settings settings = new Settings();
+        this.evaluationDate = settings.evaluationDate().clone();
+        this.enforcesTodaysHistoricFixings = settings.isEnforcesTodaysHistoricFixings();
+        this.negativeRates = settings.isNegativeRates();
+        this.extraSafetyChecks = settings.isExtraSafetyChecks();
+        this.todaysPayments = settings.isTodaysPayments();
+        this.useIndexedCoupon = settings.isUseIndexedCoupon();
+        this.refineHighPrecisionUsingHalleysMethod = settings.isRefineHighPrecisionUsingHalleysMethod();
+    }
 
 
-    //    private Date evaluationDate_;
-    //    private    boolean enforcesTodaysHistoricFixings_;
-    //
-    //      public SavedSettings(){
-    //    	  Date d = Configuration.getSystemConfiguration(null).getGlobalSettings().getEvaluationDate();
-    //    	  this.evaluationDate_ = DateFactory.getFactory().getDate(d.getDayOfMonth(), d.getMonth(), d.getYear());
-    //    	  enforcesTodaysHistoricFixings_ = Configuration.getSystemConfiguration(null).isEnforcesTodaysHistoricFixings();
-    //      }
     //
-    //      public void destroy(){
-    //    	  Configuration.getSystemConfiguration(null).getGlobalSettings().setEvaluationDate(this.evaluationDate_);
-    //    	  Configuration.getSystemConfiguration(null).setEnforcesTodaysHistoricFixings(this.enforcesTodaysHistoricFixings_);
-    //      }
+    // public methods
     //
-    //      @Override
-    //      public void finalize(){
-    //    	destroy();
-    //      }
-}
 
+    /**
+     * Writes the saved settings into the settings of the current thread
+     * <p>
+     * Observers of the evaluation date are notified only if it actually changes.
+     */
+    public void restore() {
+        final Settings settings = new Settings();
+        if (!settings.evaluationDate().eq(evaluationDate)) {
+            settings.setEvaluationDate(evaluationDate);
+        }
+        settings.setEnforcesTodaysHistoricFixings(enforcesTodaysHistoricFixings);
+        settings.setNegativeRates(negativeRates);
+        settings.setExtraSafetyChecks(extraSafetyChecks);
+        settings.setTodaysPayments(todaysPayments);
+        settings.setUseIndexedCoupon(useIndexedCoupon);
+        settings.setRefineHighPrecisionUsingHalleysMethod(refineHighPrecisionUsingHalleysMethod);
+    }
+
+}
@@ -0,0 +1,182 @@
+/*
+ Copyright (C) 2011 Richard Gomes
+
+ This source code is release under the BSD License.
+
+ This file is part of JQuantLib, a free-software/open-source library
+ for financial quantitative analysts and developers - http://jquantlib.org/
+
+ JQuantLib is free software: you can redistribute it and/or modify it
+ under the terms of the JQuantLib license.  You should have received a
+ copy of the license along with this program; if not, please email
+ <jquant-devel@lists.sourceforge.net>. The license is also available online at
+ <http://www.jquantlib.org/index.php/LICENSE.TXT>.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE.  See the license for more details.
+
+ JQuantLib is based on QuantLib. http://quantlib.org/
+ When applicable, the original copyright notice follows this notice.
+ */
+
+package org.jquantlib.math.autodiff;
+
+import org.jquantlib.QL;
+import org.jquantlib.math.distributions.Derivative;
+
+/**
+ * Real number which records operations on a {@link Tape} for reverse mode algorithmic differentiation
+ * <p>
+ * Instances are immutable: arithmetic operations return new instances which are recorded on the same Tape as
+ * <code>this</code>. Operations between variables recorded on different tapes are not allowed.
+ * <p>
+ * Example:
+ * <pre>
+ *   final Tape tape = new Tape();
+ *   final ADouble x = tape.variable(2.0);
+ *   final ADouble y = tape.variable(3.0);
+ *   final ADouble z = x.mul(y).add(x.exp());
+ *   tape.propagate(z);
+ *   double dzdx = x.adjoint(); // y + exp(x)
+ *   double dzdy = y.adjoint(); // x
+ * </pre>
+ *
+ * @see Tape
+ */
+public final class ADouble {
+
+    private final Tape tape;
+    private final int index;
+    private final double value;
+
+
+    //
+    // package private constructors
+    //
+
+    ADouble(final Tape tape, final int index, final double value) {
+        this.tape = tape;
+        this.index = index;
+        this.value = value;
+    }
+
+
+    //
+    // public methods
+    //
+
+    public double value() {
+        return value;
+    }
+
+    /**
+     * @return the derivative of the result last passed to {@link Tape#propagate(ADouble)} with respect to <code>this</code>
+     */
+    public double adjoint() {
+        return tape.adjoint(index);
+    }
+
+    public Tape tape() {
+        return tape;
+    }
+
+    int index() {
+        return index;
+    }
+
+
+    //
+    // Algebraic operations
+    //
+
+    public ADouble add(final ADouble another) {
+        check(another);
+        return new ADouble(tape, tape.record(index, 1.0, another.index, 1.0), value + another.value);
+    }
+
+    public ADouble add(final double scalar) {
+        return new ADouble(tape, tape.record(index, 1.0, -1, 0.0), value + scalar);
+    }
+
+    public ADouble sub(final ADouble another) {
+        check(another);
+        return new ADouble(tape, tape.record(index, 1.0, another.index, -1.0), value - another.value);
+    }
+
+    public ADouble sub(final double scalar) {
+        return new ADouble(tape, tape.record(index, 1.0, -1, 0.0), value - scalar);
+    }
+
+    public ADouble mul(final ADouble another) {
+        check(another);
+        return new ADouble(tape, tape.record(index, another.value, another.index, value), value * another.value);
+    }
+
+    public ADouble mul(final double scalar) {
+        return new ADouble(tape, tape.record(index, scalar, -1, 0.0), value * scalar);
+    }
+
+    public ADouble div(final ADouble another) {
+        check(another);
+        final double result = value / another.value;
+        return new ADouble(tape, tape.record(index, 1.0/another.value, another.index, -result/another.value), result);
+    }
+
+    public ADouble div(final double scalar) {
+        return new ADouble(tape, tape.record(index, 1.0/scalar, -1, 0.0), value / scalar);
+    }
+
+    public ADouble negative() {
+        return new ADouble(tape, tape.record(index, -1.0, -1, 0.0), -value);
+    }
+
+
+    //
+    // Elementary functions
+    //
+
+    public ADouble exp() {
+        final double result = Math.exp(value);
+        return new ADouble(tape, tape.record(index, result, -1, 0.0), result);
+    }
+
+    public ADouble log() {
+        return new ADouble(tape, tape.record(index, 1.0/value, -1, 0.0), Math.log(value));
+    }
+
+    public ADouble sqrt() {
+        final double result = Math.sqrt(value);
+        return new ADouble(tape, tape.record(index, 0.5/result, -1, 0.0), result);
+    }
+
+    /**
+     * Applies a differentiable function, such as a cumulative distribution function
+     *
+     * @param f is a function which also provides its first derivative
+     * @return f(this)
+     */
+    public ADouble apply(final Derivative f) {
+        return new ADouble(tape, tape.record(index, f.derivative(value), -1, 0.0), f.op(value));
+    }
+
+
+    //
+    // overrides Object
+    //
+
+    @Override
+    public String toString() {
+        return String.valueOf(value);
+    }
+
+
+    //
+    // private methods
+    //
+
+    private void check(final ADouble another) {
+        QL.require(tape == another.tape, "variables belong to different tapes"); // TODO: message
+    }
+
+}
@@ -0,0 +1,193 @@
+/*
+ Copyright (C) 2011 Richard Gomes
+
+ This source code is release under the BSD License.
+
+ This file is part of JQuantLib, a free-software/open-source library
+ for financial quantitative analysts and developers - http://jquantlib.org/
+
+ JQuantLib is free software: you can redistribute it and/or modify it
+ under the terms of the JQuantLib license.  You should have received a
+ copy of the license along with this program; if not, please email
+ <jquant-devel@lists.sourceforge.net>. The license is also available online at
+ <http://www.jquantlib.org/index.php/LICENSE.TXT>.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE.  See the license for more details.
+
+ JQuantLib is based on QuantLib. http://quantlib.org/
+ When applicable, the original copyright notice follows this notice.
+ */
+
+package org.jquantlib.math.autodiff;
+
+import java.util.Arrays;
+
+import org.jquantlib.QL;
+
+/**
+ * Tape for reverse mode algorithmic differentiation
+ * <p>
+ * Every operation performed on {@link ADouble} instances is recorded on a Tape as a node which keeps the indexes of its
+ * arguments and the partial derivatives of the operation with respect to them. After a calculation is performed,
+ * {@link #propagate(ADouble)} sweeps the tape backwards once and obtains derivatives of the result with respect to all
+ * variables, whatever their number.
+ * <p>
+ * Nodes are stored in parallel primitive arrays, which are reused after {@link #clear()} is called. This way, repeated
+ * calculations do not allocate anything but the {@link ADouble} handles themselves.
+ *
+ * @note This class is not thread-safe
+ *
+ * @see ADouble
+ */
+public class Tape {
+
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int NONE = -1;
+
+    //
+    // private fields
+    //
+
+    private int size;
+    private int[] arg1;
+    private int[] arg2;
+    private double[] partial1;
+    private double[] partial2;
+    private double[] adjoints;
+    private int propagated;
+
+
+    //
+    // public constructors
+    //
+
+    public Tape() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public Tape(final int capacity) {
+        QL.require(capacity > 0, "capacity must be positive"); // TODO: message
+        this.arg1 = new int[capacity];
+        this.arg2 = new int[capacity];
+        this.partial1 = new double[capacity];
+        this.partial2 = new double[capacity];
+        this.adjoints = new double[capacity];
+        this.size = 0;
+        this.propagated = NONE;
+    }
+
+
+    //
+    // public methods
+    //
+
+    /**
+     * Creates an independent variable, i.e: an input of a calculation whose sensitivity is required.
+     *
+     * @param value is the value of the variable
+     * @return a new variable recorded on this Tape
+     */
+    public ADouble variable(final double value) {
+        return new ADouble(this, record(NONE, 0.0, NONE, 0.0), value);
+    }
+
+    /**
+     * Creates independent variables, one per element of <code>values</code>
+     *
+     * @param values are the values of the variables
+     * @return new variables recorded on this Tape
+     */
+    public ADouble[] variables(final double[] values) {
+        final ADouble[] result = new ADouble[values.length];
+        for (int i=0; i<values.length; i++) {
+            result[i] = variable(values[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Calculates derivatives of <code>result</code> with respect to all nodes recorded before it.
+     * <p>
+     * Derivatives can be retrieved afterwards by {@link ADouble#adjoint()}.
+     *
+     * @param result is the dependent variable
+     */
+    public void propagate(final ADouble result) {
+        QL.require(result.tape() == this, "variable belongs to another tape"); // TODO: message
+        final int last = result.index();
+        Arrays.fill(adjoints, 0, last+1, 0.0);
+        adjoints[last] = 1.0;
+        for (int i=last; i>=0; i--) {
+            final double adjoint = adjoints[i];
+            if (adjoint != 0.0) {
+                if (arg1[i] != NONE) {
+                    adjoints[arg1[i]] += adjoint * partial1[i];
+                }
+                if (arg2[i] != NONE) {
+                    adjoints[arg2[i]] += adjoint * partial2[i];
+                }
+            }
+        }
+        this.propagated = last;
+    }
+
+    /**
+     * @return the number of nodes currently recorded
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Discards all recorded nodes, keeping allocated storage for later reuse
+     * <p>
+     * Variables created before this method is called must not be used afterwards.
+     */
+    public void clear() {
+        this.size = 0;
+        this.propagated = NONE;
+    }
+
+
+    //
+    // package private methods
+    //
+
+    /**
+     * Records an operation which depends on at most two arguments
+     *
+     * @return the index of the new node
+     */
+    int record(final int a1, final double p1, final int a2, final double p2) {
+        if (size == arg1.length) {
+            grow();
+        }
+        arg1[size] = a1;
+        partial1[size] = p1;
+        arg2[size] = a2;
+        partial2[size] = p2;
+        return size++;
+    }
+
+    double adjoint(final int index) {
+        QL.require(index <= propagated, "adjoints not propagated"); // TODO: message
+        return adjoints[index];
+    }
+
+
+    //
+    // private methods
+    //
+
+    private void grow() {
+        final int capacity = arg1.length * 2;
+        arg1 = Arrays.copyOf(arg1, capacity);
+        arg2 = Arrays.copyOf(arg2, capacity);
+        partial1 = Arrays.copyOf(partial1, capacity);
+        partial2 = Arrays.copyOf(partial2, capacity);
+        adjoints = Arrays.copyOf(adjoints, capacity);
+    }
+
+}
@@ -34,6 +34,11 @@ import org.jquantlib.math.randomnumbers.InverseCumulative;
  * The inverse normal cumulative distribution is a non-linear function for which
  * no closed-form solution exists. The function is continuous, monotonically increasing,
  * infinitely differentiable, and maps the open interval (0,1) to the whole real line.
+ * <p>
+ * Arrays of probabilities are better transformed by {@link #op(double[], double[])} or
+ * {@link #transform(double[], int, int)}, which evaluate the central region and the tails in separate passes.
+ * These methods work on scratch arrays owned by the instance, hence an instance must not be shared by threads which
+ * transform arrays concurrently.
  *
  * @see <a href="http://home.online.no/~pjacklam/notes/invnorm/">
  * 		An algorithm for computing the inverse normal cumulative distribution function</a>
@@ -44,6 +49,7 @@ import org.jquantlib.math.randomnumbers.InverseCumulative;
 public class InverseCumulativeNormal implements InverseCumulative {
 
     static final private String SIGMA_MUST_BE_POSITIVE = "sigma must be greater than 0.0";
+    static final private String INCOMPATIBLE_ARRAY_SIZES = "incompatible array sizes";
 
     //
     // static final private fields
@@ -80,6 +86,16 @@ public class InverseCumulativeNormal implements InverseCumulative {
     static final private double xlow = 0.02425;
     static final private double xhigh = 1.0 - xlow;
 
+    /**
+     * Number of elements processed by each pass of the bulk evaluation
+     */
+    static final private int BLOCK = 256;
+
+    /**
+     * Below this number of elements, the bulk evaluation does not pay off
+     */
+    static final private int MIN_BULK = 16;
+
 
     //
     // protected fields
@@ -95,6 +111,12 @@ public class InverseCumulativeNormal implements InverseCumulative {
 
     // refinement for higher precision
     private final boolean highPrecision;
+    private final CumulativeNormalDistribution f_;
+
+    // scratch arrays of the bulk evaluation, allocated on first use
+    private double[] x;
+    private double[] z;
+    private int[] tails;
 
 
     //
@@ -114,6 +136,7 @@ public class InverseCumulativeNormal implements InverseCumulative {
         this.average = average;
         this.sigma = sigma;
         this.highPrecision = new Settings().isRefineHighPrecisionUsingHalleysMethod();
+        this.f_ = highPrecision ? new CumulativeNormalDistribution() : null;
     }
 
 
@@ -131,46 +154,157 @@ public class InverseCumulativeNormal implements InverseCumulative {
         QL.require(sigma > 0.0 , SIGMA_MUST_BE_POSITIVE); // TODO: message
 
         double z;
-        double r;
+        if (x < xlow || x > xhigh) {
+            x = recover(x);
+            z = tail(x);
+        } else {
+            z = central(x);
+        }
+
+        if (highPrecision) {
+            z = refine(z, x);
+        }
+        return average + z * sigma;
+    }
+
+
+    //
+    // public methods
+    //
+
+    /**
+     * Computes the inverse cumulative normal distribution of all elements of <code>in</code>
+     * <p>
+     * The result is the same as calling {@link #op(double)} for every element, but the work is split into passes over
+     * blocks of elements: the central region is evaluated for all of them without branches, so that the loop can be
+     * vectorized by the JIT compiler, and elements which lie in the tails are then fixed in a separate pass.
+     * <code>in</code> and <code>out</code> may be the same array.
+     *
+     * @param in contains cumulative probabilities in (0, 1)
+     * @param out receives <code>average + z * sigma</code> for every element of <code>in</code>
+     */
+    public void op(final double[] in, final double[] out) /* @ReadOnly */{
+        QL.require(in.length == out.length, INCOMPATIBLE_ARRAY_SIZES); // TODO: message
+        op(in, 0, out, 0, in.length);
+    }
+
+
+    //
+    // implements InverseCumulative
+    //
+
+    @Override
+    public void transform(final double[] x, final int offset, final int length) /* @ReadOnly */{
+        op(x, offset, x, offset, length);
+    }
+
+
+    //
+    // private methods
+    //
 
+    private void op(final double[] in, final int inOffset, final double[] out, final int outOffset, final int length) {
+        QL.require(sigma > 0.0 , SIGMA_MUST_BE_POSITIVE); // TODO: message
+
+        if (length < MIN_BULK) {
+            for (int i = 0; i < length; i++) {
+                out[outOffset + i] = op(in[inOffset + i]);
+            }
+            return;
+        }
+
+        // Every pass reads and writes the same positions of the scratch arrays, which tells the JIT compiler that
+        // iterations are independent and can be vectorized, even when in and out are the same array
+        if (x == null) {
+            x = new double[BLOCK];
+            z = new double[BLOCK];
+            tails = new int[BLOCK];
+        }
+        final double[] x = this.x;
+        final double[] z = this.z;
+        final int[] tails = this.tails;
+        for (int start = 0; start < length; start += BLOCK) {
+            final int n = Math.min(BLOCK, length - start);
+            System.arraycopy(in, inOffset + start, x, 0, n);
+
+            // central region, for all elements and without branches
+            for (int i = 0; i < n; i++) {
+                z[i] = central(x[i]);
+            }
+
+            // elements which lie in the tails are collected with unconditional stores,
+            // so that the loop does not depend on branch prediction
+            int m = 0;
+            for (int i = 0; i < n; i++) {
+                tails[m] = i;
+                m += ((x[i] < xlow) | (x[i] > xhigh)) ? 1 : 0;
+            }
+            for (int k = 0; k < m; k++) {
+                final int i = tails[k];
+                x[i] = recover(x[i]);
+                z[i] = tail(x[i]);
+            }
+
+            if (highPrecision) {
+                for (int i = 0; i < n; i++) {
+                    z[i] = refine(z[i], x[i]);
+                }
+            }
+            for (int i = 0; i < n; i++) {
+                z[i] = average + z[i] * sigma;
+            }
+            System.arraycopy(z, 0, out, outOffset + start, n);
+        }
+    }
+
+    /**
+     * Tries to recover from numerical errors which take <code>x</code> slightly outside [0, 1]
+     */
+    private static double recover(final double x) {
         if (x < 0.0 || x > 1.0) {
             // try to recover if due to numerical error
-            if (Closeness.isCloseEnough(x, 1.0)) {
-                x = 1.0;
-            } else if (Math.abs(x) < Constants.QL_EPSILON) {
-                x = 0.0;
-            } else {
+            if (Closeness.isCloseEnough(x, 1.0))
+                return 1.0;
+            else if (Math.abs(x) < Constants.QL_EPSILON)
+                return 0.0;
+            else
                 throw new LibraryException(SIGMA_MUST_BE_POSITIVE); // QA:[RG]::verified
-            }
         }
+        return x;
+    }
+
+    /**
+     * Rational approximation for the central region u_low<=x<=u_high
+     */
+    private static double central(final double x) {
+        final double z = x-0.5;
+        final double r = z*z;
+        return (((((a1*r+a2)*r+a3)*r+a4)*r+a5)*r+a6)*z / (((((b1*r+b2)*r+b3)*r+b4)*r+b5)*r+1.0);
+    }
 
+    /**
+     * Rational approximation for the lower region 0<x<u_low and the upper region u_high<x<1
+     */
+    private static double tail(final double x) {
         if (x < xlow) {
-            // Rational approximation for the lower region 0<x<u_low
-            z = Math.sqrt(-2.0 * Math.log(x));
-            z = (((((c1*z+c2)*z+c3)*z+c4)*z+c5)*z+c6) / ((((d1*z+d2)*z+d3)*z+d4)*z+1.0);
-        } else if (x <= xhigh) {
-            // Rational approximation for the central region u_low<=x<=u_high
-            z = x-0.5;
-            r = z*z;
-            z = (((((a1*r+a2)*r+a3)*r+a4)*r+a5)*r+a6)*z / (((((b1*r+b2)*r+b3)*r+b4)*r+b5)*r+1.0);
+            final double z = Math.sqrt(-2.0 * Math.log(x));
+            return (((((c1*z+c2)*z+c3)*z+c4)*z+c5)*z+c6) / ((((d1*z+d2)*z+d3)*z+d4)*z+1.0);
         } else {
-            // Rational approximation for the upper region u_high<x<1
-            z = Math.sqrt(-2.0 * Math.log(1.0 - x));
-            z = -(((((c1*z+c2)*z+c3)*z+c4)*z+c5)*z+c6) / ((((d1*z+d2)*z+d3)*z+d4)*z+1.0);
+            final double z = Math.sqrt(-2.0 * Math.log(1.0 - x));
+            return -(((((c1*z+c2)*z+c3)*z+c4)*z+c5)*z+c6) / ((((d1*z+d2)*z+d3)*z+d4)*z+1.0);
         }
+    }
 
-        // The relative error of the approximation has absolute value less than 1.15e-9.
-        // One iteration of Halley's rational method (third order) gives full machine precision.
-        // #define REFINE_TO_FULL_MACHINE_PRECISION_USING_HALLEYS_METHOD
+    /**
+     * The relative error of the approximation has absolute value less than 1.15e-9.
+     * One iteration of Halley's rational method (third order) gives full machine precision.
+     */
+    private double refine(double z, final double x) {
         // error (f_(z) - x) divided by the cumulative's derivative
-        // r = (f_(z) - x) * M_SQRT2 *y M_SQRTPI * exp(0.5 * z*z);
-        if (highPrecision) {
-            final CumulativeNormalDistribution f_ = new CumulativeNormalDistribution();
-            // error
-            r = (f_.op(z)-x) * Constants.M_SQRT2 * Constants.M_SQRTPI * Math.exp(0.5*z*z);
-            //  Halley's method
-            z -= r/(1+0.5*z*r);
-        }
-        return average + z * sigma;
+        final double r = (f_.op(z)-x) * Constants.M_SQRT2 * Constants.M_SQRTPI * Math.exp(0.5*z*z);
+        //  Halley's method
+        z -= r/(1+0.5*z*r);
+        return z;
     }
+
 }
@@ -22,7 +22,7 @@
 
 package org.jquantlib.math.distributions;
 
-import org.jquantlib.math.Ops;
+import org.jquantlib.math.randomnumbers.InverseCumulative;
 
 /**
  * 
@@ -31,7 +31,7 @@ import org.jquantlib.math.Ops;
  */
 
 // TODO Add test case for MoroInverseCumulativeNormal class.
-public class MoroInverseCumulativeNormal extends NormalDistribution implements Ops.DoubleOp {
+public class MoroInverseCumulativeNormal extends NormalDistribution implements InverseCumulative {
 	
     //
     // static final fields (constants)
@@ -106,4 +106,17 @@ public class MoroInverseCumulativeNormal extends NormalDistribution implements O
         return average + result * sigma;
     }
 
+
+    //
+    // implements InverseCumulative
+    //
+
+    @Override
+    public void transform(final double[] x, final int offset, final int length) /* Read-only */ {
+        final int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            x[i] = op(x[i]);
+        }
+    }
+
 }
@@ -153,9 +153,42 @@ public class TabulatedGaussLegendre {
     }
 
 
-    // public int getOrder() {
-    //		return order_;
-    //	}
+    public int order() {
+        return order_;
+    }
+
+    /**
+     * Returns the abscissas on [-1, 1] in the order they are evaluated by {@link #evaluate(Ops.DoubleOp)}, so that the
+     * values of an integrand at the abscissas can be reused by several integrals
+     */
+    public double[] abscissas() {
+        final double[] x = new double[order_];
+        int k = 0;
+        if ((order_ & 1) != 0) {
+            x[k++] = x_[0];
+        }
+        for (int i = order_ & 1; i < n_; ++i) {
+            x[k++] = x_[i];
+            x[k++] = -x_[i];
+        }
+        return x;
+    }
+
+    /**
+     * Returns the weights of the abscissas returned by {@link #abscissas()}
+     */
+    public double[] weights() {
+        final double[] w = new double[order_];
+        int k = 0;
+        if ((order_ & 1) != 0) {
+            w[k++] = w_[0];
+        }
+        for (int i = order_ & 1; i < n_; ++i) {
+            w[k++] = w_[i];
+            w[k++] = w_[i];
+        }
+        return w;
+    }
 
 
     public void setOrder(final int order) {
@@ -42,11 +42,11 @@ package org.jquantlib.math.interpolations;
 
 import java.util.Arrays;
 
+import org.jquantlib.QL;
 import org.jquantlib.lang.exceptions.LibraryException;
 import org.jquantlib.math.Closeness;
 import org.jquantlib.math.interpolations.factories.Cubic;
 import org.jquantlib.math.matrixutilities.Array;
-import org.jquantlib.methods.finitedifferences.TridiagonalOperator;
 
 /**
  * Cubic interpolation between discrete points.
@@ -200,21 +200,55 @@ public class CubicInterpolation extends AbstractInterpolation {
     //
 
     public Array aCoefficients() /* @ReadOnly */ {
-        return new Array(((CubicInterpolationImpl)(super.impl)).va_);
+        return ((CubicInterpolationImpl)(super.impl)).coefficients(1);
     }
 
     public Array bCoefficients() /* @ReadOnly */ {
-        return new Array(((CubicInterpolationImpl)(super.impl)).vb_);
+        return ((CubicInterpolationImpl)(super.impl)).coefficients(2);
     }
 
     public Array cCoefficients() /* @ReadOnly */ {
-        return new Array(((CubicInterpolationImpl)(super.impl)).vc_);
+        return ((CubicInterpolationImpl)(super.impl)).coefficients(3);
     }
 
     public boolean[] monotonicityAdjustments() /* @ReadOnly */ {
         return ((CubicInterpolationImpl)(super.impl)).ma_.clone();
     }
 
+    /**
+     * Evaluates the interpolation at a sequence of abscissas in a single pass
+     * <p>
+     * Segments are located incrementally while walking <code>x</code>, which avoids a binary search per point.
+     *
+     * @param x are abscissas sorted in ascending order
+     * @param result receives interpolated values, and must be at least as long as <code>x</code>
+     *
+     * @throws IllegalArgumentException if <code>x</code> is not sorted or is out of range
+     */
+    public void op(final double[] x, final double[] result) /* @ReadOnly */ {
+        op(x, result, false);
+    }
+
+    /**
+     * Evaluates the interpolation at a sequence of abscissas in a single pass
+     * <p>
+     * Segments are located incrementally while walking <code>x</code>, which avoids a binary search per point.
+     *
+     * @param x are abscissas sorted in ascending order
+     * @param result receives interpolated values, and must be at least as long as <code>x</code>
+     * @param allowExtrapolation
+     *
+     * @throws IllegalArgumentException if <code>x</code> is not sorted or is out of range
+     */
+    public void op(final double[] x, final double[] result, final boolean allowExtrapolation) /* @ReadOnly */ {
+        QL.require(result.length >= x.length, "result is shorter than abscissas"); // TODO: message
+        if (x.length == 0) return;
+        // abscissas are sorted, so that checking both ends is enough
+        checkRange(x[0], allowExtrapolation);
+        checkRange(x[x.length-1], allowExtrapolation);
+        ((CubicInterpolationImpl)(super.impl)).op(x, result);
+    }
+
 
     //
     // private inner classes
@@ -222,6 +256,11 @@ public class CubicInterpolation extends AbstractInterpolation {
 
     private class CubicInterpolationImpl extends AbstractInterpolation.Impl {
 
+        /**
+         * Number of coefficients per segment in {@link #coeffs}
+         */
+        private static final int STRIDE = 4;
+
         //
         // private final fields
         //
@@ -236,12 +275,28 @@ public class CubicInterpolation extends AbstractInterpolation {
         private final double[]  vx_;
         private final double[]  vy_;
         private final double[]  vp_;
-        private final double[]  va_;
-        private final double[]  vb_;
-        private final double[]  vc_;
         private final boolean[] ma_; // monotonic adjustments
         private final int       n;
 
+        /**
+         * Polynomial coefficients packed by segment, so that an evaluation touches a single cache line.
+         * <p>
+         * Segment <i>i</i> occupies positions <i>4i</i> to <i>4i+3</i>, which hold <i>y<sub>i</sub></i>,
+         * <i>a<sub>i</sub></i>, <i>b<sub>i</sub></i> and <i>c<sub>i</sub></i>, where the interpolant in
+         * <i>[x<sub>i</sub>, x<sub>i+1</sub>]</i> is <i>y<sub>i</sub> + a<sub>i</sub>dx + b<sub>i</sub>dx<sup>2</sup> +
+         * c<sub>i</sub>dx<sup>3</sup></i> and <i>dx = x - x<sub>i</sub></i>.
+         */
+        private final double[]  coeffs;
+
+        // workspace reused by update(), so that updates do not allocate
+        private final double[]  dx;
+        private final double[]  S;
+        private final double[]  tmp;
+        private final double[]  lower;
+        private final double[]  diag;
+        private final double[]  upper;
+        private final double[]  gamma;
+
 
         //
         // protected constructors
@@ -264,11 +319,17 @@ public class CubicInterpolation extends AbstractInterpolation {
             this.n = vx_.length;
 
             this.vp_ = new double[n-1];
-            this.va_ = new double[n-1];
-            this.vb_ = new double[n-1];
-            this.vc_ = new double[n-1];
+            this.coeffs = new double[STRIDE*(n-1)];
             this.ma_ = new boolean[n];
 
+            this.dx    = new double[n-1];
+            this.S     = new double[n-1];
+            this.tmp   = new double[n];
+            this.lower = new double[n-1];
+            this.diag  = new double[n];
+            this.upper = new double[n-1];
+            this.gamma = new double[n];
+
             this.da = da;
             this.monotonic = monotonic;
             this.leftType    = leftCondition;
@@ -285,11 +346,6 @@ public class CubicInterpolation extends AbstractInterpolation {
         @Override
         public void update() {
 
-            // temporary variables
-            final double[] dx  = new double[n-1];
-            final double[] S   = new double[n-1];
-            double[] tmp = new double[n];
-
             for (int i=0; i<n-1; ++i) {
                 dx[i] = vx_[i+1] - vx_[i];
                 S[i] = (vy_[i+1] - vy_[i])/dx[i];
@@ -297,9 +353,10 @@ public class CubicInterpolation extends AbstractInterpolation {
 
             // first derivative approximation
             if (da==CubicInterpolation.DerivativeApprox.Spline) {
-                final TridiagonalOperator L = new TridiagonalOperator(n);
                 for (int i=1; i<n-1; ++i) {
-                    L.setMidRow(i, dx[i], 2.0*(dx[i]+dx[i-1]), dx[i-1]);
+                    lower[i-1] = dx[i];
+                    diag[i]    = 2.0*(dx[i]+dx[i-1]);
+                    upper[i]   = dx[i-1];
                     tmp[i] = 3.0*(dx[i]*S[i-1] + dx[i-1]*S[i]);
                 }
 
@@ -307,17 +364,19 @@ public class CubicInterpolation extends AbstractInterpolation {
                 switch (leftType) {
                   case NotAKnot:
                     // ignoring end condition value
-                    L.setFirstRow(dx[1]*(dx[1]+dx[0]),
-                                  (dx[0]+dx[1])*(dx[0]+dx[1]));
+                    diag[0]  = dx[1]*(dx[1]+dx[0]);
+                    upper[0] = (dx[0]+dx[1])*(dx[0]+dx[1]);
                     tmp[0] = S[0]*dx[1]*(2.0*dx[1]+3.0*dx[0]) +
                              S[1]*dx[0]*dx[0];
                     break;
                   case FirstDerivative:
-                    L.setFirstRow(1.0, 0.0);
+                    diag[0]  = 1.0;
+                    upper[0] = 0.0;
                     tmp[0] = leftValue;
                     break;
                   case SecondDerivative:
-                    L.setFirstRow(2.0, 1.0);
+                    diag[0]  = 2.0;
+                    upper[0] = 1.0;
                     tmp[0] = 3.0*S[0] - leftValue*dx[0]/2.0;
                     break;
                   case Periodic:
@@ -332,17 +391,19 @@ public class CubicInterpolation extends AbstractInterpolation {
                 switch (rightType) {
                   case NotAKnot:
                     // ignoring end condition value
-                    L.setLastRow(-(dx[n-2]+dx[n-3])*(dx[n-2]+dx[n-3]),
-                                 -dx[n-3]*(dx[n-3]+dx[n-2]));
+                    lower[n-2] = -(dx[n-2]+dx[n-3])*(dx[n-2]+dx[n-3]);
+                    diag[n-1]  = -dx[n-3]*(dx[n-3]+dx[n-2]);
                     tmp[n-1] = -S[n-3]*dx[n-2]*dx[n-2] -
                                  S[n-2]*dx[n-3]*(3.0*dx[n-2]+2.0*dx[n-3]);
                     break;
                   case FirstDerivative:
-                    L.setLastRow(0.0, 1.0);
+                    lower[n-2] = 0.0;
+                    diag[n-1]  = 1.0;
                     tmp[n-1] = rightValue;
                     break;
                   case SecondDerivative:
-                    L.setLastRow(1.0, 2.0);
+                    lower[n-2] = 1.0;
+                    diag[n-1]  = 2.0;
                     tmp[n-1] = 3.0*S[n-2] + rightValue*dx[n-2]/2.0;
                     break;
                   case Periodic:
@@ -354,7 +415,7 @@ public class CubicInterpolation extends AbstractInterpolation {
                 }
 
                 // solve the system
-                tmp = L.solveFor(tmp);
+                solveTridiagonal();
             } else { // local schemes
                 if (n==2) {
                     tmp[0] = tmp[1] = S[0];
@@ -454,15 +515,17 @@ public class CubicInterpolation extends AbstractInterpolation {
 
 
             // cubic coefficients
-            for (int i=0; i<n-1; ++i) {
-                va_[i] = tmp[i];
-                vb_[i] = (3.0*S[i] - tmp[i+1] - 2.0*tmp[i])/dx[i];
-                vc_[i] = (tmp[i+1] + tmp[i] - 2.0*S[i])/(dx[i]*dx[i]);
+            for (int i=0, k=0; i<n-1; ++i, k+=STRIDE) {
+                coeffs[k]   = vy_[i];
+                coeffs[k+1] = tmp[i];
+                coeffs[k+2] = (3.0*S[i] - tmp[i+1] - 2.0*tmp[i])/dx[i];
+                coeffs[k+3] = (tmp[i+1] + tmp[i] - 2.0*S[i])/(dx[i]*dx[i]);
             }
 
             vp_[0] = 0.0;
-            for (int i=1; i<n-1; ++i) {
-                vp_[i] = vp_[i-1] + dx[i-1] * (vy_[i-1] + dx[i-1] * (va_[i-1]/2.0 + dx[i-1] * (vb_[i-1]/3.0 + dx[i-1] * vc_[i-1]/4.0)));
+            for (int i=1, k=0; i<n-1; ++i, k+=STRIDE) {
+                final double h = dx[i-1];
+                vp_[i] = vp_[i-1] + h * (coeffs[k] + h * (coeffs[k+1]/2.0 + h * (coeffs[k+2]/3.0 + h * coeffs[k+3]/4.0)));
             }
         }
 
@@ -470,32 +533,104 @@ public class CubicInterpolation extends AbstractInterpolation {
         @Override
         public double op(final double val) {
             final int j = locate(val);
+            final int k = STRIDE*j;
             final double dx = val - vx_[j];
-            return vy_[j] + dx*(va_[j] + dx*(vb_[j] + dx*vc_[j]));
+            return coeffs[k] + dx*(coeffs[k+1] + dx*(coeffs[k+2] + dx*coeffs[k+3]));
         }
 
 
         @Override
         public double primitive(final double val) {
             final int j = locate(val);
+            final int k = STRIDE*j;
             final double dx = val - vx_[j];
-            return vp_[j] + dx*(vy_[j] + dx*(va_[j]/2.0 + dx*(vb_[j]/3.0 + dx*vc_[j]/4.0)));
+            return vp_[j] + dx*(coeffs[k] + dx*(coeffs[k+1]/2.0 + dx*(coeffs[k+2]/3.0 + dx*coeffs[k+3]/4.0)));
         }
 
 
         @Override
         public double derivative(final double x) {
             final int j = locate(x);
+            final int k = STRIDE*j;
             final double dx = x - vx_[j];
-            return va_[j] + (2.0*vb_[j] + 3.0*vc_[j]*dx)*dx;
+            return coeffs[k+1] + (2.0*coeffs[k+2] + 3.0*coeffs[k+3]*dx)*dx;
         }
 
 
         @Override
         public double secondDerivative(final double val) {
             final int j = locate(val);
+            final int k = STRIDE*j;
             final double dx = val - vx_[j];
-            return 2.0*vb_[j] + 6.0*vc_[j]*dx;
+            return 2.0*coeffs[k+2] + 6.0*coeffs[k+3]*dx;
+        }
+
+
+        /**
+         * Locates the segment by a binary search straight on the abscissas
+         */
+        @Override
+        protected int locate(final double x) /* @ReadOnly */ {
+            if (x < vx_[0])
+                return 0;
+            if (x >= vx_[n-2])
+                return n-2;
+            // invariant: vx_[lo] <= x < vx_[hi]
+            int lo = 0, hi = n-2;
+            while (hi-lo > 1) {
+                final int mid = (lo+hi) >>> 1;
+                if (x < vx_[mid]) {
+                    hi = mid;
+                } else {
+                    lo = mid;
+                }
+            }
+            return lo;
+        }
+
+
+        //
+        // private methods
+        //
+
+        private void op(final double[] x, final double[] result) {
+            int j = locate(x[0]);
+            for (int i=0; i<x.length; i++) {
+                final double val = x[i];
+                QL.require(i==0 || val >= x[i-1], "abscissas must be sorted"); // TODO: message
+                while (j < n-2 && val >= vx_[j+1]) {
+                    j++;
+                }
+                final int k = STRIDE*j;
+                final double dx = val - vx_[j];
+                result[i] = coeffs[k] + dx*(coeffs[k+1] + dx*(coeffs[k+2] + dx*coeffs[k+3]));
+            }
+        }
+
+        private Array coefficients(final int which) {
+            final Array result = new Array(n-1);
+            for (int i=0; i<n-1; i++) {
+                result.$[i] = coeffs[STRIDE*i+which];
+            }
+            return result;
+        }
+
+        /**
+         * Solves the tridiagonal system stored in {@link #lower}, {@link #diag} and {@link #upper} in place on {@link #tmp}
+         */
+        private void solveTridiagonal() {
+            double bet = diag[0];
+            QL.ensure(bet != 0.0, "division by zero"); // TODO: message
+            tmp[0] = tmp[0] / bet;
+            for (int j=1; j<n; j++) {
+                gamma[j] = upper[j-1] / bet;
+                bet = diag[j] - lower[j-1] * gamma[j];
+                QL.ensure(bet != 0.0, "division by zero"); // TODO: message
+                tmp[j] = (tmp[j] - lower[j-1] * tmp[j-1]) / bet;
+            }
+            for (int j=n-2; j>=0; j--) {
+                tmp[j] -= gamma[j+1] * tmp[j+1];
+            }
         }
 
     }
@@ -81,6 +81,30 @@ public class Cubic implements Interpolation.Interpolator {
         this.rightValue = rightConditionValue;
     }
 
+    public DerivativeApprox derivativeApprox() /* @ReadOnly */ {
+        return da;
+    }
+
+    public boolean monotonic() /* @ReadOnly */ {
+        return monotonic;
+    }
+
+    public BoundaryCondition leftCondition() /* @ReadOnly */ {
+        return leftType;
+    }
+
+    public double leftConditionValue() /* @ReadOnly */ {
+        return leftValue;
+    }
+
+    public BoundaryCondition rightCondition() /* @ReadOnly */ {
+        return rightType;
+    }
+
+    public double rightConditionValue() /* @ReadOnly */ {
+        return rightValue;
+    }
+
     @Override
     public final boolean global()     { return true; }
 
@@ -53,6 +53,7 @@ import org.jquantlib.math.Ops.BinaryDoubleOp;
 import org.jquantlib.math.Ops.DoubleOp;
 import org.jquantlib.math.functions.LessThanPredicate;
 import org.jquantlib.math.matrixutilities.internal.Address;
+import org.jquantlib.math.matrixutilities.internal.DirectAddress;
 import org.jquantlib.math.matrixutilities.internal.DirectArrayRowAddress;
 
 
@@ -706,6 +707,11 @@ public class Array extends Cells<Address.ArrayAddress> implements Cloneable, Ite
     public double dotProduct(final Array another, final int from, final int to) {
         final int offset = another.addr.isFortran() ? 1 : 0;
         QL.require(from >= offset && to >= from && to <= another.size()+offset, INVALID_ARGUMENTS); // QA:[RG]::verified
+        if (to-from > 1 && this.addr instanceof DirectAddress && another.addr instanceof DirectAddress) {
+            final int begin = another.addr.op(from);
+            final ArrayView view = new ArrayView(another.$, begin, another.addr.op(from+1)-begin, to-from);
+            return view(to-from).dotProduct(view);
+        }
         final Address.ArrayAddress.ArrayOffset toff = this.addr.offset();
         final Address.ArrayAddress.ArrayOffset aoff = another.addr.offset(from);
         double sum = 0.0;
@@ -979,6 +985,15 @@ public class Array extends Cells<Address.ArrayAddress> implements Cloneable, Ite
         return range(col0, cols());
     }
 
+    /**
+     * Returns a view on all elements of <code>this</code> Array
+     *
+     * @see ArrayView
+     */
+    public ArrayView view() {
+        return view(size());
+    }
+
     public Array range(final int col0, final int col1) {
         final int offset = addr.isFortran() ? 1 : 0;
         QL.require(col0 >= offset && col0 < cols()+offset && col1 >= offset && col1 <= cols()+offset, Address.INVALID_COLUMN_INDEX);
@@ -991,6 +1006,14 @@ public class Array extends Cells<Address.ArrayAddress> implements Cloneable, Ite
             : new Array(this.rows, this.cols, this.$, this.addr.toFortran());
     }
 
+    private ArrayView view(final int size) {
+        QL.require(addr instanceof DirectAddress, NON_CONTIGUOUS_DATA);
+        final int first = begin();
+        final int start = addr.op(first);
+        final int stride = size > 1 ? addr.op(first+1) - start : 1;
+        return new ArrayView($, start, stride, size);
+    }
+
     public Array toJava() {
         return this.addr.isFortran()
             ?  new Array(this.rows, this.cols, this.$, this.addr.toJava())
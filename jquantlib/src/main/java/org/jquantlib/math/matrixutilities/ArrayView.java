@@ -0,0 +1,150 @@
+/*
+ Copyright (C) 2011 Richard Gomes
+
+ This source code is release under the BSD License.
+
+ This file is part of JQuantLib, a free-software/open-source library
+ for financial quantitative analysts and developers - http://jquantlib.org/
+
+ JQuantLib is free software: you can redistribute it and/or modify it
+ under the terms of the JQuantLib license.  You should have received a
+ copy of the license along with this program; if not, please email
+ <jquant-devel@lists.sourceforge.net>. The license is also available online at
+ <http://www.jquantlib.org/index.php/LICENSE.TXT>.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE.  See the license for more details.
+
+ JQuantLib is based on QuantLib. http://quantlib.org/
+ When applicable, the original copyright notice follows this notice.
+ */
+
+package org.jquantlib.math.matrixutilities;
+
+import org.jquantlib.QL;
+
+/**
+ * A lightweight view on equally spaced elements of the storage of an {@link Array} or a {@link Matrix}
+ * <p>
+ * A view shares the storage of the object it was obtained from, therefore changes are visible both ways. Differently from
+ * {@link Matrix#rangeRow(int)} and {@link Matrix#rangeCol(int)}, element addresses are calculated directly from a starting
+ * position and a stride, without any virtual calls. Views are intended to be used by numerical methods which slice
+ * rows and columns in their innermost loops.
+ * <p>
+ * Elements of a view are always indexed from 0, regardless of the addressing of the object it was obtained from.
+ * Indexes are not verified against the size of the view.
+ *
+ * @see Array#view()
+ * @see Matrix#rowView(int)
+ * @see Matrix#colView(int)
+ */
+public final class ArrayView {
+
+    //
+    // private final fields
+    //
+
+    private final double[] data;
+    private final int begin;
+    private final int stride;
+    private final int size;
+
+
+    //
+    // package private constructors
+    //
+
+    ArrayView(final double[] data, final int begin, final int stride, final int size) {
+        this.data = data;
+        this.begin = begin;
+        this.stride = stride;
+        this.size = size;
+    }
+
+
+    //
+    // public methods
+    //
+
+    public int size() {
+        return size;
+    }
+
+    public double get(final int index) {
+        return data[begin + index*stride];
+    }
+
+    public void set(final int index, final double value) {
+        data[begin + index*stride] = value;
+    }
+
+    /**
+     * Copies all elements of this view into <code>dst</code>, starting at position <code>pos</code>
+     *
+     * @return dst
+     */
+    public double[] copyTo(final double[] dst, final int pos) {
+        QL.require(pos >= 0 && pos + size <= dst.length, Cells.NOT_ENOUGH_STORAGE); // TODO: message
+        if (stride == 1) {
+            System.arraycopy(data, begin, dst, pos, size);
+        } else {
+            for (int i = 0, j = begin; i < size; i++, j += stride) {
+                dst[pos+i] = data[j];
+            }
+        }
+        return dst;
+    }
+
+    /**
+     * Returns a copy of the elements of this view
+     */
+    public double[] toDoubleArray() {
+        return copyTo(new double[size], 0);
+    }
+
+    /**
+     * Overwrites all elements of this view with elements of <code>src</code>, starting at position <code>pos</code>
+     *
+     * @return this
+     */
+    public ArrayView copyFrom(final double[] src, final int pos) {
+        QL.require(pos >= 0 && pos + size <= src.length, Cells.NOT_ENOUGH_STORAGE); // TODO: message
+        if (stride == 1) {
+            System.arraycopy(src, pos, data, begin, size);
+        } else {
+            for (int i = 0, j = begin; i < size; i++, j += stride) {
+                data[j] = src[pos+i];
+            }
+        }
+        return this;
+    }
+
+    public double dotProduct(final ArrayView another) {
+        QL.require(size == another.size, Cells.ARRAY_IS_INCOMPATIBLE); // TODO: message
+        final double[] a = this.data;
+        final double[] b = another.data;
+        double sum = 0.0;
+        if (this.stride == 1 && another.stride == 1) {
+            final int offset = another.begin - this.begin;
+            for (int i = begin; i < begin + size; i++) {
+                sum += a[i] * b[i+offset];
+            }
+        } else {
+            for (int i = 0, j = this.begin, k = another.begin; i < size; i++, j += this.stride, k += another.stride) {
+                sum += a[j] * b[k];
+            }
+        }
+        return sum;
+    }
+
+    public double dotProduct(final double[] another, final int pos) {
+        QL.require(pos >= 0 && pos + size <= another.length, Cells.ARRAY_IS_INCOMPATIBLE); // TODO: message
+        double sum = 0.0;
+        for (int i = 0, j = begin; i < size; i++, j += stride) {
+            sum += data[j] * another[pos+i];
+        }
+        return sum;
+    }
+
+}
@@ -52,6 +52,11 @@ import org.jquantlib.lang.exceptions.LibraryException;
  * <P>
  * If the matrix is not symmetric or positive definite, the constructor returns a partial decomposition and sets an internal flag
  * that may be queried by the isSPD() method.
+ * <P>
+ * The factor is calculated column by column. Elements below the diagonal of a column are independent of each other and are
+ * calculated in parallel for large matrices. When the decomposed matrix changes by a rank-one term, the factor can be
+ * modified in <i>O(n<sup>2</sup>)</i> operations by {@link #update(Array)} and {@link #downdate(Array)}, instead of being
+ * calculated again in <i>O(n<sup>3</sup>)</i> operations.
  *
  * @note  This class is adapted from JAMA
  * @see <a href="http://math.nist.gov/javanumerics/jama/">JAMA</a>
@@ -64,6 +69,11 @@ public class CholeskyDecomposition {
 
     private final static String MATRIX_IS_NOT_SIMMETRIC_POSITIVE = "Matrix is not symmetric positive definite.";
 
+    /**
+     * Minimum number of multiply-add operations per column which justifies splitting it among threads
+     */
+    private final static int PARALLEL_THRESHOLD = 1 << 16;
+
 
     //
     // private fields
@@ -94,25 +104,52 @@ public class CholeskyDecomposition {
 
         this.n = A.rows();
         this.L = new Matrix(n, n);
-        this.isspd = (A.rows() == A.cols());
 
-        // Main loop.
+        final double[] a = A.denseData();
+        final double[] l = L.$;
+
+        boolean symmetric = true;
+        for (int j = 0; j < n && symmetric; j++) {
+            for (int k = 0; k < j; k++) {
+                if (a[k*n+j] != a[j*n+k]) {
+                    symmetric = false;
+                    break;
+                }
+            }
+        }
+        this.isspd = symmetric;
+
+        // Main loop: column j is obtained from columns to its left.
         for (int j = 0; j < n; j++) {
+            final int rowj = j*n;
             double d = 0.0;
             for (int k = 0; k < j; k++) {
-                double s = 0.0;
-                for (int i = 0; i < k; i++) {
-                    s += L.$[L.addr.op(k, i)] * L.$[L.addr.op(j, i)];
-                }
-                L.$[L.addr.op(j, k)] = s = (A.$[A.addr.op(j, k)] - s) / L.$[L.addr.op(k, k)];
-                d = d + s * s;
-                isspd = isspd & (A.$[A.addr.op(k, j)] == A.$[A.addr.op(j, k)]);
+                d += l[rowj+k] * l[rowj+k];
             }
-            d = A.$[A.addr.op(j, j)] - d;
+            d = a[rowj+j] - d;
             isspd = isspd && (d > 0.0); //FINDBUGS:: NS_DANGEROUS_NON_SHORT_CIRCUIT (solved)
-            L.$[L.addr.op(j, j)] = Math.sqrt(Math.max(d, 0.0));
-            for (int k = j + 1; k < n; k++) {
-                L.$[L.addr.op(j, k)] = 0.0;
+            final double ljj = Math.sqrt(Math.max(d, 0.0));
+            l[rowj+j] = ljj;
+
+            final int column = j;
+            final Kernels.Body body = new Kernels.Body() {
+                @Override
+                public void run(final int from, final int to) {
+                    for (int i = column+1+from; i < column+1+to; i++) {
+                        final int rowi = i*n;
+                        double s = 0.0;
+                        for (int k = 0; k < column; k++) {
+                            s += l[rowj+k] * l[rowi+k];
+                        }
+                        l[rowi+column] = (a[rowi+column] - s) / ljj;
+                    }
+                }
+            };
+            final int below = n-j-1;
+            if ((long) below * j >= PARALLEL_THRESHOLD) {
+                Kernels.parallelFor(below, Math.max(1, PARALLEL_THRESHOLD / Math.max(j, 1)), body);
+            } else {
+                body.run(0, below);
             }
         }
     }
@@ -139,6 +176,64 @@ public class CholeskyDecomposition {
         return L.clone();
     }
 
+    /**
+     * Modifies the factor so that it decomposes <i>A + x&middot;x'</i>
+     *
+     * @param x is an Array with as many elements as A has rows
+     * @return this
+     */
+    public CholeskyDecomposition update(final Array x) {
+        rankOne(x, 1.0);
+        return this;
+    }
+
+    /**
+     * Modifies the factor so that it decomposes <i>A - x&middot;x'</i>
+     *
+     * @param x is an Array with as many elements as A has rows
+     * @return this
+     * @exception LibraryException if the resulting matrix is not positive definite, in which case the factor is not modified
+     */
+    public CholeskyDecomposition downdate(final Array x) {
+        rankOne(x, -1.0);
+        return this;
+    }
+
+    /**
+     * Modifies the factor so that it decomposes the matrix obtained by adding <code>delta</code> to elements
+     * <i>(i, j)</i> and <i>(j, i)</i> of A, like when a correlation is moved
+     * <p>
+     * The symmetric change is decomposed into a rank-one update and a rank-one downdate.
+     *
+     * @return this
+     * @exception LibraryException if the resulting matrix is not positive definite, in which case the factor is not modified
+     */
+    public CholeskyDecomposition update(final int i, final int j, final double delta) {
+        QL.require(i >= 0 && i < n && j >= 0 && j < n && i != j, Matrix.INVALID_ARGUMENTS); // TODO: message
+        if (delta == 0.0)
+            return this;
+        final double h = Math.sqrt(0.5 * Math.abs(delta));
+        final Array plus = new Array(n);
+        plus.$[i] = h;
+        plus.$[j] = h;
+        final Array minus = new Array(n);
+        minus.$[i] = h;
+        minus.$[j] = -h;
+
+        final double[] saved = L.$.clone();
+        try {
+            if (delta > 0.0) {
+                update(plus).downdate(minus);
+            } else {
+                update(minus).downdate(plus);
+            }
+        } catch (final LibraryException e) {
+            System.arraycopy(saved, 0, L.$, 0, saved.length);
+            throw e;
+        }
+        return this;
+    }
+
     /**
      * Solve A*X = B
      *
@@ -180,4 +275,37 @@ public class CholeskyDecomposition {
         return X;
     }
 
+
+    //
+    // private methods
+    //
+
+    /**
+     * Calculates the factor of <i>L&middot;L' + sign&middot;x&middot;x'</i> by a sequence of rotations
+     */
+    private void rankOne(final Array x, final double sign) {
+        QL.require(x.size() == n, Matrix.ARRAY_IS_INCOMPATIBLE); // QA:[RG]::verified
+        if (!this.isSPD())
+            throw new LibraryException(MATRIX_IS_NOT_SIMMETRIC_POSITIVE);
+
+        final double[] w = x.view().toDoubleArray();
+        final double[] l = L.$.clone();
+        for (int k = 0; k < n; k++) {
+            final double lkk = l[k*n+k];
+            final double r2 = lkk*lkk + sign*w[k]*w[k];
+            if (!(r2 > 0.0))
+                throw new LibraryException(MATRIX_IS_NOT_SIMMETRIC_POSITIVE);
+            final double r = Math.sqrt(r2);
+            final double c = r / lkk;
+            final double s = w[k] / lkk;
+            l[k*n+k] = r;
+            for (int i = k+1; i < n; i++) {
+                final int ik = i*n+k;
+                l[ik] = (l[ik] + sign*s*w[i]) / c;
+                w[i] = c*w[i] - s*l[ik];
+            }
+        }
+        System.arraycopy(l, 0, L.$, 0, l.length);
+    }
+
 }
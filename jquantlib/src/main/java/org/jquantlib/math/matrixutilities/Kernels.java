@@ -0,0 +1,257 @@
+/*
+ Copyright (C) 2011 Richard Gomes
+
+ This source code is release under the BSD License.
+
+ This file is part of JQuantLib, a free-software/open-source library
+ for financial quantitative analysts and developers - http://jquantlib.org/
+
+ JQuantLib is free software: you can redistribute it and/or modify it
+ under the terms of the JQuantLib license.  You should have received a
+ copy of the license along with this program; if not, please email
+ <jquant-devel@lists.sourceforge.net>. The license is also available online at
+ <http://www.jquantlib.org/index.php/LICENSE.TXT>.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE.  See the license for more details.
+
+ JQuantLib is based on QuantLib. http://quantlib.org/
+ When applicable, the original copyright notice follows this notice.
+ */
+
+package org.jquantlib.math.matrixutilities;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.jquantlib.util.ThreadPool;
+
+/**
+ * Low level kernels which operate on dense, row-major <code>double[]</code> storage
+ * <p>
+ * These methods do not perform any validation: callers are responsible for passing buffers which are large enough and for
+ * resolving aliasing between inputs and outputs.
+ *
+ * @see Matrix#mul(Matrix)
+ * @see Matrix#transpose()
+ * @see CholeskyDecomposition
+ * @see SymmetricSchurDecomposition
+ */
+final class Kernels {
+
+    //
+    // private static final fields
+    //
+
+    /**
+     * Number of terms of the inner product processed at once, so that a panel of the right operand stays in cache
+     */
+    private static final int K_BLOCK = 64;
+
+    /**
+     * Number of columns of the right operand processed at once
+     */
+    private static final int J_BLOCK = 256;
+
+    /**
+     * Side of square tiles employed by transpositions
+     */
+    private static final int T_BLOCK = 32;
+
+    /**
+     * Products smaller than this number of multiply-add operations are not worth splitting among threads
+     */
+    private static final long PARALLEL_THRESHOLD = 1L << 20;
+
+
+    //
+    // private constructors
+    //
+
+    private Kernels() {
+        // only static methods
+    }
+
+
+    //
+    // package private static methods
+    //
+
+    /**
+     * Calculates <i>c = a &times; b</i>, where <i>a</i> is <i>n &times; m</i>, <i>b</i> is <i>m &times; p</i> and
+     * <i>c</i> is <i>n &times; p</i>
+     * <p>
+     * Large products are split by blocks of rows among threads of the {@link ThreadPool}. Every element of the result is
+     * always accumulated in the same order, therefore results do not depend on the number of threads.
+     *
+     * @param c must not share storage with <i>a</i> or <i>b</i>
+     */
+    static void gemm(final double[] a, final double[] b, final double[] c, final int n, final int m, final int p) {
+        final int parallelism = ThreadPool.parallelism();
+        if ((long) n * m * p >= PARALLEL_THRESHOLD && n > 2 && parallelism > 1) {
+            // keep pairs of rows together, as expected by the micro kernel
+            final int rows = Math.max(2, ((n + parallelism - 1) / parallelism + 1) & ~1);
+            final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+            for (int row0 = 0; row0 < n; row0 += rows) {
+                final int from = row0;
+                final int to = Math.min(row0 + rows, n);
+                tasks.add(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        gemm(a, b, c, m, p, from, to);
+                        return null;
+                    }
+                });
+            }
+            ThreadPool.invokeAll(tasks);
+        } else {
+            gemm(a, b, c, m, p, 0, n);
+        }
+    }
+
+    /**
+     * Stores the transpose of a <i>rows &times; cols</i> matrix <i>a</i> into <i>b</i>
+     *
+     * @param b must not share storage with <i>a</i>
+     */
+    static void transpose(final double[] a, final double[] b, final int rows, final int cols) {
+        for (int ii = 0; ii < rows; ii += T_BLOCK) {
+            final int iEnd = Math.min(ii + T_BLOCK, rows);
+            for (int jj = 0; jj < cols; jj += T_BLOCK) {
+                final int jEnd = Math.min(jj + T_BLOCK, cols);
+                for (int i = ii; i < iEnd; i++) {
+                    int src = i*cols + jj;
+                    int dst = jj*rows + i;
+                    for (int j = jj; j < jEnd; j++) {
+                        b[dst] = a[src++];
+                        dst += rows;
+                    }
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Runs <code>body</code> over the interval <i>[0, n)</i>, split in pieces of at least <code>grain</code> indexes which are
+     * distributed among threads of the {@link ThreadPool} when there are enough of them
+     */
+    static void parallelFor(final int n, final int grain, final Body body) {
+        final int parallelism = ThreadPool.parallelism();
+        if (n > grain && parallelism > 1) {
+            final int size = Math.max(Math.max(grain, 1), (n + parallelism - 1) / parallelism);
+            final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+            for (int i = 0; i < n; i += size) {
+                final int from = i;
+                final int to = Math.min(i + size, n);
+                tasks.add(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        body.run(from, to);
+                        return null;
+                    }
+                });
+            }
+            ThreadPool.invokeAll(tasks);
+        } else {
+            body.run(0, n);
+        }
+    }
+
+
+    //
+    // private static methods
+    //
+
+    /**
+     * Calculates rows <i>[row0, row1)</i> of <i>c = a &times; b</i>
+     * <p>
+     * The loops are ordered so that the innermost one walks rows of <i>b</i> and <i>c</i> sequentially. Two rows of
+     * <i>a</i> and two terms of the inner product are processed at once, which halves the traffic on <i>b</i> and <i>c</i>.
+     */
+    private static void gemm(
+            final double[] a, final double[] b, final double[] c,
+            final int m, final int p,
+            final int row0, final int row1) {
+
+        Arrays.fill(c, row0*p, row1*p, 0.0);
+
+        for (int kk = 0; kk < m; kk += K_BLOCK) {
+            final int kEnd = Math.min(kk + K_BLOCK, m);
+            for (int jj = 0; jj < p; jj += J_BLOCK) {
+                final int jEnd = Math.min(jj + J_BLOCK, p);
+
+                int i = row0;
+                for (; i+1 < row1; i += 2) {
+                    final int a0 = i*m;
+                    final int a1 = a0 + m;
+                    final int c0 = i*p;
+                    final int c1 = c0 + p;
+                    int k = kk;
+                    for (; k+1 < kEnd; k += 2) {
+                        final double a00 = a[a0+k];
+                        final double a01 = a[a0+k+1];
+                        final double a10 = a[a1+k];
+                        final double a11 = a[a1+k+1];
+                        final int b0 = k*p;
+                        final int b1 = b0 + p;
+                        for (int j = jj; j < jEnd; j++) {
+                            final double bk0 = b[b0+j];
+                            final double bk1 = b[b1+j];
+                            c[c0+j] += a00*bk0 + a01*bk1;
+                            c[c1+j] += a10*bk0 + a11*bk1;
+                        }
+                    }
+                    if (k < kEnd) {
+                        final double a00 = a[a0+k];
+                        final double a10 = a[a1+k];
+                        final int b0 = k*p;
+                        for (int j = jj; j < jEnd; j++) {
+                            final double bk0 = b[b0+j];
+                            c[c0+j] += a00*bk0;
+                            c[c1+j] += a10*bk0;
+                        }
+                    }
+                }
+
+                if (i < row1) {
+                    final int a0 = i*m;
+                    final int c0 = i*p;
+                    int k = kk;
+                    for (; k+1 < kEnd; k += 2) {
+                        final double a00 = a[a0+k];
+                        final double a01 = a[a0+k+1];
+                        final int b0 = k*p;
+                        final int b1 = b0 + p;
+                        for (int j = jj; j < jEnd; j++) {
+                            c[c0+j] += a00*b[b0+j] + a01*b[b1+j];
+                        }
+                    }
+                    if (k < kEnd) {
+                        final double a00 = a[a0+k];
+                        final int b0 = k*p;
+                        for (int j = jj; j < jEnd; j++) {
+                            c[c0+j] += a00*b[b0+j];
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+
+    //
+    // package private inner interfaces
+    //
+
+    /**
+     * Body of a loop which can be split in independent intervals
+     */
+    interface Body {
+        void run(int from, int to);
+    }
+
+}
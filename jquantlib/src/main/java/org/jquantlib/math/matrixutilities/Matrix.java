@@ -338,6 +338,7 @@ public class Matrix extends Cells<Address.MatrixAddress> implements Cloneable {
     //	+=    addAssign  Matrix  Matrix   this
     //	-=    subAssign  Matrix  Matrix   this
     //	*=    mulAssign  Matrix  scalar   this
+    //	*=    mulAssign  Matrix  Matrix   this
     //	/=    divAssign  Matrix  scalar   this
     //
 
@@ -426,6 +427,20 @@ public class Matrix extends Cells<Address.MatrixAddress> implements Cloneable {
         return this;
     }
 
+    /**
+     * Replaces <code>this</code> Matrix by its product with <code>another</code> Matrix, which must be square
+     *
+     * @param another
+     * @return this
+     */
+    public Matrix mulAssign(final Matrix another) {
+        QL.require(cols() == another.rows() && another.rows() == another.cols(),  MATRIX_IS_INCOMPATIBLE); // QA:[RG]::verified
+        final double[] result = new double[size()];
+        Kernels.gemm(this.denseData(), another.denseData(), result, rows(), cols(), cols());
+        assign(result);
+        return this;
+    }
+
     /**
      * Returns the result of a division of <code>this</code> Matrix by a <code>scalar</code>
      *
@@ -599,6 +614,7 @@ public class Matrix extends Cells<Address.MatrixAddress> implements Cloneable {
     //	----- ---------- ------- -------- ------
     //	*     mul        Matrix  Array    Array
     //	*     mul        Matrix  Matrix   Matrix
+    //	*     mul        Matrix  Matrix   out
     //
 
     /**
@@ -632,6 +648,9 @@ public class Matrix extends Cells<Address.MatrixAddress> implements Cloneable {
 
     /**
      * Returns a Matrix which represents the multiplication of <code>this</code> Matrix and <code>another</code> Matrix
+     * <p>
+     * Operands which are not densely stored, like ranges, are copied before the product is calculated by a cache-blocked
+     * kernel. Large products are calculated in parallel.
      *
      * @param another
      * @return a new Matrix which contains the result
@@ -639,28 +658,33 @@ public class Matrix extends Cells<Address.MatrixAddress> implements Cloneable {
     public Matrix mul(final Matrix another) {
         QL.require(cols() == another.rows(),  MATRIX_IS_INCOMPATIBLE); // QA:[RG]::verified
         final Matrix result = new Matrix(rows(), another.cols(), this.flags());
-        final Address.MatrixAddress.MatrixOffset toff = this.addr.offset();
-        final Address.MatrixAddress.MatrixOffset aoff = another.addr.offset();
-        final int offsetT = this.addr.isFortran() ? 1 : 0;
-        final int offsetA = another.addr.isFortran() ? 1 : 0;
-        for (int col = offsetA; col < another.cols()+offsetA; col++) {
-            for (int row = offsetT; row < this.rows()+offsetT; row++) {
-                toff.setRow(row); toff.setCol(offsetT);
-                aoff.setRow(offsetA); aoff.setCol(col);
-                double sum = 0.0;
-                for (int i = 0; i < this.cols(); i++) {
-                    final double telem = this.$[toff.op()];
-                    final double aelem = another.$[aoff.op()];
-                    sum += telem * aelem;
-                    toff.nextCol();
-                    aoff.nextRow();
-                }
-                result.$[result.addr.op(row, col-offsetA+offsetT)] = sum;
-            }
-        }
+        Kernels.gemm(this.denseData(), another.denseData(), result.$, rows(), cols(), another.cols());
         return result;
     }
 
+    /**
+     * Stores the multiplication of <code>this</code> Matrix and <code>another</code> Matrix into <code>out</code>
+     * <p>
+     * This method avoids the allocation of a new Matrix when products are calculated repeatedly. It is allowed that
+     * <code>out</code> is one of the operands.
+     *
+     * @param another
+     * @param out is a Matrix with as many rows as <code>this</code> and as many columns as <code>another</code>
+     * @return out
+     */
+    public Matrix mul(final Matrix another, final Matrix out) {
+        QL.require(cols() == another.rows(),  MATRIX_IS_INCOMPATIBLE); // QA:[RG]::verified
+        QL.require(out.rows() == rows() && out.cols() == another.cols(),  MATRIX_IS_INCOMPATIBLE); // QA:[RG]::verified
+        if (out.isDense() && out.$ != this.$ && out.$ != another.$) {
+            Kernels.gemm(this.denseData(), another.denseData(), out.$, rows(), cols(), another.cols());
+        } else {
+            final double[] result = new double[out.size()];
+            Kernels.gemm(this.denseData(), another.denseData(), result, rows(), cols(), another.cols());
+            out.assign(result);
+        }
+        return out;
+    }
+
 
     //
     // Decompositions
@@ -763,19 +787,8 @@ public class Matrix extends Cells<Address.MatrixAddress> implements Cloneable {
      * @return a new instance which contains the result of this operation
      */
     public Matrix transpose() {
-        final int offset = addr.isFortran() ? 1 : 0;
         final Matrix result = new Matrix(cols(), rows(), this.flags());
-        final Address.MatrixAddress.MatrixOffset src = this.addr.offset(offset, offset);
-        final Address.MatrixAddress.MatrixOffset dst = result.addr.offset(offset, offset);
-        for (int row=offset; row<rows()+offset; row++) {
-            src.setRow(row); src.setCol(offset);
-            dst.setRow(offset);   dst.setCol(row);
-            for (int col=offset; col<cols()+offset; col++) {
-                result.$[dst.op()] = this.$[src.op()];
-                src.nextCol();
-                dst.nextRow();
-            }
-        }
+        Kernels.transpose(denseData(), result.$, rows(), cols());
         return result;
     }
 
@@ -837,6 +850,8 @@ public class Matrix extends Cells<Address.MatrixAddress> implements Cloneable {
     //  rangeRow     Matrix           Array
     //  rangeCol     Matrix           Array
     //  range        Matrix           Matrix
+    //  rowView      Matrix           ArrayView
+    //  colView      Matrix           ArrayView
     //
 
     public Array rangeRow(final int row) {
@@ -873,6 +888,34 @@ public class Matrix extends Cells<Address.MatrixAddress> implements Cloneable {
     }
 
 
+    /**
+     * Returns a view on a row of <code>this</code> Matrix
+     *
+     * @see ArrayView
+     */
+    public ArrayView rowView(final int row) {
+        final int offset = addr.isFortran() ? 1 : 0;
+        QL.require(row >= offset && row < rows()+offset, ArrayIndexOutOfBoundsException.class, Address.INVALID_ROW_INDEX);
+        QL.require(addr instanceof DirectMatrixAddress, NON_CONTIGUOUS_DATA);
+        final int begin = addr.op(row, offset);
+        final int stride = cols() > 1 ? addr.op(row, offset+1) - begin : 1;
+        return new ArrayView($, begin, stride, cols());
+    }
+
+    /**
+     * Returns a view on a column of <code>this</code> Matrix
+     *
+     * @see ArrayView
+     */
+    public ArrayView colView(final int col) {
+        final int offset = addr.isFortran() ? 1 : 0;
+        QL.require(col >= offset && col < cols()+offset, ArrayIndexOutOfBoundsException.class, Address.INVALID_COLUMN_INDEX);
+        QL.require(addr instanceof DirectMatrixAddress, NON_CONTIGUOUS_DATA);
+        final int begin = addr.op(offset, col);
+        final int stride = rows() > 1 ? addr.op(offset+1, col) - begin : 1;
+        return new ArrayView($, begin, stride, rows());
+    }
+
     public Matrix range(final int row0, final int row1, final int col0, final int col1) {
         final int offset = addr.isFortran() ? 1 : 0;
         QL.require(row0 >= offset && row0 < rows()+offset && row1 >= offset && row1 <= rows()+offset, ArrayIndexOutOfBoundsException.class, Address.INVALID_ROW_INDEX);
@@ -1121,6 +1164,57 @@ public class Matrix extends Cells<Address.MatrixAddress> implements Cloneable {
      }
 
 
+    //
+    // package private methods
+    //
+
+    /**
+     * Returns elements stored row after row, which is {@link #$} itself if the Matrix is dense or a copy otherwise
+     */
+    double[] denseData() {
+        if (isDense())
+            return $;
+        final double[] data = new double[size()];
+        final int offset = offset();
+        int pos = 0;
+        for (int row = offset; row < rows()+offset; row++) {
+            for (int col = offset; col < cols()+offset; col++) {
+                data[pos++] = $[addr.op(row, col)];
+            }
+        }
+        return data;
+    }
+
+
+    //
+    // private methods
+    //
+
+    /**
+     * Tells whether elements are stored row after row in {@link #$}, starting at its first position
+     */
+    private boolean isDense() {
+        return (addr instanceof DirectMatrixAddress) && addr.isContiguous() && size() == $.length;
+    }
+
+    /**
+     * Copies elements stored row after row into <code>this</code> Matrix
+     */
+    private void assign(final double[] data) {
+        if (isDense()) {
+            System.arraycopy(data, 0, $, 0, size());
+        } else {
+            final int offset = offset();
+            int pos = 0;
+            for (int row = offset; row < rows()+offset; row++) {
+                for (int col = offset; col < cols()+offset; col++) {
+                    $[addr.op(row, col)] = data[pos++];
+                }
+            }
+        }
+    }
+
+
 
 
 //XXX
@@ -0,0 +1,314 @@
+/*
+ Copyright (C) 2011 Richard Gomes
+
+ This source code is release under the BSD License.
+
+ This file is part of JQuantLib, a free-software/open-source library
+ for financial quantitative analysts and developers - http://jquantlib.org/
+
+ JQuantLib is free software: you can redistribute it and/or modify it
+ under the terms of the JQuantLib license.  You should have received a
+ copy of the license along with this program; if not, please email
+ <jquant-devel@lists.sourceforge.net>. The license is also available online at
+ <http://www.jquantlib.org/index.php/LICENSE.TXT>.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE.  See the license for more details.
+
+ JQuantLib is based on QuantLib. http://quantlib.org/
+ When applicable, the original copyright notice follows this notice.
+ */
+
+package org.jquantlib.math.matrixutilities;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.jquantlib.QL;
+import org.jquantlib.lang.exceptions.LibraryException;
+import org.jquantlib.util.BinaryFormat;
+
+/**
+ * A dense matrix stored outside of the Java heap
+ * <p>
+ * Very large matrices, like historical scenarios of many risk factors, do not fit comfortably in the heap and put pressure on the
+ * garbage collector. This class keeps elements row after row either in a direct buffer or in a memory-mapped file. A mapped
+ * file can be loaded instantly and is shared with any other process which maps the same file.
+ * <p>
+ * {@link Cells} exposes its storage as a <code>double[]</code> which algorithms access directly, therefore off-heap storage
+ * cannot be hidden behind {@link Matrix}. Instead, rows and blocks of rows are transferred in bulk from and to the heap by
+ * {@link #getRow(int, double[], int)}, {@link #setRow(int, double[], int)}, {@link #range(int, int)} and
+ * {@link #assign(int, Matrix)}, so that heap algorithms can be applied to one block at a time. Common streaming products are
+ * provided by {@link #mul(Array)} and {@link #transposeMul(Array)}.
+ * <p>
+ * Elements are always indexed from 0. Concurrent reads are safe; writes must be coordinated by the caller.
+ * <p>
+ * Files start with a {@link BinaryFormat} header, followed by the byte order, the number of rows and the number of columns.
+ * Elements follow at an offset aligned to 8 bytes.
+ */
+public final class OffHeapMatrix {
+
+    //
+    // private static final fields
+    //
+
+    /**
+     * Size of the file header: magic (4), version (2), content (1), byte order (1), rows (4), columns (4)
+     */
+    private static final int HEADER = 16;
+    private static final byte BIG_ENDIAN = 0;
+    private static final byte LITTLE_ENDIAN = 1;
+
+
+    //
+    // private final fields
+    //
+
+    private final int rows;
+    private final int cols;
+    private final ByteBuffer buffer;
+    private final DoubleBuffer data;
+
+
+    //
+    // private constructors
+    //
+
+    private OffHeapMatrix(final int rows, final int cols, final ByteBuffer buffer, final int offset) {
+        this.rows = rows;
+        this.cols = cols;
+        this.buffer = buffer;
+        final ByteBuffer elements = buffer.duplicate().order(buffer.order());
+        elements.position(offset);
+        this.data = elements.slice().order(buffer.order()).asDoubleBuffer();
+        QL.require(data.capacity() >= rows*cols, Cells.NOT_ENOUGH_STORAGE); // TODO: message
+    }
+
+
+    //
+    // public static methods
+    //
+
+    /**
+     * Allocates a matrix in a direct buffer, outside of the heap, with all elements set to zero
+     */
+    public static OffHeapMatrix allocateDirect(final int rows, final int cols) {
+        final int bytes = byteSize(rows, cols);
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+        return new OffHeapMatrix(rows, cols, buffer, 0);
+    }
+
+    /**
+     * Creates a file which holds a matrix with all elements set to zero, and maps it in memory for reading and writing
+     * <p>
+     * Existing contents of the file are discarded.
+     */
+    public static OffHeapMatrix create(final File file, final int rows, final int cols) {
+        final long length = HEADER + (long) byteSize(rows, cols);
+        try {
+            final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+            try {
+                raf.setLength(0);
+                raf.setLength(length);
+                final MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, length);
+                buffer.putInt(BinaryFormat.MAGIC)
+                      .putShort(BinaryFormat.VERSION)
+                      .put((byte) BinaryFormat.Content.Matrix.ordinal())
+                      .put(ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN ? BIG_ENDIAN : LITTLE_ENDIAN)
+                      .putInt(rows)
+                      .putInt(cols);
+                buffer.order(ByteOrder.nativeOrder());
+                return new OffHeapMatrix(rows, cols, buffer, HEADER);
+            } finally {
+                // the mapping remains valid after the file is closed
+                raf.close();
+            }
+        } catch (final IOException e) {
+            throw new LibraryException("cannot create " + file, e); // TODO: message
+        }
+    }
+
+    /**
+     * Maps in memory a file previously created by {@link #create(File, int, int)}
+     *
+     * @param writable tells whether elements can be modified, in which case modifications are written to the file
+     */
+    public static OffHeapMatrix open(final File file, final boolean writable) {
+        try {
+            final RandomAccessFile raf = new RandomAccessFile(file, writable ? "rw" : "r");
+            try {
+                final FileChannel channel = raf.getChannel();
+                final MappedByteBuffer buffer = channel.map(
+                        writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                new BinaryFormat.Reader(buffer, BinaryFormat.Content.Matrix);
+                final byte order = buffer.get();
+                QL.require(order == BIG_ENDIAN || order == LITTLE_ENDIAN, "unknown byte order"); // TODO: message
+                final int rows = buffer.getInt();
+                final int cols = buffer.getInt();
+                buffer.order(order == BIG_ENDIAN ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+                return new OffHeapMatrix(rows, cols, buffer, HEADER);
+            } finally {
+                raf.close();
+            }
+        } catch (final IOException e) {
+            throw new LibraryException("cannot open " + file, e); // TODO: message
+        }
+    }
+
+
+    //
+    // public methods
+    //
+
+    public int rows() {
+        return rows;
+    }
+
+    public int columns() {
+        return cols;
+    }
+
+    public int size() {
+        return rows*cols;
+    }
+
+    public double get(final int row, final int col) {
+        return data.get(row*cols + col);
+    }
+
+    public void set(final int row, final int col, final double value) {
+        data.put(row*cols + col, value);
+    }
+
+    /**
+     * Copies a row into <code>dst</code>, starting at position <code>pos</code>
+     *
+     * @return dst
+     */
+    public double[] getRow(final int row, final double[] dst, final int pos) {
+        QL.require(row >= 0 && row < rows, ArrayIndexOutOfBoundsException.class, "invalid row index"); // TODO: message
+        final DoubleBuffer src = data.duplicate();
+        src.position(row*cols);
+        src.get(dst, pos, cols);
+        return dst;
+    }
+
+    /**
+     * Overwrites a row with elements of <code>src</code>, starting at position <code>pos</code>
+     */
+    public void setRow(final int row, final double[] src, final int pos) {
+        QL.require(row >= 0 && row < rows, ArrayIndexOutOfBoundsException.class, "invalid row index"); // TODO: message
+        final DoubleBuffer dst = data.duplicate();
+        dst.position(row*cols);
+        dst.put(src, pos, cols);
+    }
+
+    /**
+     * Copies rows <i>[row0, row1)</i> into a new Matrix on the heap
+     */
+    public Matrix range(final int row0, final int row1) {
+        QL.require(row0 >= 0 && row0 <= row1 && row1 <= rows, ArrayIndexOutOfBoundsException.class, "invalid row index"); // TODO: message
+        final Matrix result = new Matrix(row1-row0, cols);
+        final DoubleBuffer src = data.duplicate();
+        src.position(row0*cols);
+        src.get(result.$, 0, result.size());
+        return result;
+    }
+
+    /**
+     * Copies all elements into a new Matrix on the heap
+     */
+    public Matrix toMatrix() {
+        return range(0, rows);
+    }
+
+    /**
+     * Overwrites consecutive rows, starting at <code>row0</code>, with rows of a Matrix on the heap
+     *
+     * @return this
+     */
+    public OffHeapMatrix assign(final int row0, final Matrix block) {
+        QL.require(block.cols() == cols, Cells.MATRIX_IS_INCOMPATIBLE); // TODO: message
+        QL.require(row0 >= 0 && row0 + block.rows() <= rows, ArrayIndexOutOfBoundsException.class, "invalid row index"); // TODO: message
+        final double[] row = new double[cols];
+        for (int i = 0; i < block.rows(); i++) {
+            setRow(row0+i, block.rowView(i + block.offset()).copyTo(row, 0), 0);
+        }
+        return this;
+    }
+
+    /**
+     * Returns the product of this matrix by an Array, reading elements once in storage order
+     */
+    public Array mul(final Array array) {
+        QL.require(array.size() == cols, Cells.ARRAY_IS_INCOMPATIBLE); // TODO: message
+        final double[] x = toDoubleArray(array);
+        final double[] row = new double[cols];
+        final Array result = new Array(rows);
+        for (int i = 0; i < rows; i++) {
+            getRow(i, row, 0);
+            double sum = 0.0;
+            for (int j = 0; j < cols; j++) {
+                sum += row[j] * x[j];
+            }
+            result.$[i] = sum;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the product of the transpose of this matrix by an Array, reading elements once in storage order
+     */
+    public Array transposeMul(final Array array) {
+        QL.require(array.size() == rows, Cells.ARRAY_IS_INCOMPATIBLE); // TODO: message
+        final double[] x = toDoubleArray(array);
+        final double[] row = new double[cols];
+        final double[] sum = new double[cols];
+        for (int i = 0; i < rows; i++) {
+            getRow(i, row, 0);
+            final double xi = x[i];
+            for (int j = 0; j < cols; j++) {
+                sum[j] += row[j] * xi;
+            }
+        }
+        return new Array(sum);
+    }
+
+    /**
+     * Writes modifications to the underlying file, if any
+     */
+    public void force() {
+        if (buffer instanceof MappedByteBuffer) {
+            ((MappedByteBuffer) buffer).force();
+        }
+    }
+
+
+    //
+    // private static methods
+    //
+
+    private static int byteSize(final int rows, final int cols) {
+        QL.require(rows >= 0 && cols >= 0, Cells.INVALID_ARGUMENTS); // TODO: message
+        final long bytes = 8L * rows * cols;
+        QL.require(bytes + HEADER <= Integer.MAX_VALUE, "matrix is too large to be mapped at once"); // TODO: message
+        return (int) bytes;
+    }
+
+    private static double[] toDoubleArray(final Array array) {
+        final double[] result = new double[array.size()];
+        final int begin = array.begin();
+        for (int i = 0; i < result.length; i++) {
+            result[i] = array.get(begin+i);
+        }
+        return result;
+    }
+
+}
@@ -106,12 +106,9 @@ public class PseudoSqrt {
      */
     public static Matrix rankReducedSqrt(final Matrix matrix,
             final int maxRank,
-            final int componentRetainedPercentage,
+            final double componentRetainedPercentage,
             final SalvagingAlgorithm sa){
 
-
-        QL.validateExperimentalMode();
-
         QL.require(matrix.rows == matrix.columns(), Cells.MATRIX_MUST_BE_SQUARE); // QA:[RG]::verified
         QL.require(checkSymmetry(matrix), Cells.MATRIX_MUST_BE_SYMMETRIC); // QA:[RG]::verified
         QL.require(componentRetainedPercentage>0.0, "no eigenvalues retained"); // TODO: message
@@ -169,8 +166,7 @@ public class PseudoSqrt {
         for (int i=0; i<retainedFactors; ++i) {
             diagonal.set(i,i, Math.sqrt(eigenValues.get(i)));
         }
-        // TODO: code review:: compare against C++ code
-        final Matrix result = jd.eigenvectors().mul(jd.eigenvectors()).mul(diagonal);
+        final Matrix result = jd.eigenvectors().mul(diagonal);
 
         normalizePseudoRoot(matrix, result);
         return result;
@@ -179,8 +175,6 @@ public class PseudoSqrt {
 
     public static void normalizePseudoRoot(final Matrix matrix, final Matrix pseudo) {
 
-        QL.validateExperimentalMode();
-
         final int size = matrix.rows;
 
         if (size != pseudo.rows)
@@ -193,7 +187,7 @@ public class PseudoSqrt {
         for (int i=0; i<size; ++i) {
             double norm = 0.0;
             for (int j=0; j<pseudoCols; ++j) {
-                norm += pseudo.get(i, j)*pseudo.get(j, i);
+                norm += pseudo.get(i, j)*pseudo.get(i, j);
             }
             if (norm>0.0) {
                 final double normAdj = Math.sqrt(matrix.get(i,i)/norm);
@@ -423,8 +417,6 @@ public class PseudoSqrt {
      */
     public static Matrix pseudoSqrt(final Matrix matrix, final SalvagingAlgorithm sa) {
 
-        QL.validateExperimentalMode();
-
         QL.require(matrix.rows() == matrix.columns(), Cells.MATRIX_MUST_BE_SQUARE); // QA:[RG]::verified
         QL.require(checkSymmetry(matrix), Cells.MATRIX_MUST_BE_SYMMETRIC); // QA:[RG]::verified
 
@@ -451,9 +443,7 @@ public class PseudoSqrt {
             for (int i=0; i<size; i++) {
                 diagonal.set(i, i, Math.sqrt(Math.max((jd.eigenvalues().get(i)), 0.0)));
             }
-            if(true)
-                throw new UnsupportedOperationException("work in progress");
-            //result = jd.eigenvectors() * diagonal;
+            result = jd.eigenvectors().mul(diagonal);
             normalizePseudoRoot(matrix, result);
             break;
         case Hypersphere:
@@ -600,7 +590,7 @@ const Disposable<Matrix> rankReducedSqrt(const Matrix& matrix,
         final int size = matrix.rows;
         for (int i=0; i<size; ++i) {
             for (int j=0; j<i; ++j)
-                if (Closeness.isClose(matrix.get(i, j), matrix.get(j, i)))
+                if (!Closeness.isClose(matrix.get(i, j), matrix.get(j, i)))
                     return false;
         }
         return true;
@@ -52,6 +52,11 @@ import org.jquantlib.lang.annotation.QualityAssurance.Version;
  * <p>
  * This class implements the Schur decomposition using the symmetric threshold Jacobi algorithm. For details on the different Jacobi
  * transfomations.
+ * <p>
+ * Large matrices are decomposed by a parallel Jacobi algorithm instead. Each sweep is organized in rounds of disjoint pairs of
+ * indexes, following a round-robin ordering, so that all rotations of a round can be applied at the same time.
+ * <p>
+ * Eigenvalues are sorted in decreasing order and the first element of every eigenvector is made non-negative.
  *
  * @see "Matrix computation," second edition, by Golub and Van Loan, The Johns Hopkins University Press
  *
@@ -63,6 +68,11 @@ public class SymmetricSchurDecomposition {
     private static final double epsPrec = 1e-15;
     private static final int maxIterations = 100;
 
+    /**
+     * Minimum size of matrices which are decomposed by the parallel algorithm
+     */
+    private static final int PARALLEL_SIZE = 192;
+
     private final int size;
     private final Matrix A;
     private final Array diag;
@@ -75,6 +85,34 @@ public class SymmetricSchurDecomposition {
         this.A = new Matrix(m.rows(), m.cols(), m.flags());
         this.diag = new Array(size, m.flags());
 
+        if (size >= PARALLEL_SIZE) {
+            parallelJacobi(m);
+        } else {
+            thresholdJacobi(m);
+        }
+        sort();
+    }
+
+
+    //
+    // public methods
+    //
+
+    public Matrix eigenvectors() {
+        return A.clone();
+    }
+
+    public Array eigenvalues() {
+        return diag.clone();
+    }
+
+
+    //
+    // private methods
+    //
+
+    private void thresholdJacobi(final Matrix m) {
+
         final double tmpDiag[] = new double[size];
         final double tmpSum[] = new double[size];
 
@@ -167,21 +205,173 @@ public class SymmetricSchurDecomposition {
         QL.ensure(ite <= maxIterations, "Too many iterations reached");
     }
 
-    //
-    // public methods
-    //
+    /**
+     * Parallel Jacobi algorithm on dense storage
+     * <p>
+     * Rotation angles of a round are calculated first. Then rows of the matrix are rotated pair by pair, and finally columns of
+     * the matrix and of the eigenvectors are rotated row by row. Both phases run in parallel.
+     */
+    private void parallelJacobi(final Matrix m) {
+        final int n = size;
+        final double[] s = m.denseData().clone();
+        final double[] v = new double[n*n];
+        for (int i = 0; i < n; i++) {
+            v[i*n+i] = 1.0;
+        }
 
-    public Matrix eigenvectors() {
-        return A.clone();
-    }
+        // round-robin tournament, with a dummy index when size is odd
+        final int players = n + (n % 2);
+        final int pairs = players / 2;
+        final int[] order = new int[players];
+        final int[] p = new int[pairs];
+        final int[] q = new int[pairs];
+        final double[] cosin = new double[pairs];
+        final double[] sine = new double[pairs];
+        final int grain = Math.max(1, 4096 / n);
 
-    public Array eigenvalues() {
-        return diag.clone();
+        int ite = 1;
+        boolean keeplooping = true;
+        do {
+            double sum = 0.0;
+            for (int a = 0; a < n-1; a++) {
+                for (int b = a+1; b < n; b++) {
+                    sum += Math.abs(s[a*n+b]);
+                }
+            }
+            if (sum == 0.0) {
+                keeplooping = false;
+            } else {
+                for (int round = 0; round < players-1; round++) {
+                    order[0] = 0;
+                    for (int k = 1; k < players; k++) {
+                        order[k] = 1 + (k-1+round) % (players-1);
+                    }
+
+                    // angles
+                    int count = 0;
+                    for (int k = 0; k < pairs; k++) {
+                        final int j = Math.min(order[k], order[players-1-k]);
+                        final int l = Math.max(order[k], order[players-1-k]);
+                        if (l >= n)
+                            continue;
+                        final double sjl = s[j*n+l];
+                        final double sjj = s[j*n+j];
+                        final double sll = s[l*n+l];
+                        if (sjl == 0.0)
+                            continue;
+                        if (ite > 5 && Math.abs(sjl) < epsPrec * Math.abs(sjj) && Math.abs(sjl) < epsPrec * Math.abs(sll)) {
+                            s[j*n+l] = 0.0;
+                            s[l*n+j] = 0.0;
+                            continue;
+                        }
+                        final double tau = (sll - sjj) / (2.0 * sjl);
+                        final double t = (tau >= 0.0)
+                                ?  1.0 / ( tau + Math.sqrt(1.0 + tau*tau))
+                                : -1.0 / (-tau + Math.sqrt(1.0 + tau*tau));
+                        final double c = 1.0 / Math.sqrt(1.0 + t*t);
+                        p[count] = j;
+                        q[count] = l;
+                        cosin[count] = c;
+                        sine[count] = t * c;
+                        count++;
+                    }
+                    if (count == 0)
+                        continue;
+                    final int rotations = count;
+
+                    // rows: s = J' * s
+                    Kernels.parallelFor(rotations, Math.max(1, grain), new Kernels.Body() {
+                        @Override
+                        public void run(final int from, final int to) {
+                            for (int r = from; r < to; r++) {
+                                final int rp = p[r]*n;
+                                final int rq = q[r]*n;
+                                final double c = cosin[r];
+                                final double sn = sine[r];
+                                for (int k = 0; k < n; k++) {
+                                    final double ap = s[rp+k];
+                                    final double aq = s[rq+k];
+                                    s[rp+k] = c*ap - sn*aq;
+                                    s[rq+k] = sn*ap + c*aq;
+                                }
+                            }
+                        }
+                    });
+
+                    // columns: s = s * J and v = v * J
+                    Kernels.parallelFor(n, grain, new Kernels.Body() {
+                        @Override
+                        public void run(final int from, final int to) {
+                            for (int k = from; k < to; k++) {
+                                final int row = k*n;
+                                for (int r = 0; r < rotations; r++) {
+                                    final double c = cosin[r];
+                                    final double sn = sine[r];
+                                    final int cp = row+p[r];
+                                    final int cq = row+q[r];
+                                    final double ap = s[cp];
+                                    final double aq = s[cq];
+                                    s[cp] = c*ap - sn*aq;
+                                    s[cq] = sn*ap + c*aq;
+                                    final double vp = v[cp];
+                                    final double vq = v[cq];
+                                    v[cp] = c*vp - sn*vq;
+                                    v[cq] = sn*vp + c*vq;
+                                }
+                            }
+                        }
+                    });
+
+                    for (int r = 0; r < rotations; r++) {
+                        s[p[r]*n+q[r]] = 0.0;
+                        s[q[r]*n+p[r]] = 0.0;
+                    }
+                }
+            }
+        } while (++ite <= maxIterations && keeplooping);
+
+        QL.ensure(ite <= maxIterations, "Too many iterations reached");
+
+        final int offset = A.offset();
+        for (int i = 0; i < n; i++) {
+            diag.$[diag.addr.op(i+offset)] = s[i*n+i];
+            for (int j = 0; j < n; j++) {
+                A.$[A.addr.op(i+offset, j+offset)] = v[i*n+j];
+            }
+        }
     }
 
-    //
-    // private methods
-    //
+    /**
+     * Sorts eigenvalues in decreasing order, together with their eigenvectors, and makes the first element of every eigenvector
+     * non-negative
+     */
+    private void sort() {
+        final int offset = A.offset();
+        final Integer[] index = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            index[i] = i;
+        }
+        final double[] values = new double[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = diag.$[diag.addr.op(i+offset)];
+        }
+        java.util.Arrays.sort(index, new java.util.Comparator<Integer>() {
+            @Override
+            public int compare(final Integer i, final Integer j) {
+                return Double.compare(values[j], values[i]);
+            }
+        });
+
+        final Matrix vectors = A.clone();
+        for (int col = 0; col < size; col++) {
+            final int from = index[col];
+            diag.$[diag.addr.op(col+offset)] = values[from];
+            final double sign = vectors.$[vectors.addr.op(offset, from+offset)] < 0.0 ? -1.0 : 1.0;
+            for (int row = 0; row < size; row++) {
+                A.$[A.addr.op(row+offset, col+offset)] = sign * vectors.$[vectors.addr.op(row+offset, from+offset)];
+            }
+        }
+    }
 
     /**
      * This routines implements the Jacobi, a.k.a. Givens, rotation
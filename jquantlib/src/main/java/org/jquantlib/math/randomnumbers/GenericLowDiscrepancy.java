@@ -41,7 +41,6 @@ package org.jquantlib.math.randomnumbers;
 
 import java.lang.reflect.Constructor;
 
-import org.jquantlib.QL;
 import org.jquantlib.lang.exceptions.LibraryException;
 
 
@@ -91,8 +90,6 @@ public class GenericLowDiscrepancy<RSG extends UniformRandomSequenceGenerator, I
             final /*@NonNegative*/ int dimension, 
             final /*@NonNegative*/ long seed) {
 
-        QL.validateExperimentalMode();
-
         this.classRSG = classRSG;
         this.classIC = classIC;
         
@@ -110,18 +107,12 @@ public class GenericLowDiscrepancy<RSG extends UniformRandomSequenceGenerator, I
         final IC ic;
         try {
             // obtain IC Class from second generic parameter
-            final Constructor<IC> c;
-            if (icInstance!=null) {
-                c = (Constructor<IC>) classIC.getConstructor(rsg.getClass(), classIC.getClass());
-                ic = c.newInstance(rsg, icInstance);
-            } else {
-                c = (Constructor<IC>) classIC.getConstructor(rsg.getClass());
-                ic = c.newInstance(rsg);
-            }
+            final Constructor<IC> c = (Constructor<IC>) classIC.getConstructor();
+            ic = c.newInstance();
         } catch (final Exception e) {
             throw new LibraryException(e); // QA:[RG]::verified
         }
-        return (InverseCumulativeRsg<RSG, IC>) ic;
+        return new InverseCumulativeRsg<RSG, IC>(rsg, ic);
     }
 
 }
\ No newline at end of file
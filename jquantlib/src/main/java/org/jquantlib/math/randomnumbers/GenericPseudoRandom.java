@@ -43,7 +43,6 @@ package org.jquantlib.math.randomnumbers;
 
 import java.lang.reflect.Constructor;
 
-import org.jquantlib.QL;
 import org.jquantlib.lang.exceptions.LibraryException;
 
 /**
@@ -79,13 +78,12 @@ public abstract class GenericPseudoRandom <RNG extends RandomNumberGenerator, IC
 
 
 
-    private final Class<? extends UniformRandomSequenceGenerator>	classRNG;
+    private final Class<? extends RandomNumberGenerator>	classRNG;
     private final Class<? extends InverseCumulative>		classIC;
     
     
 
-    protected GenericPseudoRandom(final Class<? extends UniformRandomSequenceGenerator> classRNG, final Class<? extends InverseCumulative> classIC) {
-    	QL.validateExperimentalMode();
+    protected GenericPseudoRandom(final Class<? extends RandomNumberGenerator> classRNG, final Class<? extends InverseCumulative> classIC) {
     	this.classRNG = classRNG;
     	this.classIC = classIC;
     }
@@ -105,44 +103,29 @@ public abstract class GenericPseudoRandom <RNG extends RandomNumberGenerator, IC
         } catch (final Exception e) {
             throw new LibraryException(e); // QA:[RG]::verified
         }
+        return makeSequenceGenerator(dimension, rng);
+    }
+
+    /**
+     * @param rng is the source of uniform deviates, which is not copied
+     */
+    protected InverseCumulativeRsg<RandomSequenceGenerator<RNG>, IC> makeSequenceGenerator(
+            final /*@NonNegative*/ int dimension,
+            final RNG rng) {
 
         // instantiate a RandomSequenceGenerator given a RNG type
-        final RandomSequenceGenerator<RNG> rsg;
-        try {
-            // obtain Class from previously created RNG variable
-        	
-        	
-            //FIXME:
-        	// "looks like" we need to add a method to RNG interface in order to obtain a RSG from a RNG
-        	//
-        	
-        	final Class<RandomSequenceGenerator<RNG>> rsgClass = null;
-            
-            
-            
-            
-            final Constructor<RandomSequenceGenerator<RNG>> c = rsgClass.getConstructor(int.class, rng.getClass());
-            rsg = c.newInstance(dimension, rng);
-        } catch (final Exception e) {
-            throw new LibraryException(e); // QA:[RG]::verified
-        }
+        final RandomSequenceGenerator<RNG> rsg = new RandomSequenceGenerator<RNG>(classRNG, dimension, rng);
 
         // instantiate a InverseCumulative given its generic type (second generic parameter)
         final IC ic;
         try {
             // obtain IC Class from second generic parameter
-            final Constructor<IC> c;
-            if (icInstance!=null) {
-                c = (Constructor<IC>) classIC.getConstructor(rsg.getClass(), classIC.getClass());
-                ic = c.newInstance(rsg, icInstance);
-            } else {
-                c = (Constructor<IC>) classIC.getConstructor(rsg.getClass());
-                ic = c.newInstance(rsg);
-            }
+            final Constructor<IC> c = (Constructor<IC>) classIC.getConstructor();
+            ic = c.newInstance();
         } catch (final Exception e) {
             throw new LibraryException(e); // QA:[RG]::verified
         }
-        return (InverseCumulativeRsg<RandomSequenceGenerator<RNG>, IC>) ic;
+        return new InverseCumulativeRsg<RandomSequenceGenerator<RNG>, IC>(rsg, ic);
     }
 
 }
@@ -28,5 +28,11 @@ import org.jquantlib.math.Ops;
  * @author Richard Gomes
  */
 public interface InverseCumulative extends Ops.DoubleOp {
-    // tagging interface
+
+    /**
+     * Transforms <code>length</code> elements of <code>x</code> in place, starting at <code>offset</code>
+     * <p>
+     * Every element is replaced by the result of {@link #op(double)} applied to it.
+     */
+    public void transform(double[] x, int offset, int length) /*@ReadOnly*/;
 }
@@ -40,6 +40,7 @@
 
 package org.jquantlib.math.randomnumbers;
 
+import org.jquantlib.QL;
 import org.jquantlib.methods.montecarlo.Sample;
 
 /**
@@ -65,6 +66,11 @@ public class InverseCumulativeRng<RNG extends RandomNumberGenerator, IC extends
         this.uniformGenerator_ = ug;
     }
 
+    public InverseCumulativeRng(final RNG ug, final IC ic) {
+        this.uniformGenerator_ = ug;
+        this.ICND_ = ic;
+    }
+
     /**
      * @return a sample from a Gaussian distribution
      */
@@ -76,4 +82,15 @@ public class InverseCumulativeRng<RNG extends RandomNumberGenerator, IC extends
         
         return new Sample<Double>(ICND_.op(sample.value()), sample.weight());
     }
+
+    /**
+     * Fills <code>length</code> elements of <code>out</code> with deviates, starting at <code>offset</code>
+     * <p>
+     * Uniform deviates are written into <code>out</code> and then transformed in place, so that no object is allocated.
+     */
+    public void fill(final double[] out, final int offset, final int length) /* @ReadOnly */ {
+        QL.require(ICND_ != null, "inverse cumulative distribution not provided"); // TODO: message
+        uniformGenerator_.fill(out, offset, length);
+        ICND_.transform(out, offset, length);
+    }
 }
@@ -0,0 +1,251 @@
+/*
+ Copyright (C) 2011 Richard Gomes
+
+ This source code is release under the BSD License.
+
+ This file is part of JQuantLib, a free-software/open-source library
+ for financial quantitative analysts and developers - http://jquantlib.org/
+
+ JQuantLib is free software: you can redistribute it and/or modify it
+ under the terms of the JQuantLib license.  You should have received a
+ copy of the license along with this program; if not, please email
+ <jquant-devel@lists.sourceforge.net>. The license is also available online at
+ <http://www.jquantlib.org/index.php/LICENSE.TXT>.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE.  See the license for more details.
+
+ JQuantLib is based on QuantLib. http://quantlib.org/
+ When applicable, the original copyright notice follows this notice.
+ */
+
+
+package org.jquantlib.math.randomnumbers;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jquantlib.QL;
+
+/**
+ * Jump ahead of F<sub>2</sub>-linear generators by polynomial arithmetic over GF(2)
+ * <p>
+ * Advancing a generator by <i>J</i> steps is the same as applying <i>T<sup>J</sup></i> to its state, where <i>T</i> is the
+ * linear transition of the generator. Calculating <i>g(x) = x<sup>J</sup> mod &phi;(x)</i>, where &phi; is the minimal
+ * polynomial of <i>T</i>, the jump becomes <i>g(T)</i>, which is evaluated with at most deg(&phi;) transitions whatever the
+ * value of <i>J</i>.
+ * <p>
+ * The minimal polynomial is obtained once, by the Berlekamp-Massey algorithm applied to a sequence of bits taken from the
+ * output of the generator. Jump polynomials for powers of two are cached.
+ *
+ * @see <a href="http://www.math.sci.hiroshima-u.ac.jp/~m-mat/MT/JUMP/">Efficient Jump Ahead for F2-Linear Random Number
+ *      Generators, H. Haramoto, M. Matsumoto, T. Nishimura, F. Panneton and P. L'Ecuyer</a>
+ *
+ * @see MersenneTwisterJump
+ * @see SFMTJump
+ */
+final class LinearRecurrenceJump {
+
+    private final int degree;
+    private final int words;
+    private final long[] phi;
+    private final Map<Integer, long[]> powersOfTwo;
+
+
+    /**
+     * @param sequence holds <code>n</code> bits of output, one for each transition, the first one at the least significant bit
+     * @param n is the number of bits, which must be at least twice the degree of the minimal polynomial
+     */
+    LinearRecurrenceJump(final long[] sequence, final int n) {
+        final int words = n/64 + 2;
+
+        // sequence is stored in reverse order, so that discrepancies are dot products
+        final long[] reversed = new long[words];
+        for (int i = 0; i < n; i++) {
+            if (((sequence[i >>> 6] >>> (i & 63)) & 1L) != 0) {
+                final int pos = n - 1 - i;
+                reversed[pos >>> 6] |= 1L << (pos & 63);
+            }
+        }
+
+        long[] c = new long[words];
+        long[] b = new long[words];
+        c[0] = 1L;
+        b[0] = 1L;
+        int l = 0;
+        int m = 1;
+        for (int i = 0; i < n; i++) {
+            // discrepancy: sum of c[j] * s[i-j], for j = 0..l
+            final int offset = n - 1 - i;
+            long acc = 0L;
+            for (int w = 0; w <= (l >>> 6); w++) {
+                acc ^= c[w] & bits(reversed, offset + 64*w);
+            }
+            if (Long.bitCount(acc) % 2 == 0) {
+                m++;
+            } else if (2*l <= i) {
+                final long[] t = c.clone();
+                xorShifted(c, b, m);
+                l = i + 1 - l;
+                b = t;
+                m = 1;
+            } else {
+                xorShifted(c, b, m);
+                m++;
+            }
+        }
+        QL.ensure(2*l <= n, "sequence is too short"); // TODO: message
+
+        // minimal polynomial is the reciprocal of the connection polynomial
+        this.degree = l;
+        this.words = l/64 + 1;
+        this.phi = new long[this.words];
+        for (int j = 0; j <= l; j++) {
+            if (((c[j >>> 6] >>> (j & 63)) & 1L) != 0) {
+                final int pos = l - j;
+                phi[pos >>> 6] |= 1L << (pos & 63);
+            }
+        }
+        this.powersOfTwo = new HashMap<Integer, long[]>();
+    }
+
+
+    //
+    // package private methods
+    //
+
+    /**
+     * @return the degree of the minimal polynomial
+     */
+    int degree() {
+        return degree;
+    }
+
+    /**
+     * @return <i>x<sup>steps</sup> mod &phi;(x)</i>
+     */
+    long[] polynomial(final long steps) {
+        QL.require(steps >= 0, "number of steps must be non negative"); // TODO: message
+        long[] result = new long[words];
+        result[0] = 1L;
+        for (int bit = 63 - Long.numberOfLeadingZeros(steps); bit >= 0; bit--) {
+            result = square(result);
+            if (((steps >>> bit) & 1L) != 0) {
+                timesX(result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return <i>x<sup>2<sup>exponent</sup></sup> mod &phi;(x)</i>
+     */
+    synchronized long[] powerOfTwo(final int exponent) {
+        QL.require(exponent >= 0, "exponent must be non negative"); // TODO: message
+        long[] result = powersOfTwo.get(exponent);
+        if (result == null) {
+            result = new long[words];
+            result[0] = 1L;
+            timesX(result);
+            for (int i = 0; i < exponent; i++) {
+                result = square(result);
+            }
+            powersOfTwo.put(exponent, result);
+        }
+        return result;
+    }
+
+    /**
+     * @return coefficient of <i>x<sup>i</sup></i> in a polynomial
+     */
+    static boolean coefficient(final long[] poly, final int i) {
+        return ((poly[i >>> 6] >>> (i & 63)) & 1L) != 0;
+    }
+
+
+    //
+    // private methods
+    //
+
+    /**
+     * @return a<sup>2</sup> mod &phi;
+     */
+    private long[] square(final long[] a) {
+        final long[] result = new long[2 * words];
+        for (int w = 0; w < words; w++) {
+            result[2*w] = spread((int) a[w]);
+            result[2*w + 1] = spread((int) (a[w] >>> 32));
+        }
+        for (int i = 2 * degree - 2; i >= degree; i--) {
+            if (coefficient(result, i)) {
+                xorShifted(result, phi, i - degree);
+            }
+        }
+        final long[] reduced = new long[words];
+        System.arraycopy(result, 0, reduced, 0, words);
+        return reduced;
+    }
+
+    /**
+     * a = a * x mod &phi;
+     */
+    private void timesX(final long[] a) {
+        long carry = 0L;
+        for (int w = 0; w < words; w++) {
+            final long v = a[w];
+            a[w] = (v << 1) | carry;
+            carry = v >>> 63;
+        }
+        if (coefficient(a, degree)) {
+            for (int w = 0; w < words; w++) {
+                a[w] ^= phi[w];
+            }
+        }
+    }
+
+    /**
+     * @return 64 bits starting at position <code>pos</code>
+     */
+    private static long bits(final long[] a, final int pos) {
+        final int k = pos >>> 6;
+        final int shift = pos & 63;
+        if (k >= a.length)
+            return 0L;
+        final long lo = a[k] >>> shift;
+        if (shift == 0 || k + 1 >= a.length)
+            return lo;
+        return lo | (a[k + 1] << (64 - shift));
+    }
+
+    /**
+     * a ^= b * x<sup>shift</sup>, discarding bits beyond the capacity of <code>a</code>
+     */
+    private static void xorShifted(final long[] a, final long[] b, final int shift) {
+        final int words = shift >>> 6;
+        final int bitsShift = shift & 63;
+        for (int w = 0; w < b.length && w + words < a.length; w++) {
+            final long v = b[w];
+            if (v == 0L)
+                continue;
+            a[w + words] ^= v << bitsShift;
+            if (bitsShift != 0 && w + words + 1 < a.length) {
+                a[w + words + 1] ^= v >>> (64 - bitsShift);
+            }
+        }
+    }
+
+    /**
+     * interleaves bits of <code>x</code> with zeros, which squares a polynomial over GF(2)
+     */
+    private static long spread(final int x) {
+        long v = x & 0xffffffffL;
+        v = (v | (v << 16)) & 0x0000ffff0000ffffL;
+        v = (v | (v << 8))  & 0x00ff00ff00ff00ffL;
+        v = (v | (v << 4))  & 0x0f0f0f0f0f0f0f0fL;
+        v = (v | (v << 2))  & 0x3333333333333333L;
+        v = (v | (v << 1))  & 0x5555555555555555L;
+        return v;
+    }
+
+}
@@ -0,0 +1,63 @@
+/*
+ Copyright (C) 2011 Richard Gomes
+
+ This source code is release under the BSD License.
+
+ This file is part of JQuantLib, a free-software/open-source library
+ for financial quantitative analysts and developers - http://jquantlib.org/
+
+ JQuantLib is free software: you can redistribute it and/or modify it
+ under the terms of the JQuantLib license.  You should have received a
+ copy of the license along with this program; if not, please email
+ <jquant-devel@lists.sourceforge.net>. The license is also available online at
+ <http://www.jquantlib.org/index.php/LICENSE.TXT>.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE.  See the license for more details.
+
+ JQuantLib is based on QuantLib. http://quantlib.org/
+ When applicable, the original copyright notice follows this notice.
+ */
+
+
+package org.jquantlib.math.randomnumbers;
+
+import org.jquantlib.math.distributions.InverseCumulativeNormal;
+import org.jquantlib.math.randomnumbers.SobolRsg.DirectionIntegers;
+import org.jquantlib.math.randomnumbers.SobolRsg.Scrambling;
+
+/**
+ * Default traits for low-discrepancy sequence generation
+ * <p>
+ * Gaussian sequences are obtained from Sobol sequences by means of the inverse cumulative normal distribution.
+ * Randomized replicas of the Sobol sequence are available by means of
+ * {@link #makeSequenceGenerator(int, long, long)}, so that the spread of independent replicas provides an error estimate.
+ *
+ * @see SobolRsg.Scrambling
+ */
+public class LowDiscrepancy extends GenericLowDiscrepancy<SobolRsg, InverseCumulativeNormal> {
+
+    public InverseCumulativeRsg<SobolRsg, InverseCumulativeNormal> makeSequenceGenerator(
+            final /*@NonNegative*/ int dimension,
+            final /*@NonNegative*/ long seed) {
+        return super.makeSequenceGenerator(SobolRsg.class, InverseCumulativeNormal.class, dimension, seed);
+    }
+
+    /**
+     * Returns a randomized replica of the Gaussian low-discrepancy sequence
+     *
+     * @param dimension is the dimension of the sequence
+     * @param seed initializes direction integers of dimensions which are not tabulated
+     * @param scramblingSeed identifies the replica; distinct seeds deliver independent replicas
+     */
+    public InverseCumulativeRsg<SobolRsg, InverseCumulativeNormal> makeSequenceGenerator(
+            final /*@NonNegative*/ int dimension,
+            final /*@NonNegative*/ long seed,
+            final long scramblingSeed) {
+        final SobolRsg rsg = new SobolRsg(
+                dimension, seed, DirectionIntegers.Jaeckel, Scrambling.LinearScrambling, scramblingSeed);
+        return new InverseCumulativeRsg<SobolRsg, InverseCumulativeNormal>(rsg, new InverseCumulativeNormal());
+    }
+
+}
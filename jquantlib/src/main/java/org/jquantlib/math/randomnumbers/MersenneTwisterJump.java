@@ -0,0 +1,126 @@
+/*
+ Copyright (C) 2011 Richard Gomes
+
+ This source code is release under the BSD License.
+
+ This file is part of JQuantLib, a free-software/open-source library
+ for financial quantitative analysts and developers - http://jquantlib.org/
+
+ JQuantLib is free software: you can redistribute it and/or modify it
+ under the terms of the JQuantLib license.  You should have received a
+ copy of the license along with this program; if not, please email
+ <jquant-devel@lists.sourceforge.net>. The license is also available online at
+ <http://www.jquantlib.org/index.php/LICENSE.TXT>.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE.  See the license for more details.
+
+ JQuantLib is based on QuantLib. http://quantlib.org/
+ When applicable, the original copyright notice follows this notice.
+ */
+
+package org.jquantlib.math.randomnumbers;
+
+import org.jquantlib.QL;
+
+/**
+ * Jump ahead of the Mersenne Twister MT19937
+ * <p>
+ * The characteristic polynomial is obtained once, from the most significant bits of an output sequence of the generator.
+ *
+ * @see LinearRecurrenceJump
+ * @see MersenneTwisterUniformRng
+ */
+final class MersenneTwisterJump {
+
+    private static final int N = 624;
+    private static final int M = 397;
+    private static final int UPPER_MASK = 0x80000000;
+    private static final int LOWER_MASK = 0x7fffffff;
+    private static final int[] MAG01 = { 0x0, 0x9908b0df };
+
+    /**
+     * degree of the characteristic polynomial
+     */
+    static final int DEGREE = 19937;
+
+    private static LinearRecurrenceJump jump;
+
+
+    private MersenneTwisterJump() {
+        // only static methods
+    }
+
+
+    //
+    // package private methods
+    //
+
+    /**
+     * @return <i>x<sup>steps</sup> mod &phi;(x)</i>
+     */
+    static long[] polynomial(final long steps) {
+        return jump().polynomial(steps);
+    }
+
+    /**
+     * @return <i>x<sup>2<sup>exponent</sup></sup> mod &phi;(x)</i>
+     */
+    static long[] powerOfTwo(final int exponent) {
+        return jump().powerOfTwo(exponent);
+    }
+
+    /**
+     * Applies a jump polynomial to a state which is about to be entirely regenerated
+     *
+     * @param poly is a jump polynomial
+     * @param mt is a state such that the next output will be obtained from regeneration of its first element
+     * @return a state of the same kind, advanced by the jump
+     */
+    static int[] apply(final long[] poly, final int[] mt) {
+        final int[] state = mt.clone();
+        final int[] result = new int[N];
+        int ptr = 0;
+        for (int i = 0; i < DEGREE; i++) {
+            if (LinearRecurrenceJump.coefficient(poly, i)) {
+                // align state at ptr with result at 0
+                for (int k = 0; k < N - ptr; k++) {
+                    result[k] ^= state[ptr + k];
+                }
+                for (int k = N - ptr; k < N; k++) {
+                    result[k] ^= state[ptr + k - N];
+                }
+            }
+            // one transition of the generator, in place
+            final int next = (ptr + 1 == N) ? 0 : ptr + 1;
+            final int y = (state[ptr] & UPPER_MASK) | (state[next] & LOWER_MASK);
+            state[ptr] = state[(ptr + M) % N] ^ (y >>> 1) ^ MAG01[y & 0x1];
+            ptr = next;
+        }
+        return result;
+    }
+
+
+    //
+    // private methods
+    //
+
+    private static synchronized LinearRecurrenceJump jump() {
+        if (jump == null) {
+            final int n = 2 * DEGREE;
+            final long[] sequence = new long[n/64 + 1];
+            final MersenneTwisterUniformRng rng = new MersenneTwisterUniformRng(5489);
+            for (int i = 0; i < n; i++) {
+                if ((rng.next(32) >>> 31) != 0) {
+                    sequence[i >>> 6] |= 1L << (i & 63);
+                }
+            }
+            final LinearRecurrenceJump result = new LinearRecurrenceJump(sequence, n);
+            QL.ensure(result.degree() == DEGREE, "wrong degree of characteristic polynomial"); // TODO: message
+            jump = result;
+        }
+        return jump;
+    }
+
+}
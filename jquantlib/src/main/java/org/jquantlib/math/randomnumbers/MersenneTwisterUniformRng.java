@@ -22,6 +22,7 @@
 
 package org.jquantlib.math.randomnumbers;
 
+import org.jquantlib.QL;
 import org.jquantlib.methods.montecarlo.Sample;
 
 
@@ -132,6 +133,16 @@ public class MersenneTwisterUniformRng implements RandomNumberGenerator {
         setSeed(seed);
     }
 
+    /**
+     * Creates a new random number generator with the same state as <code>other</code>
+     *
+     * @param other is the generator to be copied
+     */
+    public MersenneTwisterUniformRng(final MersenneTwisterUniformRng other) {
+        mt = other.mt.clone();
+        mti = other.mti;
+    }
+
     /**
      * Reinitialize the generator as if just built with the given int seed.
      * <p>
@@ -276,10 +287,81 @@ public class MersenneTwisterUniformRng implements RandomNumberGenerator {
 
     public Sample<Double> next() /* @ReadOnly */{
         // divide by 2^32
-        final double result = (nextInt32() + 0.5) / 4294967296.0;
+        final double result = ((nextInt32() & 0xffffffffL) + 0.5) / 4294967296.0;
         return new Sample<Double>(result, 1.0);
     }
 
+    @Override
+    public void fill(final double[] out, final int offset, final int length) /* @ReadOnly */{
+        QL.require(offset >= 0 && length >= 0 && offset + length <= out.length, "invalid range"); // TODO: message
+        final int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            // divide by 2^32
+            out[i] = ((next(32) & 0xffffffffL) + 0.5) * INV_TWO_POW_32;
+        }
+    }
+
+    /**
+     * Advances the generator as if {@link #nextInt32()} was called <code>steps</code> times.
+     * <p>
+     * The cost does not depend on the number of steps, apart from a logarithmic term spent calculating the jump polynomial.
+     *
+     * @param steps is the number of outputs to be skipped
+     * @return this
+     */
+    public MersenneTwisterUniformRng jump(final long steps) {
+        QL.require(steps >= 0, "number of steps must be non negative"); // TODO: message
+        final int pending = N - mti;
+        if (steps <= pending) {
+            mti += (int) steps;
+        } else {
+            jump(MersenneTwisterJump.polynomial(steps - pending));
+        }
+        return this;
+    }
+
+    /**
+     * Returns independent generators for parallel computations
+     * <p>
+     * The first generator is a copy of this one and each of the others starts at least 2<sup>{@value #STREAM_EXPONENT}</sup> outputs
+     * after the previous one. Substreams cannot overlap unless a worker consumes more outputs than that, so results are
+     * reproducible and do not depend on how work is split between threads.
+     * <p>
+     * This generator is not modified.
+     *
+     * @param count is the number of substreams
+     * @return <code>count</code> generators
+     */
+    public MersenneTwisterUniformRng[] substreams(final int count) {
+        QL.require(count > 0, "number of substreams must be positive"); // TODO: message
+        final MersenneTwisterUniformRng[] result = new MersenneTwisterUniformRng[count];
+        result[0] = new MersenneTwisterUniformRng(this);
+        if (count > 1) {
+            final long[] poly = MersenneTwisterJump.powerOfTwo(STREAM_EXPONENT);
+            for (int i = 1; i < count; i++) {
+                result[i] = new MersenneTwisterUniformRng(result[i-1]).jump(poly);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Applies a jump polynomial, discarding outputs already generated
+     */
+    private MersenneTwisterUniformRng jump(final long[] poly) {
+        final int[] state = MersenneTwisterJump.apply(poly, mt);
+        System.arraycopy(state, 0, mt, 0, N);
+        mti = N;
+        return this;
+    }
+
+    /**
+     * Distance between substreams is 2<sup>STREAM_EXPONENT</sup>
+     */
+    public static final int STREAM_EXPONENT = 64;
+
+    private static final double INV_TWO_POW_32 = 1.0 / 4294967296.0;
+
     private static final int N = 624;
     private static final int M = 397;
     private static final int[] MAG01 = { 0x0, 0x9908b0df };
@@ -22,7 +22,6 @@
 
 package org.jquantlib.math.randomnumbers;
 
-import org.jquantlib.QL;
 import org.jquantlib.math.distributions.InverseCumulativeNormal;
 
 /**
@@ -31,7 +30,11 @@ import org.jquantlib.math.distributions.InverseCumulativeNormal;
 public class PseudoRandom /* <RNG extends MersenneTwisterUniformRng, IC extends InverseCumulativeNormal> */
         extends GenericPseudoRandom<MersenneTwisterUniformRng, InverseCumulativeNormal> {
 
-	public PseudoRandom(final Class<? extends UniformRandomSequenceGenerator> classRNG, final Class<? extends InverseCumulative> classIC) {
+	public PseudoRandom() {
+		this(MersenneTwisterUniformRng.class, InverseCumulativeNormal.class);
+	}
+
+	public PseudoRandom(final Class<? extends RandomNumberGenerator> classRNG, final Class<? extends InverseCumulative> classIC) {
 		super(classRNG, classIC);
 	}
 	
@@ -41,9 +44,18 @@ public class PseudoRandom /* <RNG extends MersenneTwisterUniformRng, IC extends
     public InverseCumulativeRsg<RandomSequenceGenerator<MersenneTwisterUniformRng>, InverseCumulativeNormal> makeSequenceGenerator(
             final /*@NonNegative*/ int dimension, 
             final /*@NonNegative*/ long seed) {
-
-    	QL.validateExperimentalMode();
     	return super.makeSequenceGenerator(dimension, seed);
     }
 
+    /**
+     * Builds a sequence generator on top of a given generator, such as one of the
+     * {@link MersenneTwisterUniformRng#substreams(int) substreams} of another one
+     */
+    @Override
+    public InverseCumulativeRsg<RandomSequenceGenerator<MersenneTwisterUniformRng>, InverseCumulativeNormal> makeSequenceGenerator(
+            final /*@NonNegative*/ int dimension,
+            final MersenneTwisterUniformRng rng) {
+        return super.makeSequenceGenerator(dimension, rng);
+    }
+
 }
\ No newline at end of file
@@ -32,6 +32,17 @@ public interface RandomNumberGenerator {
      */
     public Sample<Double> next() /*@ReadOnly*/;
 
+    /**
+     * Fills <code>length</code> elements of <code>out</code> with uniform deviates in (0, 1), starting at <code>offset</code>
+     * <p>
+     * This is equivalent to calling {@link #next()} repeatedly, without allocating a {@link Sample} for every deviate.
+     *
+     * @param out is the destination array
+     * @param offset is the first position to be filled
+     * @param length is the number of deviates
+     */
+    public void fill(double[] out, int offset, int length) /*@ReadOnly*/;
+
 
     /**
      * Once JVM does not support unsigned fixed arithmetic, we use 64bit variables as containers for 32bit values in order to reduce
@@ -76,8 +76,6 @@ public class RandomSequenceGenerator<RNG extends RandomNumberGenerator> implemen
     		final /*@NonNegative*/ int dimensionality, 
     		final RNG rng) {
 
-        if (System.getProperty("EXPERIMENTAL")==null) throw new UnsupportedOperationException("Work in progress");
-
         QL.require(dimensionality >= 1 , "dimensionality must be greater than 0"); // TODO: message
         this.classRNG = classRNG;
         this.dimension = dimensionality;
@@ -97,8 +95,6 @@ public class RandomSequenceGenerator<RNG extends RandomNumberGenerator> implemen
     		final /*@NonNegative*/ int dimensionality, 
     		final long seed) {
 
-        if (System.getProperty("EXPERIMENTAL")==null) throw new UnsupportedOperationException("Work in progress");
-
         this.classRNG = classRNG;
         
         if (dimensionality < 1) throw new IllegalArgumentException("dimensionality must be greater than 0");
@@ -140,6 +136,15 @@ public class RandomSequenceGenerator<RNG extends RandomNumberGenerator> implemen
         return new Sample<double[]>(sequence, weight);
     }
 
+    @Override
+    public void fill(final double[] out, final int offset, final int length) /* @ReadOnly */{
+        QL.require(length % this.dimension == 0, "length must be a multiple of the dimension"); // TODO: message
+        this.rng.fill(out, offset, length);
+        if (length > 0) {
+            System.arraycopy(out, offset + length - this.dimension, this.sequence, 0, this.dimension);
+        }
+    }
+
     @Override
     public long[] nextInt32Sequence() /* @ReadOnly */{
         for (int i = 0; i < this.dimension; i++)
@@ -0,0 +1,125 @@
+/*
+ Copyright (C) 2011 Richard Gomes
+
+ This source code is release under the BSD License.
+
+ This file is part of JQuantLib, a free-software/open-source library
+ for financial quantitative analysts and developers - http://jquantlib.org/
+
+ JQuantLib is free software: you can redistribute it and/or modify it
+ under the terms of the JQuantLib license.  You should have received a
+ copy of the license along with this program; if not, please email
+ <jquant-devel@lists.sourceforge.net>. The license is also available online at
+ <http://www.jquantlib.org/index.php/LICENSE.TXT>.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE.  See the license for more details.
+
+ JQuantLib is based on QuantLib. http://quantlib.org/
+ When applicable, the original copyright notice follows this notice.
+ */
+
+
+package org.jquantlib.math.randomnumbers;
+
+/**
+ * Jump ahead of the SIMD-oriented Fast Mersenne Twister SFMT19937
+ * <p>
+ * A transition advances the recursion by one 128-bit block, which corresponds to 4 outputs of the generator. The minimal
+ * polynomial is obtained once, from the most significant bit of the first word of each block of an output sequence.
+ *
+ * @see LinearRecurrenceJump
+ * @see SFMTUniformRng
+ */
+final class SFMTJump {
+
+    private static final int N = SFMTUniformRng.N;
+    private static final int N32 = SFMTUniformRng.N32;
+    private static final int POS1 = SFMTUniformRng.POS1;
+
+    private static LinearRecurrenceJump jump;
+
+
+    private SFMTJump() {
+        // only static methods
+    }
+
+
+    //
+    // package private methods
+    //
+
+    /**
+     * @return <i>x<sup>blocks</sup> mod &phi;(x)</i>
+     */
+    static long[] polynomial(final long blocks) {
+        return jump().polynomial(blocks);
+    }
+
+    /**
+     * @return <i>x<sup>2<sup>exponent</sup></sup> mod &phi;(x)</i>
+     */
+    static long[] powerOfTwo(final int exponent) {
+        return jump().powerOfTwo(exponent);
+    }
+
+    /**
+     * Applies a jump polynomial to a state array
+     *
+     * @param poly is a jump polynomial
+     * @param sfmt holds the last <code>N</code> blocks of the recursion, the oldest one first
+     * @return a state of the same kind, advanced by the jump
+     */
+    static int[] apply(final long[] poly, final int[] sfmt) {
+        final int degree = jump().degree();
+        // the state is kept as a ring of blocks followed by a scratch block, where the recursion writes
+        final int[] state = new int[N32 + 4];
+        System.arraycopy(sfmt, 0, state, 0, N32);
+        final int[] result = new int[N32];
+        int ptr = 0;
+        for (int i = 0; i < degree; i++) {
+            if (LinearRecurrenceJump.coefficient(poly, i)) {
+                // align state at ptr with result at 0
+                final int head = N32 - 4*ptr;
+                for (int k = 0; k < head; k++) {
+                    result[k] ^= state[4*ptr + k];
+                }
+                for (int k = head; k < N32; k++) {
+                    result[k] ^= state[k - head];
+                }
+            }
+            // one transition of the generator, in place
+            final int b = (ptr + POS1) % N;
+            final int c = (ptr + N - 2) % N;
+            final int d = (ptr + N - 1) % N;
+            SFMTUniformRng.doRecursion(state, N32, 4*ptr, 4*b, 4*c, 4*d);
+            System.arraycopy(state, N32, state, 4*ptr, 4);
+            ptr = (ptr + 1 == N) ? 0 : ptr + 1;
+        }
+        return result;
+    }
+
+
+    //
+    // private methods
+    //
+
+    private static synchronized LinearRecurrenceJump jump() {
+        if (jump == null) {
+            // twice the size of the state is enough whatever the degree of the minimal polynomial
+            final int n = 2 * 32 * N32;
+            final long[] sequence = new long[n/64 + 1];
+            final SFMTUniformRng rng = new SFMTUniformRng(1234);
+            for (int i = 0; i < n; i++) {
+                if ((rng.nextInt32() >>> 31) != 0) {
+                    sequence[i >>> 6] |= 1L << (i & 63);
+                }
+                rng.jump(3);
+            }
+            jump = new LinearRecurrenceJump(sequence, n);
+        }
+        return jump;
+    }
+
+}
@@ -0,0 +1,48 @@
+/*
+ Copyright (C) 2011 Richard Gomes
+
+ This source code is release under the BSD License.
+
+ This file is part of JQuantLib, a free-software/open-source library
+ for financial quantitative analysts and developers - http://jquantlib.org/
+
+ JQuantLib is free software: you can redistribute it and/or modify it
+ under the terms of the JQuantLib license.  You should have received a
+ copy of the license along with this program; if not, please email
+ <jquant-devel@lists.sourceforge.net>. The license is also available online at
+ <http://www.jquantlib.org/index.php/LICENSE.TXT>.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE.  See the license for more details.
+
+ JQuantLib is based on QuantLib. http://quantlib.org/
+ When applicable, the original copyright notice follows this notice.
+ */
+
+
+
+package org.jquantlib.math.randomnumbers;
+
+import org.jquantlib.math.distributions.InverseCumulativeNormal;
+
+/**
+ * Pseudo-random Gaussian sequences drawn from {@link SFMTUniformRng}
+ * <p>
+ * This is a drop-in replacement of {@link PseudoRandom} wherever a sequence generator is made, which trades the Mersenne
+ * Twister for its SIMD-oriented variant.
+ */
+public class SFMTPseudoRandom extends GenericPseudoRandom<SFMTUniformRng, InverseCumulativeNormal> {
+
+    public SFMTPseudoRandom() {
+        super(SFMTUniformRng.class, InverseCumulativeNormal.class);
+    }
+
+    @Override
+    public InverseCumulativeRsg<RandomSequenceGenerator<SFMTUniformRng>, InverseCumulativeNormal> makeSequenceGenerator(
+            final /*@NonNegative*/ int dimension,
+            final /*@NonNegative*/ long seed) {
+        return super.makeSequenceGenerator(dimension, seed);
+    }
+
+}
@@ -0,0 +1,487 @@
+/*
+Copyright (C) 2008 Aaron Roth
+
+This source code is release under the BSD License.
+
+This file is part of JQuantLib, a free-software/open-source library
+for financial quantitative analysts and developers - http://jquantlib.org/
+
+JQuantLib is free software: you can redistribute it and/or modify it
+under the terms of the JQuantLib license.  You should have received a
+copy of the license along with this program; if not, please email
+<jquant-devel@lists.sourceforge.net>. The license is also available online at
+<http://www.jquantlib.org/index.php/LICENSE.TXT>.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE.  See the license for more details.
+
+JQuantLib is based on QuantLib. http://quantlib.org/
+When applicable, the original copyright notice follows this notice.
+
+The code below is an adaptation of the work of Adrian King
+(<code>ceroxylon<b> at </b>hotmail.com</code>), which is in turn an adaptation
+in Java of the C code, version 1.3, of the orginators of SIMD-oriented
+Fast Mersenne Twister (SFMT) algorithm, Mutsuo Saito (Hiroshima University) and
+Makoto Matsumoto (Hiroshima University). See <a
+href="http://www.math.sci.hiroshima-u.ac.jp/~m-mat/MT/SFMT/index.html">.
+
+Their original algorithm supports generators of various periods; the code below
+currently supports generators of period 2<sup>19937</sup> &minus; 1 only.
+
+<p>
+The license (a modified BSD License) for the original C code from which this
+code is adapted:
+
+<pre>
+Copyright (c) 2006,2007 Mutsuo Saito, Makoto Matsumoto and Hiroshima
+University. All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are
+met:
+
+ * Redistributions of source code must retain the above copyright
+notice, this list of conditions and the following disclaimer.
+ * Redistributions in binary form must reproduce the above
+copyright notice, this list of conditions and the following
+disclaimer in the documentation and/or other materials provided
+with the distribution.
+ * Neither the name of the Hiroshima University nor the names of
+its contributors may be used to endorse or promote products
+derived from this software without specific prior written
+permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+"AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+</pre>
+ */
+
+package org.jquantlib.math.randomnumbers;
+
+import java.util.Arrays;
+
+import org.jquantlib.QL;
+import org.jquantlib.methods.montecarlo.Sample;
+
+
+/**
+ * SIMD-oriented Fast Mersenne Twister
+ * <p>
+ * This generator has period 2<sup>19937</sup>-1, like {@link MersenneTwisterUniformRng}, but its recursion works on 128-bit
+ * blocks and regenerates the whole state at once, without tempering. Deviates obtained in bulk by
+ * {@link #fill(double[], int, int)} are converted straight from the state array.
+ * <p>
+ * The generator can be advanced by an arbitrary number of steps with {@link #jump(long)}, and {@link #substreams(int)}
+ * provides non-overlapping generators for parallel computations.
+ *
+ * @see <a href="http://www.math.sci.hiroshima-u.ac.jp/~m-mat/MT/SFMT/index.html">SIMD-oriented Fast Mersenne Twister</a>
+ */
+public class SFMTUniformRng implements RandomNumberGenerator {
+
+    /**
+     * Mersenne Exponent. The period of the sequence is a multiple of
+     * 2<sup><code>MEXP</code></sup> &minus; 1. If you adapt this code to
+     * support a different exponent, you must change many of the other constants
+     * here as well; consult the original C code.
+     */
+    private static final int MEXP = 19937;
+
+    /**
+     * The SFMT generator has an internal state array of 128-bit integers, and
+     * <code>N</code> is its size.
+     */
+    static final int N = MEXP / 128 + 1;
+
+    /**
+     * <code>N32</code> is the size of internal state array when regarded as an
+     * array of 32-bit integers.
+     */
+    static final int N32 = N * 4;
+
+    /**
+     * The pick up position of the array.
+     */
+    static final int POS1 = 122;
+
+    /**
+     * The parameter of shift left as four 32-bit registers.
+     */
+    private static final int SL1 = 18;
+
+    /**
+     * The parameter of shift left as one 128-bit register. The 128-bit integer
+     * is shifted by <code>SL2 * 8</code> bits.
+     */
+    private static final int SL2 = 1;
+    private static final int SL2_BITS = SL2 * 8;
+
+    /**
+     * The parameter of shift right as four 32-bit registers.
+     */
+    private static final int SR1 = 11;
+
+    /**
+     * The parameter of shift right as one 128-bit register. The 128-bit integer
+     * is shifted by <code>SR2 * 8</code> bits.
+     */
+    private static final int SR2 = 1;
+    private static final int SR2_BITS = SR2 * 8;
+
+    /**
+     * Bitmask parameters used in the recursion to break the symmetry of SIMD.
+     */
+    private static final int MSK1 = 0xdfffffef;
+    private static final int MSK2 = 0xddfecb7f;
+    private static final int MSK3 = 0xbffaffff;
+    private static final int MSK4 = 0xbffffff6;
+
+    /**
+     * A parity check vector which certifies the period of 2<sup>{@link #MEXP}</sup>.
+     */
+    private static final int[] PARITY = { 0x00000001, 0x00000000, 0x00000000, 0x13c9e684 };
+
+    /**
+     * Distance between substreams is 2<sup>STREAM_EXPONENT</sup>
+     */
+    public static final int STREAM_EXPONENT = 64;
+
+    private static final double INV_TWO_POW_32 = 1.0 / 4294967296.0;
+
+
+    //
+    // private fields
+    //
+
+    /**
+     * The internal state array. Blocks of four consecutive <code>int</code>s
+     * are treated as a single 128-bit integer that is little-endian, that is,
+     * its low-order bits are at lower indices in the array.
+     */
+    private final int[] sfmt;
+
+    /**
+     * Index of the next <code>int</code> to be returned
+     */
+    private int idx;
+
+
+    //
+    // public constructors
+    //
+
+    /**
+     * Creates a new random number generator seeded by {@link SeedGenerator}
+     */
+    public SFMTUniformRng() {
+        this(SeedGenerator.getInstance().get());
+    }
+
+    /**
+     * Creates a new random number generator using a single int seed.
+     *
+     * @param seed the initial seed (32 bits integer)
+     */
+    public SFMTUniformRng(final int seed) {
+        this.sfmt = new int[N32];
+        setSeed(seed);
+    }
+
+    /**
+     * Creates a new random number generator using an int array seed.
+     *
+     * @param seed the initial seed (32 bits integers array)
+     */
+    public SFMTUniformRng(final int[] seed) {
+        this.sfmt = new int[N32];
+        setSeed(seed);
+    }
+
+    /**
+     * Creates a new random number generator using a single long seed.
+     * <p>
+     * This is the constructor employed by {@link RandomSequenceGenerator} and {@link GenericPseudoRandom}.
+     *
+     * @param seed the initial seed (64 bits integer)
+     */
+    public SFMTUniformRng(final long seed) {
+        this.sfmt = new int[N32];
+        setSeed(seed);
+    }
+
+    /**
+     * Creates a new random number generator with the same state as <code>other</code>
+     *
+     * @param other is the generator to be copied
+     */
+    public SFMTUniformRng(final SFMTUniformRng other) {
+        this.sfmt = other.sfmt.clone();
+        this.idx = other.idx;
+    }
+
+
+    //
+    // public methods
+    //
+
+    /**
+     * Reinitialize the generator as if just built with the given int seed.
+     *
+     * @param seed the initial seed (32 bits integer)
+     */
+    public void setSeed(final int seed) {
+        sfmt[0] = seed;
+        for (int i = 1; i < N32; i++) {
+            final int prev = sfmt[i - 1];
+            sfmt[i] = 1812433253 * (prev ^ (prev >>> 30)) + i;
+        }
+        periodCertification();
+        idx = N32;
+    }
+
+    /**
+     * Reinitialize the generator as if just built with the given int array seed.
+     *
+     * @param seed the initial seed (32 bits integers array)
+     */
+    public void setSeed(final int[] seed) {
+        QL.require(seed != null, "seed must not be null"); // TODO: message
+        final int lag = 11;
+        final int mid = (N32 - lag) / 2;
+
+        Arrays.fill(sfmt, 0x8b8b8b8b);
+
+        final int count = seed.length >= N32 ? seed.length : N32 - 1;
+        int r = func1(0x8b8b8b8b);
+
+        sfmt[mid] += r;
+        r += seed.length;
+        sfmt[mid + lag] += r;
+        sfmt[0] = r;
+
+        int i = 1, j = 0;
+        for (; j < count && j < seed.length; j++) {
+            r = func1(sfmt[i] ^ sfmt[(i + mid) % N32] ^ sfmt[(i + N32 - 1) % N32]);
+            sfmt[(i + mid) % N32] += r;
+            r += seed[j] + i;
+            sfmt[(i + mid + lag) % N32] += r;
+            sfmt[i] = r;
+            i = (i + 1) % N32;
+        }
+        for (; j < count; j++) {
+            r = func1(sfmt[i] ^ sfmt[(i + mid) % N32] ^ sfmt[(i + N32 - 1) % N32]);
+            sfmt[(i + mid) % N32] += r;
+            r += i;
+            sfmt[(i + mid + lag) % N32] += r;
+            sfmt[i] = r;
+            i = (i + 1) % N32;
+        }
+        for (j = 0; j < N32; j++) {
+            r = func2(sfmt[i] + sfmt[(i + mid) % N32] + sfmt[(i + N32 - 1) % N32]);
+            sfmt[(i + mid) % N32] ^= r;
+            r -= i;
+            sfmt[(i + mid + lag) % N32] ^= r;
+            sfmt[i] = r;
+            i = (i + 1) % N32;
+        }
+
+        periodCertification();
+        idx = N32;
+    }
+
+    /**
+     * Reinitialize the generator as if just built with the given long seed.
+     *
+     * @param seed the initial seed (64 bits integer)
+     */
+    public void setSeed(final long seed) {
+        setSeed(new int[] { (int) (seed >>> 32), (int) (seed & 0xffffffffL) });
+    }
+
+    /**
+     * Advances the generator as if {@link #nextInt32()} was called <code>steps</code> times.
+     * <p>
+     * The cost does not depend on the number of steps, apart from a logarithmic term spent calculating the jump polynomial.
+     *
+     * @param steps is the number of outputs to be skipped
+     * @return this
+     */
+    public SFMTUniformRng jump(final long steps) {
+        QL.require(steps >= 0, "number of steps must be non negative"); // TODO: message
+        final int pending = N32 - idx;
+        if (steps <= pending) {
+            idx += (int) steps;
+        } else {
+            // the recursion advances 128-bit blocks; a remainder of less than 4 outputs is skipped by hand
+            jump(SFMTJump.polynomial(steps / 4));
+            for (int i = 0; i < (int) (steps % 4); i++) {
+                nextInt32();
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Returns independent generators for parallel computations
+     * <p>
+     * The first generator is a copy of this one and each of the others starts 2<sup>{@value #STREAM_EXPONENT}</sup> outputs
+     * after the previous one. This generator is not modified.
+     *
+     * @param count is the number of substreams
+     * @return <code>count</code> generators
+     *
+     * @see MersenneTwisterUniformRng#substreams(int)
+     */
+    public SFMTUniformRng[] substreams(final int count) {
+        QL.require(count > 0, "number of substreams must be positive"); // TODO: message
+        final SFMTUniformRng[] result = new SFMTUniformRng[count];
+        result[0] = new SFMTUniformRng(this);
+        if (count > 1) {
+            // outputs come in blocks of 4
+            final long[] poly = SFMTJump.powerOfTwo(STREAM_EXPONENT - 2);
+            for (int i = 1; i < count; i++) {
+                result[i] = new SFMTUniformRng(result[i-1]).jump(poly);
+            }
+        }
+        return result;
+    }
+
+
+    //
+    // implements RandomNumberGenerator
+    //
+
+    @Override
+    public Sample<Double> next() /* @ReadOnly */{
+        final double result = (nextInt32() + 0.5) * INV_TWO_POW_32;
+        return new Sample<Double>(result, 1.0);
+    }
+
+    @Override
+    public long nextInt32() /* @ReadOnly */{
+        if (idx >= N32) {
+            genRandAll();
+            idx = 0;
+        }
+        return sfmt[idx++] & 0xffffffffL;
+    }
+
+    @Override
+    public void fill(final double[] out, final int offset, final int length) /* @ReadOnly */{
+        QL.require(offset >= 0 && length >= 0 && offset + length <= out.length, "invalid range"); // TODO: message
+        int pos = offset;
+        int remaining = length;
+        while (remaining > 0) {
+            if (idx >= N32) {
+                genRandAll();
+                idx = 0;
+            }
+            final int count = Math.min(remaining, N32 - idx);
+            for (int k = 0; k < count; k++) {
+                out[pos + k] = ((sfmt[idx + k] & 0xffffffffL) + 0.5) * INV_TWO_POW_32;
+            }
+            idx += count;
+            pos += count;
+            remaining -= count;
+        }
+    }
+
+
+    //
+    // package private methods
+    //
+
+    /**
+     * One step of the recursion, which calculates the 128-bit block at <code>r</code>
+     * from blocks at <code>a</code>, <code>b</code>, <code>c</code> and <code>d</code>
+     */
+    static void doRecursion(final int[] s, final int r, final int a, final int b, final int c, final int d) {
+        final int a0 = s[a], a1 = s[a + 1], a2 = s[a + 2], a3 = s[a + 3];
+        final int c0 = s[c], c1 = s[c + 1], c2 = s[c + 2], c3 = s[c + 3];
+        s[r]     = a0 ^ (a0 << SL2_BITS)                          ^ ((s[b]     >>> SR1) & MSK1) ^ ((c0 >>> SR2_BITS) | (c1 << (32 - SR2_BITS))) ^ (s[d]     << SL1);
+        s[r + 1] = a1 ^ ((a1 << SL2_BITS) | (a0 >>> (32 - SL2_BITS))) ^ ((s[b + 1] >>> SR1) & MSK2) ^ ((c1 >>> SR2_BITS) | (c2 << (32 - SR2_BITS))) ^ (s[d + 1] << SL1);
+        s[r + 2] = a2 ^ ((a2 << SL2_BITS) | (a1 >>> (32 - SL2_BITS))) ^ ((s[b + 2] >>> SR1) & MSK3) ^ ((c2 >>> SR2_BITS) | (c3 << (32 - SR2_BITS))) ^ (s[d + 2] << SL1);
+        s[r + 3] = a3 ^ ((a3 << SL2_BITS) | (a2 >>> (32 - SL2_BITS))) ^ ((s[b + 3] >>> SR1) & MSK4) ^ (c3 >>> SR2_BITS)                          ^ (s[d + 3] << SL1);
+    }
+
+
+    //
+    // private methods
+    //
+
+    /**
+     * Fills the internal state array with pseudorandom integers.
+     */
+    private void genRandAll() {
+        int i = 0;
+        int r1 = 4 * (N - 2);
+        int r2 = 4 * (N - 1);
+        for (; i < 4 * (N - POS1); i += 4) {
+            doRecursion(sfmt, i, i, i + 4 * POS1, r1, r2);
+            r1 = r2;
+            r2 = i;
+        }
+        for (; i < 4 * N; i += 4) {
+            doRecursion(sfmt, i, i, i + 4 * (POS1 - N), r1, r2);
+            r1 = r2;
+            r2 = i;
+        }
+    }
+
+    /**
+     * Applies a jump polynomial, measured in 128-bit blocks
+     * <p>
+     * The state array always holds the last <code>N</code> blocks of the recursion, so that pending outputs are advanced
+     * together with the rest of the state and the current index remains valid.
+     */
+    private SFMTUniformRng jump(final long[] poly) {
+        final int[] state = SFMTJump.apply(poly, sfmt);
+        System.arraycopy(state, 0, sfmt, 0, N32);
+        return this;
+    }
+
+    /**
+     * Certifies the period of 2<sup>{@link #MEXP}</sup>.
+     */
+    private void periodCertification() {
+        int inner = 0;
+        for (int i = 0; i < 4; i++) {
+            inner ^= sfmt[i] & PARITY[i];
+        }
+        for (int i = 16; i > 0; i >>= 1) {
+            inner ^= inner >> i;
+        }
+        if ((inner & 1) != 0)
+            return;
+
+        // otherwise, twiddle a bit of the internal state
+        for (int i = 0; i < 4; i++) {
+            int work = 1;
+            for (int j = 0; j < 32; j++) {
+                if ((work & PARITY[i]) != 0) {
+                    sfmt[i] ^= work;
+                    return;
+                }
+                work <<= 1;
+            }
+        }
+    }
+
+    private static int func1(final int x) {
+        return (x ^ (x >>> 27)) * 1664525;
+    }
+
+    private static int func2(final int x) {
+        return (x ^ (x >>> 27)) * 1566083941;
+    }
+
+}
@@ -22,7 +22,6 @@ When applicable, the original copyright notice follows this notice.
 package org.jquantlib.math.randomnumbers;
 
 import org.jquantlib.QL;
-import org.jquantlib.math.Constants;
 import org.jquantlib.methods.montecarlo.Sample;
 
 /**
@@ -1355,20 +1354,37 @@ public class SobolRsg implements UniformRandomSequenceGenerator {
         Unit, Jaeckel, SobolLevitan, SobolLevitanLemieux
     }
 
+    /**
+     * Randomization of the sequence, so that independent replicas provide an error estimate
+     * <ul>
+     * <li>None: the plain Sobol sequence</li>
+     * <li>DigitalShift: a random integer is XOR-ed into each dimension</li>
+     * <li>LinearScrambling: random lower triangular matrices are applied to the digits of each dimension,
+     * followed by a digital shift. This is the affine scrambling of Matousek, which approximates Owen scrambling
+     * and preserves the net properties of the sequence</li>
+     * </ul>
+     *
+     * @see <a href="http://dx.doi.org/10.1006/jcom.1998.0487">J. Matousek, On the L2-discrepancy for anchored boxes,
+     *      Journal of Complexity 14 (1998)</a>
+     */
+    public enum Scrambling {
+        None, DigitalShift, LinearScrambling
+    }
+
 
     //
     // constants
     //
 
     /**
-     * BITS = 8*sizeof(unsigned long) = 64
+     * Sobol integers are unsigned 32 bit values, as returned by {@link #nextInt32Sequence()}
      */
-    private static final int BITS = 64;
+    private static final int BITS = 32;
 
     /**
-     *  1/(2^bits_) (written as (1/2)/(2^(bits_-1)) to avoid long overflow)
+     *  1/(2^bits_) (written as (1/2)/(2^(bits_-1)) to avoid int overflow)
      */
-    private static final double NORMALIZATION_FACTOR = 0.5 / (1 << (BITS-1));
+    private static final double NORMALIZATION_FACTOR = 0.5 / (1L << (BITS-1));
 
 
     //
@@ -1379,6 +1395,8 @@ public class SobolRsg implements UniformRandomSequenceGenerator {
 
     private final long[]       integerSequence;
     private final long[][]     directionIntegers;
+    private final long[]       digitalShift;
+    private final double       normalizationOffset;
 
     private Sample<double[]>   sequence;
     private long               sequenceCounter;
@@ -1401,10 +1419,22 @@ public class SobolRsg implements UniformRandomSequenceGenerator {
     }
 
     public SobolRsg(final int dimensionality, final long seed, final DirectionIntegers direction) {
+        this(dimensionality, seed, direction, Scrambling.None, 0);
+    }
 
-        if (System.getProperty("EXPERIMENTAL")==null) {
-            throw new UnsupportedOperationException("Work in progress");
-        }
+    /**
+     * @param dimensionality is the number of dimensions
+     * @param seed initializes direction integers of dimensions which are not tabulated
+     * @param direction chooses the tabulated direction integers
+     * @param scrambling is the randomization of the sequence
+     * @param scramblingSeed identifies a randomized replica of the sequence
+     */
+    public SobolRsg(
+            final int dimensionality,
+            final long seed,
+            final DirectionIntegers direction,
+            final Scrambling scrambling,
+            final long scramblingSeed) {
 
         QL.require(dimensionality > 0 , "dimensionality must be greater than 0"); // TODO: message
 
@@ -1451,7 +1481,7 @@ public class SobolRsg implements UniformRandomSequenceGenerator {
 
         // degenerate (no free direction integers) first dimension
         for (int j=0; j < BITS; j++) {
-            directionIntegers[0][j] = (1 << (BITS-j-1));
+            directionIntegers[0][j] = (1L << (BITS-j-1));
         }
 
         int maxTabulated = 0;
@@ -1471,7 +1501,7 @@ public class SobolRsg implements UniformRandomSequenceGenerator {
             break;
         case Jaeckel:
             // maxTabulated = 32;
-            maxTabulated = sizeInitializers/(Long.SIZE/8) + 1;
+            maxTabulated = initializers.length + 1;
             for (int k = 1; k < Math.min(this.dimensionality, maxTabulated); k++) {
                 int j = 0;
                 // 0UL marks coefficients' end for a given dimension
@@ -1485,7 +1515,7 @@ public class SobolRsg implements UniformRandomSequenceGenerator {
             break;
         case SobolLevitan:
             // maxTabulated = 40;
-            maxTabulated = sizeSLinitializers/(Long.SIZE/8) + 1;
+            maxTabulated = SLinitializers.length + 1;
             for (int k = 1; k < Math.min(this.dimensionality, maxTabulated); k++) {
                 int j = 0;
                 // 0UL marks coefficients' end for a given dimension
@@ -1498,8 +1528,7 @@ public class SobolRsg implements UniformRandomSequenceGenerator {
             }
             break;
         case SobolLevitanLemieux:
-            maxTabulated = 360;
-            maxTabulated = sizeLinitializers/(Long.SIZE/8) + 1;
+            maxTabulated = Linitializers.length + 1;
             for (int k = 1; k < Math.min(this.dimensionality, maxTabulated); k++) {
                 int j = 0;
                 // 0UL marks coefficients' end for a given dimension
@@ -1526,13 +1555,11 @@ public class SobolRsg implements UniformRandomSequenceGenerator {
 
                     do {
                         // u is in (0,1)
-                        final double u = uniformRng.next().value().doubleValue();
+                        final double u = ((uniformRng.nextInt32() & 0xffffffffL) + 0.5) * NORMALIZATION_FACTOR;
                         // the direction integer has at most the
                         // rightmost l bits non-zero
-
-                        // FIXME: Translate this line
-                        directionIntegers[k][l - 1] = (long) (u * (1 << l));
-                    } while (!((directionIntegers[k][l - 1] & 1) == 0));
+                        directionIntegers[k][l - 1] = (long) (u * (1L << l));
+                    } while ((directionIntegers[k][l - 1] & 1) == 0);
 
                     // iterate until the direction integer is odd
                     // that is it has the rightmost bit set
@@ -1617,32 +1644,62 @@ public class SobolRsg implements UniformRandomSequenceGenerator {
         //			}
         //		}
 
+        // randomization
+        this.digitalShift = new long[this.dimensionality];
+        if (scrambling != Scrambling.None) {
+            final MersenneTwisterUniformRng rng = new MersenneTwisterUniformRng(scramblingSeed);
+            if (scrambling == Scrambling.LinearScrambling) {
+                for (int k = 0; k < this.dimensionality; k++) {
+                    scramble(directionIntegers[k], rng);
+                }
+            }
+            for (int k = 0; k < this.dimensionality; k++) {
+                digitalShift[k] = rng.nextInt32() & 0xffffffffL;
+            }
+        }
+        // a randomized point is uniform in its cell, so that the midpoint is taken
+        this.normalizationOffset = (scrambling == Scrambling.None) ? 0.0 : 0.5;
+
         // initialize Sobol integer/double vectors
         // first draw
         for (int k=0; k<this.dimensionality; k++) {
-            integerSequence[k] = directionIntegers[k][0];
+            integerSequence[k] = digitalShift[k] ^ directionIntegers[k][0];
         }
     }
 
 
-    // skip to the n-th sample in the low-discrepancy sequence
-    private void skipTo(final /*@NonNegative*/ long skip) {
+    //
+    // public methods
+    //
+
+    /**
+     * Skips to the n-th sample in the low-discrepancy sequence
+     * <p>
+     * The next draw will be the same as the draw number <code>skip+1</code> of a newly built generator, counting from 1.
+     * The Gray code state is calculated directly, in O(dimension &times; log(skip)) operations, so that disjoint ranges
+     * of the sequence can be handed to parallel workers.
+     *
+     * @param skip is the number of draws to be skipped, counting from the beginning of the sequence
+     */
+    public void skipTo(final /*@NonNegative*/ long skip) {
+        QL.require(skip >= 0 && skip < (1L << BITS) - 1, "skip out of range"); // TODO: message
         final long n = skip + 1;
-        final long ops = (long) (Math.log(n) / Constants.M_LN2) + 1;
+        final int ops = Long.SIZE - Long.numberOfLeadingZeros(n);
 
         // Convert to Gray code
         final long gray = n ^ (n>>1);
 
-        // FIXME: Correct the following for loop regarding directionIntegers_ .
         for (int k = 0; k < this.dimensionality; k++) {
-            integerSequence[k] = 0;
+            long value = digitalShift[k];
             for (int index = 0; index < ops; index++) {
                 if (((gray >> index) & 1) != 0) {
-                    integerSequence[k] = directionIntegers[k][index];
+                    value ^= directionIntegers[k][index];
                 }
             }
+            integerSequence[k] = value;
         }
         sequenceCounter = skip;
+        firstDraw = true;
     }
 
 
@@ -1665,7 +1722,7 @@ public class SobolRsg implements UniformRandomSequenceGenerator {
         // increment the counter
         sequenceCounter++;
         // did we overflow?
-        if (sequenceCounter == 0) {
+        if (sequenceCounter == (1L << BITS) - 1) {
             throw new ArithmeticException("period exceeded"); // TODO: message
         }
 
@@ -1692,16 +1749,58 @@ public class SobolRsg implements UniformRandomSequenceGenerator {
 
         // normalize to get a double in (0,1)
         for (int k = 0; k < this.dimensionality; ++k) {
-            d[k] = v[k] * NORMALIZATION_FACTOR;
+            d[k] = (v[k] + normalizationOffset) * NORMALIZATION_FACTOR;
         }
 
         this.sequence = new Sample<double[]>(d, 1.0);
         return sequence;
     }
 
+    @Override
+    public void fill(final double[] out, final int offset, final int length) /* @ReadOnly */ {
+        QL.require(length % this.dimensionality == 0, "length must be a multiple of the dimension"); // TODO: message
+        QL.require(offset >= 0 && offset + length <= out.length, "invalid range"); // TODO: message
+        for (int pos = offset; pos < offset + length; pos += this.dimensionality) {
+            final long[] v = nextInt32Sequence();
+            // normalize to get a double in (0,1)
+            for (int k = 0; k < this.dimensionality; k++) {
+                out[pos + k] = (v[k] + normalizationOffset) * NORMALIZATION_FACTOR;
+            }
+        }
+    }
+
     @Override
     public final Sample<double[]> lastSequence() /* @Read-only*/ {
         return sequence;
     }
 
+
+
+    //
+    // private methods
+    //
+
+    /**
+     * Multiplies direction integers by a random nonsingular lower triangular matrix acting on their digits, the most
+     * significant digit first
+     */
+    private static void scramble(final long[] v, final MersenneTwisterUniformRng rng) {
+        // row r of the matrix holds a 1 on the diagonal and random bits in the columns before it
+        final long[] rows = new long[BITS];
+        for (int r = 0; r < BITS; r++) {
+            final long diagonal = 1L << (BITS - 1 - r);
+            final long random = (rng.nextInt32() & 0xffffffffL) & ~((diagonal << 1) - 1) & ((1L << BITS) - 1);
+            rows[r] = diagonal | random;
+        }
+        for (int j = 0; j < v.length; j++) {
+            long result = 0L;
+            for (int r = 0; r < BITS; r++) {
+                if ((Long.bitCount(rows[r] & v[j]) & 1) != 0) {
+                    result |= 1L << (BITS - 1 - r);
+                }
+            }
+            v[j] = result;
+        }
+    }
+
 }
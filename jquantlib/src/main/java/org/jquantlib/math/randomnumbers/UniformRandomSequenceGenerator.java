@@ -36,6 +36,18 @@ public interface UniformRandomSequenceGenerator {
 
    public Sample<double[]> lastSequence() /*@ReadOnly*/;
 
+   /**
+    * Fills consecutive sequences into <code>out</code>, starting at <code>offset</code>
+    * <p>
+    * This is equivalent to calling {@link #nextSequence()} <code>length/dimension()</code> times and copying the results one
+    * after another, without allocating a {@link Sample} for every sequence.
+    *
+    * @param out is the destination array
+    * @param offset is the first position to be filled
+    * @param length is the number of elements to be filled, which must be a multiple of {@link #dimension()}
+    */
+   public void fill(double[] out, int offset, int length) /*@ReadOnly*/;
+
    /**
     * Once JVM does not support unsigned fixed arithmetic, we use 64bit variables as containers for 32bit values in order to reduce
     * the complexity and performance overhead of certain fixed arithmetic operations.
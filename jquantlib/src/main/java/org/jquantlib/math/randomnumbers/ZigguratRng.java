@@ -0,0 +1,196 @@
+/*
+ Copyright (C) 2011 Richard Gomes
+
+ This source code is release under the BSD License.
+
+ This file is part of JQuantLib, a free-software/open-source library
+ for financial quantitative analysts and developers - http://jquantlib.org/
+
+ JQuantLib is free software: you can redistribute it and/or modify it
+ under the terms of the JQuantLib license.  You should have received a
+ copy of the license along with this program; if not, please email
+ <jquant-devel@lists.sourceforge.net>. The license is also available online at
+ <http://www.jquantlib.org/index.php/LICENSE.TXT>.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE.  See the license for more details.
+
+ JQuantLib is based on QuantLib. http://quantlib.org/
+ When applicable, the original copyright notice follows this notice.
+ */
+
+
+package org.jquantlib.math.randomnumbers;
+
+import org.jquantlib.methods.montecarlo.Sample;
+
+/**
+ * Ziggurat random number generator
+ * <p>
+ * Generates Gaussian deviates directly from a {@link MersenneTwisterUniformRng}, without an inverse cumulative
+ * transform. The normal density is covered by 128 layers of equal area: most deviates are obtained from a single
+ * 32-bit integer by means of one multiplication and one comparison, whilst only the few which fall at the edges of the
+ * layers, or in the base layer which includes the tail, require further uniform deviates.
+ * <p>
+ * The lowest 7 bits of each integer select the layer and the remaining 25 bits provide a signed abscissa, so that the
+ * layer and the abscissa are independent.
+ * <p>
+ * As {@link #next()} and {@link #fill(double[], int, int)} deliver standard Gaussian deviates rather than uniform
+ * ones, this class is not a {@link RandomNumberGenerator}. Gaussian sequences for pseudo-random simulations are obtained
+ * from {@link ZigguratRsg}.
+ *
+ * @see <a href="http://www.jstatsoft.org/v05/i08">G. Marsaglia, W. W. Tsang, The Ziggurat Method for Generating Random
+ *      Variables, Journal of Statistical Software 5 (2000)</a>
+ * @see <a href="http://www.doornik.com/research/ziggurat.pdf">J. A. Doornik, An Improved Ziggurat Method to Generate
+ *      Normal Random Samples (2005)</a>
+ */
+public class ZigguratRng {
+
+    //
+    // private static final fields
+    //
+
+    private static final int LAYERS = 128;
+
+    /**
+     * Abscissa where the tail begins
+     */
+    private static final double R = 3.442619855899;
+
+    /**
+     * Area of each layer
+     */
+    private static final double V = 9.91256303526217e-3;
+
+    /**
+     * Scale of the signed 25-bit abscissa
+     */
+    private static final double M = 16777216.0; // 2^24
+
+    private static final double INV_TWO_POW_32 = 1.0 / 4294967296.0;
+
+    private static final int[]    K = new int[LAYERS];
+    private static final double[] W = new double[LAYERS];
+    private static final double[] F = new double[LAYERS];
+
+    static {
+        double dn = R;
+        double tn = dn;
+        final double q = V / Math.exp(-0.5*dn*dn);
+        K[0] = (int) ((dn/q) * M);
+        K[1] = 0;
+        W[0] = q / M;
+        W[LAYERS-1] = dn / M;
+        F[0] = 1.0;
+        F[LAYERS-1] = Math.exp(-0.5*dn*dn);
+        for (int i = LAYERS-2; i >= 1; i--) {
+            dn = Math.sqrt(-2.0 * Math.log(V/dn + Math.exp(-0.5*dn*dn)));
+            K[i+1] = (int) ((dn/tn) * M);
+            tn = dn;
+            F[i] = Math.exp(-0.5*dn*dn);
+            W[i] = dn / M;
+        }
+    }
+
+
+    //
+    // private fields
+    //
+
+    private final MersenneTwisterUniformRng mt32;
+
+
+    //
+    // public constructors
+    //
+
+    /**
+     * This is the constructor employed by {@link ZigguratRsg}.
+     *
+     * @param seed is the seed of the underlying {@link MersenneTwisterUniformRng}
+     */
+    public ZigguratRng(final long seed) {
+        this(new MersenneTwisterUniformRng(seed));
+    }
+
+    /**
+     * @param mt32 is the source of uniform deviates, which is not copied
+     */
+    public ZigguratRng(final MersenneTwisterUniformRng mt32) {
+        this.mt32 = mt32;
+    }
+
+
+    //
+    // public methods
+    //
+
+    /**
+     * @return a sample from the standard Gaussian distribution
+     */
+    public Sample<Double> next() /* @ReadOnly */ {
+        return new Sample<Double>(nextGaussian(), 1.0);
+    }
+
+    /**
+     * Fills <code>length</code> elements of <code>out</code> with standard Gaussian deviates, starting at <code>offset</code>
+     */
+    public void fill(final double[] out, final int offset, final int length) /* @ReadOnly */ {
+        final int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            out[i] = nextGaussian();
+        }
+    }
+
+    /**
+     * @return the next integer of the underlying {@link MersenneTwisterUniformRng}
+     */
+    public /*@UnsignedInt*/ long nextInt32() /* @ReadOnly */ {
+        return mt32.nextInt32();
+    }
+
+    /**
+     * @return a deviate from the standard Gaussian distribution
+     */
+    public double nextGaussian() /* @ReadOnly */ {
+        for (;;) {
+            final int bits = (int) mt32.nextInt32();
+            final int i = bits & (LAYERS-1);
+            final int h = bits >> 7;
+
+            // inside the rectangle of the layer
+            if (Math.abs(h) < K[i])
+                return h * W[i];
+
+            final double x;
+            if (i == 0) {
+                // base layer: sample from the tail
+                double t, y;
+                do {
+                    t = -Math.log(uniform()) / R;
+                    y = -Math.log(uniform());
+                } while (y + y < t * t);
+                return (h > 0) ? R + t : -R - t;
+            }
+
+            // at the edge of the layer
+            x = h * W[i];
+            if (F[i] + uniform() * (F[i-1] - F[i]) < Math.exp(-0.5*x*x))
+                return x;
+        }
+    }
+
+
+    //
+    // private methods
+    //
+
+    /**
+     * @return a uniform deviate in (0, 1)
+     */
+    private double uniform() {
+        return ((mt32.nextInt32() & 0xffffffffL) + 0.5) * INV_TWO_POW_32;
+    }
+
+}
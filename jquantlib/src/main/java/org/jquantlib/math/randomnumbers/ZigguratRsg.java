@@ -0,0 +1,112 @@
+/*
+ Copyright (C) 2011 Richard Gomes
+
+ This source code is release under the BSD License.
+
+ This file is part of JQuantLib, a free-software/open-source library
+ for financial quantitative analysts and developers - http://jquantlib.org/
+
+ JQuantLib is free software: you can redistribute it and/or modify it
+ under the terms of the JQuantLib license.  You should have received a
+ copy of the license along with this program; if not, please email
+ <jquant-devel@lists.sourceforge.net>. The license is also available online at
+ <http://www.jquantlib.org/index.php/LICENSE.TXT>.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE.  See the license for more details.
+
+ JQuantLib is based on QuantLib. http://quantlib.org/
+ When applicable, the original copyright notice follows this notice.
+ */
+
+
+
+package org.jquantlib.math.randomnumbers;
+
+import org.jquantlib.QL;
+import org.jquantlib.methods.montecarlo.Sample;
+
+/**
+ * Gaussian random sequence generator based on the {@link ZigguratRng}
+ * <p>
+ * Sequences are made of standard Gaussian deviates, as the ones delivered by {@link InverseCumulativeRsg}, so that this
+ * generator can drive a {@link org.jquantlib.methods.montecarlo.PathGenerator} in pseudo-random simulations. No inverse
+ * cumulative transform is involved, hence it cannot be combined with low-discrepancy sequences.
+ *
+ * @see ZigguratRng
+ */
+public class ZigguratRsg implements UniformRandomSequenceGenerator {
+
+    //
+    // private fields
+    //
+
+    private final /*@NonNegative*/ int  dimension;
+    private final ZigguratRng           rng;
+    private final double[]              sequence;
+    private final long[]                int32Sequence;
+
+
+    //
+    // public constructors
+    //
+
+    /**
+     * @param dimensionality is the number of deviates in each sequence
+     * @param seed is the seed of the underlying {@link ZigguratRng}
+     */
+    public ZigguratRsg(final /*@NonNegative*/ int dimensionality, final long seed) {
+        this(dimensionality, new ZigguratRng(seed));
+    }
+
+    /**
+     * @param dimensionality is the number of deviates in each sequence
+     * @param rng is the source of Gaussian deviates, which is not copied
+     */
+    public ZigguratRsg(final /*@NonNegative*/ int dimensionality, final ZigguratRng rng) {
+        QL.require(dimensionality >= 1 , "dimensionality must be greater than 0"); // TODO: message
+        this.dimension = dimensionality;
+        this.rng = rng;
+        this.sequence = new double[dimensionality];
+        this.int32Sequence = new long[dimensionality];
+    }
+
+
+    //
+    // implements UniformRandomSequenceGenerator
+    //
+
+    @Override
+    public /*@NonNegative*/ int dimension() /* @ReadOnly */{
+        return this.dimension;
+    }
+
+    @Override
+    public Sample<double[]> lastSequence() /* @ReadOnly */{
+        return new Sample<double[]>(sequence, 1.0);
+    }
+
+    @Override
+    public Sample<double[]> nextSequence() /* @ReadOnly */{
+        this.rng.fill(this.sequence, 0, this.dimension);
+        return new Sample<double[]>(sequence, 1.0);
+    }
+
+    @Override
+    public void fill(final double[] out, final int offset, final int length) /* @ReadOnly */{
+        QL.require(length % this.dimension == 0, "length must be a multiple of the dimension"); // TODO: message
+        this.rng.fill(out, offset, length);
+        if (length > 0) {
+            System.arraycopy(out, offset + length - this.dimension, this.sequence, 0, this.dimension);
+        }
+    }
+
+    @Override
+    public /*@UnsignedInt*/ long[] nextInt32Sequence() /* @ReadOnly */{
+        for (int i = 0; i < this.dimension; i++)
+            this.int32Sequence[i] = this.rng.nextInt32();
+        return this.int32Sequence;
+    }
+
+}
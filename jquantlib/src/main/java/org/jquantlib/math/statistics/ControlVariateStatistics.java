@@ -0,0 +1,158 @@
+/*
+ Copyright (C) 2011 Richard Gomes
+
+ This source code is release under the BSD License.
+
+ This file is part of JQuantLib, a free-software/open-source library
+ for financial quantitative analysts and developers - http://jquantlib.org/
+
+ JQuantLib is free software: you can redistribute it and/or modify it
+ under the terms of the JQuantLib license.  You should have received a
+ copy of the license along with this program; if not, please email
+ <jquant-devel@lists.sourceforge.net>. The license is also available online at
+ <http://www.jquantlib.org/index.php/LICENSE.TXT>.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE.  See the license for more details.
+
+ JQuantLib is based on QuantLib. http://quantlib.org/
+ When applicable, the original copyright notice follows this notice.
+ */
+
+
+package org.jquantlib.math.statistics;
+
+import org.jquantlib.QL;
+
+/**
+ * Statistics of a Monte Carlo estimator corrected by a control variate
+ * <p>
+ * Pairs {@latex$ (y, c) } are accumulated, where <i>y</i> is the price of a sample and <i>c</i> is the price of the control
+ * on the same sample, whose expectation {@latex$ E[c] } is known in closed form. The estimator
+ * {@latex$ \bar{y} - \beta (\bar{c} - E[c]) } employs the coefficient {@latex$ \beta = Cov(y,c) / Var(c) } which minimizes its
+ * variance, so that the variance is reduced by a factor {@latex$ 1-\rho^2 }, where {@latex$ \rho } is the correlation
+ * between price and control.
+ * <p>
+ * Co-moments are updated incrementally and can be merged pairwise, as in {@link IncrementalStatistics}.
+ *
+ * @see "Monte Carlo Methods in Financial Engineering," P. Glasserman, section 4.1
+ */
+public class ControlVariateStatistics {
+
+    private static final String UNSUFFICIENT_SAMPLE_NUMBER = "sample number <=2, unsufficient";
+
+
+    //
+    // private fields
+    //
+
+    private /*@Size*/ int samples;
+    private /*@Real*/ double meanY;
+    private /*@Real*/ double meanC;
+    private /*@Real*/ double syy;
+    private /*@Real*/ double scc;
+    private /*@Real*/ double syc;
+
+
+    //
+    // public constructors
+    //
+
+    public ControlVariateStatistics() {
+        reset();
+    }
+
+
+    //
+    // public methods
+    //
+
+    /**
+     * Adds a sample
+     *
+     * @param y is the price of the sample
+     * @param c is the price of the control on the same sample
+     */
+    public void add(final /*@Real*/ double y, final /*@Real*/ double c) {
+        samples++;
+        final double dy = y - meanY;
+        final double dc = c - meanC;
+        meanY += dy / samples;
+        meanC += dc / samples;
+        syy += dy * (y - meanY);
+        scc += dc * (c - meanC);
+        syc += dy * (c - meanC);
+    }
+
+    /**
+     * Merges the samples of another instance into this one
+     *
+     * @return this instance
+     */
+    public ControlVariateStatistics merge(final ControlVariateStatistics other) {
+        if (other.samples == 0)
+            return this;
+        final double n = samples + other.samples;
+        final double dy = other.meanY - meanY;
+        final double dc = other.meanC - meanC;
+        final double f = (double) samples * other.samples / n;
+        syy += other.syy + dy * dy * f;
+        scc += other.scc + dc * dc * f;
+        syc += other.syc + dy * dc * f;
+        meanY += dy * other.samples / n;
+        meanC += dc * other.samples / n;
+        samples += other.samples;
+        return this;
+    }
+
+    public void reset() {
+        samples = 0;
+        meanY = meanC = 0.0;
+        syy = scc = syc = 0.0;
+    }
+
+    public /*@Size*/ int samples() /* @ReadOnly */ {
+        return samples;
+    }
+
+    /**
+     * @return the variance minimizing coefficient {@latex$ \beta = Cov(y,c) / Var(c) }
+     */
+    public /*@Real*/ double beta() /* @ReadOnly */ {
+        return scc > 0.0 ? syc / scc : 0.0;
+    }
+
+    /**
+     * @return the correlation between prices and controls
+     */
+    public /*@Real*/ double correlation() /* @ReadOnly */ {
+        return (syy > 0.0 && scc > 0.0) ? syc / Math.sqrt(syy * scc) : 0.0;
+    }
+
+    /**
+     * @return the mean of the prices, without correction
+     */
+    public /*@Real*/ double uncontrolledMean() /* @ReadOnly */ {
+        return meanY;
+    }
+
+    /**
+     * @param controlValue is the known expectation of the control
+     * @return the controlled estimate {@latex$ \bar{y} - \beta (\bar{c} - E[c]) }
+     */
+    public /*@Real*/ double mean(final /*@Real*/ double controlValue) /* @ReadOnly */ {
+        return meanY - beta() * (meanC - controlValue);
+    }
+
+    /**
+     * @return the standard deviation of the controlled estimate, i.e. the standard deviation of the residuals of the regression
+     *         of prices on controls divided by the square root of the number of samples
+     */
+    public /*@Real*/ double errorEstimate() /* @ReadOnly */ {
+        QL.require(samples > 2, UNSUFFICIENT_SAMPLE_NUMBER); // TODO: message
+        final double residual = (scc > 0.0) ? syy - syc * syc / scc : syy;
+        return Math.sqrt(Math.max(residual, 0.0) / (samples - 2) / samples);
+    }
+
+}
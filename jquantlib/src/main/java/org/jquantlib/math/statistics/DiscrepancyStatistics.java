@@ -123,7 +123,7 @@ public class DiscrepancyStatistics extends SequenceStatistics {
 			temp = 1.0;
 			for (k=0; k<dimension_; k++) {
 				// running i=1..(N-1)
-				r_ik = stats[k].data().get(m).first();
+				r_ik = stats[k].value(m);
 				// fixed j=N
 				r_jk = datum[k];
 				temp *= (1.0 - Math.max(r_ik, r_jk));
@@ -135,7 +135,7 @@ public class DiscrepancyStatistics extends SequenceStatistics {
 				// fixed i=N
 				r_ik = datum[k];
 				// running j=1..(N-1)
-				r_jk = stats[k].data().get(m).first();
+				r_jk = stats[k].value(m);
 				temp *= (1.0 - Math.max(r_ik, r_jk));
 			}
 			adiscr_ += temp;
@@ -166,7 +166,7 @@ public class DiscrepancyStatistics extends SequenceStatistics {
 			temp = 1.0;
 			for (k=0; k<dimension_; k++) {
 				// running i=1..(N-1)
-				r_ik = stats[k].data().get(m).first();
+				r_ik = stats[k].value(m);
 				// fixed j=N
 				r_jk = datum.$[datum._(k)];
 				temp *= (1.0 - Math.max(r_ik, r_jk));
@@ -178,7 +178,7 @@ public class DiscrepancyStatistics extends SequenceStatistics {
 				// fixed i=N
 				r_ik = datum.$[datum._(k)];
 				// running j=1..(N-1)
-				r_jk = stats[k].data().get(m).first();
+				r_jk = stats[k].value(m);
 				temp *= (1.0 - Math.max(r_ik, r_jk));
 			}
 			adiscr_ += temp;
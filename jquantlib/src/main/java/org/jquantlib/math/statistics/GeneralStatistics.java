@@ -41,8 +41,8 @@
 
 package org.jquantlib.math.statistics;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.jquantlib.QL;
@@ -74,6 +74,11 @@ import org.jquantlib.util.Pair;
  * It doesn't suffer the numerical instability problem of
  * IncrementalStatistics. The downside is that it stores all
  * samples, thus increasing the memory requirements.
+ * <p>
+ * Samples and weights are kept in growable primitive arrays, so that
+ * every sample costs 16 bytes. When all weights are unitary, a single
+ * percentile is obtained by selection in linear time, without sorting
+ * the data set.
  * 
  * @author Praneet Tiwari
  * @author Richard Gomes
@@ -81,12 +86,18 @@ import org.jquantlib.util.Pair;
 @QualityAssurance(quality = Quality.Q4_UNIT, reviewers = { "Richard Gomes" }, version = Version.V097)
 public abstract class GeneralStatistics {
 	
-    private List<ComparablePair<Double, Double>> samples;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private double[] values;
+    private double[] weights;
+    private int size;
     private boolean sorted;
+    private boolean unitWeights;
         
     private static final String EMPTY_SAMPLE_SET = "empty sample set";
     private static final String NEGATIVE_WEIGHT_NOT_ALLOWED = "negative weight not allowed";
     private static final String INCOMPATIBLE_ARRAY_SIZES = "incompatible array sizes";
+    private static final String INCOMPATIBLE_STATISTICS = "incompatible statistics";
     
 
     public GeneralStatistics() {
@@ -144,8 +155,21 @@ public abstract class GeneralStatistics {
      * resets the data to a null set
      */
     public void reset() {
-    	samples = new ArrayList<ComparablePair<Double, Double>>();
+        values = new double[INITIAL_CAPACITY];
+        weights = new double[INITIAL_CAPACITY];
+        size = 0;
         sorted = true;
+        unitWeights = true;
+    }
+
+    /**
+     * makes room for at least <code>capacity</code> samples, avoiding repeated growth of the storage
+     */
+    public void reserve(final /*@Size*/ int capacity) {
+        if (capacity > values.length) {
+            values = Arrays.copyOf(values, capacity);
+            weights = Arrays.copyOf(weights, capacity);
+        }
     }
 
     /**
@@ -153,23 +177,57 @@ public abstract class GeneralStatistics {
      */
     public void sort() /*@ReadOnly*/ {
         if (!sorted) {
-            Collections.sort(samples);
+            if (unitWeights) {
+                Arrays.sort(values, 0, size);
+            } else {
+                sort(values, weights, 0, size-1);
+            }
             sorted = true;
         }
     }
     
     public /*@Size*/ int samples() /*@ReadOnly*/ {
-        return samples.size();
+        return size;
+    }
+
+    /**
+     * @return the value of the i-th sample
+     */
+    public /*@Real*/ double value(final /*@Size*/ int i) /*@ReadOnly*/ {
+        QL.require(i >= 0 && i < size, "index out of range"); // TODO: message
+        return values[i];
     }
 
+    /**
+     * @return the weight of the i-th sample
+     */
+    public /*@Real*/ double weight(final /*@Size*/ int i) /*@ReadOnly*/ {
+        QL.require(i >= 0 && i < size, "index out of range"); // TODO: message
+        return weights[i];
+    }
+
+    /**
+     * Returns a read-only view of the data set
+     * <p>
+     * Pairs are created on demand. Prefer {@link #value(int)} and {@link #weight(int)} when iterating over large data sets.
+     */
     public List<ComparablePair<Double, Double>> data() /*@ReadOnly*/ {
-    	return Collections.unmodifiableList(samples);
+        return new AbstractList<ComparablePair<Double, Double>>() {
+            @Override
+            public ComparablePair<Double, Double> get(final int index) {
+                return new ComparablePair<Double, Double>(value(index), weight(index));
+            }
+            @Override
+            public int size() {
+                return size;
+            }
+        };
     }
 
     public /*@Real*/ double weightSum() /*@ReadOnly*/ {
         /*@Real*/ double result = 0.0;
-        for (final ComparablePair<Double, Double> it : samples) {
-        	result += it.second();
+        for (int i=0; i<size; i++) {
+        	result += weights[i];
         }
         return result;
     }
@@ -235,21 +293,33 @@ public abstract class GeneralStatistics {
 
     public /*@Real*/ double min() /*@ReadOnly*/ {
         QL.require(samples()>0, EMPTY_SAMPLE_SET);
-        return Collections.min(samples).first();
+        double result = values[0];
+        for (int i=1; i<size; i++) {
+            if (Double.compare(values[i], result) < 0) {
+                result = values[i];
+            }
+        }
+        return result;
     }
 
     public /*@Real*/ double max() /*@ReadOnly*/ {
         QL.require(samples()>0, EMPTY_SAMPLE_SET);
-        return Collections.max(samples).first();
+        double result = values[0];
+        for (int i=1; i<size; i++) {
+            if (Double.compare(values[i], result) > 0) {
+                result = values[i];
+            }
+        }
+        return result;
     }
 
     public final Pair<Double, Integer> expectationValue(final Ops.DoubleOp f, final Ops.DoublePredicate inRange) {
         double num = 0.0;
         double den = 0.0;
         int n = 0;
-        for (final ComparablePair<Double, Double> element : samples) {
-            final double x = element.first();
-            final double w = element.second();
+        for (int i=0; i<size; i++) {
+            final double x = values[i];
+            final double w = weights[i];
             if (inRange.op(x)) {
                 num += f.op(x) * w;
                 den += w;
@@ -267,19 +337,25 @@ public abstract class GeneralStatistics {
         /*@Real*/ final double sampleWeight = weightSum();
         QL.require(sampleWeight>0.0, "empty sample set");
 
+        if (!sorted && unitWeights) {
+            // smallest k such that k+1 >= percent*N
+            final int k = (int) Math.ceil(percent*size) - 1;
+            return select(Math.max(0, Math.min(k, size-1)));
+        }
+
         sort();
 
-        int k = 0; final int l = samples.size()-1;
+        int k = 0; final int l = size-1;
         
         /* the sum of weight is non null, therefore there's at least one sample */
-        /*@Real*/ double integral = samples.get(k).second();
+        /*@Real*/ double integral = weights[k];
         /*@Real*/ final double target = percent*sampleWeight;
         
         while (integral < target && k != l) {
         	k++;
-            integral += samples.get(k).second();
+            integral += weights[k];
         }
-        return samples.get(k).first();
+        return values[k];
     }
 
     public /*@Real*/ double topPercentile(final /*@Real*/ double percent) /*@ReadOnly*/ {
@@ -287,19 +363,25 @@ public abstract class GeneralStatistics {
         /*@Real*/ final double sampleWeight = weightSum();
         QL.require(sampleWeight > 0.0, "empty sample set");
 
+        if (!sorted && unitWeights) {
+            // largest k such that N-k >= percent*N
+            final int k = size - (int) Math.ceil(percent*size);
+            return select(Math.max(0, Math.min(k, size-1)));
+        }
+
         sort();
 
-        int k = samples.size()-1; final int l = 0;
+        int k = size-1; final int l = 0;
         
         /* the sum of weight is non null, therefore there's at least one sample */
-        /*@Real*/ double integral = samples.get(k).second();
+        /*@Real*/ double integral = weights[k];
         /*@Real*/ final double target = percent*sampleWeight;
         
         while (integral < target && k != l) {
         	k--;
-            integral += samples.get(k).second();
+            integral += weights[k];
         }
-        return samples.get(k).first();
+        return values[k];
     }
     
     public void add(/*@Real*/ final double value) {
@@ -308,8 +390,145 @@ public abstract class GeneralStatistics {
     
     public void add(/*@Real*/ final double value, /*@Real*/ final double weight) {
         QL.require(weight>=0.0, NEGATIVE_WEIGHT_NOT_ALLOWED);
-        samples.add(new ComparablePair<Double, Double>(value, weight));
+        if (size == values.length) {
+            reserve(2*size);
+        }
+        values[size] = value;
+        weights[size] = weight;
+        size++;
         sorted = false;
+        unitWeights &= (weight == 1.0);
     }
-    
+
+
+    /**
+     * Adds all samples held by <code>other</code> to this set
+     * <p>
+     * This allows sets filled by independent threads to be reduced at the end. <code>other</code> is not modified.
+     * <p>
+     * <code>other</code> must store its samples: an {@link IncrementalStatistics} only keeps moments, which cannot be
+     * turned back into samples.
+     */
+    public GeneralStatistics merge(final GeneralStatistics other) {
+        QL.require(!(other instanceof IncrementalStatistics), INCOMPATIBLE_STATISTICS);
+        if (other.size == 0)
+            return this;
+        reserve(size + other.size);
+        System.arraycopy(other.values, 0, values, size, other.size);
+        System.arraycopy(other.weights, 0, weights, size, other.size);
+        size += other.size;
+        sorted = false;
+        unitWeights &= other.unitWeights;
+        return this;
+    }
+
+
+    //
+    // private methods
+    //
+
+    /**
+     * Returns the k-th smallest value, partially reordering the data set
+     * <p>
+     * Only valid when all weights are unitary, since weights are not moved together with values.
+     */
+    private double select(final int k) {
+        final int[] bounds = new int[2];
+        int lo = 0;
+        int hi = size-1;
+        while (hi > lo) {
+            partition(values, null, lo, hi, bounds);
+            if (k < bounds[0]) {
+                hi = bounds[0]-1;
+            } else if (k > bounds[1]) {
+                lo = bounds[1]+1;
+            } else
+                return values[k];
+        }
+        return values[k];
+    }
+
+
+    //
+    // package private methods
+    //
+
+    /**
+     * Sorts <code>values</code> in place, moving <code>weights</code> together with them and recursing on the smaller
+     * partition only
+     */
+    static void sort(final double[] values, final double[] weights, int lo, int hi) {
+        final int[] bounds = new int[2];
+        while (hi - lo > 16) {
+            partition(values, weights, lo, hi, bounds);
+            final int lt = bounds[0];
+            final int gt = bounds[1];
+            if (lt - lo < hi - gt) {
+                sort(values, weights, lo, lt-1);
+                lo = gt+1;
+            } else {
+                sort(values, weights, gt+1, hi);
+                hi = lt-1;
+            }
+        }
+        for (int i=lo+1; i<=hi; i++) {
+            final double v = values[i];
+            final double w = weights[i];
+            int j = i-1;
+            while (j >= lo && Double.compare(values[j], v) > 0) {
+                values[j+1] = values[j];
+                weights[j+1] = weights[j];
+                j--;
+            }
+            values[j+1] = v;
+            weights[j+1] = w;
+        }
+    }
+
+    /**
+     * Three-way partition of <code>[lo, hi]</code> around the median of three elements
+     * <p>
+     * On return, <code>bounds</code> holds the first and the last position of elements equal to the pivot, so that repeated
+     * values do not degrade performance. Weights are left untouched when <code>null</code>.
+     */
+    private static void partition(final double[] values, final double[] weights, final int lo, final int hi, final int[] bounds) {
+        final int mid = (lo + hi) >>> 1;
+        if (Double.compare(values[mid], values[lo]) < 0) {
+            swap(values, weights, lo, mid);
+        }
+        if (Double.compare(values[hi], values[lo]) < 0) {
+            swap(values, weights, lo, hi);
+        }
+        if (Double.compare(values[hi], values[mid]) < 0) {
+            swap(values, weights, mid, hi);
+        }
+        final double pivot = values[mid];
+        int lt = lo;
+        int gt = hi;
+        int i = lo;
+        while (i <= gt) {
+            final int c = Double.compare(values[i], pivot);
+            if (c < 0) {
+                swap(values, weights, lt++, i++);
+            } else if (c > 0) {
+                swap(values, weights, i, gt--);
+            } else {
+                i++;
+            }
+        }
+        bounds[0] = lt;
+        bounds[1] = gt;
+    }
+
+    private static void swap(final double[] values, final double[] weights, final int i, final int j) {
+        final double v = values[i];
+        values[i] = values[j];
+        values[j] = v;
+        if (weights != null) {
+            final double w = weights[i];
+            weights[i] = weights[j];
+            weights[j] = w;
+        }
+    }
+
 }
@@ -49,7 +49,6 @@ import org.jquantlib.lang.annotation.QualityAssurance.Quality;
 import org.jquantlib.lang.annotation.QualityAssurance.Version;
 import org.jquantlib.math.Ops;
 import org.jquantlib.math.functions.Bind1st;
-import org.jquantlib.math.functions.Bind1stPredicate;
 import org.jquantlib.math.functions.Bind2nd;
 import org.jquantlib.math.functions.Bind2ndPredicate;
 import org.jquantlib.math.functions.Clipped;
@@ -141,8 +140,8 @@ public class GenericRiskStatistics extends GaussianStatistics {
 		// average over the range below the target
 
 		final List<Ops.DoubleOp> functions = new ArrayList<Ops.DoubleOp>();
-		functions.add(new Square());
 		functions.add(new Bind2nd(new Minus(), target));
+		functions.add(new Square());
 		final Expression comp = new Expression(functions);
 		final Ops.DoublePredicate less = new Bind2ndPredicate(new LessThanPredicate(), target);
 
@@ -227,7 +226,7 @@ public class GenericRiskStatistics extends GaussianStatistics {
 	public /*@Real*/ double averageShortfall(final /*@Real*/ double target) /*@ReadOnly*/ {
 
 		final Ops.DoubleOp minus = new Bind1st(target, new Minus());
-		final Ops.DoublePredicate less = new Bind1stPredicate(target, new LessThanPredicate());
+		final Ops.DoublePredicate less = new Bind2ndPredicate(new LessThanPredicate(), target);
 		final Pair<Double, Integer> result = expectationValue(minus, less);
 
 		final double x = result.first();
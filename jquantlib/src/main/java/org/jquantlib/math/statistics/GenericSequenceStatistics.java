@@ -320,6 +320,27 @@ public class GenericSequenceStatistics {
 	
 
 	//---- Modifiers
+
+	/**
+	 * adds all samples accumulated by <code>other</code> to this set
+	 * <p>
+	 * Per-thread accumulators can be filled independently and reduced
+	 * at the end. <code>other</code> is not modified.
+	 */
+	public GenericSequenceStatistics merge(final GenericSequenceStatistics other) {
+		if (other.dimension_ == 0)
+			return this;
+		if (dimension_ == 0) {
+			reset(other.dimension_);
+		}
+		QL.require(other.dimension_ == dimension_, SAMPLE_SIZE_MISMATCH);
+		quadraticSum.addAssign(other.quadraticSum);
+		for (/* @Size */int i = 0; i < dimension_; i++) {
+			stats[i].merge(other.stats[i]);
+		}
+		return this;
+	}
+
 	
 	public void reset() {
 		reset(0);
@@ -54,8 +54,14 @@ import org.jquantlib.math.matrixutilities.Array;
  * It can accumulate a set of data and return statistics (e.g: mean,
  * variance, skewness, kurtosis, error estimation, etc.)
  * <p>
- * @warning high moments are numerically unstable for high
- *          average/standardDeviation ratios.
+ * Central moments are updated pairwise, as described by Chan, Golub
+ * and LeVeque, which avoids the numerical instability of power sums
+ * for high average/standardDeviation ratios. The same combination
+ * allows two accumulators to be merged, so that samples can be
+ * collected by independent threads and reduced at the end.
+ *
+ * @see "Updating formulae and a pairwise algorithm for computing sample variances," T. F. Chan, G. H. Golub and R. J. LeVeque
+ * @see "Formulas for robust, one-pass parallel computation of covariances and arbitrary-order statistical moments," P. Pebay
  *          
  * @author Ueli Hofstetter
  * @author Richard Gomes
@@ -76,8 +82,11 @@ public class IncrementalStatistics extends GenericRiskStatistics {
     protected /*@Size*/ int sampleNumber_;
     protected /*@Size*/ int downsideSampleNumber_;
     protected /*@Real*/ double sampleWeight_, downsideSampleWeight_;
-    protected /*@Real*/ double sum_, quadraticSum_, downsideQuadraticSum_;
-    protected /*@Real*/ double cubicSum_, fourthPowerSum_;
+    protected /*@Real*/ double downsideQuadraticSum_;
+    /**
+     * weighted mean and weighted sums of powers of deviations from the mean
+     */
+    protected /*@Real*/ double mean_, m2_, m3_, m4_;
     protected /*@Real*/ double min_, max_;
 
 
@@ -114,7 +123,7 @@ public class IncrementalStatistics extends GenericRiskStatistics {
     @Override
     public /*@Real*/ double mean() /*@ReadOnly*/ {
         QL.require(sampleWeight_>0.0, UNSUFFICIENT_SAMPLE_WEIGHT);
-        return sum_/sampleWeight_;
+        return mean_;
     }
 
     /**
@@ -127,9 +136,7 @@ public class IncrementalStatistics extends GenericRiskStatistics {
         QL.require(sampleWeight_>0.0, UNSUFFICIENT_SAMPLE_WEIGHT);
         QL.require(sampleNumber_>1, UNSUFFICIENT_SAMPLE_NUMBER);
 
-        /*@Real*/ double m = mean();
-        /*@Real*/ double v = quadraticSum_/sampleWeight_;
-        v -= m*m;
+        /*@Real*/ double v = m2_/sampleWeight_;
         v *= sampleNumber_/(sampleNumber_-1.0);
 
         QL.ensure(v >= 0.0, NEGATIVE_VARIANCE);
@@ -201,10 +208,7 @@ public class IncrementalStatistics extends GenericRiskStatistics {
 
         if (s==0.0) return 0.0;
 
-        /*@Real*/ double m = mean();
-        /*@Real*/ double result = cubicSum_/sampleWeight_;
-        result -= 3.0*m*(quadraticSum_/sampleWeight_);
-        result += 2.0*m*m*m;
+        /*@Real*/ double result = m3_/sampleWeight_;
         result /= s*s*s;
         result *= sampleNumber_/(sampleNumber_-1.0);
         result *= sampleNumber_/(sampleNumber_-2.0);
@@ -223,7 +227,6 @@ public class IncrementalStatistics extends GenericRiskStatistics {
     public /*@Real*/ double kurtosis() /*@ReadOnly*/ {
         QL.require(sampleNumber_>3, UNSUFFICIENT_SAMPLE_NUMBER_3);
 
-        /*@Real*/ double m = mean();
         /*@Real*/ double v = variance();
 
         /*@Real*/ double c = (sampleNumber_-1.0)/(sampleNumber_-2.0);
@@ -232,10 +235,7 @@ public class IncrementalStatistics extends GenericRiskStatistics {
 
         if (v==0) return c;
 
-        /*@Real*/ double result = fourthPowerSum_/sampleWeight_;
-        result -= 4.0*m*(cubicSum_/sampleWeight_);
-        result += 6.0*m*m*(quadraticSum_/sampleWeight_);
-        result -= 3.0*m*m*m*m;
+        /*@Real*/ double result = m4_/sampleWeight_;
         result /= v*v;
         result *= sampleNumber_/(sampleNumber_-1.0);
         result *= sampleNumber_/(sampleNumber_-2.0);
@@ -329,21 +329,13 @@ public class IncrementalStatistics extends GenericRiskStatistics {
         sampleNumber_++;
         QL.ensure(sampleNumber_ > oldSamples, MAX_NUMBER_OF_SAMPLES_REACHED);
 
-        sampleWeight_ += weight;
+        combine(weight, value, 0.0, 0.0, 0.0);
 
-        /*@Real*/ double temp = weight*value;
-        sum_ += temp;
-        temp *= value;
-        quadraticSum_ += temp;
         if (value<0.0) {
-            downsideQuadraticSum_ += temp;
+            downsideQuadraticSum_ += weight*value*value;
             downsideSampleNumber_++;
             downsideSampleWeight_ += weight;
         }
-        temp *= value;
-        cubicSum_ += temp;
-        temp *= value;
-        fourthPowerSum_ += temp;
         if (oldSamples == 0) {
             min_ = max_ = value;
         } else {
@@ -354,6 +346,37 @@ public class IncrementalStatistics extends GenericRiskStatistics {
         
         
         
+    /**
+     * Adds all samples accumulated by <code>other</code> to this accumulator
+     * <p>
+     * <code>other</code> must be an IncrementalStatistics as well and it is not modified.
+     */
+    @Override
+    public IncrementalStatistics merge(final GeneralStatistics other) {
+        QL.require(other instanceof IncrementalStatistics, "incompatible statistics"); // TODO: message
+        final IncrementalStatistics that = (IncrementalStatistics) other;
+        if (that.sampleNumber_ == 0)
+            return this;
+
+        /*@Size*/ final int oldSamples = sampleNumber_;
+        sampleNumber_ += that.sampleNumber_;
+        QL.ensure(sampleNumber_ > oldSamples, MAX_NUMBER_OF_SAMPLES_REACHED);
+
+        combine(that.sampleWeight_, that.mean_, that.m2_, that.m3_, that.m4_);
+
+        downsideSampleNumber_ += that.downsideSampleNumber_;
+        downsideSampleWeight_ += that.downsideSampleWeight_;
+        downsideQuadraticSum_ += that.downsideQuadraticSum_;
+        if (oldSamples == 0) {
+            min_ = that.min_;
+            max_ = that.max_;
+        } else {
+            min_ = Math.min(that.min_, min_);
+            max_ = Math.max(that.max_, max_);
+        }
+        return this;
+    }
+
     /**
      * resets the data to a null set
      */
@@ -365,11 +388,48 @@ public class IncrementalStatistics extends GenericRiskStatistics {
         downsideSampleNumber_ = 0;
         sampleWeight_ = 0.0;
         downsideSampleWeight_ = 0.0;
-        sum_ = 0.0;
-        quadraticSum_ = 0.0;
         downsideQuadraticSum_ = 0.0;
-        cubicSum_ = 0.0;
-        fourthPowerSum_ = 0.0;
+        mean_ = 0.0;
+        m2_ = 0.0;
+        m3_ = 0.0;
+        m4_ = 0.0;
+    }
+
+
+    //
+    // private methods
+    //
+
+    /**
+     * Combines current moments with the moments of another set of samples
+     *
+     * @param wb is the weight of the other set
+     * @param meanb is the weighted mean of the other set
+     * @param m2b is the weighted sum of squared deviations from <code>meanb</code>
+     * @param m3b is the weighted sum of cubed deviations from <code>meanb</code>
+     * @param m4b is the weighted sum of fourth powers of deviations from <code>meanb</code>
+     */
+    private void combine(
+            final /*@Real*/ double wb, final /*@Real*/ double meanb,
+            final /*@Real*/ double m2b, final /*@Real*/ double m3b, final /*@Real*/ double m4b) {
+        final /*@Real*/ double wa = sampleWeight_;
+        final /*@Real*/ double w = wa + wb;
+        sampleWeight_ = w;
+        if (w == 0.0)
+            return;
+
+        final /*@Real*/ double delta = meanb - mean_;
+        final /*@Real*/ double d = delta / w;
+        final /*@Real*/ double d2 = d * d;
+        final /*@Real*/ double wab = wa * wb;
+
+        m4_ += m4b + delta * d2 * d * wab * (wa*wa - wab + wb*wb)
+                   + 6.0 * d2 * (wa*wa * m2b + wb*wb * m2_)
+                   + 4.0 * d * (wa * m3b - wb * m3_);
+        m3_ += m3b + delta * d2 * wab * (wa - wb)
+                   + 3.0 * d * (wa * m2b - wb * m2_);
+        m2_ += m2b + delta * d * wab;
+        mean_ += d * wb;
     }
 
 }
@@ -0,0 +1,338 @@
+/*
+ Copyright (C) 2011 Richard Gomes
+
+ This source code is release under the BSD License.
+
+ This file is part of JQuantLib, a free-software/open-source library
+ for financial quantitative analysts and developers - http://jquantlib.org/
+
+ JQuantLib is free software: you can redistribute it and/or modify it
+ under the terms of the JQuantLib license.  You should have received a
+ copy of the license along with this program; if not, please email
+ <jquant-devel@lists.sourceforge.net>. The license is also available online at
+ <http://www.jquantlib.org/index.php/LICENSE.TXT>.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE.  See the license for more details.
+
+ JQuantLib is based on QuantLib. http://quantlib.org/
+ When applicable, the original copyright notice follows this notice.
+ */
+
+package org.jquantlib.math.statistics;
+
+import java.util.Arrays;
+
+import org.jquantlib.QL;
+import org.jquantlib.math.Ops;
+
+/**
+ * Mergeable streaming quantile sketch
+ * <p>
+ * Samples are summarized by a bounded number of weighted centroids, following the merging variant of the t-digest. Centroids
+ * are small near both tails of the distribution and large around the median, so that tail quantiles keep a relative accuracy
+ * controlled by the <i>compression</i> parameter. The number of centroids only grows with the logarithm of the number of
+ * samples and never exceeds about <code>compression</code>.
+ * <p>
+ * Incoming samples are buffered and periodically merged into the centroids. Two sketches can be merged, which allows
+ * independent accumulation by several threads followed by a cheap reduction.
+ * <p>
+ * The quantile function is approximated by linear interpolation between centroids, anchored at the exact minimum and maximum.
+ *
+ * @see <a href="https://github.com/tdunning/t-digest">Computing extremely accurate quantiles using t-digests, T. Dunning and O. Ertl</a>
+ */
+public class QuantileSketch {
+
+    private static final String EMPTY_SAMPLE_SET = "empty sample set";
+
+    private final double compression;
+
+    // merged centroids, sorted by mean
+    private double[] means;
+    private double[] weights;
+    private int centroids;
+
+    // samples not yet merged, followed by room for a copy of the centroids
+    private double[] bufferMeans;
+    private double[] bufferWeights;
+    private final int bufferSize;
+    private int buffered;
+
+    private double totalWeight;
+    private double min;
+    private double max;
+
+
+    //
+    // public constructors
+    //
+
+    public QuantileSketch() {
+        this(200.0);
+    }
+
+    /**
+     * @param compression bounds the number of centroids, which is about <code>compression</code>. Higher values increase
+     * accuracy and memory
+     */
+    public QuantileSketch(final double compression) {
+        QL.require(compression >= 10.0, "compression must be at least 10"); // TODO: message
+        this.compression = compression;
+        final int capacity = 2 * (int) Math.ceil(compression) + 10;
+        this.bufferSize = 5 * (int) Math.ceil(compression);
+        this.means = new double[capacity];
+        this.weights = new double[capacity];
+        this.bufferMeans = new double[bufferSize + capacity];
+        this.bufferWeights = new double[bufferSize + capacity];
+        reset();
+    }
+
+
+    //
+    // public methods
+    //
+
+    public double compression() {
+        return compression;
+    }
+
+    /**
+     * resets the sketch to a null set
+     */
+    public void reset() {
+        centroids = 0;
+        buffered = 0;
+        totalWeight = 0.0;
+        min = Double.POSITIVE_INFINITY;
+        max = Double.NEGATIVE_INFINITY;
+    }
+
+    public void add(final double value) {
+        add(value, 1.0);
+    }
+
+    public void add(final double value, final double weight) {
+        QL.require(weight >= 0.0, "negative weight not allowed"); // TODO: message
+        if (weight == 0.0)
+            return;
+        if (buffered == bufferSize) {
+            compress();
+        }
+        bufferMeans[buffered] = value;
+        bufferWeights[buffered] = weight;
+        buffered++;
+        totalWeight += weight;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Adds all samples summarized by <code>other</code> to this sketch
+     * <p>
+     * <code>other</code> is not modified, apart from merging its own pending samples.
+     */
+    public QuantileSketch merge(final QuantileSketch other) {
+        other.compress();
+        for (int i=0; i<other.centroids; i++) {
+            if (buffered == bufferSize) {
+                compress();
+            }
+            bufferMeans[buffered] = other.means[i];
+            bufferWeights[buffered] = other.weights[i];
+            buffered++;
+        }
+        totalWeight += other.totalWeight;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        return this;
+    }
+
+    public double weightSum() /*@ReadOnly*/ {
+        return totalWeight;
+    }
+
+    /**
+     * @return the current number of centroids, which bounds the memory in use
+     */
+    public int centroids() /*@ReadOnly*/ {
+        compress();
+        return centroids;
+    }
+
+    public double min() /*@ReadOnly*/ {
+        QL.require(totalWeight > 0.0, EMPTY_SAMPLE_SET);
+        return min;
+    }
+
+    public double max() /*@ReadOnly*/ {
+        QL.require(totalWeight > 0.0, EMPTY_SAMPLE_SET);
+        return max;
+    }
+
+    /**
+     * @return an estimate of the value below which a fraction <code>q</code> of the weight lies
+     */
+    public double quantile(final double q) /*@ReadOnly*/ {
+        QL.require(q >= 0.0 && q <= 1.0, "quantile must be in [0.0, 1.0]"); // TODO: message
+        QL.require(totalWeight > 0.0, EMPTY_SAMPLE_SET);
+        compress();
+
+        final double target = q * totalWeight;
+        double left = 0.0;
+        double leftValue = min;
+        double cumulated = 0.0;
+        for (int i=0; i<centroids; i++) {
+            final double right = cumulated + 0.5 * weights[i];
+            if (target <= right)
+                return interpolate(target, left, leftValue, right, means[i]);
+            cumulated += weights[i];
+            left = right;
+            leftValue = means[i];
+        }
+        return interpolate(target, left, leftValue, totalWeight, max);
+    }
+
+    /**
+     * @return an estimate of the fraction of the weight which lies below <code>x</code>
+     */
+    public double cdf(final double x) /*@ReadOnly*/ {
+        QL.require(totalWeight > 0.0, EMPTY_SAMPLE_SET);
+        compress();
+        if (x <= min)
+            return 0.0;
+        if (x >= max)
+            return 1.0;
+
+        double left = 0.0;
+        double leftValue = min;
+        double cumulated = 0.0;
+        for (int i=0; i<=centroids; i++) {
+            final double right = (i < centroids) ? cumulated + 0.5 * weights[i] : totalWeight;
+            final double rightValue = (i < centroids) ? means[i] : max;
+            if (x < rightValue) {
+                final double t = (rightValue > leftValue) ? (x - leftValue) / (rightValue - leftValue) : 0.0;
+                return (left + t * (right - left)) / totalWeight;
+            }
+            if (i < centroids) {
+                cumulated += weights[i];
+            }
+            left = right;
+            leftValue = rightValue;
+        }
+        return 1.0;
+    }
+
+    /**
+     * Returns the expectation of <code>f</code> over the lower tail of the distribution which holds a fraction <code>p</code>
+     * of the weight, i.e: {@latex$ \frac{1}{p} \int_0^p f(Q(u)) du }
+     * <p>
+     * The integral is calculated by Simpson's rule on every linear piece of the quantile function.
+     */
+    public double expectation(final Ops.DoubleOp f, final double p) /*@ReadOnly*/ {
+        QL.require(p > 0.0 && p <= 1.0, "fraction must be in (0.0, 1.0]"); // TODO: message
+        QL.require(totalWeight > 0.0, EMPTY_SAMPLE_SET);
+        compress();
+
+        final double end = p * totalWeight;
+        double sum = 0.0;
+        double left = 0.0;
+        double leftValue = min;
+        double cumulated = 0.0;
+        for (int i=0; i<=centroids && left < end; i++) {
+            double right = (i < centroids) ? cumulated + 0.5 * weights[i] : totalWeight;
+            double rightValue = (i < centroids) ? means[i] : max;
+            if (right > end) {
+                rightValue = interpolate(end, left, leftValue, right, rightValue);
+                right = end;
+            }
+            final double h = right - left;
+            if (h > 0.0) {
+                final double middle = 0.5 * (leftValue + rightValue);
+                sum += h / 6.0 * (f.op(leftValue) + 4.0 * f.op(middle) + f.op(rightValue));
+            }
+            if (i < centroids) {
+                cumulated += weights[i];
+            }
+            left = right;
+            leftValue = rightValue;
+        }
+        return sum / end;
+    }
+
+
+    //
+    // private methods
+    //
+
+    private static double interpolate(final double x, final double x0, final double y0, final double x1, final double y1) {
+        if (x1 <= x0)
+            return y1;
+        return y0 + (x - x0) / (x1 - x0) * (y1 - y0);
+    }
+
+    /**
+     * scale function k2, which makes the size of centroids proportional to <i>q(1-q)</i>, so that tail quantiles have a
+     * bounded relative error
+     */
+    private double k(final double q, final double normalizer) {
+        return compression / normalizer * Math.log(q / (1.0 - q));
+    }
+
+    private double kInverse(final double k, final double normalizer) {
+        return 1.0 / (1.0 + Math.exp(-k * normalizer / compression));
+    }
+
+    /**
+     * Merges buffered samples into centroids
+     */
+    private void compress() {
+        if (buffered == 0)
+            return;
+
+        // sort pending samples together with current centroids
+        if (bufferMeans.length < bufferSize + means.length) {
+            bufferMeans = Arrays.copyOf(bufferMeans, bufferSize + means.length);
+            bufferWeights = Arrays.copyOf(bufferWeights, bufferSize + means.length);
+        }
+        int n = buffered;
+        System.arraycopy(means, 0, bufferMeans, n, centroids);
+        System.arraycopy(weights, 0, bufferWeights, n, centroids);
+        n += centroids;
+        GeneralStatistics.sort(bufferMeans, bufferWeights, 0, n-1);
+
+        final double normalizer = 4.0 * Math.log(Math.max(totalWeight / compression, 1.0)) + 24.0;
+        double weightSoFar = 0.0;
+        double limit = 0.0;
+        int count = 0;
+        double mean = bufferMeans[0];
+        double weight = bufferWeights[0];
+        for (int i=1; i<n; i++) {
+            final double w = bufferWeights[i];
+            if (weightSoFar + weight + w <= limit) {
+                weight += w;
+                mean += (bufferMeans[i] - mean) * w / weight;
+            } else {
+                count = store(count, mean, weight);
+                weightSoFar += weight;
+                limit = totalWeight * kInverse(k(weightSoFar / totalWeight, normalizer) + 1.0, normalizer);
+                mean = bufferMeans[i];
+                weight = w;
+            }
+        }
+        count = store(count, mean, weight);
+        centroids = count;
+        buffered = 0;
+    }
+
+    private int store(final int count, final double mean, final double weight) {
+        if (count == means.length) {
+            means = Arrays.copyOf(means, 2 * count);
+            weights = Arrays.copyOf(weights, 2 * count);
+        }
+        means[count] = mean;
+        weights[count] = weight;
+        return count + 1;
+    }
+
+}
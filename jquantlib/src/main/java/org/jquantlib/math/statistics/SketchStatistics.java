@@ -0,0 +1,149 @@
+/*
+ Copyright (C) 2011 Richard Gomes
+
+ This source code is release under the BSD License.
+
+ This file is part of JQuantLib, a free-software/open-source library
+ for financial quantitative analysts and developers - http://jquantlib.org/
+
+ JQuantLib is free software: you can redistribute it and/or modify it
+ under the terms of the JQuantLib license.  You should have received a
+ copy of the license along with this program; if not, please email
+ <jquant-devel@lists.sourceforge.net>. The license is also available online at
+ <http://www.jquantlib.org/index.php/LICENSE.TXT>.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE.  See the license for more details.
+
+ JQuantLib is based on QuantLib. http://quantlib.org/
+ When applicable, the original copyright notice follows this notice.
+ */
+
+package org.jquantlib.math.statistics;
+
+import org.jquantlib.QL;
+import org.jquantlib.math.functions.Bind2nd;
+import org.jquantlib.math.functions.ComposedFunction;
+import org.jquantlib.math.functions.Identity;
+import org.jquantlib.math.functions.Minus;
+import org.jquantlib.math.functions.Square;
+
+/**
+ * Statistics tool based on incremental accumulation and a streaming quantile sketch
+ * <p>
+ * Moments are accumulated exactly, as in {@link IncrementalStatistics}, whilst percentiles and risk measures (value-at-risk,
+ * expected shortfall, shortfall, regret) are estimated from a {@link QuantileSketch}. Memory is therefore bounded whatever
+ * the number of samples, and accumulators filled by different threads can be merged.
+ * <p>
+ * Accuracy of tail measures is controlled by the compression of the sketch.
+ *
+ * @see QuantileSketch
+ */
+public class SketchStatistics extends IncrementalStatistics {
+
+    private static final String EMPTY_SAMPLE_SET = "empty sample set";
+    private static final String NO_DATA_BELOW_THE_TARGET = "no data below the target";
+    private static final String UNSUFFICIENT_SAMPLES_UNDER_TARGET = "samples under target <=1, unsufficient";
+
+    private QuantileSketch sketch;
+
+
+    public SketchStatistics() {
+        this(200.0);
+    }
+
+    /**
+     * @param compression is the compression of the underlying {@link QuantileSketch}
+     */
+    public SketchStatistics(final double compression) {
+        super();
+        this.sketch = new QuantileSketch(compression);
+    }
+
+
+    //
+    // public methods
+    //
+
+    public QuantileSketch sketch() {
+        return sketch;
+    }
+
+    /**
+     * Adds all samples accumulated by <code>other</code> to this accumulator
+     * <p>
+     * <code>other</code> must be a SketchStatistics as well.
+     */
+    @Override
+    public SketchStatistics merge(final GeneralStatistics other) {
+        QL.require(other instanceof SketchStatistics, "incompatible statistics"); // TODO: message
+        super.merge(other);
+        sketch.merge(((SketchStatistics) other).sketch);
+        return this;
+    }
+
+    @Override
+    public void add(final /*@Real*/ double value, final /*@Real*/ double weight) {
+        super.add(value, weight);
+        sketch.add(value, weight);
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        // called by the super constructor before the sketch is created
+        if (sketch != null) {
+            sketch.reset();
+        }
+    }
+
+    @Override
+    public /*@Real*/ double percentile(final /*@Real*/ double percent) /*@ReadOnly*/ {
+        QL.require(percent > 0.0 && percent <= 1.0, "percentile must be in (0.0, 1.0]");
+        QL.require(sampleWeight_ > 0.0, EMPTY_SAMPLE_SET);
+        return sketch.quantile(percent);
+    }
+
+    @Override
+    public /*@Real*/ double topPercentile(final /*@Real*/ double percent) /*@ReadOnly*/ {
+        QL.require(percent > 0.0 && percent <= 1.0, "percentile must be in (0.0, 1.0]");
+        QL.require(sampleWeight_ > 0.0, EMPTY_SAMPLE_SET);
+        return sketch.quantile(1.0 - percent);
+    }
+
+    @Override
+    public /*@Real*/ double expectedShortfall(final /*@Real*/ double centile) /*@ReadOnly*/ {
+        QL.require(centile>=0.9 && centile<1.0, "percentile out of range [0.9, 1.0)");
+        QL.ensure(samples() != 0, EMPTY_SAMPLE_SET);
+
+        final double p = sketch.cdf(-valueAtRisk(centile));
+        QL.ensure(p > 0.0, NO_DATA_BELOW_THE_TARGET);
+        // must be a loss, i.e., capped at 0.0 and negated
+        return -Math.min(sketch.expectation(new Identity(), p), 0.0);
+    }
+
+    @Override
+    public /*@Real*/ double shortfall(final /*@Real*/ double target) /*@ReadOnly*/ {
+        QL.ensure(samples() != 0, EMPTY_SAMPLE_SET);
+        return sketch.cdf(target);
+    }
+
+    @Override
+    public /*@Real*/ double averageShortfall(final /*@Real*/ double target) /*@ReadOnly*/ {
+        final double p = sketch.cdf(target);
+        QL.ensure(p > 0.0, NO_DATA_BELOW_THE_TARGET);
+        return target - sketch.expectation(new Identity(), p);
+    }
+
+    @Override
+    public /*@Real*/ double regret(final /*@Real*/ double target) /*@ReadOnly*/ {
+        final double p = sketch.cdf(target);
+        // estimated number of samples below the target
+        final double n = p * samples();
+        QL.require(n >= 2.0, UNSUFFICIENT_SAMPLES_UNDER_TARGET);
+        final double x = sketch.expectation(new ComposedFunction(new Square(), new Bind2nd(new Minus(), target)), p);
+        return (n/(n-1.0))*x;
+    }
+
+}
@@ -0,0 +1,420 @@
+/*
+ Copyright (C) 2011 Richard Gomes
+
+ This source code is release under the BSD License.
+
+ This file is part of JQuantLib, a free-software/open-source library
+ for financial quantitative analysts and developers - http://jquantlib.org/
+
+ JQuantLib is free software: you can redistribute it and/or modify it
+ under the terms of the JQuantLib license.  You should have received a
+ copy of the license along with this program; if not, please email
+ <jquant-devel@lists.sourceforge.net>. The license is also available online at
+ <http://www.jquantlib.org/index.php/LICENSE.TXT>.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE.  See the license for more details.
+
+ JQuantLib is based on QuantLib. http://quantlib.org/
+ When applicable, the original copyright notice follows this notice.
+ */
+
+
+
+package org.jquantlib.methods.montecarlo;
+
+import org.jquantlib.QL;
+import org.jquantlib.math.distributions.CumulativeNormalDistribution;
+import org.jquantlib.math.matrixutilities.Array;
+import org.jquantlib.math.randomnumbers.UniformRandomSequenceGenerator;
+import org.jquantlib.processes.HestonProcess;
+import org.jquantlib.termstructures.Compounding;
+import org.jquantlib.termstructures.YieldTermStructure;
+import org.jquantlib.time.TimeGrid;
+
+/**
+ * Generates batches of paths of the Heston process using a sequence generator
+ * <p>
+ * The coefficients of the discretization scheme which depend on the time step only, as well as the drift of the spot, are
+ * computed once for each time step by the constructor, and each step is applied along the whole batch without allocating
+ * any object nor accessing term structures. Batches can therefore be generated by threads other than the one which built
+ * the generator. Paths are identical to those obtained by calling {@link HestonProcess#evolve(double, Array, double, Array)}
+ * step after step. All discretization schemes are supported, except {@link HestonProcess.Discretization#ExactVariance}
+ * which is not implemented by the process either.
+ * <p>
+ * Paths are written in struct-of-arrays layout: the values of the spot ({@link #SPOT}) or the variance ({@link #VARIANCE})
+ * at time step {@code i} for all paths of the batch are contiguous and start at {@link #offset(int, int)}.
+ * <p>
+ * The sequence generator must have dimension {@code 2 * steps}: the variates driving the spot are taken from the first
+ * {@code steps} positions of each sequence, and those driving the variance from the last {@code steps} ones.
+ * <p>
+ * As a {@link SingleVariatePathGenerator}, this class hands out the paths of the spot one at a time, generating a new batch
+ * when the previous one is exhausted, so that it can drive a {@link MonteCarloModel}.
+ *
+ * @see HestonProcess
+ * @see MultiPathGenerator
+ *
+ * @category mcarlo
+ */
+public class HestonPathGenerator<GSG extends UniformRandomSequenceGenerator> implements SingleVariatePathGenerator {
+
+    public static final int SPOT = 0;
+    public static final int VARIANCE = 1;
+
+    private static final String INCOMPATIBLE_DIMENSION = "sequence generator dimensionality (%d) != 2 * timeSteps (%d)";
+    private static final String INCOMPATIBLE_BUFFER = "buffer size (%d) != timeGrid size * 2 * batch size (%d)";
+    private static final String INVALID_BATCH_SIZE = "batch size must be positive";
+    private static final String ILLEGAL_MARTINGALE_CORRECTION = "illegal value of the martingale correction";
+    private static final String UNSUPPORTED_DISCRETIZATION = "exact variance discretization not implemented";
+    private static final String INCOMPATIBLE_PATH = "path is not defined on the time grid of the generator";
+
+    private final HestonProcess process;
+    private final TimeGrid timeGrid;
+    private final GSG generator;
+    private final boolean brownianBridge;
+    private final BrownianBridge bb;
+    private final /*@NonNegative*/ int steps;
+    private final /*@NonNegative*/ int batchSize;
+    private final HestonProcess.Discretization discretization;
+    private final boolean quadraticExponential;
+    private final boolean martingaleCorrection;
+    private final CumulativeNormalDistribution cnd;
+
+    private final /*@Real*/ double s0, v0, kappa, theta, sigma, rho, sqrho;
+
+    // coefficients of the quadratic-exponential scheme for each time step
+    private final double[] ex, c1, c2, k0, k1, k2, k3, drift;
+
+    // instantaneous drift of the spot at the beginning of each time step, for the other schemes
+    private final double[] rate;
+
+    // variates of the last batch, laid out as [step][factor][path]
+    private final double[] variates;
+    private final double[] sequence;
+    private final double[] input;
+    private final double[] output;
+
+    // batches handed out one path at a time
+    private final double[] batch;
+    private final double[] antitheticBatch;
+    private /*@NonNegative*/ int current;
+    private boolean antitheticReady;
+
+
+    public HestonPathGenerator(
+            final HestonProcess process,
+            final TimeGrid timeGrid,
+            final GSG generator,
+            final boolean brownianBridge,
+            final /*@NonNegative*/ int batchSize) {
+        QL.require(batchSize > 0, INVALID_BATCH_SIZE); // TODO: message
+        this.process = process;
+        this.timeGrid = timeGrid;
+        this.generator = generator;
+        this.brownianBridge = brownianBridge;
+        this.steps = timeGrid.size()-1;
+        this.batchSize = batchSize;
+
+        QL.require(generator.dimension() == 2 * steps,
+                String.format(INCOMPATIBLE_DIMENSION, generator.dimension(), 2 * steps)); // TODO: message
+
+        final HestonProcess.Discretization d = process.discretization();
+        QL.require(d != HestonProcess.Discretization.ExactVariance, UNSUPPORTED_DISCRETIZATION); // TODO: message
+        this.discretization = d;
+        this.martingaleCorrection = d == HestonProcess.Discretization.QuadraticExponentialMartingale;
+        this.quadraticExponential = martingaleCorrection || d == HestonProcess.Discretization.QuadraticExponential;
+        this.cnd = new CumulativeNormalDistribution();
+
+        this.s0 = process.s0().currentLink().value();
+        this.v0 = process.v0().currentLink().value();
+        this.kappa = process.kappa().currentLink().value();
+        this.theta = process.theta().currentLink().value();
+        this.sigma = process.sigma().currentLink().value();
+        this.rho = process.rho().currentLink().value();
+        this.sqrho = Math.sqrt(1.0 - rho * rho);
+
+        this.ex = new double[steps];
+        this.c1 = new double[steps];
+        this.c2 = new double[steps];
+        this.k0 = new double[steps];
+        this.k1 = new double[steps];
+        this.k2 = new double[steps];
+        this.k3 = new double[steps];
+        this.drift = new double[steps];
+        this.rate = new double[steps];
+        final YieldTermStructure riskFreeRate = process.riskFreeRate().currentLink();
+        final YieldTermStructure dividendYield = process.dividendYield().currentLink();
+        for (int i = 0; i < steps; i++) {
+            final /*@Time*/ double t = timeGrid.get(i);
+            final /*@Time*/ double dt = timeGrid.dt(i);
+            ex[i] = Math.exp(-kappa * dt);
+            c1[i] = sigma * sigma * ex[i] / kappa * (1 - ex[i]);
+            c2[i] = theta * sigma * sigma / (2 * kappa) * (1 - ex[i]) * (1 - ex[i]);
+            k0[i] = -rho * kappa * theta * dt / sigma;
+            k1[i] = 0.5 * dt * (kappa * rho / sigma - 0.5) - rho / sigma;
+            k2[i] = 0.5 * dt * (kappa * rho / sigma - 0.5) + rho / sigma;
+            k3[i] = 0.5 * dt * (1 - rho * rho);
+            drift[i] = (riskFreeRate.forwardRate(t, t + dt, Compounding.Continuous).rate()
+                      - dividendYield.forwardRate(t, t + dt, Compounding.Continuous).rate()) * dt;
+            rate[i] = riskFreeRate.forwardRate(t, t, Compounding.Continuous).rate()
+                    - dividendYield.forwardRate(t, t, Compounding.Continuous).rate();
+        }
+
+        this.bb = new BrownianBridge(timeGrid);
+        this.variates = new double[steps * 2 * batchSize];
+        this.sequence = new double[2 * steps];
+        this.input = new double[steps];
+        this.output = new double[steps];
+        this.batch = new double[bufferSize()];
+        this.antitheticBatch = new double[bufferSize()];
+        this.current = batchSize;
+        this.antitheticReady = false;
+    }
+
+
+    //
+    // public methods
+    //
+
+    public HestonProcess process() /* @ReadOnly */ {
+        return process;
+    }
+
+    @Override
+    public TimeGrid timeGrid() /* @ReadOnly */ {
+        return timeGrid;
+    }
+
+    public /*@NonNegative*/ int batchSize() /* @ReadOnly */ {
+        return batchSize;
+    }
+
+    /**
+     * @return the size of the buffers filled by {@link #next(double[], boolean)}
+     */
+    public /*@NonNegative*/ int bufferSize() /* @ReadOnly */ {
+        return timeGrid.size() * 2 * batchSize;
+    }
+
+    /**
+     * @return the position in the buffer of the value of the first path of the batch for a given time step and component,
+     *         which is either {@link #SPOT} or {@link #VARIANCE}
+     */
+    public /*@NonNegative*/ int offset(final /*@NonNegative*/ int step, final /*@NonNegative*/ int component) /* @ReadOnly */ {
+        return (step * 2 + component) * batchSize;
+    }
+
+    /**
+     * Overwrites <code>buffer</code> with a new batch of paths, so that no allocation takes place
+     * <p>
+     * When <code>antithetic</code> is true, the variates employed by the previous call are reused with opposite sign
+     * instead of drawing new sequences.
+     *
+     * @param buffer has {@link #bufferSize()} elements and receives the paths in the layout given by {@link #offset(int, int)}
+     * @param antithetic tells whether the antithetics of the previous batch are required
+     */
+    public void next(final double[] buffer, final boolean antithetic) /* @ReadOnly */ {
+        QL.require(buffer.length == bufferSize(),
+                String.format(INCOMPATIBLE_BUFFER, buffer.length, bufferSize())); // TODO: message
+
+        if (!antithetic) {
+            draw();
+        }
+
+        for (int p = 0; p < batchSize; p++) {
+            buffer[offset(0, SPOT) + p] = s0;
+            buffer[offset(0, VARIANCE) + p] = v0;
+        }
+
+        final double sign = antithetic ? -1.0 : 1.0;
+        for (int i = 0; i < steps; i++) {
+            if (quadraticExponential) {
+                quadraticExponentialStep(i, sign, buffer);
+            } else {
+                eulerStep(i, sign, buffer);
+            }
+        }
+    }
+
+
+    //
+    // implements SingleVariatePathGenerator
+    //
+
+    /**
+     * Overwrites <code>path</code> with the next path of the spot
+     * <p>
+     * Paths are taken in turn from a batch generated by {@link #next(double[], boolean)}, and a new batch is generated
+     * when the previous one is exhausted. The antithetic of a path is taken from the antithetic of its batch.
+     */
+    @Override
+    public void next(final Path path, final boolean antithetic) /* @ReadOnly */ {
+        QL.require(path.length() == timeGrid.size(), INCOMPATIBLE_PATH); // TODO: message
+        final double[] source;
+        if (antithetic) {
+            if (!antitheticReady) {
+                next(antitheticBatch, true);
+                antitheticReady = true;
+            }
+            source = antitheticBatch;
+        } else {
+            if (++current >= batchSize) {
+                next(batch, false);
+                antitheticReady = false;
+                current = 0;
+            }
+            source = batch;
+        }
+        final double[] values = path.getValues_();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = source[offset(i, SPOT) + current];
+        }
+    }
+
+    /**
+     * @return 1, as no importance sampling is applied
+     */
+    @Override
+    public double weight() /* @ReadOnly */ {
+        return 1.0;
+    }
+
+
+    //
+    // private methods
+    //
+
+    /**
+     * Draws a sequence for each path of the batch and scatters its variates into {@link #variates}
+     */
+    private void draw() {
+        final int stride = 2 * batchSize;
+        for (int p = 0; p < batchSize; p++) {
+            generator.fill(sequence, 0, sequence.length);
+            for (int j = 0; j < 2; j++) {
+                System.arraycopy(sequence, j * steps, input, 0, steps);
+                final double[] w;
+                if (brownianBridge) {
+                    bb.transform(input, output);
+                    w = output;
+                } else {
+                    w = input;
+                }
+                int k = j * batchSize + p;
+                for (int i = 0; i < steps; i++, k += stride) {
+                    variates[k] = w[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies a step of the quadratic-exponential scheme to the whole batch
+     *
+     * @see HestonProcess#evolve(double, Array, double, Array)
+     */
+    private void quadraticExponentialStep(final /*@NonNegative*/ int step, final double sign, final double[] buffer) {
+        final int sFrom = offset(step, SPOT);
+        final int vFrom = offset(step, VARIANCE);
+        final int sTo = offset(step+1, SPOT);
+        final int vTo = offset(step+1, VARIANCE);
+        final int z0 = step * 2 * batchSize;
+        final int z1 = z0 + batchSize;
+
+        final double ex = this.ex[step];
+        final double c1 = this.c1[step];
+        final double c2 = this.c2[step];
+        final double k1 = this.k1[step];
+        final double k2 = this.k2[step];
+        final double k3 = this.k3[step];
+        final double k4 = k3;
+        final double A = k2 + 0.5 * k4;
+        final double drift = this.drift[step];
+
+        for (int p = 0; p < batchSize; p++) {
+            final double v = buffer[vFrom + p];
+            final double dw0 = sign * variates[z0 + p];
+            final double dw1 = sign * variates[z1 + p];
+
+            final double m = theta + (v - theta) * ex;
+            final double psi = (v * c1 + c2) / (m * m);
+            double k0 = this.k0[step];
+            final double next;
+            if (psi < 1.5) {
+                final double b2 = 2 / psi - 1 + Math.sqrt(2 / psi * (2 / psi - 1));
+                final double b = Math.sqrt(b2);
+                final double a = m / (1 + b2);
+                if (martingaleCorrection) {
+                    QL.require(A < 1 / (2 * a), ILLEGAL_MARTINGALE_CORRECTION); // TODO: message
+                    k0 = -A * b2 * a / (1 - 2 * A * a) + 0.5 * Math.log(1 - 2 * A * a) - (k1 + 0.5 * k3) * v;
+                }
+                next = a * (b + dw1) * (b + dw1);
+            } else {
+                final double pp = (psi - 1) / (psi + 1);
+                final double beta = (1 - pp) / m;
+                final double u = cnd.op(dw1);
+                if (martingaleCorrection) {
+                    QL.require(A < beta, ILLEGAL_MARTINGALE_CORRECTION); // TODO: message
+                    k0 = -Math.log(pp + beta * (1 - pp) / (beta - A)) - (k1 + 0.5 * k3) * v;
+                }
+                next = (u <= pp) ? 0.0 : Math.log((1 - pp) / (1 - u)) / beta;
+            }
+
+            buffer[vTo + p] = next;
+            buffer[sTo + p] = buffer[sFrom + p]
+                    * Math.exp(drift + k0 + k1 * v + k2 * next + Math.sqrt(k3 * v + k4 * next) * dw0);
+        }
+    }
+
+    /**
+     * Applies a step of one of the Euler schemes to the whole batch
+     *
+     * @see HestonProcess#evolve(double, Array, double, Array)
+     */
+    private void eulerStep(final /*@NonNegative*/ int step, final double sign, final double[] buffer) {
+        final int sFrom = offset(step, SPOT);
+        final int vFrom = offset(step, VARIANCE);
+        final int sTo = offset(step+1, SPOT);
+        final int vTo = offset(step+1, VARIANCE);
+        final int z0 = step * 2 * batchSize;
+        final int z1 = z0 + batchSize;
+        final /*@Time*/ double dt = timeGrid.dt(step);
+        final double sdt = Math.sqrt(dt);
+        final double rate = this.rate[step];
+
+        for (int p = 0; p < batchSize; p++) {
+            final double s = buffer[sFrom + p];
+            final double v = buffer[vFrom + p];
+            final double dw0 = sign * variates[z0 + p];
+            final double dw1 = sign * variates[z1 + p];
+
+            final double vol;
+            final double nu;
+            final double from;
+            switch (discretization) {
+            case PartialTruncation:
+                vol = (v > 0.0) ? Math.sqrt(v) : 0.0;
+                nu = kappa * (theta - v);
+                from = v;
+                break;
+            case FullTruncation:
+                vol = (v > 0.0) ? Math.sqrt(v) : 0.0;
+                nu = kappa * (theta - vol * vol);
+                from = v;
+                break;
+            default: // Reflection
+                vol = Math.sqrt(Math.abs(v));
+                nu = kappa * (theta - vol * vol);
+                from = vol * vol;
+                break;
+            }
+            final double vol2 = sigma * vol;
+            final double mu = rate - 0.5 * vol * vol;
+
+            buffer[sTo + p] = s * Math.exp(mu * dt + vol * dw0 * sdt);
+            buffer[vTo + p] = from + nu * dt + vol2 * sdt * (rho * dw0 + sqrho * dw1);
+        }
+    }
+
+}
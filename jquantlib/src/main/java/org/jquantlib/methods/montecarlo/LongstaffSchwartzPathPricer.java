@@ -0,0 +1,363 @@
+/*
+ Copyright (C) 2011 Richard Gomes
+
+ This source code is release under the BSD License.
+
+ This file is part of JQuantLib, a free-software/open-source library
+ for financial quantitative analysts and developers - http://jquantlib.org/
+
+ JQuantLib is free software: you can redistribute it and/or modify it
+ under the terms of the JQuantLib license.  You should have received a
+ copy of the license along with this program; if not, please email
+ <jquant-devel@lists.sourceforge.net>. The license is also available online at
+ <http://www.jquantlib.org/index.php/LICENSE.TXT>.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE.  See the license for more details.
+
+ JQuantLib is based on QuantLib. http://quantlib.org/
+ When applicable, the original copyright notice follows this notice.
+ */
+
+
+package org.jquantlib.methods.montecarlo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.jquantlib.QL;
+import org.jquantlib.instruments.Payoff;
+import org.jquantlib.math.Constants;
+import org.jquantlib.math.matrixutilities.Array;
+import org.jquantlib.math.matrixutilities.Matrix;
+import org.jquantlib.math.matrixutilities.SVD;
+import org.jquantlib.util.ThreadPool;
+
+/**
+ * Path pricer for early exercise products by means of the least-squares Monte Carlo method of Longstaff and Schwartz
+ * <p>
+ * Pricing takes place in two passes. In the calibration pass, {@link #calibrate(PathCube)} walks a set of paths backwards
+ * in time and, at each exercise date, regresses the discounted cash flows of in-the-money paths against the basis functions
+ * of the state. The resulting coefficients define an exercise strategy: exercise as soon as the exercise value is not less than
+ * the estimated continuation value. In the pricing pass, {@link #op(Path)} applies such strategy to paths which are
+ * independent of the calibration paths, so that the resulting estimate is not biased upwards by foresight.
+ * <p>
+ * At each exercise date the regression is solved through a QR factorization of the design matrix <i>&Phi;</i>, whose rows are
+ * the basis functions evaluated at the in-the-money paths. The normal equations {@latex$ \Phi^T \Phi c = \Phi^T y } are never
+ * formed, as they square the condition number of <i>&Phi;</i>, which is already large for monomials of unscaled states.
+ * Each chunk of paths is reduced to a triangular factor on the {@link ThreadPool}, one path at a time by Givens rotations,
+ * and the factors of all chunks are then reduced in turn in the same order (a tall-skinny QR), so that results do not depend
+ * on the number of threads. The triangular system is finally solved by singular value decomposition, which leaves out
+ * directions the in-the-money paths do not determine, as when there are fewer distinct states than basis functions.
+ *
+ * @see PathCube
+ * @see LsmBasisSystem
+ *
+ * @category mcarlo
+ */
+public class LongstaffSchwartzPathPricer extends PathPricer<Path> {
+
+    private static final String NO_EXERCISE_DATES = "at least one exercise date is required";
+    private static final String INCOMPATIBLE_DISCOUNTS = "one discount factor is required for each exercise date";
+    private static final String UNSORTED_EXERCISE_DATES = "exercise dates must be sorted and after the origin of the paths";
+    private static final String NOT_CALIBRATED = "path pricer not calibrated";
+    private static final String PATHS_TOO_SHORT = "exercise dates beyond the end of the paths";
+
+    /**
+     * Number of paths processed by each task when factorizations are split among threads
+     */
+    private static final int GRAIN = 4096;
+
+
+    //
+    // private final fields
+    //
+
+    private final Payoff payoff;
+    private final int[] exerciseIndices;
+    private final /*@DiscountFactor*/ double[] discounts;
+    private final LsmBasisSystem basisSystem;
+    private final /*@Real*/ double scale;
+
+
+    //
+    // private fields
+    //
+
+    private double[][] coefficients;
+
+
+    //
+    // public constructors
+    //
+
+    /**
+     * @param payoff is the exercise value as a function of the state
+     * @param exerciseIndices are the time indices of the exercise dates on the paths, in increasing order
+     * @param discounts are the discount factors from each exercise date to the origin of the paths
+     * @param basisSystem are the functions employed by the regressions
+     * @param scale is a normalization constant, so that basis functions are evaluated at the state divided by
+     *        <code>scale</code>
+     */
+    public LongstaffSchwartzPathPricer(
+            final Payoff payoff,
+            final int[] exerciseIndices,
+            final /*@DiscountFactor*/ double[] discounts,
+            final LsmBasisSystem basisSystem,
+            final /*@Real*/ double scale) {
+        QL.require(exerciseIndices.length > 0, NO_EXERCISE_DATES); // TODO: message
+        QL.require(exerciseIndices.length == discounts.length, INCOMPATIBLE_DISCOUNTS); // TODO: message
+        for (int j = 0; j < exerciseIndices.length; j++) {
+            QL.require(exerciseIndices[j] > (j == 0 ? 0 : exerciseIndices[j-1]), UNSORTED_EXERCISE_DATES); // TODO: message
+        }
+        this.payoff = payoff;
+        this.exerciseIndices = exerciseIndices.clone();
+        this.discounts = discounts.clone();
+        this.basisSystem = basisSystem;
+        this.scale = scale;
+    }
+
+
+    //
+    // public methods
+    //
+
+    /**
+     * Estimates the exercise strategy from a set of calibration paths
+     *
+     * @param cube holds the calibration paths
+     */
+    public void calibrate(final PathCube cube) {
+        final int last = exerciseIndices.length-1;
+        QL.require(exerciseIndices[last] < cube.length(), PATHS_TOO_SHORT); // TODO: message
+
+        final int n = cube.paths();
+        final int k = basisSystem.size();
+        final double[] values = cube.values();
+        final int length = cube.length();
+
+        // discounted cash flows of each path, as given by the strategy estimated so far
+        final double[] cash = new double[n];
+        final int t = exerciseIndices[last];
+        for (int p = 0; p < n; p++) {
+            cash[p] = payoff.get(values[p*length + t]) * discounts[last];
+        }
+
+        final double[][] coefficients = new double[last][];
+        for (int j = last-1; j >= 0; j--) {
+            final List<Factorization> factorizations = new ArrayList<Factorization>();
+            for (int from = 0; from < n; from += GRAIN) {
+                factorizations.add(new Factorization(cube, j, cash, from, Math.min(from + GRAIN, n)));
+            }
+            final int m = k+1;
+            final double[] factor = new double[m*m + 1];
+            final double[] row = new double[m];
+            for (final double[] partial : ThreadPool.invokeAll(factorizations)) {
+                for (int r = 0; r < m; r++) {
+                    System.arraycopy(partial, r*m, row, 0, m);
+                    rotate(factor, row, r, m);
+                }
+                factor[m*m] += partial[m*m];
+            }
+            // too few paths in the money: no regression possible, never exercise at this date
+            if (factor[m*m] < k) {
+                continue;
+            }
+            coefficients[j] = solve(factor, k);
+            final List<Decision> decisions = new ArrayList<Decision>();
+            for (int from = 0; from < n; from += GRAIN) {
+                decisions.add(new Decision(cube, j, coefficients[j], cash, from, Math.min(from + GRAIN, n)));
+            }
+            ThreadPool.invokeAll(decisions);
+        }
+        this.coefficients = coefficients;
+    }
+
+
+    //
+    // implements PathPricer
+    //
+
+    /**
+     * @return the discounted cash flow of <code>path</code> given the exercise strategy estimated by calibration
+     */
+    @Override
+    public Double op(final Path path) /* @ReadOnly */ {
+        final double[][] coefficients = this.coefficients;
+        QL.require(coefficients != null, NOT_CALIBRATED); // TODO: message
+        final double[] values = path.getValues_();
+        final int last = exerciseIndices.length-1;
+        for (int j = 0; j < last; j++) {
+            if (coefficients[j] != null) {
+                final double x = values[exerciseIndices[j]];
+                final double exercise = payoff.get(x) * discounts[j];
+                if (exercise > 0.0 && exercise >= basisSystem.combination(coefficients[j], x / scale))
+                    return exercise;
+            }
+        }
+        return payoff.get(values[exerciseIndices[last]]) * discounts[last];
+    }
+
+
+    //
+    // private methods
+    //
+
+    /**
+     * Adds a row to an upper triangular factor by means of Givens rotations
+     * <p>
+     * Given <i>R</i> such that {@latex$ R^T R = A^T A }, the rotations make <i>R</i> the triangular factor of <i>A</i> with
+     * <code>row</code> appended, whose elements before <code>from</code> must be zero. <code>row</code> is overwritten.
+     *
+     * @param factor holds <i>R</i>, a <i>m &times; m</i> matrix in row-major order
+     */
+    private static void rotate(final double[] factor, final double[] row, final int from, final int m) {
+        for (int i = from; i < m; i++) {
+            final double b = row[i];
+            if (b == 0.0) {
+                continue;
+            }
+            final int ii = i*m + i;
+            final double a = factor[ii];
+            final double h = Math.sqrt(a*a + b*b);
+            final double c = a / h;
+            final double s = b / h;
+            factor[ii] = h;
+            for (int j = i+1; j < m; j++) {
+                final double rij = factor[ii - i + j];
+                final double wj = row[j];
+                factor[ii - i + j] = c*rij + s*wj;
+                row[j] = c*wj - s*rij;
+            }
+        }
+    }
+
+    /**
+     * Solves the least-squares problem {@latex$ \min \| R c - z \| } by means of the pseudo-inverse of <i>R</i>
+     *
+     * @param factor holds the triangular factor of {@latex$ [\Phi \; y] } in row-major order, where the first <i>k</i>
+     *        columns give <i>R</i> and the last one gives <i>z</i>
+     */
+    private static double[] solve(final double[] factor, final int k) {
+        final int m = k+1;
+        final Matrix A = new Matrix(k, k);
+        for (int r = 0; r < k; r++) {
+            for (int c = r; c < k; c++) {
+                A.set(r, c, factor[r*m + c]);
+            }
+        }
+        final SVD svd = new SVD(A);
+        final Matrix U = svd.U();
+        final Matrix V = svd.V();
+        final Array s = svd.singularValues();
+        final double threshold = k * Constants.QL_EPSILON * s.get(0);
+
+        final double[] result = new double[k];
+        for (int i = 0; i < k; i++) {
+            if (s.get(i) > threshold) {
+                double ub = 0.0;
+                for (int r = 0; r < k; r++) {
+                    ub += U.get(r, i) * factor[r*m + k];
+                }
+                ub /= s.get(i);
+                for (int r = 0; r < k; r++) {
+                    result[r] += ub * V.get(r, i);
+                }
+            }
+        }
+        return result;
+    }
+
+
+    //
+    // private inner classes
+    //
+
+    /**
+     * Factors the regression at a given exercise date over a range of paths
+     * <p>
+     * The result holds the upper triangular factor of {@latex$ [\Phi \; y] } in row-major order, where <i>&Phi;</i> has one
+     * row of basis functions for each path in the money and <i>y</i> holds their cash flows, followed by the number of paths
+     * in the money.
+     */
+    private final class Factorization implements Callable<double[]> {
+
+        private final PathCube cube;
+        private final int exercise;
+        private final double[] cash;
+        private final int from;
+        private final int to;
+
+        public Factorization(final PathCube cube, final int exercise, final double[] cash, final int from, final int to) {
+            this.cube = cube;
+            this.exercise = exercise;
+            this.cash = cash;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public double[] call() {
+            final int k = basisSystem.size();
+            final int m = k+1;
+            final double[] result = new double[m*m + 1];
+            final double[] phi = new double[m];
+            final double[] values = cube.values();
+            final int length = cube.length();
+            final int t = exerciseIndices[exercise];
+            for (int p = from; p < to; p++) {
+                final double x = values[p*length + t];
+                if (payoff.get(x) > 0.0) {
+                    basisSystem.values(x / scale, phi);
+                    phi[k] = cash[p];
+                    rotate(result, phi, 0, m);
+                    result[m*m] += 1.0;
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Updates the cash flows of a range of paths with the exercise decision taken at a given exercise date
+     */
+    private final class Decision implements Callable<Void> {
+
+        private final PathCube cube;
+        private final int exercise;
+        private final double[] coefficients;
+        private final double[] cash;
+        private final int from;
+        private final int to;
+
+        public Decision(
+                final PathCube cube, final int exercise, final double[] coefficients,
+                final double[] cash, final int from, final int to) {
+            this.cube = cube;
+            this.exercise = exercise;
+            this.coefficients = coefficients;
+            this.cash = cash;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public Void call() {
+            final double[] values = cube.values();
+            final int length = cube.length();
+            final int t = exerciseIndices[exercise];
+            final double discount = discounts[exercise];
+            for (int p = from; p < to; p++) {
+                final double x = values[p*length + t];
+                final double value = payoff.get(x) * discount;
+                if (value > 0.0 && value >= basisSystem.combination(coefficients, x / scale)) {
+                    cash[p] = value;
+                }
+            }
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,271 @@
+/*
+ Copyright (C) 2011 Richard Gomes
+
+ This source code is release under the BSD License.
+
+ This file is part of JQuantLib, a free-software/open-source library
+ for financial quantitative analysts and developers - http://jquantlib.org/
+
+ JQuantLib is free software: you can redistribute it and/or modify it
+ under the terms of the JQuantLib license.  You should have received a
+ copy of the license along with this program; if not, please email
+ <jquant-devel@lists.sourceforge.net>. The license is also available online at
+ <http://www.jquantlib.org/index.php/LICENSE.TXT>.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE.  See the license for more details.
+
+ JQuantLib is based on QuantLib. http://quantlib.org/
+ When applicable, the original copyright notice follows this notice.
+ */
+
+
+package org.jquantlib.methods.montecarlo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jquantlib.QL;
+import org.jquantlib.math.Ops;
+
+/**
+ * Basis functions employed by least-squares Monte Carlo regressions
+ * <p>
+ * A basis system is an ordered set of functions {@latex$ \phi_0, \ldots, \phi_{k-1} } of the state of a path. The
+ * continuation value of an early exercise product is estimated as {@latex$ \sum_i c_i \phi_i(x) }, where the coefficients
+ * {@latex$ c_i } are obtained by regression.
+ * <p>
+ * Any list of functions can be plugged in by means of the public constructor. The systems returned by
+ * {@link #pathBasisSystem(int, PolynomType)} evaluate all polynomials of a family at once by means of their three-term
+ * recurrence, which is what least-squares Monte Carlo does for every path and every exercise date.
+ *
+ * @see LongstaffSchwartzPathPricer
+ *
+ * @category mcarlo
+ */
+public class LsmBasisSystem {
+
+    private static final String EMPTY_BASIS_SYSTEM = "at least one basis function is required";
+    private static final String NEGATIVE_ORDER = "polynomial order must be non negative";
+
+
+    //
+    // public static inner enums
+    //
+
+    /**
+     * Families of polynomials which can be employed as basis functions
+     */
+    public static enum PolynomType {
+        Monomial, Laguerre, Hermite, Legendre, Chebyshev;
+    }
+
+
+    //
+    // private final fields
+    //
+
+    private final Ops.DoubleOp[] functions;
+
+
+    //
+    // public constructors
+    //
+
+    /**
+     * @param functions are the basis functions, in the order their coefficients are returned by regressions
+     */
+    public LsmBasisSystem(final List<Ops.DoubleOp> functions) {
+        QL.require(functions != null && !functions.isEmpty(), EMPTY_BASIS_SYSTEM); // TODO: message
+        this.functions = functions.toArray(new Ops.DoubleOp[functions.size()]);
+    }
+
+
+    //
+    // public static methods
+    //
+
+    /**
+     * Returns the polynomials of a given family, from degree zero up to degree <code>order</code>
+     *
+     * @param order is the highest degree
+     * @param type is the family of polynomials
+     */
+    public static LsmBasisSystem pathBasisSystem(final /*@NonNegative*/ int order, final PolynomType type) {
+        QL.require(order >= 0, NEGATIVE_ORDER); // TODO: message
+        final List<Ops.DoubleOp> functions = new ArrayList<Ops.DoubleOp>(order+1);
+        for (int degree = 0; degree <= order; degree++) {
+            functions.add(new Polynomial(type, degree));
+        }
+        return new Polynomials(functions, type);
+    }
+
+
+    //
+    // public methods
+    //
+
+    /**
+     * @return the number of basis functions
+     */
+    public /*@NonNegative*/ int size() /* @ReadOnly */ {
+        return functions.length;
+    }
+
+    /**
+     * @return the basis functions
+     */
+    public List<Ops.DoubleOp> functions() /* @ReadOnly */ {
+        final List<Ops.DoubleOp> result = new ArrayList<Ops.DoubleOp>(functions.length);
+        for (final Ops.DoubleOp f : functions) {
+            result.add(f);
+        }
+        return result;
+    }
+
+    /**
+     * Evaluates all basis functions at a given state
+     *
+     * @param x is the state
+     * @param out receives {@latex$ \phi_i(x) } and must hold at least {@link #size()} elements
+     */
+    public void values(final double x, final double[] out) /* @ReadOnly */ {
+        for (int i = 0; i < functions.length; i++) {
+            out[i] = functions[i].op(x);
+        }
+    }
+
+    /**
+     * Evaluates a linear combination of the basis functions at a given state
+     *
+     * @param coefficients are the weights {@latex$ c_i } of the basis functions
+     * @param x is the state
+     * @return {@latex$ \sum_i c_i \phi_i(x) }
+     */
+    public double combination(final double[] coefficients, final double x) /* @ReadOnly */ {
+        double sum = 0.0;
+        for (int i = 0; i < functions.length; i++) {
+            sum += coefficients[i] * functions[i].op(x);
+        }
+        return sum;
+    }
+
+
+    //
+    // private static methods
+    //
+
+    /**
+     * Three-term recurrence of orthogonal polynomials
+     *
+     * @return the polynomial of degree <code>k+1</code> given those of degree <code>k</code> and <code>k-1</code>
+     */
+    private static double next(final PolynomType type, final int k, final double x, final double pk, final double pkm1) {
+        switch (type) {
+        case Monomial:
+            return x * pk;
+        case Laguerre:
+            return ((2*k+1-x) * pk - k * pkm1) / (k+1);
+        case Hermite:
+            return 2.0 * x * pk - 2.0 * k * pkm1;
+        case Legendre:
+            return ((2*k+1) * x * pk - k * pkm1) / (k+1);
+        case Chebyshev:
+            return 2.0 * x * pk - pkm1;
+        default:
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * @return the polynomial of degree one, given that the polynomial of degree zero is 1
+     */
+    private static double first(final PolynomType type, final double x) {
+        switch (type) {
+        case Laguerre:
+            return 1.0 - x;
+        case Hermite:
+            return 2.0 * x;
+        default:
+            return x;
+        }
+    }
+
+
+    //
+    // private inner classes
+    //
+
+    /**
+     * A single polynomial of a given family and degree
+     */
+    private static final class Polynomial implements Ops.DoubleOp {
+
+        private final PolynomType type;
+        private final int degree;
+
+        public Polynomial(final PolynomType type, final int degree) {
+            this.type = type;
+            this.degree = degree;
+        }
+
+        @Override
+        public double op(final double x) {
+            if (degree == 0)
+                return 1.0;
+            double pkm1 = 1.0;
+            double pk = first(type, x);
+            for (int k = 1; k < degree; k++) {
+                final double p = next(type, k, x, pk, pkm1);
+                pkm1 = pk;
+                pk = p;
+            }
+            return pk;
+        }
+    }
+
+    /**
+     * All polynomials of a family up to a given degree, evaluated in a single pass of the recurrence
+     */
+    private static final class Polynomials extends LsmBasisSystem {
+
+        private final PolynomType type;
+
+        public Polynomials(final List<Ops.DoubleOp> functions, final PolynomType type) {
+            super(functions);
+            this.type = type;
+        }
+
+        @Override
+        public void values(final double x, final double[] out) {
+            final int n = size();
+            out[0] = 1.0;
+            if (n > 1) {
+                out[1] = first(type, x);
+            }
+            for (int k = 1; k < n-1; k++) {
+                out[k+1] = next(type, k, x, out[k], out[k-1]);
+            }
+        }
+
+        @Override
+        public double combination(final double[] coefficients, final double x) {
+            final int n = size();
+            double pkm1 = 1.0;
+            double sum = coefficients[0];
+            if (n > 1) {
+                double pk = first(type, x);
+                sum += coefficients[1] * pk;
+                for (int k = 1; k < n-1; k++) {
+                    final double p = next(type, k, x, pk, pkm1);
+                    pkm1 = pk;
+                    pk = p;
+                    sum += coefficients[k+1] * pk;
+                }
+            }
+            return sum;
+        }
+    }
+
+}
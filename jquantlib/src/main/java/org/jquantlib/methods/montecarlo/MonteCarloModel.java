@@ -38,51 +38,121 @@
 
 package org.jquantlib.methods.montecarlo;
 
-import org.jquantlib.math.randomnumbers.RandomNumberGenerator;
-import org.jquantlib.math.statistics.Statistics;
+import org.jquantlib.math.statistics.ControlVariateStatistics;
+import org.jquantlib.math.statistics.GeneralStatistics;
 
 /**
  *
  * General-purpose Monte Carlo model for path samples
  * <p>
- * The template arguments of this class correspond to available policies for the particular model to be instantiated---i.e., whether
- * it is single- or multi-asset, or whether it should use pseudo-random or low-discrepancy numbers for path generation. Such
- * decisions are grouped in trait classes so as to be orthogonal---see mctraits.hpp for examples.
+ * In QuantLib/C++ the template arguments of this class correspond to available policies for the particular model to be
+ * instantiated---i.e., whether it is single- or multi-asset, or whether it should use pseudo-random or low-discrepancy numbers
+ * for path generation. In JQuantLib such decisions are taken when the path generator is built, so that only the statistics
+ * accumulator is a generic parameter.
  * <p>
- *
- * The constructor accepts two safe references, i.e. two smart pointers, one to a path generator and the other to a path pricer. In
- * case of control variate technique the user should provide the additional control option, namely the option path pricer and the
- * option value.
+ * The constructor accepts a {@link SingleVariatePathGenerator} and a path pricer. Paths are generated into a single
+ * {@link Path} instance which is reused from sample to sample.
+ * <p>
+ * When a control variate is given, the sample accumulator receives prices corrected by the difference between the known
+ * value of the control and its price on the same path, as QuantLib/C++ does. Uncorrected pairs of prices and controls are
+ * also collected by {@link #controlVariateStatistics()}, which provides the estimate corrected by the optimal coefficient
+ * instead. Prices are multiplied by the likelihood ratio reported by the path generator, so that importance sampling is
+ * transparent to path pricers.
  *
  * @category mcarlo
  *
  * @author Richard Gomes
  */
-public class MonteCarloModel<MC extends Variate, RNG extends RandomNumberGenerator, S extends Statistics> {
-
-	public MonteCarloModel() {
-        if (System.getProperty("EXPERIMENTAL")==null)
-            throw new UnsupportedOperationException("Work in progress");
-	}
-
-//    private PathGeneratorType pathGenerator_;
-//    private PathPricerType pathPricer_;
-
-      private S sampleAccumulator_;
-//    private boolean isAntitheticVariate_;
-//    private PathPricerType cvPathPricer_;
-//    private ResultType cvOptionValue_;
-//    private boolean isControlVariate_;
-
-	public void addSamples(final int size){
-		//  TODO... we have to work on this a bit.
-
-	}
-
-	public S sampleAccumulator(){
-		return sampleAccumulator_;
-	}
-
+public class MonteCarloModel<S extends GeneralStatistics> {
+
+    private final SingleVariatePathGenerator pathGenerator_;
+    private final PathPricer<Path> pathPricer_;
+    private final S sampleAccumulator_;
+    private final boolean isAntitheticVariate_;
+    private final PathPricer<Path> cvPathPricer_;
+    private final /*@Real*/ double cvOptionValue_;
+    private final boolean isControlVariate_;
+    private final ControlVariateStatistics cvAccumulator_;
+    private final Path path_;
+
+
+    public MonteCarloModel(
+            final SingleVariatePathGenerator pathGenerator,
+            final PathPricer<Path> pathPricer,
+            final S sampleAccumulator,
+            final boolean antitheticVariate) {
+        this(pathGenerator, pathPricer, sampleAccumulator, antitheticVariate, null, 0.0);
+    }
+
+    /**
+     * @param cvPathPricer is the path pricer of the control variate, or <code>null</code> when no control is employed
+     * @param cvOptionValue is the known value of the control variate
+     */
+    public MonteCarloModel(
+            final SingleVariatePathGenerator pathGenerator,
+            final PathPricer<Path> pathPricer,
+            final S sampleAccumulator,
+            final boolean antitheticVariate,
+            final PathPricer<Path> cvPathPricer,
+            final /*@Real*/ double cvOptionValue) {
+        this.pathGenerator_ = pathGenerator;
+        this.pathPricer_ = pathPricer;
+        this.sampleAccumulator_ = sampleAccumulator;
+        this.isAntitheticVariate_ = antitheticVariate;
+        this.cvPathPricer_ = cvPathPricer;
+        this.cvOptionValue_ = cvOptionValue;
+        this.isControlVariate_ = cvPathPricer != null;
+        this.cvAccumulator_ = new ControlVariateStatistics();
+        this.path_ = new Path(pathGenerator.timeGrid());
+    }
+
+
+    //
+    // public methods
+    //
+
+    public void addSamples(final /*@NonNegative*/ int samples) {
+        for (int j = 1; j <= samples; j++) {
+            pathGenerator_.next(path_, false);
+            double weight = pathGenerator_.weight();
+            double price = pathPricer_.op(path_) * weight;
+            double control = isControlVariate_ ? cvPathPricer_.op(path_) * weight : 0.0;
+
+            if (isAntitheticVariate_) {
+                pathGenerator_.next(path_, true);
+                weight = pathGenerator_.weight();
+                price = (price + pathPricer_.op(path_) * weight) / 2.0;
+                if (isControlVariate_) {
+                    control = (control + cvPathPricer_.op(path_) * weight) / 2.0;
+                }
+            }
+
+            if (isControlVariate_) {
+                cvAccumulator_.add(price, control);
+                sampleAccumulator_.add(price + cvOptionValue_ - control, 1.0);
+            } else {
+                sampleAccumulator_.add(price, 1.0);
+            }
+        }
+    }
+
+    public S sampleAccumulator() /* @ReadOnly */ {
+        return sampleAccumulator_;
+    }
+
+    /**
+     * @return the pairs of prices and controls collected so far, which are empty when no control variate is employed
+     */
+    public ControlVariateStatistics controlVariateStatistics() /* @ReadOnly */ {
+        return cvAccumulator_;
+    }
+
+    /**
+     * @return the known value of the control variate
+     */
+    public /*@Real*/ double controlVariateValue() /* @ReadOnly */ {
+        return cvOptionValue_;
+    }
 
 }
 
@@ -0,0 +1,264 @@
+/*
+ Copyright (C) 2011 Richard Gomes
+
+ This source code is release under the BSD License.
+
+ This file is part of JQuantLib, a free-software/open-source library
+ for financial quantitative analysts and developers - http://jquantlib.org/
+
+ JQuantLib is free software: you can redistribute it and/or modify it
+ under the terms of the JQuantLib license.  You should have received a
+ copy of the license along with this program; if not, please email
+ <jquant-devel@lists.sourceforge.net>. The license is also available online at
+ <http://www.jquantlib.org/index.php/LICENSE.TXT>.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE.  See the license for more details.
+
+ JQuantLib is based on QuantLib. http://quantlib.org/
+ When applicable, the original copyright notice follows this notice.
+ */
+
+
+package org.jquantlib.methods.montecarlo;
+
+import java.util.Arrays;
+
+import org.jquantlib.QL;
+import org.jquantlib.math.matrixutilities.Matrix;
+import org.jquantlib.math.randomnumbers.UniformRandomSequenceGenerator;
+import org.jquantlib.model.shortrate.StochasticProcessArray;
+import org.jquantlib.processes.StochasticProcess1D;
+import org.jquantlib.time.TimeGrid;
+
+/**
+ * Generates batches of correlated multi-asset paths using a sequence generator
+ * <p>
+ * {@link StochasticProcessArray#evolve} multiplies the pseudo square root of the correlation matrix by the Brownian increments
+ * of a single path, allocating a new matrix and a few arrays at every step. This generator instead takes the pseudo square
+ * root once, as the correlation of the process does not depend on time, and correlates the increments of a whole batch of
+ * paths at each time step by means of a blocked matrix-matrix product, which keeps a block of variates in cache whilst it is
+ * combined into several assets. Each asset is then evolved along the batch by its own one-dimensional process.
+ * <p>
+ * Paths are written in struct-of-arrays layout: the values of asset {@code a} at time step {@code i} for all paths of the
+ * batch are contiguous and start at {@link #offset(int, int)}, so that basket and rainbow payoffs can be evaluated by
+ * streaming through the buffer.
+ * <p>
+ * The sequence generator must have dimension {@code factors * steps}. As in QuantLib's MultiPathGenerator, the variates of
+ * factor {@code j} are taken from positions {@code j*steps} to {@code (j+1)*steps-1} of each sequence and, when the Brownian
+ * bridge is enabled, each factor is built by its own bridge.
+ *
+ * @see StochasticProcessArray
+ * @see PathGenerator
+ *
+ * @category mcarlo
+ */
+public class MultiPathGenerator<GSG extends UniformRandomSequenceGenerator> {
+
+    private static final String INCOMPATIBLE_DIMENSION = "sequence generator dimensionality (%d) != factors * timeSteps (%d)";
+    private static final String INCOMPATIBLE_BUFFER = "buffer size (%d) != timeGrid size * assets * batch size (%d)";
+    private static final String INVALID_BATCH_SIZE = "batch size must be positive";
+
+    /**
+     * Number of assets and factors processed together by the blocked product
+     */
+    private static final int BLOCK = 32;
+
+    private final StochasticProcessArray process;
+    private final StochasticProcess1D[] processes;
+    private final TimeGrid timeGrid;
+    private final GSG generator;
+    private final boolean brownianBridge;
+    private final BrownianBridge bb;
+    private final /*@NonNegative*/ int assets;
+    private final /*@NonNegative*/ int factors;
+    private final /*@NonNegative*/ int steps;
+    private final /*@NonNegative*/ int batchSize;
+
+    // pseudo square root of the correlation matrix, row major
+    private final double[] root;
+
+    // variates of the last batch, laid out as [step][factor][path]
+    private final double[] variates;
+    private final double[] sequence;
+    private final double[] input;
+    private final double[] output;
+    private final double[] dz;
+
+
+    public MultiPathGenerator(
+            final StochasticProcessArray process,
+            final TimeGrid timeGrid,
+            final GSG generator,
+            final boolean brownianBridge,
+            final /*@NonNegative*/ int batchSize) {
+        QL.require(batchSize > 0, INVALID_BATCH_SIZE); // TODO: message
+
+        final Matrix sqrtCorrelation = process.sqrtCorrelation();
+        this.process = process;
+        this.timeGrid = timeGrid;
+        this.generator = generator;
+        this.brownianBridge = brownianBridge;
+        this.assets = process.size();
+        this.factors = sqrtCorrelation.cols();
+        this.steps = timeGrid.size()-1;
+        this.batchSize = batchSize;
+
+        QL.require(generator.dimension() == factors * steps,
+                String.format(INCOMPATIBLE_DIMENSION, generator.dimension(), factors * steps)); // TODO: message
+
+        this.processes = new StochasticProcess1D[assets];
+        for (int a = 0; a < assets; a++) {
+            processes[a] = process.process(a);
+        }
+        this.root = new double[assets * factors];
+        for (int a = 0; a < assets; a++) {
+            for (int j = 0; j < factors; j++) {
+                root[a * factors + j] = sqrtCorrelation.get(a, j);
+            }
+        }
+
+        this.bb = new BrownianBridge(timeGrid);
+        this.variates = new double[steps * factors * batchSize];
+        this.sequence = new double[factors * steps];
+        this.input = new double[steps];
+        this.output = new double[steps];
+        this.dz = new double[assets * batchSize];
+    }
+
+
+    //
+    // public methods
+    //
+
+    public StochasticProcessArray process() /* @ReadOnly */ {
+        return process;
+    }
+
+    public TimeGrid timeGrid() /* @ReadOnly */ {
+        return timeGrid;
+    }
+
+    public /*@NonNegative*/ int assets() /* @ReadOnly */ {
+        return assets;
+    }
+
+    public /*@NonNegative*/ int batchSize() /* @ReadOnly */ {
+        return batchSize;
+    }
+
+    /**
+     * @return the size of the buffers filled by {@link #next(double[], boolean)}
+     */
+    public /*@NonNegative*/ int bufferSize() /* @ReadOnly */ {
+        return timeGrid.size() * assets * batchSize;
+    }
+
+    /**
+     * @return the position in the buffer of the value of the first path of the batch for a given time step and asset
+     */
+    public /*@NonNegative*/ int offset(final /*@NonNegative*/ int step, final /*@NonNegative*/ int asset) /* @ReadOnly */ {
+        return (step * assets + asset) * batchSize;
+    }
+
+    /**
+     * Overwrites <code>buffer</code> with a new batch of paths, so that no allocation takes place
+     * <p>
+     * When <code>antithetic</code> is true, the variates employed by the previous call are reused with opposite sign
+     * instead of drawing new sequences.
+     *
+     * @param buffer has {@link #bufferSize()} elements and receives the paths in the layout given by {@link #offset(int, int)}
+     * @param antithetic tells whether the antithetics of the previous batch are required
+     */
+    public void next(final double[] buffer, final boolean antithetic) /* @ReadOnly */ {
+        QL.require(buffer.length == bufferSize(),
+                String.format(INCOMPATIBLE_BUFFER, buffer.length, bufferSize())); // TODO: message
+
+        if (!antithetic) {
+            draw();
+        }
+
+        for (int a = 0; a < assets; a++) {
+            final double x0 = processes[a].x0();
+            final int offset = offset(0, a);
+            for (int p = 0; p < batchSize; p++) {
+                buffer[offset + p] = x0;
+            }
+        }
+
+        final double sign = antithetic ? -1.0 : 1.0;
+        for (int i = 0; i < steps; i++) {
+            correlate(i, sign);
+            final /*@Time*/ double t = timeGrid.get(i);
+            final /*@Time*/ double dt = timeGrid.dt(i);
+            for (int a = 0; a < assets; a++) {
+                final StochasticProcess1D p1d = processes[a];
+                final int from = offset(i, a);
+                final int to = offset(i+1, a);
+                final int row = a * batchSize;
+                for (int p = 0; p < batchSize; p++) {
+                    buffer[to + p] = p1d.evolve(t, buffer[from + p], dt, dz[row + p]);
+                }
+            }
+        }
+    }
+
+
+    //
+    // private methods
+    //
+
+    /**
+     * Draws a sequence for each path of the batch and scatters its variates into {@link #variates}
+     */
+    private void draw() {
+        final int stride = factors * batchSize;
+        for (int p = 0; p < batchSize; p++) {
+            generator.fill(sequence, 0, sequence.length);
+            for (int j = 0; j < factors; j++) {
+                System.arraycopy(sequence, j * steps, input, 0, steps);
+                final double[] w;
+                if (brownianBridge) {
+                    bb.transform(input, output);
+                    w = output;
+                } else {
+                    w = input;
+                }
+                int k = j * batchSize + p;
+                for (int i = 0; i < steps; i++, k += stride) {
+                    variates[k] = w[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the correlated increments of a time step for the whole batch, i.e. {@code dz = sign * root * z} where
+     * {@code z} holds the variates of the time step as a {@code factors x batchSize} matrix
+     */
+    private void correlate(final /*@NonNegative*/ int step, final double sign) {
+        final int base = step * factors * batchSize;
+        Arrays.fill(dz, 0.0);
+        for (int a0 = 0; a0 < assets; a0 += BLOCK) {
+            final int a1 = Math.min(a0 + BLOCK, assets);
+            for (int j0 = 0; j0 < factors; j0 += BLOCK) {
+                final int j1 = Math.min(j0 + BLOCK, factors);
+                for (int a = a0; a < a1; a++) {
+                    final int row = a * batchSize;
+                    for (int j = j0; j < j1; j++) {
+                        final double l = sign * root[a * factors + j];
+                        if (l == 0.0) {
+                            continue;
+                        }
+                        final int col = base + j * batchSize;
+                        for (int p = 0; p < batchSize; p++) {
+                            dz[row + p] += l * variates[col + p];
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+}
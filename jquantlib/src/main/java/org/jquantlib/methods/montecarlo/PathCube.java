@@ -0,0 +1,164 @@
+/*
+ Copyright (C) 2011 Richard Gomes
+
+ This source code is release under the BSD License.
+
+ This file is part of JQuantLib, a free-software/open-source library
+ for financial quantitative analysts and developers - http://jquantlib.org/
+
+ JQuantLib is free software: you can redistribute it and/or modify it
+ under the terms of the JQuantLib license.  You should have received a
+ copy of the license along with this program; if not, please email
+ <jquant-devel@lists.sourceforge.net>. The license is also available online at
+ <http://www.jquantlib.org/index.php/LICENSE.TXT>.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE.  See the license for more details.
+
+ JQuantLib is based on QuantLib. http://quantlib.org/
+ When applicable, the original copyright notice follows this notice.
+ */
+
+
+package org.jquantlib.methods.montecarlo;
+
+import org.jquantlib.QL;
+import org.jquantlib.time.TimeGrid;
+
+/**
+ * Compact storage for a set of single-factor paths on a common time grid
+ * <p>
+ * All paths are kept in a single <code>double[]</code>, path after path, so that the value of path <i>p</i> at time
+ * index <i>t</i> is found at position {@latex$ p \cdot length + t }, where <i>length</i> is the number of points of the time
+ * grid. Compared to an array of {@link Path} instances, this layout avoids one object per path and lets algorithms which
+ * sweep all paths at a given time, like least-squares Monte Carlo regressions, run over memory without indirections.
+ *
+ * @see LongstaffSchwartzPathPricer
+ *
+ * @category mcarlo
+ */
+public class PathCube {
+
+    private static final String NO_PATHS = "at least one path is required";
+    private static final String INCOMPATIBLE_TIME_GRID = "time grid of the generator differs from time grid of the cube";
+    private static final String ODD_NUMBER_OF_PATHS = "an even number of paths is required for antithetic paths";
+
+
+    //
+    // private final fields
+    //
+
+    private final TimeGrid timeGrid;
+    private final /*@NonNegative*/ int paths;
+    private final /*@NonNegative*/ int length;
+    private final double[] values;
+
+
+    //
+    // private fields
+    //
+
+    private boolean antithetic;
+
+
+    //
+    // public constructors
+    //
+
+    /**
+     * @param timeGrid is the time grid shared by all paths
+     * @param paths is the number of paths
+     */
+    public PathCube(final TimeGrid timeGrid, final /*@NonNegative*/ int paths) {
+        QL.require(paths > 0, NO_PATHS); // TODO: message
+        this.timeGrid = timeGrid;
+        this.paths = paths;
+        this.length = timeGrid.size();
+        this.values = new double[paths * length];
+    }
+
+
+    //
+    // public methods
+    //
+
+    /**
+     * Fills all paths by means of a path generator
+     *
+     * @param generator is the path generator, which must be built on the same time grid
+     * @param antithetic tells whether each odd path is the antithetic of the preceding one
+     * @return this cube
+     */
+    public PathCube fill(final PathGenerator<?> generator, final boolean antithetic) {
+        QL.require(generator.timeGrid().size() == length, INCOMPATIBLE_TIME_GRID); // TODO: message
+        QL.require(!antithetic || paths % 2 == 0, ODD_NUMBER_OF_PATHS); // TODO: message
+        final Path path = new Path(timeGrid);
+        final double[] buffer = path.getValues_();
+        for (int p = 0; p < paths; p++) {
+            generator.next(path, antithetic && p % 2 == 1);
+            System.arraycopy(buffer, 0, values, p * length, length);
+        }
+        this.antithetic = antithetic;
+        return this;
+    }
+
+    public TimeGrid timeGrid() /* @ReadOnly */ {
+        return timeGrid;
+    }
+
+    /**
+     * @return the number of paths
+     */
+    public /*@NonNegative*/ int paths() /* @ReadOnly */ {
+        return paths;
+    }
+
+    /**
+     * @return the number of points of each path, including the initial value
+     */
+    public /*@NonNegative*/ int length() /* @ReadOnly */ {
+        return length;
+    }
+
+    /**
+     * @return the value of a path at a given time index
+     */
+    public /*@Real*/ double get(final /*@NonNegative*/ int path, final /*@NonNegative*/ int t) /* @ReadOnly */ {
+        return values[path * length + t];
+    }
+
+    /**
+     * Copies a path into a {@link Path} instance, so that it can be priced by a {@link PathPricer}
+     *
+     * @param path is the index of the path
+     * @param out is a path defined on {@link #timeGrid()}
+     */
+    public void get(final /*@NonNegative*/ int path, final Path out) /* @ReadOnly */ {
+        System.arraycopy(values, path * length, out.getValues_(), 0, length);
+    }
+
+    /**
+     * @return true when each odd path is the antithetic of the preceding one
+     */
+    public boolean antithetic() /* @ReadOnly */ {
+        return antithetic;
+    }
+
+    /**
+     * @return the position of the first point of a path in the array returned by {@link #values()}
+     */
+    public /*@NonNegative*/ int offset(final /*@NonNegative*/ int path) /* @ReadOnly */ {
+        return path * length;
+    }
+
+    /**
+     * Gives direct access to the storage, so that it can be traversed without method calls
+     *
+     * @return the values of all paths, path after path
+     */
+    public double[] values() {
+        return values;
+    }
+
+}
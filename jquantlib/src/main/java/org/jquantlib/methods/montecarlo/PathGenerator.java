@@ -41,8 +41,8 @@
 
 package org.jquantlib.methods.montecarlo;
 
-import org.jquantlib.math.randomnumbers.RandomNumberGenerator;
-import org.jquantlib.math.randomnumbers.RandomSequenceGeneratorIntf;
+import org.jquantlib.QL;
+import org.jquantlib.math.randomnumbers.UniformRandomSequenceGenerator;
 import org.jquantlib.processes.StochasticProcess1D;
 import org.jquantlib.time.TimeGrid;
 
@@ -50,46 +50,48 @@ import org.jquantlib.time.TimeGrid;
  * Generates random paths using a sequence generator
  * <p>
  * Generates random paths with drift(S,t) and variance(S,t) using a gaussian sequence generator
- * 
+ * <p>
+ * When the Brownian bridge is enabled, the i-th dimension of the sequence generator is used as the i-th variate of the
+ * {@link BrownianBridge}, i.e. the first dimension determines the last point of the path, the second dimension its midpoint
+ * and so on. This concentrates most of the variance of the path into the first dimensions, which is where low-discrepancy
+ * sequences are the most uniform.
+ * <p>
+ * Importance sampling is supported by means of a drift shift {@latex$ \theta }: the i-th Gaussian variate driving the path
+ * becomes {@latex$ z_i = \epsilon_i + \theta_i }, and the likelihood ratio
+ * {@latex$ w = \exp(-\sum_i \theta_i z_i + \frac{1}{2} \sum_i \theta_i^2) } of the resulting path is returned by
+ * {@link #weight()}. Prices multiplied by such weight are unbiased estimates of the original expectation, whilst paths are
+ * pushed towards the region where the payoff is concentrated, e.g. towards the barrier of a knock-in option.
+ *
  * @category mcarlo
  *
  * @author Richard Gomes
  */
-//TEST the generated paths are checked against cached results 
-// public class PathGenerator<RNG extends RandomNumberGenerator<Path>, GSG extends RandomSequenceGenerator<Path, RNG>> { // should be GaussianSequenceGenerator ?
-public class PathGenerator<RNG extends RandomNumberGenerator, GSG extends RandomSequenceGeneratorIntf> { // should be GaussianSequenceGenerator ?
-
-    private boolean brownianBridge_;
-    private GSG generator_;
-    private /*@NonNegative*/ int dimension_;
-    private TimeGrid timeGrid_;
-    private StochasticProcess1D process_;
-    // XXX private Sample<Path> next_;
-    private double[] temp_;
-    private BrownianBridge bb_;
-
-    
+//TEST the generated paths are checked against cached results
+public class PathGenerator<GSG extends UniformRandomSequenceGenerator> implements SingleVariatePathGenerator {
+
+    private static final String INCOMPATIBLE_DIMENSION = "sequence generator dimensionality (%d) != timeSteps (%d)";
+    private static final String INCOMPATIBLE_PATH = "path is not defined on the time grid of the generator";
+    private static final String INCOMPATIBLE_DRIFT = "drift shift dimensionality (%d) != timeSteps (%d)";
+
+    private final boolean brownianBridge_;
+    private final GSG generator_;
+    private final /*@NonNegative*/ int dimension_;
+    private final TimeGrid timeGrid_;
+    private final StochasticProcess1D process_;
+    private final double[] sequence_;
+    private final double[] temp_;
+    private final BrownianBridge bb_;
+    private final double[] drift_;
+    private double weight_;
+
+
     public PathGenerator(
                           final StochasticProcess1D process, // QuantLib/C++ :: StochasticProcess
                           final /*@Time*/ double  length,
                           final /*@NonNegative*/ int timeSteps,
                           final GSG generator,
                           final boolean brownianBridge) {
-        if (System.getProperty("EXPERIMENTAL")==null) {
-            throw new UnsupportedOperationException("Work in progress");
-        }
-        this.brownianBridge_ = brownianBridge;
-        this.generator_ = generator;
-        this.dimension_ = generator.dimension();
-        this.timeGrid_ = new TimeGrid(length, timeSteps);
-        this.process_ = process;
-        //XXX this.next_ = new Sample<Path>( new Path(this.timeGrid_), 1.0 );
-        this.temp_ = new double[this.dimension_];
-        this.bb_ = new BrownianBridge(this.timeGrid_);
-        
-        if (dimension_!= timeSteps){
-            throw new IllegalArgumentException(
-                    "sequence generator dimensionality (" + dimension_ + ") != timeSteps (" + timeSteps + ")");}
+        this(process, new TimeGrid(length, timeSteps), generator, brownianBridge);
     }
 
     public PathGenerator(
@@ -97,24 +99,47 @@ public class PathGenerator<RNG extends RandomNumberGenerator, GSG extends Random
                         final TimeGrid timeGrid,
                         final GSG generator,
                         final boolean brownianBridge) {
-        if (System.getProperty("EXPERIMENTAL")==null) {
-            throw new UnsupportedOperationException("Work in progress");
-        }
+        this(process, timeGrid, generator, brownianBridge, null);
+    }
+
+    /**
+     * @param drift is the shift applied to the Gaussian variates driving each time step, or <code>null</code> when
+     *        importance sampling is not required
+     */
+    public PathGenerator(
+                        final StochasticProcess1D process, // QuantLib/C++ :: StochasticProcess
+                        final TimeGrid timeGrid,
+                        final GSG generator,
+                        final boolean brownianBridge,
+                        final double[] drift) {
         this.brownianBridge_ = brownianBridge;
         this.generator_ = generator;
         this.dimension_ = generator.dimension();
         this.timeGrid_ = timeGrid;
         this.process_ = process;
-        //XXX this.next_ = new Sample<Path>(new Path(timeGrid), 1.0);
+        this.sequence_ = new double[this.dimension_];
         this.temp_ = new double[this.dimension_];
         this.bb_ = new BrownianBridge(this.timeGrid_);
 
-        if (dimension_ != timeGrid_.size()-1){
-            throw new IllegalArgumentException(
-                    "sequence generator dimensionality (" + dimension_ + ") != timeSteps (" + (timeGrid_.size()-1) + ")");}
+        QL.require(dimension_ == timeGrid_.size()-1,
+                String.format(INCOMPATIBLE_DIMENSION, dimension_, timeGrid_.size()-1)); // TODO: message
+        QL.require(drift == null || drift.length == dimension_,
+                String.format(INCOMPATIBLE_DRIFT, drift == null ? 0 : drift.length, dimension_)); // TODO: message
+        this.drift_ = (drift == null) ? null : drift.clone();
+        this.weight_ = 1.0;
     }
 
-    private final Sample<Path> next() /* @ReadOnly */ {
+
+    //
+    // public methods
+    //
+
+    @Override
+    public TimeGrid timeGrid() /* @ReadOnly */ {
+        return timeGrid_;
+    }
+
+    public final Sample<Path> next() /* @ReadOnly */ {
         return next(false);
     }
 
@@ -123,38 +148,64 @@ public class PathGenerator<RNG extends RandomNumberGenerator, GSG extends Random
     }
 
     public final Sample<Path> next(final boolean antithetic) /* @ReadOnly */ {
+        final Path path = new Path(timeGrid_);
+        next(path, antithetic);
+        return new Sample<Path>(path, weight_);
+    }
+
+    /**
+     * @return the likelihood ratio of the last path generated, which is 1 unless a drift shift is applied
+     */
+    @Override
+    public double weight() /* @ReadOnly */ {
+        return weight_;
+    }
 
-//      
-// TODO :: code review            
-//                 
-//        final Sample<List<Path>> sequence_ =
-//            antithetic ? generator_.lastSequence()
-//                       : generator_.nextSequence();
-//
-//        if (brownianBridge_) {
-//            bb_.transform(sequence_.getValue().getValues_(), this.temp_);
-//        } else {
-//            DoubleArrays.copy(sequence_.getValue().getValues_(), 0, this.dimension_);
-//        }
-//
-//        
-//        // XXX next_.weight = sequence_.weight;
-//        Sample<Path> next_ = new Sample<Path>(new Path(timeGrid_), sequence_.getWeight());
-//      
-//
-//        Path path = next_.getValue();
-//        path.setValues_( 0, process_.x0() );
-//
-//        for (int i=1; i<path.length(); i++) {
-//            /*@Time*/ double  t = timeGrid_.get(i-1);
-//            /*@Time*/ double  dt = timeGrid_.dt(i-1);
-//            double d = process_.evolve(t, path.getValues_(i-1), dt, antithetic ? -temp_[i-1] : temp_[i-1]);
-//            path.setValues_(i, d);
-//        }
-//
-//        return next_;
-        
-        return null;  
+    /**
+     * Overwrites the values of <code>path</code> with a new path, so that no allocation takes place
+     * <p>
+     * When <code>antithetic</code> is true, the variates employed by the previous call are reused with opposite sign
+     * instead of drawing a new sequence.
+     * <p>
+     * Sequences are drawn by means of {@link UniformRandomSequenceGenerator#fill(double[], int, int)}, which does not
+     * report weights: all paths are assumed to have unit weight, except for the likelihood ratio due to the drift shift.
+     *
+     * @param path is a path defined on {@link #timeGrid()}
+     * @param antithetic tells whether the antithetic of the previous path is required
+     */
+    @Override
+    public void next(final Path path, final boolean antithetic) /* @ReadOnly */ {
+        QL.require(path.length() == timeGrid_.size(), INCOMPATIBLE_PATH); // TODO: message
+
+        if (!antithetic) {
+            generator_.fill(sequence_, 0, dimension_);
+            if (brownianBridge_) {
+                bb_.transform(sequence_, temp_);
+            } else {
+                System.arraycopy(sequence_, 0, temp_, 0, dimension_);
+            }
+        }
+
+        final double[] values = path.getValues_();
+        values[0] = process_.x0();
+        if (drift_ == null) {
+            for (int i=1; i<values.length; i++) {
+                final /*@Time*/ double  t = timeGrid_.get(i-1);
+                final /*@Time*/ double  dt = timeGrid_.dt(i-1);
+                values[i] = process_.evolve(t, values[i-1], dt, antithetic ? -temp_[i-1] : temp_[i-1]);
+            }
+        } else {
+            double logWeight = 0.0;
+            for (int i=1; i<values.length; i++) {
+                final /*@Time*/ double  t = timeGrid_.get(i-1);
+                final /*@Time*/ double  dt = timeGrid_.dt(i-1);
+                final double theta = drift_[i-1];
+                final double z = (antithetic ? -temp_[i-1] : temp_[i-1]) + theta;
+                logWeight += theta * (0.5*theta - z);
+                values[i] = process_.evolve(t, values[i-1], dt, z);
+            }
+            weight_ = Math.exp(logWeight);
+        }
     }
 
 }
@@ -55,12 +55,6 @@ import org.jquantlib.math.Ops;
 //FIXME: study how to solve warning on usage of type Double
 public abstract class PathPricer<PathType> implements Ops.Op<PathType, Double> {
 
-	public PathPricer() {
-        if (System.getProperty("EXPERIMENTAL")==null) {
-            throw new UnsupportedOperationException("Work in progress");
-        }
-	}
-	
 	public abstract Double op(final PathType path);
 
 }
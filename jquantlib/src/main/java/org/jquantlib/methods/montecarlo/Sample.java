@@ -63,7 +63,6 @@ public final class Sample<T> {
     //
     
     public Sample(final T value, double weight) {
-        if (System.getProperty("EXPERIMENTAL")==null) throw new UnsupportedOperationException("Work in progress");
         this.value=value;
         this.weight=weight;
     }
@@ -0,0 +1,59 @@
+/*
+ Copyright (C) 2011 Richard Gomes
+
+ This source code is release under the BSD License.
+
+ This file is part of JQuantLib, a free-software/open-source library
+ for financial quantitative analysts and developers - http://jquantlib.org/
+
+ JQuantLib is free software: you can redistribute it and/or modify it
+ under the terms of the JQuantLib license.  You should have received a
+ copy of the license along with this program; if not, please email
+ <jquant-devel@lists.sourceforge.net>. The license is also available online at
+ <http://www.jquantlib.org/index.php/LICENSE.TXT>.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE.  See the license for more details.
+
+ JQuantLib is based on QuantLib. http://quantlib.org/
+ When applicable, the original copyright notice follows this notice.
+ */
+
+
+
+package org.jquantlib.methods.montecarlo;
+
+import org.jquantlib.time.TimeGrid;
+
+/**
+ * Source of single-variate paths, one at a time, as consumed by {@link MonteCarloModel}
+ *
+ * @see PathGenerator
+ * @see HestonPathGenerator
+ *
+ * @category mcarlo
+ */
+public interface SingleVariatePathGenerator {
+
+    /**
+     * @return the time grid of the paths
+     */
+    public TimeGrid timeGrid() /* @ReadOnly */;
+
+    /**
+     * Overwrites the values of <code>path</code> with a new path
+     * <p>
+     * When <code>antithetic</code> is true, the antithetic of the path returned by the previous call is required.
+     *
+     * @param path is a path defined on {@link #timeGrid()}
+     * @param antithetic tells whether the antithetic of the previous path is required
+     */
+    public void next(Path path, boolean antithetic) /* @ReadOnly */;
+
+    /**
+     * @return the likelihood ratio of the last path generated
+     */
+    public double weight() /* @ReadOnly */;
+
+}
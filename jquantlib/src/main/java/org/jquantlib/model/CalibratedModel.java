@@ -22,6 +22,7 @@ When applicable, the original copyright notice follows this notice.
 
 package org.jquantlib.model;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -37,6 +38,7 @@ import org.jquantlib.math.optimization.CostFunction;
 import org.jquantlib.math.optimization.EndCriteria;
 import org.jquantlib.math.optimization.OptimizationMethod;
 import org.jquantlib.math.optimization.Problem;
+import org.jquantlib.util.BinaryFormat;
 import org.jquantlib.util.DefaultObservable;
 import org.jquantlib.util.Observable;
 import org.jquantlib.util.Observer;
@@ -68,9 +70,11 @@ public abstract class CalibratedModel implements Observer, Observable {
     //
 
     public CalibratedModel(final int nArguments) {
-        if (System.getProperty("EXPERIMENTAL") == null)
-            throw new UnsupportedOperationException("Work in progress");
         this.arguments_ = new ArrayList<Parameter>(nArguments);
+        // derived classes replace these with their own parameters
+        for (int i=0; i<nArguments; i++) {
+            arguments_.add(new NullParameter());
+        }
         this.constraint_ = new PrivateConstraint(arguments_);
         this.shortRateEndCriteria_ = EndCriteria.Type.None;
     }
@@ -174,6 +178,32 @@ public abstract class CalibratedModel implements Observer, Observable {
         update();
     }
 
+    /**
+     * Serializes the calibrated parameters, so that they can be restored by {@link #deserializeParams(ByteBuffer)}
+     * without calibrating the model again.
+     *
+     * @return a buffer containing a {@link BinaryFormat.Content#ModelParameters} record
+     */
+    public ByteBuffer serializeParams() /* @ReadOnly */ {
+        return new BinaryFormat.Writer(BinaryFormat.Content.ModelParameters)
+            .putString(getClass().getName())
+            .putArray(params())
+            .toByteBuffer();
+    }
+
+    /**
+     * Restores parameters previously serialized by {@link #serializeParams()} from a model of the same class
+     *
+     * @param buffer is positioned at the beginning of the record and is left positioned right after it
+     */
+    public void deserializeParams(final ByteBuffer buffer) {
+        final BinaryFormat.Reader reader = new BinaryFormat.Reader(buffer, BinaryFormat.Content.ModelParameters);
+        QL.require(getClass().getName().equals(reader.getString()), "parameters belong to another model"); // TODO: message
+        final Array params = reader.getArray();
+        QL.require(params.size()==params().size(), "wrong number of parameters"); // TODO: message
+        setParams(params);
+    }
+
 
     //
     // protected methods
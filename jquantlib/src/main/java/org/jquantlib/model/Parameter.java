@@ -68,9 +68,6 @@ public class Parameter {
 
     public Parameter() {
         this.constraint = new NoConstraint();
-
-        if (System.getProperty("EXPERIMENTAL") == null)
-            throw new UnsupportedOperationException("Work in progress");
     }
 
 
@@ -82,9 +79,6 @@ public class Parameter {
         this.constraint = constraint;
         this.impl = impl;
         this.params = new Array(size);
-
-        if (System.getProperty("EXPERIMENTAL") == null)
-            throw new UnsupportedOperationException("Work in progress");
     }
 
 
@@ -40,15 +40,16 @@ public class BatesDoubleExpModel extends HestonModel {
     }
 
     public BatesDoubleExpModel(final HestonProcess process, final double lambda, final double nuUp, final double nuDown, final double p) {
-        super(process);
+        this(process, lambda, nuUp, nuDown, p, 9);
+    }
+
+    protected BatesDoubleExpModel(final HestonProcess process, final double lambda, final double nuUp, final double nuDown, final double p,
+            final int nArguments) {
+        super(process, nArguments);
         arguments_.set(5, new ConstantParameter(p, new BoundaryConstraint(0.0, 1.0)));
         arguments_.set(6, new ConstantParameter(nuDown, new PositiveConstraint()));
         arguments_.set(7, new ConstantParameter(nuUp, new PositiveConstraint()));
         arguments_.set(8, new ConstantParameter(lambda, new PositiveConstraint()));
-
-        if (System.getProperty("EXPERIMENTAL") == null) {
-            throw new UnsupportedOperationException("Work in progress");
-        }
     }
 
     public double p() {
@@ -70,7 +71,7 @@ public class BatesDoubleExpModel extends HestonModel {
     public static class BatesDoubleExpDetJumpModel extends BatesDoubleExpModel {
         public BatesDoubleExpDetJumpModel(final HestonProcess process, final double lambda, final double nuUp, final double nuDown, final double p,
                 final double kappaLambda, final double thetaLambda) {
-            super(process);
+            super(process, lambda, nuUp, nuDown, p, 11);
             arguments_.set(9, new ConstantParameter(kappaLambda, new PositiveConstraint()));
             arguments_.set(10, new ConstantParameter(thetaLambda, new PositiveConstraint()));
 
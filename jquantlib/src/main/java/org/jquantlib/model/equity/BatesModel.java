@@ -36,14 +36,14 @@ import org.jquantlib.processes.HestonProcess;
 public class BatesModel extends HestonModel {
 
     public BatesModel(final HestonProcess process, final double lambda, final double nu, final double delta) {
-        super(process);
+        this(process, lambda, nu, delta, 8);
+    }
+
+    protected BatesModel(final HestonProcess process, final double lambda, final double nu, final double delta, final int nArguments) {
+        super(process, nArguments);
         arguments_.set(5, new ConstantParameter(nu, new NoConstraint()));
         arguments_.set(6, new ConstantParameter(delta, new PositiveConstraint()));
         arguments_.set(7, new ConstantParameter(lambda, new PositiveConstraint()));
-
-        if (System.getProperty("EXPERIMENTAL") == null) {
-            throw new UnsupportedOperationException("Work in progress");
-        }
     }
 
     public BatesModel(final HestonProcess process) {
@@ -63,7 +63,7 @@ public class BatesModel extends HestonModel {
         return arguments_.get(7).get(0.0);
     }
 
-    private static class BatesDetJumpModel extends BatesModel {
+    public static class BatesDetJumpModel extends BatesModel {
 
         public BatesDetJumpModel(final HestonProcess process) {
             this(process, 0.1, 0.0, 0.1, 1.0, 0.1);
@@ -71,7 +71,7 @@ public class BatesModel extends HestonModel {
 
         public BatesDetJumpModel(final HestonProcess process, final double lambda, final double nu, final double delta, final double kappaLambda,
                 final double thetaLambda) {
-            super(process);
+            super(process, lambda, nu, delta, 10);
             arguments_.set(8, new ConstantParameter(kappaLambda, new PositiveConstraint()));
             arguments_.set(9, new ConstantParameter(thetaLambda, new PositiveConstraint()));
         }
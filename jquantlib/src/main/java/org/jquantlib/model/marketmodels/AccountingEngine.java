@@ -1,43 +1,179 @@
 package org.jquantlib.model.marketmodels;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
 
-/** 
+import org.jquantlib.QL;
+import org.jquantlib.math.statistics.SequenceStatistics;
+import org.jquantlib.util.ThreadPool;
+
+
+/**
  * Engine collecting cash flows along a market-model simulation
- * 
+ * <p>
+ * Cash flows generated by the product are converted into numeraire bonds as they occur, and the numeraire portfolio is rolled
+ * over whenever the numeraire changes between steps. The value of each product on a path is the number of numeraire bonds
+ * held at the end of the path, times the initial value of the numeraire.
+ * <p>
+ * Paths are simulated in batches of fixed size, each batch by its own evolver and its own copy of the product, and batches
+ * run concurrently in the {@link ThreadPool}. Evolvers are created in batch order by the calling thread and statistics are
+ * merged in batch order as well, so that results do not depend on the number of threads.
+ *
+ * @see MarketModelEvolverFactory
+ * @see MarketModelMultiProduct
+ *
  * @author Ueli Hofstetter
  */
-// TODO: code review :: license, class comments, comments for access modifiers, comments for @Override
-// TODO: code review :: please verify against QL/C++ code
 public class AccountingEngine {
-    
+
+    private static final String INVALID_NUMBER_OF_PATHS = "number of paths must be positive";
+
+    /**
+     * Number of paths simulated by each task
+     */
+    private static final int BATCH_SIZE = 1024;
+
+    private final MarketModelEvolverFactory evolverFactory_;
+    private final MarketModelMultiProduct product_;
+    private final /*@Real*/ double initialNumeraireValue_;
+    private final MarketModelDiscounter[] discounters_;
+
+
+    /**
+     * @param evolverFactory creates the evolvers driving each batch of paths
+     * @param product is the product, or collection of products, to be priced
+     * @param initialNumeraireValue is the value today of the numeraire bond of the first step
+     */
     public AccountingEngine(
-            final MarketModelEvolver evolver,
-            final Object /* const Clone<MarketModelMultiProduct>& product*/ Mark,
+            final MarketModelEvolverFactory evolverFactory,
+            final MarketModelMultiProduct product,
             final /*@Real*/ double initialNumeraireValue) {
-        
-        if (System.getProperty("EXPERIMENTAL") == null)
-            throw new UnsupportedOperationException("Work in progress");
+        this.evolverFactory_ = evolverFactory;
+        this.product_ = product;
+        this.initialNumeraireValue_ = initialNumeraireValue;
+
+        final /*@Time*/ double[] cashFlowTimes = product.possibleCashFlowTimes();
+        final /*@Time*/ double[] rateTimes = product.evolution().rateTimes();
+        this.discounters_ = new MarketModelDiscounter[cashFlowTimes.length];
+        for (int i = 0; i < cashFlowTimes.length; i++) {
+            discounters_[i] = new MarketModelDiscounter(cashFlowTimes[i], rateTimes);
+        }
+    }
+
+
+    //
+    // public methods
+    //
+
+    /**
+     * Simulates the given number of paths and adds the values of the products on each path to <code>stats</code>
+     */
+    public void multiplePathValues(final SequenceStatistics stats, final int numberOfPaths) {
+        QL.require(numberOfPaths > 0, INVALID_NUMBER_OF_PATHS); // TODO: message
+
+        final List<Callable<SequenceStatistics>> tasks = new ArrayList<Callable<SequenceStatistics>>();
+        for (int first = 0; first < numberOfPaths; first += BATCH_SIZE) {
+            final int paths = Math.min(BATCH_SIZE, numberOfPaths - first);
+            final Batch batch = new Batch(evolverFactory_.create(), product_.clone());
+            tasks.add(new Callable<SequenceStatistics>() {
+                @Override
+                public SequenceStatistics call() {
+                    return batch.run(paths);
+                }
+            });
+        }
+
+        for (final SequenceStatistics batch : ThreadPool.invokeAll(tasks)) {
+            stats.merge(batch);
+        }
     }
-    
-    
-    
-//        void multiplePathValues(SequenceStatistics& stats,
-//                                Size numberOfPaths);
-//      private:
-//        Real singlePathValues(std::vector<Real>& values);
-//
-//        boost::shared_ptr<MarketModelEvolver> evolver_;
-//        Clone<MarketModelMultiProduct> product_;
-//
-//        Real initialNumeraireValue_;
-//        Size numberProducts_;
-//
-//        // workspace
-//        std::vector<Real> numerairesHeld_;
-//        std::vector<Size> numberCashFlowsThisStep_;
-//        std::vector<std::vector<MarketModelMultiProduct::CashFlow> >
-//                                                         cashFlowsGenerated_;
-//        std::vector<MarketModelDiscounter> discounters_;
 
 
+    //
+    // private inner classes
+    //
+
+    /**
+     * Simulation state of a batch of paths
+     */
+    private class Batch {
+
+        private final MarketModelEvolver evolver;
+        private final MarketModelMultiProduct product;
+        private final int numberProducts;
+
+        // workspace
+        private final double[] numerairesHeld;
+        private final int[] numberCashFlowsThisStep;
+        private final MarketModelMultiProduct.CashFlow[][] cashFlowsGenerated;
+        private final double[] values;
+
+        private Batch(final MarketModelEvolver evolver, final MarketModelMultiProduct product) {
+            this.evolver = evolver;
+            this.product = product;
+            this.numberProducts = product.numberOfProducts();
+            this.numerairesHeld = new double[numberProducts];
+            this.numberCashFlowsThisStep = new int[numberProducts];
+            this.cashFlowsGenerated = new MarketModelMultiProduct.CashFlow[numberProducts][product.maxNumberOfCashFlowsPerProductPerStep()];
+            for (final MarketModelMultiProduct.CashFlow[] cashFlows : cashFlowsGenerated) {
+                for (int j = 0; j < cashFlows.length; j++) {
+                    cashFlows[j] = new MarketModelMultiProduct.CashFlow();
+                }
+            }
+            this.values = new double[numberProducts];
+        }
+
+        private SequenceStatistics run(final int paths) {
+            final SequenceStatistics stats = new SequenceStatistics(numberProducts);
+            for (int i = 0; i < paths; i++) {
+                singlePathValues();
+                stats.add(values);
+            }
+            return stats;
+        }
+
+        /**
+         * Simulates a path and stores the value of each product into {@link #values}, already multiplied by the weights of
+         * the Brownian increments
+         */
+        private void singlePathValues() {
+            for (int i = 0; i < numberProducts; i++) {
+                numerairesHeld[i] = 0.0;
+            }
+            double weight = evolver.startNewPath();
+            product.reset();
+            double principalInNumerairePortfolio = 1.0;
+
+            final int[] numeraires = evolver.numeraires();
+            boolean done = false;
+            do {
+                final int thisStep = evolver.currentStep();
+                weight *= evolver.advanceStep();
+                done = product.nextTimeStep(evolver.currentState(), numberCashFlowsThisStep, cashFlowsGenerated);
+
+                final int numeraire = numeraires[thisStep];
+                for (int i = 0; i < numberProducts; i++) {
+                    final MarketModelMultiProduct.CashFlow[] cashFlows = cashFlowsGenerated[i];
+                    for (int j = 0; j < numberCashFlowsThisStep[i]; j++) {
+                        // convert the cash flow into numeraire bonds and add them to the portfolio
+                        final double bonds = cashFlows[j].amount
+                            * discounters_[cashFlows[j].timeIndex].numeraireBonds(evolver.currentState(), numeraire);
+                        numerairesHeld[i] += weight * bonds / principalInNumerairePortfolio;
+                    }
+                }
+
+                if (!done) {
+                    // the numeraire might change between steps: roll the portfolio over by changing its principal
+                    final int nextNumeraire = numeraires[thisStep+1];
+                    principalInNumerairePortfolio *= evolver.currentState().discountRatio(numeraire, nextNumeraire);
+                }
+            } while (!done);
+
+            for (int i = 0; i < numberProducts; i++) {
+                values[i] = numerairesHeld[i] * initialNumeraireValue_;
+            }
+        }
+    }
+
 }
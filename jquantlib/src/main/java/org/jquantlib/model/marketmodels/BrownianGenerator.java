@@ -1,20 +1,19 @@
 package org.jquantlib.model.marketmodels;
 
 /**
- * 
- * @author Ueli Hofstetter
+ * Generator of the Brownian increments driving a market-model simulation
+ * <p>
+ * For each path, {@link #nextPath()} is called first, then {@link #nextStep(double[])} once for each evolution step. Both return
+ * the weight of the sample, which is 1 unless the generator applies some form of importance sampling.
  *
+ * @author Ueli Hofstetter
  */
-// TODO: code review :: license, class comments, comments for access modifiers, comments for @Override
-// TODO: code review :: please verify against QL/C++ code
 public abstract class BrownianGenerator {
-    
-    public BrownianGenerator(){
-        if (System.getProperty("EXPERIMENTAL") == null)
-            throw new UnsupportedOperationException("Work in progress");
-    }
-    
-    public abstract double nextStep();
+
+    /**
+     * Fills <code>output</code> with the independent standard Gaussian increments of the next step, one per factor
+     */
+    public abstract double nextStep(double[] output);
     public abstract double nextPath();
     public abstract int numberOfFactors();
     public abstract int numberOfSteps();
@@ -10,12 +10,26 @@ import org.jquantlib.QL;
  * workhorse discounting object associated to the rate times of the simulation. It's important to pass the rates via an object like
  * this to the product rather than directly to make it easier to switch to other engines such as a coterminal swap rate engine. Many
  * products will not need expired rates and others will only require the first rate.
+ * <p>
+ * Discount ratios are computed when the forward rates are set, in a single backward pass. Coterminal swap rates and annuities
+ * are only computed when first requested after the rates have changed, again in a single backward pass; constant-maturity
+ * swap rates and annuities are computed in a single forward pass with a sliding window, and cached for the last number of
+ * spanning forwards requested. Products requiring many swap rates per step therefore pay a linear cost per step, instead of a
+ * quadratic one.
  *
  * @author Ueli Hofstetter
  */
-// TODO: code review :: license, class comments, comments for access modifiers, comments for @Override
 public class CurveState {
 
+    private static final String EMPTY_RANGE = "empty range specified";
+    private static final String TAUS_END_MISMATCH = "taus/end mismatch";
+    private static final String TOO_FEW_RATE_TIMES = "rate times must contain at least two values";
+    private static final String NON_INCREASING_RATE_TIMES = "rate times must be strictly increasing";
+    private static final String RATES_MISMATCH = "rates mismatch: %d required, %d provided";
+    private static final String INVALID_FIRST_INDEX = "first valid index (%d) out of range";
+    private static final String INDEX_NOT_VALID = "index %d is before the first valid rate (%d)";
+    private static final String INVALID_SPANNING_FORWARDS = "number of spanning forwards must be positive";
+
     protected int numberOfRates_;
     protected /*@Time*/double [] rateTimes_, rateTaus_;
 
@@ -28,109 +42,215 @@ public class CurveState {
     //            d0/d0 d1/d0 d2/d0 d3/d0 d4/d0 d5/d0  discountRatios
     //            sr0   sr1   sr2   sr3   sr4          cotSwaps
 
-    public CurveState(final  /*@Time*/ double []  rateTimes){
+    private int first_;
+    private final /*@Rate*/ double[] forwardRates_;
+    private final /*@DiscountFactor*/ double[] discRatios_;
+
+    // coterminal swap rates and annuities, computed on demand
+    private boolean cotValid_;
+    private final /*@Rate*/ double[] cotSwapRates_;
+    private final double[] cotAnnuities_;
 
-        if (System.getProperty("EXPERIMENTAL") == null)
-            throw new UnsupportedOperationException("Work in progress");
+    // constant-maturity swap rates and annuities, computed on demand for cmSpanning_ forwards
+    private int cmSpanning_;
+    private final /*@Rate*/ double[] cmSwapRates_;
+    private final double[] cmAnnuities_;
+
+
+    public CurveState(final  /*@Time*/ double []  rateTimes){
+        QL.require(rateTimes != null && rateTimes.length > 1, TOO_FEW_RATE_TIMES); // TODO: message
 
-        numberOfRates_ = rateTimes==null || rateTimes.length == 0 ? 0 : rateTimes.length-1;
-        rateTimes_ = (rateTimes); // TODO: clone() ?
+        numberOfRates_ = rateTimes.length-1;
+        rateTimes_ = rateTimes.clone();
         rateTaus_ = new double[numberOfRates_];
-        //checkIncreasingTimesAndCalculateTaus(rateTimes_, rateTaus_);
-    }
-
-    public /*@Rate*/ double swapRate(final int begin, final int end)  {
-        QL.require(end > begin , "empty range specified"); // TODO: message
-        QL.require(end <= numberOfRates_ , "taus/end mismatch"); // TODO: message
-
-        final double sum = 0.0;
-
-        return 0;
-//        for (int i=begin; i<end; ++i)
-//            sum += rateTaus_[i]*discountRatio(i+1, numberOfRates_);
-//
-//        return (discountRatio(begin, numberOfRates_)-discountRatio(end, numberOfRates_))/sum;
-    }
-
-//    void forwardsFromDiscountRatios(const Size firstValidIndex,
-//                                    const std::vector<DiscountFactor>& ds,
-//                                    const std::vector<Time>& taus,
-//                                    std::vector<Rate>& fwds) {
-//        QL_REQUIRE(taus.size()==fwds.size(),
-//                   "taus.size()!=fwds.size()");
-//        QL_REQUIRE(ds.size()==fwds.size()+1,
-//                   "ds.size()!=fwds.size()+1");
-//
-//        for (Size i=firstValidIndex; i<fwds.size(); ++i)
-//            fwds[i] = (ds[i]-ds[i+1])/(ds[i+1]*taus[i]);
-//    }
-//
-//    void coterminalFromDiscountRatios(
-//                    const Size firstValidIndex,
-//                    const std::vector<DiscountFactor>& discountFactors,
-//                    const std::vector<Time>& taus,
-//                    std::vector<Rate>& cotSwapRates,
-//                    std::vector<Real>& cotSwapAnnuities)
-//    {
-//        Size nCotSwapRates = cotSwapRates.size();
-//        QL_REQUIRE(taus.size()==nCotSwapRates,
-//                   "taus.size()!=cotSwapRates.size()");
-//        QL_REQUIRE(cotSwapAnnuities.size()==nCotSwapRates,
-//                   "cotSwapAnnuities.size()!=cotSwapRates.size()");
-//        QL_REQUIRE(discountFactors.size()==nCotSwapRates+1,
-//                   "discountFactors.size()!=cotSwapRates.size()+1");
-//
-//        cotSwapAnnuities[nCotSwapRates-1] =
-//            taus[nCotSwapRates-1]*discountFactors[nCotSwapRates];
-//        cotSwapRates[nCotSwapRates-1] =
-//            (discountFactors[nCotSwapRates-1]-discountFactors[nCotSwapRates])
-//                /cotSwapAnnuities[nCotSwapRates-1];
-//
-//        for (Size i=nCotSwapRates-1; i>firstValidIndex; --i) {
-//            cotSwapAnnuities[i-1] = cotSwapAnnuities[i] + taus[i-1] * discountFactors[i];
-//            cotSwapRates[i-1] =
-//                (discountFactors[i-1]-discountFactors[nCotSwapRates])
-//                /cotSwapAnnuities[i-1];
-//        }
-//    }
-//
-//
-//    void constantMaturityFromDiscountRatios(// Size i, // to be added later
-//                                            const Size spanningForwards,
-//                                            const Size firstValidIndex,
-//                                            const std::vector<DiscountFactor>& ds,
-//                                            const std::vector<Time>& taus,
-//                                            std::vector<Rate>& constMatSwapRates,
-//                                            std::vector<Real>& constMatSwapAnnuities) {
-//        Size nConstMatSwapRates = constMatSwapRates.size();
-//        QL_REQUIRE(taus.size()==nConstMatSwapRates,
-//                   "taus.size()!=nConstMatSwapRates");
-//        QL_REQUIRE(constMatSwapAnnuities.size()==nConstMatSwapRates,
-//                   "constMatSwapAnnuities.size()!=nConstMatSwapRates");
-//        QL_REQUIRE(ds.size()==nConstMatSwapRates+1,
-//                   "ds.size()!=nConstMatSwapRates+1");
-//        // compute the first cmsrate and cmsannuity
-//        constMatSwapAnnuities[firstValidIndex]=0.;
-//        Size lastIndex = std::min(firstValidIndex+spanningForwards,nConstMatSwapRates);
-//        for (Size i=firstValidIndex; i<lastIndex; ++i) {
-//            constMatSwapAnnuities[firstValidIndex]+= taus[i] * ds[i+1];
-//        }
-//        constMatSwapRates[firstValidIndex] =
-//            (ds[firstValidIndex]-ds[lastIndex])/
-//                constMatSwapAnnuities[firstValidIndex];
-//        Size oldLastIndex = lastIndex;
-//
-//        // compute all the other cmas rates and cms annuities
-//        for (Size i=firstValidIndex+1; i<nConstMatSwapRates; ++i) {
-//            Size lastIndex = std::min(i+spanningForwards,nConstMatSwapRates);
-//            constMatSwapAnnuities[i] = constMatSwapAnnuities[i-1]
-//                                       - taus[i-1] * ds[i];
-//            if (lastIndex!=oldLastIndex)
-//               constMatSwapAnnuities[i] += taus[lastIndex-1] * ds[lastIndex];
-//            constMatSwapRates[i] = (ds[i]-ds[lastIndex])
-//                /constMatSwapAnnuities[i];
-//            oldLastIndex = lastIndex;
-//        }
-//    }
+        for (int i=0; i<numberOfRates_; i++) {
+            QL.require(rateTimes[i+1] > rateTimes[i], NON_INCREASING_RATE_TIMES); // TODO: message
+            rateTaus_[i] = rateTimes[i+1] - rateTimes[i];
+        }
+
+        first_ = numberOfRates_;
+        forwardRates_ = new double[numberOfRates_];
+        discRatios_ = new double[numberOfRates_+1];
+        cotSwapRates_ = new double[numberOfRates_];
+        cotAnnuities_ = new double[numberOfRates_];
+        cmSwapRates_ = new double[numberOfRates_];
+        cmAnnuities_ = new double[numberOfRates_];
+        cotValid_ = false;
+        cmSpanning_ = 0;
+    }
+
+
+    //
+    // public methods
+    //
+
+    public int numberOfRates() /* @ReadOnly */ {
+        return numberOfRates_;
+    }
+
+    public /*@Time*/ double[] rateTimes() /* @ReadOnly */ {
+        return rateTimes_;
+    }
+
+    public /*@Time*/ double[] rateTaus() /* @ReadOnly */ {
+        return rateTaus_;
+    }
+
+    /**
+     * @return the index of the first rate which is still alive
+     */
+    public int firstValidIndex() /* @ReadOnly */ {
+        return first_;
+    }
+
+    /**
+     * Sets the forward rates from <code>firstValidIndex</code> onwards and updates the discount ratios
+     *
+     * @param rates holds a value for each rate; values before <code>firstValidIndex</code> are ignored
+     */
+    public void setOnForwardRates(final /*@Rate*/ double[] rates, final int firstValidIndex) {
+        QL.require(rates.length == numberOfRates_, String.format(RATES_MISMATCH, numberOfRates_, rates.length)); // TODO: message
+        QL.require(firstValidIndex >= 0 && firstValidIndex < numberOfRates_,
+                String.format(INVALID_FIRST_INDEX, firstValidIndex)); // TODO: message
+
+        first_ = firstValidIndex;
+        System.arraycopy(rates, first_, forwardRates_, first_, numberOfRates_-first_);
+
+        // discount ratios are relative to the last bond
+        discRatios_[numberOfRates_] = 1.0;
+        for (int i=numberOfRates_-1; i>=first_; i--) {
+            discRatios_[i] = discRatios_[i+1] * (1.0 + rateTaus_[i]*forwardRates_[i]);
+        }
+
+        cotValid_ = false;
+        cmSpanning_ = 0;
+    }
+
+    public /*@Rate*/ double forwardRate(final int i) /* @ReadOnly */ {
+        checkIndex(i);
+        return forwardRates_[i];
+    }
+
+    /**
+     * @return the forward rates; values before {@link #firstValidIndex()} are meaningless
+     */
+    public /*@Rate*/ double[] forwardRates() /* @ReadOnly */ {
+        return forwardRates_;
+    }
+
+    /**
+     * @return the ratio between the discount bonds paying at the i-th and at the j-th rate time
+     */
+    public /*@DiscountFactor*/ double discountRatio(final int i, final int j) /* @ReadOnly */ {
+        checkIndex(Math.min(i, j));
+        return discRatios_[i] / discRatios_[j];
+    }
+
+    public /*@Rate*/ double coterminalSwapRate(final int i) {
+        checkIndex(i);
+        computeCoterminalSwapRates();
+        return cotSwapRates_[i];
+    }
+
+    /**
+     * @return the annuity of the i-th coterminal swap, in units of the discount bond paying at the numeraire rate time
+     */
+    public double coterminalSwapAnnuity(final int numeraire, final int i) {
+        checkIndex(i);
+        computeCoterminalSwapRates();
+        return cotAnnuities_[i] / discRatios_[numeraire];
+    }
+
+    /**
+     * @return the coterminal swap rates; values before {@link #firstValidIndex()} are meaningless
+     */
+    public /*@Rate*/ double[] coterminalSwapRates() {
+        computeCoterminalSwapRates();
+        return cotSwapRates_;
+    }
+
+    /**
+     * @return the rate of the swap starting at the i-th rate time and spanning the given number of forwards, or fewer when
+     *         the last rate time is reached
+     */
+    public /*@Rate*/ double cmSwapRate(final int i, final int spanningForwards) {
+        checkIndex(i);
+        computeCmSwapRates(spanningForwards);
+        return cmSwapRates_[i];
+    }
+
+    /**
+     * @return the annuity of the swap returned by {@link #cmSwapRate(int, int)}, in units of the discount bond paying at the
+     *         numeraire rate time
+     */
+    public double cmSwapAnnuity(final int numeraire, final int i, final int spanningForwards) {
+        checkIndex(i);
+        computeCmSwapRates(spanningForwards);
+        return cmAnnuities_[i] / discRatios_[numeraire];
+    }
+
+    /**
+     * @return the rate of the swap whose floating leg resets at rate times <code>begin</code> to <code>end-1</code>
+     */
+    public /*@Rate*/ double swapRate(final int begin, final int end) /* @ReadOnly */ {
+        QL.require(end > begin , EMPTY_RANGE); // TODO: message
+        QL.require(end <= numberOfRates_ , TAUS_END_MISMATCH); // TODO: message
+        checkIndex(begin);
+
+        double sum = 0.0;
+        for (int i=begin; i<end; ++i) {
+            sum += rateTaus_[i]*discRatios_[i+1];
+        }
+        return (discRatios_[begin]-discRatios_[end])/sum;
+    }
+
+
+    //
+    // private methods
+    //
+
+    private void checkIndex(final int i) /* @ReadOnly */ {
+        QL.require(i >= first_, String.format(INDEX_NOT_VALID, i, first_)); // TODO: message
+    }
+
+    private void computeCoterminalSwapRates() {
+        if (cotValid_)
+            return;
+        final int n = numberOfRates_;
+        double annuity = 0.0;
+        for (int i=n-1; i>=first_; i--) {
+            annuity += rateTaus_[i]*discRatios_[i+1];
+            cotAnnuities_[i] = annuity;
+            cotSwapRates_[i] = (discRatios_[i]-discRatios_[n])/annuity;
+        }
+        cotValid_ = true;
+    }
+
+    private void computeCmSwapRates(final int spanningForwards) {
+        QL.require(spanningForwards > 0, INVALID_SPANNING_FORWARDS); // TODO: message
+        if (cmSpanning_ == spanningForwards)
+            return;
+        final int n = numberOfRates_;
+
+        // first annuity in full, then slide the window by one rate time at a time
+        int last = Math.min(first_+spanningForwards, n);
+        double annuity = 0.0;
+        for (int i=first_; i<last; i++) {
+            annuity += rateTaus_[i]*discRatios_[i+1];
+        }
+        cmAnnuities_[first_] = annuity;
+        cmSwapRates_[first_] = (discRatios_[first_]-discRatios_[last])/annuity;
+        for (int i=first_+1; i<n; i++) {
+            annuity -= rateTaus_[i-1]*discRatios_[i];
+            final int newLast = Math.min(i+spanningForwards, n);
+            if (newLast != last) {
+                annuity += rateTaus_[newLast-1]*discRatios_[newLast];
+                last = newLast;
+            }
+            cmAnnuities_[i] = annuity;
+            cmSwapRates_[i] = (discRatios_[i]-discRatios_[last])/annuity;
+        }
+        cmSpanning_ = spanningForwards;
+    }
 
 }
@@ -0,0 +1,143 @@
+package org.jquantlib.model.marketmodels;
+
+import org.jquantlib.QL;
+
+/**
+ * Market-model evolution description
+ * <p>
+ * This class stores the rate times, i.e. the reset and payment times of the forward rates, and the evolution times, i.e. the
+ * times at which the rates are evolved by the simulation. For each evolution step, it also stores the index of the first rate
+ * which is still alive at the beginning of the step.
+ *
+ * @see MarketModel
+ */
+public class EvolutionDescription {
+
+    private static final String TOO_FEW_RATE_TIMES = "rate times must contain at least two values";
+    private static final String NON_INCREASING_RATE_TIMES = "rate times must be non-negative and strictly increasing";
+    private static final String NON_INCREASING_EVOLUTION_TIMES = "evolution times must be positive and strictly increasing";
+    private static final String EVOLUTION_AFTER_LAST_RESET = "the last evolution time is past the last fixing time";
+
+    private final /*@Time*/ double[] rateTimes_;
+    private final /*@Time*/ double[] rateTaus_;
+    private final /*@Time*/ double[] evolutionTimes_;
+    private final int[] firstAliveRate_;
+
+
+    /**
+     * Evolves the forward rates up to each reset time
+     */
+    public EvolutionDescription(final /*@Time*/ double[] rateTimes) {
+        this(rateTimes, resetTimes(rateTimes));
+    }
+
+    public EvolutionDescription(final /*@Time*/ double[] rateTimes, final /*@Time*/ double[] evolutionTimes) {
+        QL.require(rateTimes.length > 1, TOO_FEW_RATE_TIMES); // TODO: message
+        QL.require(rateTimes[0] >= 0.0, NON_INCREASING_RATE_TIMES); // TODO: message
+        for (int i = 1; i < rateTimes.length; i++) {
+            QL.require(rateTimes[i] > rateTimes[i-1], NON_INCREASING_RATE_TIMES); // TODO: message
+        }
+        QL.require(evolutionTimes.length > 0 && evolutionTimes[0] > 0.0, NON_INCREASING_EVOLUTION_TIMES); // TODO: message
+        for (int i = 1; i < evolutionTimes.length; i++) {
+            QL.require(evolutionTimes[i] > evolutionTimes[i-1], NON_INCREASING_EVOLUTION_TIMES); // TODO: message
+        }
+        final int numberOfRates = rateTimes.length-1;
+        QL.require(evolutionTimes[evolutionTimes.length-1] <= rateTimes[numberOfRates-1], EVOLUTION_AFTER_LAST_RESET); // TODO: message
+
+        this.rateTimes_ = rateTimes.clone();
+        this.evolutionTimes_ = evolutionTimes.clone();
+        this.rateTaus_ = new double[numberOfRates];
+        for (int i = 0; i < numberOfRates; i++) {
+            rateTaus_[i] = rateTimes[i+1] - rateTimes[i];
+        }
+
+        this.firstAliveRate_ = new int[evolutionTimes.length];
+        /*@Time*/ double currentEvolutionTime = 0.0;
+        int firstAliveRate = 0;
+        for (int j = 0; j < evolutionTimes.length; j++) {
+            while (rateTimes[firstAliveRate] <= currentEvolutionTime) {
+                firstAliveRate++;
+            }
+            firstAliveRate_[j] = firstAliveRate;
+            currentEvolutionTime = evolutionTimes[j];
+        }
+    }
+
+
+    //
+    // public methods
+    //
+
+    public /*@Time*/ double[] rateTimes() /* @ReadOnly */ {
+        return rateTimes_;
+    }
+
+    public /*@Time*/ double[] rateTaus() /* @ReadOnly */ {
+        return rateTaus_;
+    }
+
+    public /*@Time*/ double[] evolutionTimes() /* @ReadOnly */ {
+        return evolutionTimes_;
+    }
+
+    /**
+     * @return for each evolution step, the index of the first rate whose reset time is after the beginning of the step
+     */
+    public int[] firstAliveRate() /* @ReadOnly */ {
+        return firstAliveRate_;
+    }
+
+    public int numberOfRates() /* @ReadOnly */ {
+        return rateTimes_.length-1;
+    }
+
+    public int numberOfSteps() /* @ReadOnly */ {
+        return evolutionTimes_.length;
+    }
+
+
+    //
+    // public static methods
+    //
+
+    /**
+     * @return the numeraires of the terminal measure, i.e. the discount bond paying at the last rate time for every step
+     */
+    public static int[] terminalMeasure(final EvolutionDescription evolution) {
+        final int[] numeraires = new int[evolution.numberOfSteps()];
+        for (int i = 0; i < numeraires.length; i++) {
+            numeraires[i] = evolution.numberOfRates();
+        }
+        return numeraires;
+    }
+
+    /**
+     * @return the numeraires of the discretely compounded money-market measure, i.e. the discount bond paying at the first
+     *         rate time not earlier than the end of each step
+     */
+    public static int[] moneyMarketMeasure(final EvolutionDescription evolution) {
+        final /*@Time*/ double[] rateTimes = evolution.rateTimes();
+        final /*@Time*/ double[] evolutionTimes = evolution.evolutionTimes();
+        final int[] numeraires = new int[evolutionTimes.length];
+        int j = 0;
+        for (int i = 0; i < evolutionTimes.length; i++) {
+            while (rateTimes[j] < evolutionTimes[i]) {
+                j++;
+            }
+            numeraires[i] = j;
+        }
+        return numeraires;
+    }
+
+
+    //
+    // private static methods
+    //
+
+    private static /*@Time*/ double[] resetTimes(final /*@Time*/ double[] rateTimes) {
+        final double[] evolutionTimes = new double[Math.max(rateTimes.length-1, 0)];
+        System.arraycopy(rateTimes, 0, evolutionTimes, 0, evolutionTimes.length);
+        return evolutionTimes;
+    }
+
+}
@@ -0,0 +1,42 @@
+package org.jquantlib.model.marketmodels;
+
+import org.jquantlib.math.matrixutilities.Matrix;
+
+/**
+ * Base class for market models
+ * <p>
+ * For each evolution step, a market model provides the pseudo square root {@latex$ A } of the covariance of the logarithms of
+ * the displaced forward rates over the step, i.e. {@latex$ A A^T = C }, with one row for each rate and one column for each
+ * factor. Rates which have already reset have null rows.
+ *
+ * @see EvolutionDescription
+ * @see MarketModelEvolver
+ */
+public abstract class MarketModel {
+
+    public abstract /*@Rate*/ double[] initialRates();
+
+    public abstract /*@Spread*/ double[] displacements();
+
+    public abstract EvolutionDescription evolution();
+
+    public abstract int numberOfRates();
+
+    public abstract int numberOfFactors();
+
+    public abstract int numberOfSteps();
+
+    /**
+     * @return the pseudo square root of the covariance over a given evolution step
+     */
+    public abstract Matrix pseudoRoot(int step);
+
+    /**
+     * @return the covariance of the logarithms of the displaced rates over a given evolution step
+     */
+    public Matrix covariance(final int step) {
+        final Matrix pseudo = pseudoRoot(step);
+        return pseudo.mul(pseudo.transpose());
+    }
+
+}
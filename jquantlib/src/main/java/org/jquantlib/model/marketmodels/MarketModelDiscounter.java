@@ -0,0 +1,39 @@
+package org.jquantlib.model.marketmodels;
+
+/**
+ * Converts a cash flow paid at a given time into units of a numeraire bond
+ * <p>
+ * When the payment time does not coincide with a rate time, the discount factor is interpolated log-linearly between the
+ * bonds paying at the two closest rate times.
+ */
+public class MarketModelDiscounter {
+
+    private final int before_;
+    private final double beforeWeight_;
+
+
+    public MarketModelDiscounter(final /*@Time*/ double paymentTime, final /*@Time*/ double[] rateTimes) {
+        int before = 0;
+        while (before < rateTimes.length && rateTimes[before] < paymentTime) {
+            before++;
+        }
+        // handle the case of payment in the last period or after
+        before_ = Math.min(before, rateTimes.length-2);
+        beforeWeight_ = 1.0 - (paymentTime-rateTimes[before_]) / (rateTimes[before_+1]-rateTimes[before_]);
+    }
+
+
+    /**
+     * @return the number of numeraire bonds which are worth a unit paid at the payment time
+     */
+    public double numeraireBonds(final CurveState curveState, final int numeraire) /* @ReadOnly */ {
+        final double preDF = curveState.discountRatio(before_, numeraire);
+        if (beforeWeight_ == 1.0)
+            return preDF;
+        final double postDF = curveState.discountRatio(before_+1, numeraire);
+        if (beforeWeight_ == 0.0)
+            return postDF;
+        return Math.pow(preDF, beforeWeight_) * Math.pow(postDF, 1.0-beforeWeight_);
+    }
+
+}
@@ -4,18 +4,37 @@ package org.jquantlib.model.marketmodels;
  * Market-model evolver
  * <p>
  * Abstract base class. The evolver does the actual gritty work of evolving the forward rates from one time to the next.
+ * Evolvers hold the state of the current path, so that each thread requires its own instance.
+ *
+ * @see MarketModelEvolverFactory
  *
  * @author Ueli Hofstetter
  */
-// TODO: code review :: license, class comments, comments for access modifiers, comments for @Override
-// TODO: code review :: please verify against QL/C++ code
 public abstract class MarketModelEvolver {
 
-    abstract int [] numeraires();
-    abstract double startNewPath();
-    abstract double advanceStep();
-    abstract int currentStep();
-    abstract CurveState currentState();
-    abstract void setInitialState(CurveState curveState);
+    /**
+     * @return for each evolution step, the index of the rate time at which the numeraire bond pays
+     */
+    public abstract int[] numeraires();
+
+    /**
+     * Resets the evolver to the initial state of the model
+     *
+     * @return the weight of the new path
+     */
+    public abstract double startNewPath();
+
+    /**
+     * Evolves the rates to the end of the current step
+     *
+     * @return the weight of the step
+     */
+    public abstract double advanceStep();
+
+    public abstract int currentStep();
+
+    public abstract CurveState currentState();
+
+    public abstract void setInitialState(CurveState curveState);
 
 }
@@ -0,0 +1,15 @@
+package org.jquantlib.model.marketmodels;
+
+/**
+ * Factory of {@link MarketModelEvolver}s
+ * <p>
+ * Evolvers created by successive calls must be driven by independent Brownian generators, so that they can simulate
+ * concurrent batches of paths.
+ *
+ * @see AccountingEngine
+ */
+public abstract class MarketModelEvolverFactory {
+
+    public abstract MarketModelEvolver create();
+
+}
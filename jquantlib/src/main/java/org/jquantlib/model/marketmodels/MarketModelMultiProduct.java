@@ -0,0 +1,66 @@
+package org.jquantlib.model.marketmodels;
+
+/**
+ * Market-model product
+ * <p>
+ * This is the abstract base class that encapsulates the notion of a product: it contains the information that would be in
+ * the termsheet of the product. It is useful to be able to price several products at once, so that each instance may
+ * represent a collection of products sharing the same evolution times.
+ * <p>
+ * At each evolution step, the product is given the state of the curve and generates its cash flows, each of them paid at one
+ * of {@link #possibleCashFlowTimes()}. Products hold the state of the current path, so that {@link #clone()} is used to obtain
+ * an instance for each thread.
+ *
+ * @see AccountingEngine
+ */
+public abstract class MarketModelMultiProduct implements Cloneable {
+
+    /**
+     * Cash flow generated by a product at a given evolution step
+     */
+    public static class CashFlow {
+        /**
+         * index of the payment time in {@link MarketModelMultiProduct#possibleCashFlowTimes()}
+         */
+        public int timeIndex;
+        public /*@Real*/ double amount;
+    }
+
+    /**
+     * @return the numeraires which are most convenient for the product, for each evolution step
+     */
+    public abstract int[] suggestedNumeraires();
+
+    public abstract EvolutionDescription evolution();
+
+    public abstract /*@Time*/ double[] possibleCashFlowTimes();
+
+    public abstract int numberOfProducts();
+
+    public abstract int maxNumberOfCashFlowsPerProductPerStep();
+
+    /**
+     * Prepares the product for the simulation of a new path
+     */
+    public abstract void reset();
+
+    /**
+     * Generates the cash flows of the current step
+     *
+     * @param currentState is the state of the curve at the end of the current step
+     * @param numberCashFlowsThisStep receives, for each product, the number of cash flows generated
+     * @param cashFlowsGenerated receives, for each product, the cash flows generated
+     * @return true when the product has no further cash flows on the current path
+     */
+    public abstract boolean nextTimeStep(
+            CurveState currentState,
+            int[] numberCashFlowsThisStep,
+            CashFlow[][] cashFlowsGenerated);
+
+    /**
+     * @return a copy of the product, whose path state is independent of this instance
+     */
+    @Override
+    public abstract MarketModelMultiProduct clone();
+
+}
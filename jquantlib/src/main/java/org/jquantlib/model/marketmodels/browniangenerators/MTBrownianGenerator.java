@@ -0,0 +1,70 @@
+package org.jquantlib.model.marketmodels.browniangenerators;
+
+import org.jquantlib.QL;
+import org.jquantlib.math.randomnumbers.InverseCumulativeRsg;
+import org.jquantlib.math.randomnumbers.MersenneTwisterUniformRng;
+import org.jquantlib.math.randomnumbers.PseudoRandom;
+import org.jquantlib.model.marketmodels.BrownianGenerator;
+
+/**
+ * Mersenne-twister Brownian generator for market-model simulations
+ * <p>
+ * The increments of a whole path are drawn at once by {@link #nextPath()}, and handed out one step at a time.
+ */
+public class MTBrownianGenerator extends BrownianGenerator {
+
+    private static final String TOO_MANY_STEPS = "too many steps taken";
+
+    private final int factors_;
+    private final int steps_;
+    private final InverseCumulativeRsg<?, ?> generator_;
+    private final double[] sequence_;
+    private int lastStep_;
+
+
+    public MTBrownianGenerator(final int factors, final int steps, final /*@NonNegative*/ long seed) {
+        this(factors, steps, new MersenneTwisterUniformRng(seed));
+    }
+
+    /**
+     * @param rng is the source of uniform deviates, which is not copied
+     */
+    public MTBrownianGenerator(final int factors, final int steps, final MersenneTwisterUniformRng rng) {
+        this.factors_ = factors;
+        this.steps_ = steps;
+        this.generator_ = new PseudoRandom().makeSequenceGenerator(factors * steps, rng);
+        this.sequence_ = new double[factors * steps];
+        this.lastStep_ = 0;
+    }
+
+
+    //
+    // extends BrownianGenerator
+    //
+
+    @Override
+    public double nextPath() {
+        generator_.fill(sequence_, 0, sequence_.length);
+        lastStep_ = 0;
+        return 1.0;
+    }
+
+    @Override
+    public double nextStep(final double[] output) {
+        QL.require(lastStep_ < steps_, TOO_MANY_STEPS); // TODO: message
+        System.arraycopy(sequence_, lastStep_ * factors_, output, 0, factors_);
+        lastStep_++;
+        return 1.0;
+    }
+
+    @Override
+    public int numberOfFactors() {
+        return factors_;
+    }
+
+    @Override
+    public int numberOfSteps() {
+        return steps_;
+    }
+
+}
@@ -0,0 +1,35 @@
+package org.jquantlib.model.marketmodels.browniangenerators;
+
+import org.jquantlib.math.randomnumbers.MersenneTwisterUniformRng;
+import org.jquantlib.model.marketmodels.BrownianGenerator;
+import org.jquantlib.model.marketmodels.BrownianGeneratorFactory;
+
+/**
+ * Factory of {@link MTBrownianGenerator}s
+ * <p>
+ * All generators draw from a single Mersenne Twister initialized with the given seed: the k-th generator created takes its
+ * k-th {@link MersenneTwisterUniformRng#substreams(int) substream}, so that the streams of different generators cannot
+ * overlap and a simulation which creates them in a fixed order is reproducible.
+ */
+public class MTBrownianGeneratorFactory extends BrownianGeneratorFactory {
+
+    private MersenneTwisterUniformRng stream_;
+
+
+    public MTBrownianGeneratorFactory(final /*@NonNegative*/ long seed) {
+        this.stream_ = new MersenneTwisterUniformRng(seed);
+    }
+
+
+    //
+    // extends BrownianGeneratorFactory
+    //
+
+    @Override
+    public synchronized BrownianGenerator create(final int factors, final int steps) {
+        final MersenneTwisterUniformRng rng = stream_;
+        stream_ = stream_.substreams(2)[1];
+        return new MTBrownianGenerator(factors, steps, rng);
+    }
+
+}
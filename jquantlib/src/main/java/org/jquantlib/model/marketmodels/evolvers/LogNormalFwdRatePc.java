@@ -0,0 +1,269 @@
+package org.jquantlib.model.marketmodels.evolvers;
+
+import org.jquantlib.QL;
+import org.jquantlib.math.matrixutilities.Matrix;
+import org.jquantlib.model.marketmodels.BrownianGenerator;
+import org.jquantlib.model.marketmodels.CurveState;
+import org.jquantlib.model.marketmodels.MarketModel;
+import org.jquantlib.model.marketmodels.MarketModelEvolver;
+
+/**
+ * Predictor-corrector log-normal forward-rate evolver
+ * <p>
+ * Over each evolution step, the logarithms of the displaced forward rates are evolved as
+ * {@latex$ \ln(f_i+d_i) \leftarrow \ln(f_i+d_i) + \mu_i - \frac{1}{2} C_{ii} + \sum_k A_{ik} z_k }, where {@latex$ A } is the
+ * pseudo square root of the covariance {@latex$ C } of the step and the drift {@latex$ \mu_i } depends on the numeraire. The
+ * drift is first computed with the rates at the beginning of the step, giving predicted rates at its end; the drift is then
+ * recomputed with the predicted rates, and the average of the two drifts is employed.
+ * <p>
+ * Drifts are computed through the pseudo square root rather than the covariance, as
+ * {@latex$ \mu_i = \sum_k A_{ik} \sum_{j=N}^{i} g_j A_{jk} } for the rates after the numeraire N and
+ * {@latex$ \mu_i = -\sum_k A_{ik} \sum_{j=i+1}^{N-1} g_j A_{jk} } for the rates before it, where
+ * {@latex$ g_j = \tau_j (f_j+d_j) / (1+\tau_j f_j) }. The inner sums are accumulated rate by rate, so that the cost of a step
+ * is proportional to the number of rates times the number of factors.
+ *
+ * @see LogNormalFwdRatePcFactory
+ */
+public class LogNormalFwdRatePc extends MarketModelEvolver {
+
+    private static final String WRONG_NUMBER_OF_NUMERAIRES = "mismatch between number of numeraires and evolution steps";
+    private static final String WRONG_GENERATOR_FACTORS = "mismatch between model factors and generator factors";
+    private static final String WRONG_GENERATOR_STEPS = "mismatch between model steps and generator steps";
+    private static final String INVALID_NUMERAIRE = "numeraire %d at step %d is not alive";
+
+    private final int numberOfRates_;
+    private final int numberOfFactors_;
+    private final int numberOfSteps_;
+    private final BrownianGenerator generator_;
+    private final int[] numeraires_;
+    private final int initialStep_;
+    private final int[] alive_;
+    private final /*@Time*/ double[] taus_;
+    private final /*@Spread*/ double[] displacements_;
+
+    // pseudo square roots of each step, row major, and the corresponding convexity corrections
+    private final double[][] pseudoRoots_;
+    private final double[][] fixedDrifts_;
+
+    private final /*@Rate*/ double[] initialForwards_;
+    private final double[] initialLogForwards_;
+    private final CurveState curveState_;
+    private int currentStep_;
+
+    // workspace
+    private final /*@Rate*/ double[] forwards_;
+    private final double[] logForwards_;
+    private final double[] drifts1_;
+    private final double[] drifts2_;
+    private final double[] g_;
+    private final double[] e_;
+    private final double[] brownians_;
+
+
+    public LogNormalFwdRatePc(
+            final MarketModel marketModel,
+            final BrownianGenerator generator,
+            final int[] numeraires) {
+        this(marketModel, generator, numeraires, 0);
+    }
+
+    public LogNormalFwdRatePc(
+            final MarketModel marketModel,
+            final BrownianGenerator generator,
+            final int[] numeraires,
+            final int initialStep) {
+        this(marketModel, generator, numeraires, initialStep, pseudoRoots(marketModel));
+    }
+
+    LogNormalFwdRatePc(
+            final MarketModel marketModel,
+            final BrownianGenerator generator,
+            final int[] numeraires,
+            final int initialStep,
+            final double[][] pseudoRoots) {
+        this.numberOfRates_ = marketModel.numberOfRates();
+        this.numberOfFactors_ = marketModel.numberOfFactors();
+        this.numberOfSteps_ = marketModel.numberOfSteps();
+        this.generator_ = generator;
+        this.numeraires_ = numeraires.clone();
+        this.initialStep_ = initialStep;
+        this.alive_ = marketModel.evolution().firstAliveRate();
+        this.taus_ = marketModel.evolution().rateTaus();
+        this.displacements_ = marketModel.displacements().clone();
+        this.pseudoRoots_ = pseudoRoots;
+
+        QL.require(numeraires.length == numberOfSteps_, WRONG_NUMBER_OF_NUMERAIRES); // TODO: message
+        QL.require(generator.numberOfFactors() == numberOfFactors_, WRONG_GENERATOR_FACTORS); // TODO: message
+        QL.require(generator.numberOfSteps() == numberOfSteps_, WRONG_GENERATOR_STEPS); // TODO: message
+        for (int k = 0; k < numberOfSteps_; k++) {
+            // numeraires must pay after the step has started
+            QL.require(numeraires[k] >= alive_[k] && numeraires[k] <= numberOfRates_,
+                    String.format(INVALID_NUMERAIRE, numeraires[k], k)); // TODO: message
+        }
+
+        this.fixedDrifts_ = new double[numberOfSteps_][numberOfRates_];
+        for (int k = 0; k < numberOfSteps_; k++) {
+            final double[] root = pseudoRoots_[k];
+            for (int i = 0; i < numberOfRates_; i++) {
+                double variance = 0.0;
+                for (int f = 0; f < numberOfFactors_; f++) {
+                    final double a = root[i * numberOfFactors_ + f];
+                    variance += a * a;
+                }
+                fixedDrifts_[k][i] = -0.5 * variance;
+            }
+        }
+
+        this.curveState_ = new CurveState(marketModel.evolution().rateTimes());
+        this.initialForwards_ = new double[numberOfRates_];
+        this.initialLogForwards_ = new double[numberOfRates_];
+        this.forwards_ = new double[numberOfRates_];
+        this.logForwards_ = new double[numberOfRates_];
+        this.drifts1_ = new double[numberOfRates_];
+        this.drifts2_ = new double[numberOfRates_];
+        this.g_ = new double[numberOfRates_];
+        this.e_ = new double[numberOfFactors_];
+        this.brownians_ = new double[numberOfFactors_];
+        setForwards(marketModel.initialRates());
+    }
+
+
+    //
+    // extends MarketModelEvolver
+    //
+
+    @Override
+    public int[] numeraires() {
+        return numeraires_;
+    }
+
+    @Override
+    public double startNewPath() {
+        currentStep_ = initialStep_;
+        System.arraycopy(initialForwards_, 0, forwards_, 0, numberOfRates_);
+        System.arraycopy(initialLogForwards_, 0, logForwards_, 0, numberOfRates_);
+        return generator_.nextPath();
+    }
+
+    @Override
+    public double advanceStep() {
+        final int step = currentStep_;
+        final int alive = alive_[step];
+        final double[] root = pseudoRoots_[step];
+        final double[] fixedDrift = fixedDrifts_[step];
+
+        // predictor
+        computeDrifts(step, drifts1_);
+        final double weight = generator_.nextStep(brownians_);
+        for (int i = alive; i < numberOfRates_; i++) {
+            double diffusion = 0.0;
+            final int row = i * numberOfFactors_;
+            for (int f = 0; f < numberOfFactors_; f++) {
+                diffusion += root[row + f] * brownians_[f];
+            }
+            logForwards_[i] += drifts1_[i] + fixedDrift[i] + diffusion;
+            forwards_[i] = Math.exp(logForwards_[i]) - displacements_[i];
+        }
+
+        // corrector
+        computeDrifts(step, drifts2_);
+        for (int i = alive; i < numberOfRates_; i++) {
+            logForwards_[i] += 0.5 * (drifts2_[i] - drifts1_[i]);
+            forwards_[i] = Math.exp(logForwards_[i]) - displacements_[i];
+        }
+
+        curveState_.setOnForwardRates(forwards_, alive);
+        currentStep_++;
+        return weight;
+    }
+
+    @Override
+    public int currentStep() {
+        return currentStep_;
+    }
+
+    @Override
+    public CurveState currentState() {
+        return curveState_;
+    }
+
+    @Override
+    public void setInitialState(final CurveState curveState) {
+        setForwards(curveState.forwardRates());
+    }
+
+
+    //
+    // package private static methods
+    //
+
+    /**
+     * @return the pseudo square roots of each step of a market model, row major
+     */
+    static double[][] pseudoRoots(final MarketModel marketModel) {
+        final int rates = marketModel.numberOfRates();
+        final int factors = marketModel.numberOfFactors();
+        final double[][] roots = new double[marketModel.numberOfSteps()][rates * factors];
+        for (int k = 0; k < roots.length; k++) {
+            final Matrix pseudo = marketModel.pseudoRoot(k);
+            for (int i = 0; i < rates; i++) {
+                for (int f = 0; f < factors; f++) {
+                    roots[k][i * factors + f] = pseudo.get(i, f);
+                }
+            }
+        }
+        return roots;
+    }
+
+
+    //
+    // private methods
+    //
+
+    private void setForwards(final /*@Rate*/ double[] forwards) {
+        for (int i = 0; i < numberOfRates_; i++) {
+            initialForwards_[i] = forwards[i];
+            initialLogForwards_[i] = Math.log(forwards[i] + displacements_[i]);
+        }
+    }
+
+    private void computeDrifts(final int step, final double[] drifts) {
+        final int alive = alive_[step];
+        final int numeraire = numeraires_[step];
+        final double[] root = pseudoRoots_[step];
+        final int factors = numberOfFactors_;
+
+        for (int j = alive; j < numberOfRates_; j++) {
+            g_[j] = taus_[j] * (forwards_[j] + displacements_[j]) / (1.0 + taus_[j] * forwards_[j]);
+        }
+
+        // rates before the numeraire: sum over j = i+1 .. numeraire-1
+        for (int f = 0; f < factors; f++) {
+            e_[f] = 0.0;
+        }
+        for (int i = numeraire-1; i >= alive; i--) {
+            final int row = i * factors;
+            double drift = 0.0;
+            for (int f = 0; f < factors; f++) {
+                drift -= root[row + f] * e_[f];
+                e_[f] += g_[i] * root[row + f];
+            }
+            drifts[i] = drift;
+        }
+
+        // rates after the numeraire: sum over j = numeraire .. i
+        for (int f = 0; f < factors; f++) {
+            e_[f] = 0.0;
+        }
+        for (int i = numeraire; i < numberOfRates_; i++) {
+            final int row = i * factors;
+            double drift = 0.0;
+            for (int f = 0; f < factors; f++) {
+                e_[f] += g_[i] * root[row + f];
+                drift += root[row + f] * e_[f];
+            }
+            drifts[i] = drift;
+        }
+    }
+
+}
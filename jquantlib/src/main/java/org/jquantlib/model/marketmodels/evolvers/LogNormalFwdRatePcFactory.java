@@ -0,0 +1,44 @@
+package org.jquantlib.model.marketmodels.evolvers;
+
+import org.jquantlib.model.marketmodels.BrownianGeneratorFactory;
+import org.jquantlib.model.marketmodels.MarketModel;
+import org.jquantlib.model.marketmodels.MarketModelEvolver;
+import org.jquantlib.model.marketmodels.MarketModelEvolverFactory;
+
+/**
+ * Factory of {@link LogNormalFwdRatePc} evolvers
+ * <p>
+ * The pseudo square roots of the model are extracted once and shared by all the evolvers created, each of which is driven by
+ * a new generator of the given Brownian generator factory.
+ */
+public class LogNormalFwdRatePcFactory extends MarketModelEvolverFactory {
+
+    private final MarketModel marketModel_;
+    private final BrownianGeneratorFactory generatorFactory_;
+    private final int[] numeraires_;
+    private final double[][] pseudoRoots_;
+
+
+    public LogNormalFwdRatePcFactory(
+            final MarketModel marketModel,
+            final BrownianGeneratorFactory generatorFactory,
+            final int[] numeraires) {
+        this.marketModel_ = marketModel;
+        this.generatorFactory_ = generatorFactory;
+        this.numeraires_ = numeraires.clone();
+        this.pseudoRoots_ = LogNormalFwdRatePc.pseudoRoots(marketModel);
+    }
+
+
+    //
+    // extends MarketModelEvolverFactory
+    //
+
+    @Override
+    public MarketModelEvolver create() {
+        return new LogNormalFwdRatePc(marketModel_,
+                generatorFactory_.create(marketModel_.numberOfFactors(), marketModel_.numberOfSteps()),
+                numeraires_, 0, pseudoRoots_);
+    }
+
+}
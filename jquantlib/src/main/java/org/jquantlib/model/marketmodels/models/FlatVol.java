@@ -0,0 +1,117 @@
+package org.jquantlib.model.marketmodels.models;
+
+import org.jquantlib.QL;
+import org.jquantlib.math.matrixutilities.Matrix;
+import org.jquantlib.math.matrixutilities.PseudoSqrt;
+import org.jquantlib.math.matrixutilities.PseudoSqrt.SalvagingAlgorithm;
+import org.jquantlib.model.marketmodels.EvolutionDescription;
+import org.jquantlib.model.marketmodels.MarketModel;
+
+/**
+ * Market model with constant volatilities and correlations
+ * <p>
+ * Each displaced forward rate {@latex$ f_i + d_i } is log-normal with constant volatility {@latex$ \sigma_i } until its
+ * reset time, and the correlation between rates is constant. Over the k-th evolution step, the covariance of the
+ * logarithms of rates i and j is therefore {@latex$ \sigma_i \sigma_j \rho_{ij} (\min(t_k, T_i, T_j) - t_{k-1}) } for the
+ * rates which are alive, and the pseudo square root of each step is computed once at construction, retaining the given
+ * number of factors.
+ */
+public class FlatVol extends MarketModel {
+
+    private static final String WRONG_NUMBER_OF_VOLATILITIES = "mismatch between number of rates and volatilities";
+    private static final String WRONG_CORRELATION_SIZE = "mismatch between number of rates and correlation size";
+    private static final String WRONG_NUMBER_OF_RATES = "mismatch between number of rates and initial rates";
+    private static final String WRONG_NUMBER_OF_DISPLACEMENTS = "mismatch between number of rates and displacements";
+    private static final String INVALID_NUMBER_OF_FACTORS = "number of factors must be between 1 and the number of rates";
+
+    private final int numberOfFactors_;
+    private final int numberOfRates_;
+    private final int numberOfSteps_;
+    private final /*@Rate*/ double[] initialRates_;
+    private final /*@Spread*/ double[] displacements_;
+    private final EvolutionDescription evolution_;
+    private final Matrix[] pseudoRoots_;
+
+
+    public FlatVol(
+            final /*@Volatility*/ double[] volatilities,
+            final Matrix correlations,
+            final EvolutionDescription evolution,
+            final int numberOfFactors,
+            final /*@Rate*/ double[] initialRates,
+            final /*@Spread*/ double[] displacements) {
+        this.numberOfRates_ = evolution.numberOfRates();
+        this.numberOfSteps_ = evolution.numberOfSteps();
+        this.numberOfFactors_ = numberOfFactors;
+        this.evolution_ = evolution;
+        this.initialRates_ = initialRates.clone();
+        this.displacements_ = displacements.clone();
+
+        QL.require(volatilities.length == numberOfRates_, WRONG_NUMBER_OF_VOLATILITIES); // TODO: message
+        QL.require(correlations.rows() == numberOfRates_ && correlations.cols() == numberOfRates_, WRONG_CORRELATION_SIZE); // TODO: message
+        QL.require(initialRates.length == numberOfRates_, WRONG_NUMBER_OF_RATES); // TODO: message
+        QL.require(displacements.length == numberOfRates_, WRONG_NUMBER_OF_DISPLACEMENTS); // TODO: message
+        QL.require(numberOfFactors >= 1 && numberOfFactors <= numberOfRates_, INVALID_NUMBER_OF_FACTORS); // TODO: message
+
+        final /*@Time*/ double[] rateTimes = evolution.rateTimes();
+        final /*@Time*/ double[] evolutionTimes = evolution.evolutionTimes();
+        final int[] alive = evolution.firstAliveRate();
+
+        this.pseudoRoots_ = new Matrix[numberOfSteps_];
+        /*@Time*/ double effStartTime = 0.0;
+        for (int k = 0; k < numberOfSteps_; k++) {
+            final Matrix covariance = new Matrix(numberOfRates_, numberOfRates_);
+            for (int i = alive[k]; i < numberOfRates_; i++) {
+                for (int j = i; j < numberOfRates_; j++) {
+                    final /*@Time*/ double effStopTime = Math.min(evolutionTimes[k], Math.min(rateTimes[i], rateTimes[j]));
+                    final double c = volatilities[i] * volatilities[j] * correlations.get(i, j) * (effStopTime - effStartTime);
+                    covariance.set(i, j, c);
+                    covariance.set(j, i, c);
+                }
+            }
+            pseudoRoots_[k] = PseudoSqrt.rankReducedSqrt(covariance, numberOfFactors, 1.0, SalvagingAlgorithm.Spectral);
+            effStartTime = evolutionTimes[k];
+        }
+    }
+
+
+    //
+    // extends MarketModel
+    //
+
+    @Override
+    public /*@Rate*/ double[] initialRates() {
+        return initialRates_;
+    }
+
+    @Override
+    public /*@Spread*/ double[] displacements() {
+        return displacements_;
+    }
+
+    @Override
+    public EvolutionDescription evolution() {
+        return evolution_;
+    }
+
+    @Override
+    public int numberOfRates() {
+        return numberOfRates_;
+    }
+
+    @Override
+    public int numberOfFactors() {
+        return numberOfFactors_;
+    }
+
+    @Override
+    public int numberOfSteps() {
+        return numberOfSteps_;
+    }
+
+    @Override
+    public Matrix pseudoRoot(final int step) {
+        return pseudoRoots_[step];
+    }
+
+}
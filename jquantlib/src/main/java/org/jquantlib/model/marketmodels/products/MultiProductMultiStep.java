@@ -0,0 +1,42 @@
+package org.jquantlib.model.marketmodels.products;
+
+import org.jquantlib.model.marketmodels.EvolutionDescription;
+import org.jquantlib.model.marketmodels.MarketModelMultiProduct;
+
+/**
+ * Base class for products evolved up to each reset time
+ * <p>
+ * The suggested numeraire of each step is the discount bond paying at the end of the accrual period of the rate resetting at
+ * the end of the step.
+ */
+public abstract class MultiProductMultiStep extends MarketModelMultiProduct {
+
+    protected final /*@Time*/ double[] rateTimes_;
+    protected final EvolutionDescription evolution_;
+
+
+    protected MultiProductMultiStep(final /*@Time*/ double[] rateTimes) {
+        this.rateTimes_ = rateTimes.clone();
+        this.evolution_ = new EvolutionDescription(rateTimes);
+    }
+
+
+    //
+    // extends MarketModelMultiProduct
+    //
+
+    @Override
+    public int[] suggestedNumeraires() {
+        final int[] numeraires = new int[evolution_.numberOfSteps()];
+        for (int i = 0; i < numeraires.length; i++) {
+            numeraires[i] = i+1;
+        }
+        return numeraires;
+    }
+
+    @Override
+    public EvolutionDescription evolution() {
+        return evolution_;
+    }
+
+}
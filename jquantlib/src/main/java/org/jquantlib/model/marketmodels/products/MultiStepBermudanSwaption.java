@@ -0,0 +1,98 @@
+package org.jquantlib.model.marketmodels.products;
+
+import org.jquantlib.QL;
+import org.jquantlib.instruments.Option;
+import org.jquantlib.instruments.StrikedTypePayoff;
+import org.jquantlib.model.marketmodels.CurveState;
+
+/**
+ * Bermudan swaption into the coterminal swaps of the simulation, exercised by a swap-rate trigger
+ * <p>
+ * At each rate time, the swaption can be exercised into the swap ending at the last rate time. It is exercised the first time
+ * the coterminal swap rate is above the trigger of the exercise date for a payer swaption, or below it for a receiver one, and
+ * the exercise value is paid at the exercise time. As any given exercise strategy is sub-optimal, the value obtained is a
+ * lower bound for the value of the Bermudan swaption, which is tight when the triggers are close to the optimal exercise
+ * boundary.
+ */
+public class MultiStepBermudanSwaption extends MultiProductMultiStep {
+
+    private static final String WRONG_TRIGGERS = "mismatch between number of rates and triggers";
+
+    private final StrikedTypePayoff payoff_;
+    private final /*@Rate*/ double[] triggers_;
+    private final boolean payer_;
+    private final int lastIndex_;
+    private int currentIndex_;
+
+
+    /**
+     * @param rateTimes are the rate times, which are also the exercise times
+     * @param payoff gives the exercise value as a function of the coterminal swap rate: a call for a payer swaption, a put for a
+     *        receiver one
+     * @param triggers are the swap rates triggering the exercise at each exercise time
+     */
+    public MultiStepBermudanSwaption(
+            final /*@Time*/ double[] rateTimes,
+            final StrikedTypePayoff payoff,
+            final /*@Rate*/ double[] triggers) {
+        super(rateTimes);
+        this.lastIndex_ = rateTimes.length-1;
+        QL.require(triggers.length == lastIndex_, WRONG_TRIGGERS); // TODO: message
+        this.payoff_ = payoff;
+        this.triggers_ = triggers.clone();
+        this.payer_ = payoff.optionType() == Option.Type.Call;
+        this.currentIndex_ = 0;
+    }
+
+
+    //
+    // extends MarketModelMultiProduct
+    //
+
+    @Override
+    public /*@Time*/ double[] possibleCashFlowTimes() {
+        final double[] times = new double[lastIndex_];
+        System.arraycopy(rateTimes_, 0, times, 0, lastIndex_);
+        return times;
+    }
+
+    @Override
+    public int numberOfProducts() {
+        return 1;
+    }
+
+    @Override
+    public int maxNumberOfCashFlowsPerProductPerStep() {
+        return 1;
+    }
+
+    @Override
+    public void reset() {
+        currentIndex_ = 0;
+    }
+
+    @Override
+    public boolean nextTimeStep(
+            final CurveState currentState,
+            final int[] numberCashFlowsThisStep,
+            final CashFlow[][] cashFlowsGenerated) {
+        numberCashFlowsThisStep[0] = 0;
+        final /*@Rate*/ double swapRate = currentState.coterminalSwapRate(currentIndex_);
+        final boolean triggered = payer_ ? swapRate >= triggers_[currentIndex_] : swapRate <= triggers_[currentIndex_];
+        final double exerciseValue = payoff_.get(swapRate);
+        if (triggered && exerciseValue > 0.0) {
+            cashFlowsGenerated[0][0].timeIndex = currentIndex_;
+            cashFlowsGenerated[0][0].amount = exerciseValue * currentState.coterminalSwapAnnuity(currentIndex_, currentIndex_);
+            numberCashFlowsThisStep[0] = 1;
+            return true;
+        }
+        currentIndex_++;
+        return currentIndex_ == lastIndex_;
+    }
+
+    @Override
+    public MultiStepBermudanSwaption clone() {
+        return new MultiStepBermudanSwaption(rateTimes_, payoff_, triggers_);
+    }
+
+}
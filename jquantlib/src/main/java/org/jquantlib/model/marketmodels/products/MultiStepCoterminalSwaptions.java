@@ -0,0 +1,87 @@
+package org.jquantlib.model.marketmodels.products;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jquantlib.QL;
+import org.jquantlib.instruments.StrikedTypePayoff;
+import org.jquantlib.model.marketmodels.CurveState;
+
+/**
+ * European swaptions into each coterminal swap of the simulation
+ * <p>
+ * The i-th product is exercised at the i-th rate time into the swap ending at the last rate time, and its value at exercise
+ * is paid at the i-th payment time.
+ */
+public class MultiStepCoterminalSwaptions extends MultiProductMultiStep {
+
+    private static final String WRONG_PAYMENT_TIMES = "mismatch between number of rates and payment times";
+    private static final String WRONG_PAYOFFS = "mismatch between number of rates and payoffs";
+
+    private final /*@Time*/ double[] paymentTimes_;
+    private final List<StrikedTypePayoff> payoffs_;
+    private final int lastIndex_;
+    private int currentIndex_;
+
+
+    public MultiStepCoterminalSwaptions(
+            final /*@Time*/ double[] rateTimes,
+            final /*@Time*/ double[] paymentTimes,
+            final List<StrikedTypePayoff> payoffs) {
+        super(rateTimes);
+        this.lastIndex_ = rateTimes.length-1;
+        QL.require(paymentTimes.length == lastIndex_, WRONG_PAYMENT_TIMES); // TODO: message
+        QL.require(payoffs.size() == lastIndex_, WRONG_PAYOFFS); // TODO: message
+        this.paymentTimes_ = paymentTimes.clone();
+        this.payoffs_ = new ArrayList<StrikedTypePayoff>(payoffs);
+        this.currentIndex_ = 0;
+    }
+
+
+    //
+    // extends MarketModelMultiProduct
+    //
+
+    @Override
+    public /*@Time*/ double[] possibleCashFlowTimes() {
+        return paymentTimes_;
+    }
+
+    @Override
+    public int numberOfProducts() {
+        return lastIndex_;
+    }
+
+    @Override
+    public int maxNumberOfCashFlowsPerProductPerStep() {
+        return 1;
+    }
+
+    @Override
+    public void reset() {
+        currentIndex_ = 0;
+    }
+
+    @Override
+    public boolean nextTimeStep(
+            final CurveState currentState,
+            final int[] numberCashFlowsThisStep,
+            final CashFlow[][] cashFlowsGenerated) {
+        for (int i = 0; i < numberCashFlowsThisStep.length; i++) {
+            numberCashFlowsThisStep[i] = 0;
+        }
+        final /*@Rate*/ double swapRate = currentState.coterminalSwapRate(currentIndex_);
+        final double annuity = currentState.coterminalSwapAnnuity(currentIndex_, currentIndex_);
+        cashFlowsGenerated[currentIndex_][0].timeIndex = currentIndex_;
+        cashFlowsGenerated[currentIndex_][0].amount = payoffs_.get(currentIndex_).get(swapRate) * annuity;
+        numberCashFlowsThisStep[currentIndex_] = 1;
+        currentIndex_++;
+        return currentIndex_ == lastIndex_;
+    }
+
+    @Override
+    public MultiStepCoterminalSwaptions clone() {
+        return new MultiStepCoterminalSwaptions(rateTimes_, paymentTimes_, payoffs_);
+    }
+
+}
@@ -0,0 +1,88 @@
+package org.jquantlib.model.marketmodels.products;
+
+import org.jquantlib.QL;
+import org.jquantlib.model.marketmodels.CurveState;
+
+/**
+ * Interest-rate swap paying or receiving a fixed rate against each forward rate of the simulation
+ */
+public class MultiStepSwap extends MultiProductMultiStep {
+
+    private static final String WRONG_ACCRUALS = "mismatch between number of rates and accruals or payment times";
+
+    private final /*@Time*/ double[] fixedAccruals_;
+    private final /*@Time*/ double[] floatingAccruals_;
+    private final /*@Time*/ double[] paymentTimes_;
+    private final /*@Rate*/ double fixedRate_;
+    private final boolean payer_;
+    private final double multiplier_;
+    private final int lastIndex_;
+    private int currentIndex_;
+
+
+    public MultiStepSwap(
+            final /*@Time*/ double[] rateTimes,
+            final /*@Time*/ double[] fixedAccruals,
+            final /*@Time*/ double[] floatingAccruals,
+            final /*@Time*/ double[] paymentTimes,
+            final /*@Rate*/ double fixedRate,
+            final boolean payer) {
+        super(rateTimes);
+        this.lastIndex_ = rateTimes.length-1;
+        QL.require(fixedAccruals.length == lastIndex_ && floatingAccruals.length == lastIndex_
+                && paymentTimes.length == lastIndex_, WRONG_ACCRUALS); // TODO: message
+        this.fixedAccruals_ = fixedAccruals.clone();
+        this.floatingAccruals_ = floatingAccruals.clone();
+        this.paymentTimes_ = paymentTimes.clone();
+        this.fixedRate_ = fixedRate;
+        this.payer_ = payer;
+        this.multiplier_ = payer ? 1.0 : -1.0;
+        this.currentIndex_ = 0;
+    }
+
+
+    //
+    // extends MarketModelMultiProduct
+    //
+
+    @Override
+    public /*@Time*/ double[] possibleCashFlowTimes() {
+        return paymentTimes_;
+    }
+
+    @Override
+    public int numberOfProducts() {
+        return 1;
+    }
+
+    @Override
+    public int maxNumberOfCashFlowsPerProductPerStep() {
+        return 2;
+    }
+
+    @Override
+    public void reset() {
+        currentIndex_ = 0;
+    }
+
+    @Override
+    public boolean nextTimeStep(
+            final CurveState currentState,
+            final int[] numberCashFlowsThisStep,
+            final CashFlow[][] cashFlowsGenerated) {
+        final /*@Rate*/ double liborRate = currentState.forwardRate(currentIndex_);
+        cashFlowsGenerated[0][0].timeIndex = currentIndex_;
+        cashFlowsGenerated[0][0].amount = -multiplier_ * fixedRate_ * fixedAccruals_[currentIndex_];
+        cashFlowsGenerated[0][1].timeIndex = currentIndex_;
+        cashFlowsGenerated[0][1].amount = multiplier_ * liborRate * floatingAccruals_[currentIndex_];
+        numberCashFlowsThisStep[0] = 2;
+        currentIndex_++;
+        return currentIndex_ == lastIndex_;
+    }
+
+    @Override
+    public MultiStepSwap clone() {
+        return new MultiStepSwap(rateTimes_, fixedAccruals_, floatingAccruals_, paymentTimes_, fixedRate_, payer_);
+    }
+
+}
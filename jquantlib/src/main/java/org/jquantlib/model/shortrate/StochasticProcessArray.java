@@ -50,9 +50,6 @@ public class StochasticProcessArray extends StochasticProcess {
 
     public StochasticProcessArray(final List<StochasticProcess1D> processes, final Matrix correlation) {
 
-        if (System.getProperty("EXPERIMENTAL") == null)
-            throw new UnsupportedOperationException("Work in progress");
-
         QL.require(!processes.isEmpty() , no_process_given); // TODO: message
         QL.require(correlation.rows() == processes.size() , mismatch_processnumber_sizecorrelationmatrix); // TODO: message
 
@@ -90,11 +87,12 @@ public class StochasticProcessArray extends StochasticProcess {
 
     @Override
     public Matrix diffusion(final /*Time*/ double t, final Array x)  {
+        final Matrix tmp = new Matrix(sqrtCorrelation_);
         for (int i=0; i<size(); i++) {
             final double sigma = processes_.get(i).diffusion(t, x.get(i));
-            sqrtCorrelation_.rangeRow(i).mulAssign(sigma);
+            tmp.rangeRow(i).mulAssign(sigma);
         }
-        return sqrtCorrelation_;
+        return tmp;
     }
 
     @Override
@@ -108,11 +106,12 @@ public class StochasticProcessArray extends StochasticProcess {
 
     @Override
     public Matrix stdDeviation(final /*@Time*/ double t0, final Array x0, final /*@Time*/ double dt)  {
+        final Matrix tmp = new Matrix(sqrtCorrelation_);
         for (int i=0; i<size(); i++) {
             final double sigma = processes_.get(i).stdDeviation(t0, x0.get(i), dt);
-            sqrtCorrelation_.rangeRow(i).mulAssign(sigma);
+            tmp.rangeRow(i).mulAssign(sigma);
         }
-        return sqrtCorrelation_;
+        return tmp;
     }
 
     @Override
@@ -155,4 +154,11 @@ public class StochasticProcessArray extends StochasticProcess {
         return sqrtCorrelation_.mul(sqrtCorrelation_.transpose());
     }
 
+    /**
+     * @return a copy of the pseudo square root of the correlation matrix, which is computed once at construction
+     */
+    public Matrix sqrtCorrelation() {
+        return new Matrix(sqrtCorrelation_);
+    }
+
 }
@@ -47,6 +47,8 @@ import org.jquantlib.exercise.Exercise;
 import org.jquantlib.instruments.OneAssetOption;
 import org.jquantlib.instruments.Option;
 import org.jquantlib.instruments.StrikedTypePayoff;
+import org.jquantlib.math.autodiff.ADouble;
+import org.jquantlib.math.autodiff.Tape;
 import org.jquantlib.processes.GeneralizedBlackScholesProcess;
 import org.jquantlib.time.Date;
 
@@ -153,4 +155,34 @@ public class AnalyticEuropeanEngine extends OneAssetOption.EngineImpl {
         moreGreeks.itmCashProbability = black.itmCashProbability();
     }
 
+
+    //
+    // public static methods
+    //
+
+    /**
+     * Value of a European option, recorded for reverse mode algorithmic differentiation
+     * <p>
+     * This is the calculation {@link #calculate()} performs once the term structures have been read. Discount factors and
+     * variance can themselves be recorded from rates and volatilities, so that after {@link Tape#propagate(ADouble)} is
+     * called on the result, the adjoints of spot, rates and volatility give delta, rho, dividend rho and vega in a single
+     * backward sweep.
+     *
+     * @param dividendDiscount is the dividend discount factor to the exercise date
+     * @param riskFreeDiscount is the risk-free discount factor to the exercise date
+     * @param variance is the Black variance to the exercise date
+     *
+     * @see BlackCalculator#value(StrikedTypePayoff, ADouble, ADouble, ADouble)
+     */
+    public static ADouble value(
+            final StrikedTypePayoff payoff,
+            final ADouble spot,
+            final ADouble dividendDiscount,
+            final ADouble riskFreeDiscount,
+            final /* @Variance */ ADouble variance) {
+        QL.require(spot.value() > 0.0, "negative or null underlying given"); // TODO: message
+        final ADouble forwardPrice = spot.mul(dividendDiscount).div(riskFreeDiscount);
+        return BlackCalculator.value(payoff, forwardPrice, variance.sqrt(), riskFreeDiscount);
+    }
+
 }
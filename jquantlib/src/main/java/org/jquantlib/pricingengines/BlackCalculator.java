@@ -50,6 +50,8 @@ import org.jquantlib.instruments.PlainVanillaPayoff;
 import org.jquantlib.instruments.StrikedTypePayoff;
 import org.jquantlib.lang.exceptions.LibraryException;
 import org.jquantlib.math.Constants;
+import org.jquantlib.math.autodiff.ADouble;
+import org.jquantlib.math.autodiff.Tape;
 import org.jquantlib.math.distributions.CumulativeNormalDistribution;
 import org.jquantlib.util.PolymorphicVisitor;
 import org.jquantlib.util.Visitor;
@@ -394,6 +396,88 @@ public class BlackCalculator {
     }
 
 
+    //
+    // public static methods
+    //
+
+    /**
+     * Black 1976 value, recorded for reverse mode algorithmic differentiation
+     * <p>
+     * After {@link Tape#propagate(ADouble)} is called on the result, adjoints of the arguments contain the sensitivities
+     * of the value to forward, standard deviation and discount factor, obtained in a single backward sweep. They match
+     * {@link #deltaForward()}, {@link #vega(double)} divided by the square root of time, and {@link #value()} divided by the
+     * discount factor.
+     *
+     * @see Tape
+     */
+    public static ADouble value(
+            final StrikedTypePayoff payoff,
+            final ADouble forward,
+            final ADouble stdDev,
+            final ADouble discount) {
+        return value(payoff, forward.tape().variable(payoff.strike()), forward, stdDev, discount);
+    }
+
+    /**
+     * Black 1976 value, recorded for reverse mode algorithmic differentiation
+     * <p>
+     * Same as {@link #value(StrikedTypePayoff, ADouble, ADouble, ADouble)}, but the adjoint of <code>strike</code> also
+     * gives the sensitivity to strike, which matches {@link #strikeSensitivity()}.
+     *
+     * @param strike must have the same value as the strike of <code>payoff</code>
+     *
+     * @see Tape
+     */
+    public static ADouble value(
+            final StrikedTypePayoff payoff,
+            final ADouble strike,
+            final ADouble forward,
+            final ADouble stdDev,
+            final ADouble discount) {
+
+        QL.require(strike.value() == payoff.strike() , "strike does not match the payoff"); // TODO: message
+        QL.require(forward.value() > 0.0 , "positive forward value required");
+        QL.require(stdDev.value() >= 0.0 , "non-negative standard deviation required");
+        QL.require(discount.value() > 0.0 , "positive discount required");
+
+        final ADouble cum_d1, cum_d2;
+        if (stdDev.value() >= Constants.QL_EPSILON && strike.value() != 0.0) {
+            final ADouble d1 = forward.div(strike).log().div(stdDev).add(stdDev.mul(0.5));
+            final ADouble d2 = d1.sub(stdDev);
+            final CumulativeNormalDistribution f = new CumulativeNormalDistribution();
+            cum_d1 = d1.apply(f);
+            cum_d2 = d2.apply(f);
+        } else {
+            // null strike or null variance: N(d1) and N(d2) are constant
+            final boolean inTheMoney = stdDev.value() >= Constants.QL_EPSILON || forward.value() > strike.value();
+            cum_d1 = cum_d2 = forward.mul(0.0).add(inTheMoney ? 1.0 : 0.0);
+        }
+
+        final Option.Type optionType = payoff.optionType();
+        if (optionType != Option.Type.Call && optionType != Option.Type.Put)
+            throw new LibraryException("invalid option type"); // TODO: message
+        final boolean call = optionType == Option.Type.Call;
+
+        final ADouble result;
+        if (payoff instanceof CashOrNothingPayoff) {
+            final ADouble beta = call ? cum_d2 : cum_d2.negative().add(1.0);
+            result = beta.mul(((CashOrNothingPayoff) payoff).getCashPayoff());
+        } else if (payoff instanceof AssetOrNothingPayoff) {
+            final ADouble alpha = call ? cum_d1 : cum_d1.negative().add(1.0);
+            result = forward.mul(alpha);
+        } else if (payoff instanceof PlainVanillaPayoff || payoff instanceof GapPayoff) {
+            final ADouble alpha = call ? cum_d1 : cum_d1.sub(1.0); // N(d1) or -N(-d1)
+            final ADouble beta = call ? cum_d2.negative() : cum_d2.negative().add(1.0); // -N(d2) or N(-d2)
+            final ADouble xBeta = (payoff instanceof GapPayoff)
+                    ? beta.mul(((GapPayoff) payoff).getSecondStrike()) : strike.mul(beta);
+            result = forward.mul(alpha).add(xBeta);
+        } else
+            throw new UnsupportedOperationException("invalid payoff type" + payoff.getClass()); // TODO: message
+
+        return result.mul(discount);
+    }
+
+
 
     //
     // inner classes
@@ -52,6 +52,8 @@ import org.jquantlib.lang.annotation.NonNegative;
 import org.jquantlib.lang.annotation.Real;
 import org.jquantlib.lang.annotation.StdDev;
 import org.jquantlib.math.Closeness;
+import org.jquantlib.math.autodiff.ADouble;
+import org.jquantlib.math.autodiff.Tape;
 import org.jquantlib.math.distributions.CumulativeNormalDistribution;
 import org.jquantlib.math.distributions.Derivative;
 import org.jquantlib.math.solvers1D.NewtonSafe;
@@ -142,6 +144,101 @@ public class BlackFormula {
     // ---
     // ---
 
+    /**
+     * Black 1976 formula, recorded for reverse mode algorithmic differentiation
+     * <p>
+     * After {@link Tape#propagate(ADouble)} is called on the result, adjoints of the arguments contain the sensitivities
+     * of the price to strike, forward and standard deviation, obtained in a single backward sweep.
+     *
+     * @note  Instead of volatility it uses standard deviation, i.e.
+     *        volatility*sqrt(timeToMaturity)
+     *
+     * @see Tape
+     */
+    public static ADouble blackFormula(
+            final Option.Type optionType,
+            final ADouble strike,
+            final ADouble forward,
+            final ADouble stddev) {
+
+        final Tape tape = forward.tape();
+        return blackFormula(optionType, strike, forward, stddev, tape.variable(1.0), tape.variable(0.0));
+    }
+
+    /**
+     * Black 1976 formula, recorded for reverse mode algorithmic differentiation
+     * <p>
+     * After {@link Tape#propagate(ADouble)} is called on the result, adjoints of the arguments contain the sensitivities
+     * of the price to strike, forward, standard deviation and discount factor, obtained in a single backward sweep.
+     *
+     * @note  Instead of volatility it uses standard deviation, i.e.
+     *        volatility*sqrt(timeToMaturity)
+     *
+     * @see Tape
+     */
+    public static ADouble blackFormula(
+            final Option.Type optionType,
+            final ADouble strike,
+            final ADouble forward,
+            final ADouble stddev,
+            final ADouble discount) {
+
+        return blackFormula(optionType, strike, forward, stddev, discount, forward.tape().variable(0.0));
+    }
+
+    /**
+     * Black 1976 formula, recorded for reverse mode algorithmic differentiation
+     * <p>
+     * After {@link Tape#propagate(ADouble)} is called on the result, adjoints of the arguments contain the sensitivities
+     * of the price to strike, forward, standard deviation, discount factor and displacement, obtained in a single backward
+     * sweep.
+     *
+     * @note  Instead of volatility it uses standard deviation, i.e.
+     *        volatility*sqrt(timeToMaturity)
+     *
+     * @see Tape
+     */
+    public static ADouble blackFormula(
+            final Option.Type optionType,
+            ADouble strike,
+            ADouble forward,
+            final ADouble stddev,
+            final ADouble discount,
+            final ADouble displacement) {
+
+        QL.require(strike.value() >= 0.0       , "strike must be non-negative"); // TODO: message
+        QL.require(forward.value() > 0.0       , "forward must be positive"); // TODO: message
+        QL.require(stddev.value() >= 0.0       , "stddev must be non-negative"); // TODO: message
+        QL.require(discount.value() > 0.0      , "discount must be positive"); // TODO: message
+        QL.require(displacement.value() >= 0.0 , "displacement must be non-negative"); // TODO: message
+
+        forward = forward.add(displacement);
+        strike = strike.add(displacement);
+        final int sign = optionType.toInteger();
+        if (stddev.value() == 0.0) {
+            final ADouble intrinsic = forward.sub(strike).mul(sign);
+            return (intrinsic.value() > 0.0) ? intrinsic.mul(discount) : discount.mul(0.0);
+        }
+
+        if (strike.value() == 0.0) // strike=0 iff displacement=0
+            return (optionType == Option.Type.Call ? forward.mul(discount) : discount.mul(0.0));
+
+        final ADouble d1 = forward.div(strike).log().div(stddev).add(stddev.mul(0.5));
+        final ADouble d2 = d1.sub(stddev);
+
+        final CumulativeNormalDistribution phi = new CumulativeNormalDistribution();
+        final ADouble result = forward.mul(d1.mul(sign).apply(phi))
+                                .sub(strike.mul(d2.mul(sign).apply(phi)))
+                                .mul(discount).mul(sign);
+
+        if (result.value() >= 0.0) return result;
+        throw new ArithmeticException("a negative value was calculated"); // TODO: message
+    }
+
+    // ---
+    // ---
+    // ---
+
     /**
      * Black 1976 formula
      *
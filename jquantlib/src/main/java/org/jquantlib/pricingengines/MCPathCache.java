@@ -0,0 +1,281 @@
+/*
+ Copyright (C) 2011 Richard Gomes
+
+ This source code is release under the BSD License.
+
+ This file is part of JQuantLib, a free-software/open-source library
+ for financial quantitative analysts and developers - http://jquantlib.org/
+
+ JQuantLib is free software: you can redistribute it and/or modify it
+ under the terms of the JQuantLib license.  You should have received a
+ copy of the license along with this program; if not, please email
+ <jquant-devel@lists.sourceforge.net>. The license is also available online at
+ <http://www.jquantlib.org/index.php/LICENSE.TXT>.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE.  See the license for more details.
+
+ JQuantLib is based on QuantLib. http://quantlib.org/
+ When applicable, the original copyright notice follows this notice.
+ */
+
+
+package org.jquantlib.pricingengines;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import org.jquantlib.QL;
+import org.jquantlib.instruments.Instrument;
+import org.jquantlib.math.Constants;
+import org.jquantlib.math.randomnumbers.InverseCumulativeRsg;
+import org.jquantlib.math.randomnumbers.PseudoRandom;
+import org.jquantlib.math.randomnumbers.UniformRandomSequenceGenerator;
+import org.jquantlib.math.statistics.ControlVariateStatistics;
+import org.jquantlib.math.statistics.IncrementalStatistics;
+import org.jquantlib.methods.montecarlo.Path;
+import org.jquantlib.methods.montecarlo.PathCube;
+import org.jquantlib.methods.montecarlo.PathGenerator;
+import org.jquantlib.methods.montecarlo.PathPricer;
+import org.jquantlib.processes.GeneralizedBlackScholesProcess;
+import org.jquantlib.time.TimeGrid;
+import org.jquantlib.util.Observer;
+import org.jquantlib.util.ThreadPool;
+
+/**
+ * Block of simulated paths shared by Monte Carlo engines
+ * <p>
+ * Paths of the underlying process are simulated once for each time grid and kept in a {@link PathCube}. Engines which are
+ * given the same cache, and which require the same time grid, price their instruments from the same paths: the cost of pricing
+ * one more instrument is a pass of its path pricer over the cached paths, which is split among threads of the
+ * {@link ThreadPool}. Cached paths are discarded whenever the process notifies a change.
+ * <p>
+ * As all instruments are priced from the same random numbers, the errors of their estimates are correlated. This is usually
+ * what is wanted for a portfolio, as differences between instruments are estimated much more accurately than their values.
+ * Memory grows with the number of samples times the number of points of each grid in use, so that a cache should be cleared,
+ * or dropped, once the portfolio it serves has been priced.
+ *
+ * @see MCSimulation
+ */
+public class MCPathCache implements Observer {
+
+    private static final String NUMBER_OF_SAMPLES_NOT_GIVEN = "number of samples not given";
+    private static final String CONTROL_VARIATE_VALUE_NOT_GIVEN = "control variate value not given";
+
+    /**
+     * Number of samples priced by each task when evaluations are split among threads
+     */
+    private static final int GRAIN = 2048;
+
+
+    //
+    // private final fields
+    //
+
+    private final GeneralizedBlackScholesProcess process;
+    private final boolean brownianBridge;
+    private final boolean antitheticVariate;
+    private final /*@NonNegative*/ int requiredSamples;
+    private final /*@NonNegative*/ long seed;
+    private final Map<GridKey, PathCube> cubes;
+
+
+    //
+    // public constructors
+    //
+
+    /**
+     * @param process is the underlying process
+     * @param brownianBridge tells whether paths are built by means of a Brownian bridge
+     * @param antitheticVariate tells whether antithetic paths are added to each sample
+     * @param requiredSamples is the number of samples
+     * @param seed is the seed of the random number generator
+     */
+    public MCPathCache(
+            final GeneralizedBlackScholesProcess process,
+            final boolean brownianBridge,
+            final boolean antitheticVariate,
+            final /*@NonNegative*/ int requiredSamples,
+            final /*@NonNegative*/ long seed) {
+        QL.require(requiredSamples != Constants.NULL_INTEGER && requiredSamples > 0, NUMBER_OF_SAMPLES_NOT_GIVEN); // TODO: message
+        this.process = process;
+        this.brownianBridge = brownianBridge;
+        this.antitheticVariate = antitheticVariate;
+        this.requiredSamples = requiredSamples;
+        this.seed = seed;
+        this.cubes = new HashMap<GridKey, PathCube>();
+        this.process.addObserver(this);
+    }
+
+
+    //
+    // public methods
+    //
+
+    /**
+     * Returns the paths simulated on a given time grid, which are simulated when first requested
+     *
+     * @param grid is the time grid
+     */
+    public synchronized PathCube paths(final TimeGrid grid) {
+        final GridKey key = new GridKey(grid);
+        PathCube cube = cubes.get(key);
+        if (cube == null) {
+            final InverseCumulativeRsg<?, ?> generator = new PseudoRandom().makeSequenceGenerator(grid.size()-1, seed);
+            final PathGenerator<UniformRandomSequenceGenerator> pathGenerator =
+                new PathGenerator<UniformRandomSequenceGenerator>(process, grid, generator, brownianBridge);
+            final int paths = antitheticVariate ? 2*requiredSamples : requiredSamples;
+            cube = new PathCube(grid, paths).fill(pathGenerator, antitheticVariate);
+            cubes.put(key, cube);
+        }
+        return cube;
+    }
+
+    /**
+     * Discards all cached paths
+     */
+    public synchronized void clear() {
+        cubes.clear();
+    }
+
+    /**
+     * Prices the cached paths of a given time grid and stores value and error estimate into <code>results</code>
+     */
+    public void calculate(
+            final TimeGrid grid,
+            final PathPricer<Path> pathPricer,
+            final Instrument.ResultsImpl results) /* @ReadOnly */ {
+        calculate(grid, pathPricer, null, Constants.NULL_REAL, results);
+    }
+
+    /**
+     * Prices the cached paths of a given time grid and stores value and error estimate into <code>results</code>
+     *
+     * @param controlPathPricer is the path pricer of the control variate, or <code>null</code> when no control is employed
+     * @param controlVariateValue is the known value of the control variate
+     */
+    public void calculate(
+            final TimeGrid grid,
+            final PathPricer<Path> pathPricer,
+            final PathPricer<Path> controlPathPricer,
+            final /*@Real*/ double controlVariateValue,
+            final Instrument.ResultsImpl results) /* @ReadOnly */ {
+        QL.require(controlPathPricer == null || !Double.isNaN(controlVariateValue), CONTROL_VARIATE_VALUE_NOT_GIVEN); // TODO: message
+        final PathCube cube = paths(grid);
+        final int samples = cube.antithetic() ? cube.paths()/2 : cube.paths();
+        final List<Evaluation> tasks = new ArrayList<Evaluation>();
+        for (int from = 0; from < samples; from += GRAIN) {
+            tasks.add(new Evaluation(cube, pathPricer, controlPathPricer, from, Math.min(from + GRAIN, samples)));
+        }
+        // partial results are always merged in the same order, so that results do not depend on the number of threads
+        final Evaluation evaluation = new Evaluation(cube, pathPricer, controlPathPricer, 0, 0);
+        for (final Evaluation partial : ThreadPool.invokeAll(tasks)) {
+            evaluation.stats.merge(partial.stats);
+            evaluation.controls.merge(partial.controls);
+        }
+        if (controlPathPricer != null) {
+            results.value = evaluation.controls.mean(controlVariateValue);
+            results.errorEstimate = evaluation.controls.errorEstimate();
+        } else {
+            results.value = evaluation.stats.mean();
+            results.errorEstimate = evaluation.stats.errorEstimate();
+        }
+    }
+
+
+    //
+    // implements Observer
+    //
+
+    @Override
+    public void update() {
+        clear();
+    }
+
+
+    //
+    // private inner classes
+    //
+
+    /**
+     * Identifies a time grid by its times
+     */
+    private static final class GridKey {
+
+        private final double[] times;
+
+        public GridKey(final TimeGrid grid) {
+            this.times = new double[grid.size()];
+            for (int i = 0; i < times.length; i++) {
+                times[i] = grid.get(i);
+            }
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            return o instanceof GridKey && Arrays.equals(times, ((GridKey) o).times);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(times);
+        }
+    }
+
+    /**
+     * Prices a range of samples, each one of them being either a path or a pair of antithetic paths
+     */
+    private static final class Evaluation implements Callable<Evaluation> {
+
+        private final PathCube cube;
+        private final PathPricer<Path> pathPricer;
+        private final PathPricer<Path> controlPathPricer;
+        private final int from;
+        private final int to;
+
+        private final IncrementalStatistics stats;
+        private final ControlVariateStatistics controls;
+
+        public Evaluation(
+                final PathCube cube, final PathPricer<Path> pathPricer, final PathPricer<Path> controlPathPricer,
+                final int from, final int to) {
+            this.cube = cube;
+            this.pathPricer = pathPricer;
+            this.controlPathPricer = controlPathPricer;
+            this.from = from;
+            this.to = to;
+            this.stats = new IncrementalStatistics();
+            this.controls = new ControlVariateStatistics();
+        }
+
+        @Override
+        public Evaluation call() {
+            final Path path = new Path(cube.timeGrid());
+            final boolean antithetic = cube.antithetic();
+            for (int j = from; j < to; j++) {
+                final int p = antithetic ? 2*j : j;
+                cube.get(p, path);
+                double price = pathPricer.op(path);
+                double control = (controlPathPricer != null) ? controlPathPricer.op(path) : 0.0;
+                if (antithetic) {
+                    cube.get(p+1, path);
+                    price = (price + pathPricer.op(path)) / 2.0;
+                    if (controlPathPricer != null) {
+                        control = (control + controlPathPricer.op(path)) / 2.0;
+                    }
+                }
+                stats.add(price, 1.0);
+                if (controlPathPricer != null) {
+                    controls.add(price, control);
+                }
+            }
+            return this;
+        }
+    }
+
+}
@@ -39,25 +39,255 @@
 
 package org.jquantlib.pricingengines;
 
-import org.jquantlib.math.randomnumbers.RandomNumberGenerator;
-import org.jquantlib.math.statistics.Statistics;
-import org.jquantlib.methods.montecarlo.Variate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.jquantlib.QL;
+import org.jquantlib.instruments.Instrument;
+import org.jquantlib.math.Constants;
+import org.jquantlib.math.randomnumbers.InverseCumulativeRsg;
+import org.jquantlib.math.randomnumbers.LowDiscrepancy;
+import org.jquantlib.math.randomnumbers.PseudoRandom;
+import org.jquantlib.math.randomnumbers.SFMTPseudoRandom;
+import org.jquantlib.math.randomnumbers.UniformRandomSequenceGenerator;
+import org.jquantlib.math.randomnumbers.ZigguratRsg;
+import org.jquantlib.math.statistics.IncrementalStatistics;
+import org.jquantlib.methods.montecarlo.MonteCarloModel;
+import org.jquantlib.methods.montecarlo.Path;
+import org.jquantlib.methods.montecarlo.PathGenerator;
+import org.jquantlib.methods.montecarlo.PathPricer;
+import org.jquantlib.processes.GeneralizedBlackScholesProcess;
+import org.jquantlib.time.TimeGrid;
+import org.jquantlib.util.ThreadPool;
 
 /**
  *
- * Base class for Monte Carlo engines
+ * Monte Carlo simulation shared by Monte Carlo engines
+ * <p>
+ * In QuantLib/C++ Monte Carlo engines derive from McSimulation as well as from the engine of their instrument. In JQuantLib
+ * engines already extend the {@link GenericEngine} of their instrument, hence they hold an instance of this class and delegate
+ * the simulation to it, providing the time grid and the path pricer.
  * <p>
- * Eventually this class might offer greeks methods. Deriving a class from McSimulation gives an easy way to write a Monte Carlo
- * engine.
+ * The following variance reduction techniques are available, and can be combined:
+ * <ul>
+ * <li>antithetic variates, which price each path together with its mirror image;</li>
+ * <li>control variates, which correct prices by the error made on a similar product whose value is known in closed form.
+ * The correction coefficient is estimated from the same samples so that the variance of the estimate is minimized;</li>
+ * <li>importance sampling, which shifts the Gaussian variates driving the paths by a given drift and weights prices by the
+ * corresponding likelihood ratio;</li>
+ * <li>randomized low-discrepancy sequences, split into independent replicas which are simulated in parallel.</li>
+ * </ul>
+ * Pseudo-random sampling draws its Gaussian variates from one of the generators listed by {@link PseudoRandomGenerator}.
  *
- * @ee McVanillaEngine
+ * @see MonteCarloModel
+ * @see PathGenerator
  *
  * @author Richard Gomes
  */
-public class MCSimulation<MC extends Variate, RNG extends RandomNumberGenerator, S extends Statistics> {
+public class MCSimulation {
+
+    private static final String NUMBER_OF_SAMPLES_NOT_GIVEN = "number of samples not given";
+    private static final String AT_LEAST_TWO_REPLICAS = "at least two replicas are required for an error estimate";
+    private static final String CONTROL_VARIATE_VALUE_NOT_GIVEN = "control variate value not given";
+    private static final String GENERATOR_WITH_REPLICAS = "pseudo-random generator given for low-discrepancy replicas";
+
+
+    //
+    // public inner enums
+    //
+
+    /**
+     * Sources of Gaussian variates for pseudo-random sampling
+     */
+    public enum PseudoRandomGenerator {
+        /**
+         * {@link org.jquantlib.math.randomnumbers.MersenneTwisterUniformRng} followed by the inverse cumulative normal
+         */
+        MersenneTwister,
+
+        /**
+         * {@link org.jquantlib.math.randomnumbers.SFMTUniformRng} followed by the inverse cumulative normal
+         */
+        SFMT,
+
+        /**
+         * {@link org.jquantlib.math.randomnumbers.ZigguratRng}, which produces Gaussian variates directly
+         */
+        Ziggurat
+    }
+
+
+    //
+    // private final fields
+    //
+
+    private final GeneralizedBlackScholesProcess process;
+    private final boolean brownianBridge;
+    private final boolean antitheticVariate;
+    private final /*@NonNegative*/ int requiredSamples;
+    private final /*@NonNegative*/ long seed;
+    private final /*@NonNegative*/ int replicas;
+    private final PseudoRandomGenerator generator;
+
+
+    //
+    // public constructors
+    //
+
+    /**
+     * @param process is the underlying process
+     * @param brownianBridge tells whether paths are built by means of a Brownian bridge
+     * @param antitheticVariate tells whether antithetic paths are added to each sample
+     * @param requiredSamples is the number of samples, for each replica when low-discrepancy sequences are used
+     * @param seed is the seed of the random number generator
+     * @param replicas is the number of randomized low-discrepancy replicas, or zero for pseudo-random sampling
+     */
+    public MCSimulation(
+            final GeneralizedBlackScholesProcess process,
+            final boolean brownianBridge,
+            final boolean antitheticVariate,
+            final /*@NonNegative*/ int requiredSamples,
+            final /*@NonNegative*/ long seed,
+            final /*@NonNegative*/ int replicas) {
+        this(process, brownianBridge, antitheticVariate, requiredSamples, seed, replicas, PseudoRandomGenerator.MersenneTwister);
+    }
+
+    /**
+     * @param generator is the source of Gaussian variates for pseudo-random sampling, which must be
+     *        {@link PseudoRandomGenerator#MersenneTwister} when low-discrepancy replicas are required
+     *
+     * @see #MCSimulation(GeneralizedBlackScholesProcess, boolean, boolean, int, long, int)
+     */
+    public MCSimulation(
+            final GeneralizedBlackScholesProcess process,
+            final boolean brownianBridge,
+            final boolean antitheticVariate,
+            final /*@NonNegative*/ int requiredSamples,
+            final /*@NonNegative*/ long seed,
+            final /*@NonNegative*/ int replicas,
+            final PseudoRandomGenerator generator) {
+        QL.require(requiredSamples != Constants.NULL_INTEGER && requiredSamples > 0, NUMBER_OF_SAMPLES_NOT_GIVEN); // TODO: message
+        QL.require(replicas == 0 || replicas > 1, AT_LEAST_TWO_REPLICAS); // TODO: message
+        QL.require(replicas == 0 || generator == PseudoRandomGenerator.MersenneTwister, GENERATOR_WITH_REPLICAS); // TODO: message
+        this.process = process;
+        this.brownianBridge = brownianBridge;
+        this.antitheticVariate = antitheticVariate;
+        this.requiredSamples = requiredSamples;
+        this.seed = seed;
+        this.replicas = replicas;
+        this.generator = generator;
+    }
+
+
+    //
+    // public methods
+    //
+
+    /**
+     * Simulates the required number of samples and stores value and error estimate into <code>results</code>
+     */
+    public void calculate(
+            final TimeGrid grid,
+            final PathPricer<Path> pathPricer,
+            final Instrument.ResultsImpl results) /* @ReadOnly */ {
+        calculate(grid, pathPricer, null, Constants.NULL_REAL, null, results);
+    }
+
+    /**
+     * Simulates the required number of samples and stores value and error estimate into <code>results</code>
+     *
+     * @param controlPathPricer is the path pricer of the control variate, or <code>null</code> when no control is employed
+     * @param controlVariateValue is the known value of the control variate
+     * @param drift is the drift shift applied to the Gaussian variates of each time step, or <code>null</code> when importance
+     *        sampling is not required
+     */
+    public void calculate(
+            final TimeGrid grid,
+            final PathPricer<Path> pathPricer,
+            final PathPricer<Path> controlPathPricer,
+            final /*@Real*/ double controlVariateValue,
+            final double[] drift,
+            final Instrument.ResultsImpl results) /* @ReadOnly */ {
+        QL.require(controlPathPricer == null || !Double.isNaN(controlVariateValue), CONTROL_VARIATE_VALUE_NOT_GIVEN); // TODO: message
+        final int dimension = grid.size()-1;
+
+        if (replicas == 0) {
+            final MonteCarloModel<IncrementalStatistics> model =
+                model(grid, pseudoRandomGenerator(dimension), pathPricer, controlPathPricer, controlVariateValue, drift);
+            model.addSamples(requiredSamples);
+            results.value = value(model);
+            results.errorEstimate = errorEstimate(model);
+            return;
+        }
+
+        // generators and models are built by the calling thread, which owns the settings and the lazily built term
+        // structures; replicas only draw their samples concurrently
+        process.drift(0.0, process.x0());
+
+        final LowDiscrepancy ld = new LowDiscrepancy();
+        final List<Callable<Double>> tasks = new ArrayList<Callable<Double>>(replicas);
+        for (int k = 0; k < replicas; k++) {
+            final long scramblingSeed = seed + k + 1;
+            final InverseCumulativeRsg<?, ?> generator = ld.makeSequenceGenerator(dimension, seed, scramblingSeed);
+            final MonteCarloModel<IncrementalStatistics> model =
+                model(grid, generator, pathPricer, controlPathPricer, controlVariateValue, drift);
+            tasks.add(new Callable<Double>() {
+                @Override
+                public Double call() {
+                    model.addSamples(requiredSamples);
+                    return value(model);
+                }
+            });
+        }
+
+        final IncrementalStatistics estimates = new IncrementalStatistics();
+        for (final Double estimate : ThreadPool.invokeAll(tasks)) {
+            estimates.add(estimate);
+        }
+        results.value = estimates.mean();
+        results.errorEstimate = estimates.errorEstimate();
+    }
+
+
+    //
+    // private methods
+    //
+
+    private UniformRandomSequenceGenerator pseudoRandomGenerator(final /*@NonNegative*/ int dimension) {
+        switch (generator) {
+        case SFMT:
+            return new SFMTPseudoRandom().makeSequenceGenerator(dimension, seed);
+        case Ziggurat:
+            return new ZigguratRsg(dimension, seed);
+        default:
+            return new PseudoRandom().makeSequenceGenerator(dimension, seed);
+        }
+    }
+
+    private MonteCarloModel<IncrementalStatistics> model(
+            final TimeGrid grid,
+            final UniformRandomSequenceGenerator generator,
+            final PathPricer<Path> pathPricer,
+            final PathPricer<Path> controlPathPricer,
+            final /*@Real*/ double controlVariateValue,
+            final double[] drift) {
+        final PathGenerator<UniformRandomSequenceGenerator> pathGenerator =
+            new PathGenerator<UniformRandomSequenceGenerator>(process, grid, generator, brownianBridge, drift);
+        return new MonteCarloModel<IncrementalStatistics>(
+                pathGenerator, pathPricer, new IncrementalStatistics(), antitheticVariate, controlPathPricer, controlVariateValue);
+    }
+
+    private static double value(final MonteCarloModel<IncrementalStatistics> model) {
+        if (model.controlVariateStatistics().samples() > 0)
+            return model.controlVariateStatistics().mean(model.controlVariateValue());
+        return model.sampleAccumulator().mean();
+    }
 
-    public MCSimulation() {
-        throw new UnsupportedOperationException();
+    private static double errorEstimate(final MonteCarloModel<IncrementalStatistics> model) {
+        if (model.controlVariateStatistics().samples() > 0)
+            return model.controlVariateStatistics().errorEstimate();
+        return model.sampleAccumulator().errorEstimate();
     }
 
 }
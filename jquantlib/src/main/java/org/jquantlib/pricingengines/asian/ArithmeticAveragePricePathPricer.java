@@ -0,0 +1,85 @@
+/*
+ Copyright (C) 2011 Richard Gomes
+
+ This source code is release under the BSD License.
+
+ This file is part of JQuantLib, a free-software/open-source library
+ for financial quantitative analysts and developers - http://jquantlib.org/
+
+ JQuantLib is free software: you can redistribute it and/or modify it
+ under the terms of the JQuantLib license.  You should have received a
+ copy of the license along with this program; if not, please email
+ <jquant-devel@lists.sourceforge.net>. The license is also available online at
+ <http://www.jquantlib.org/index.php/LICENSE.TXT>.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE.  See the license for more details.
+
+ JQuantLib is based on QuantLib. http://quantlib.org/
+ When applicable, the original copyright notice follows this notice.
+ */
+
+
+package org.jquantlib.pricingengines.asian;
+
+import org.jquantlib.QL;
+import org.jquantlib.instruments.Option;
+import org.jquantlib.instruments.PlainVanillaPayoff;
+import org.jquantlib.methods.montecarlo.Path;
+import org.jquantlib.methods.montecarlo.PathPricer;
+
+/**
+ * Path pricer for discrete arithmetic average price Asian options
+ * <p>
+ * The points of the path are the fixings. The first point, i.e. the spot, is a fixing only when the origin of the time grid is
+ * one of its mandatory times.
+ *
+ * @see MCDiscreteArithmeticAveragePriceAsianEngine
+ *
+ * @category mcarlo
+ */
+public class ArithmeticAveragePricePathPricer extends PathPricer<Path> {
+
+    private static final String NEGATIVE_STRIKE = "strike less than zero not allowed";
+    private static final String EMPTY_PATH = "the path cannot be empty";
+
+    private final PlainVanillaPayoff payoff;
+    private final /*@DiscountFactor*/ double discount;
+    private final /*@Real*/ double runningSum;
+    private final /*@Size*/ int pastFixings;
+
+
+    public ArithmeticAveragePricePathPricer(
+            final Option.Type type,
+            final /*@Real*/ double strike,
+            final /*@DiscountFactor*/ double discount,
+            final /*@Real*/ double runningSum,
+            final /*@Size*/ int pastFixings) {
+        QL.require(strike >= 0.0, NEGATIVE_STRIKE); // TODO: message
+        this.payoff = new PlainVanillaPayoff(type, strike);
+        this.discount = discount;
+        this.runningSum = runningSum;
+        this.pastFixings = pastFixings;
+    }
+
+
+    //
+    // implements PathPricer
+    //
+
+    @Override
+    public Double op(final Path path) /* @ReadOnly */ {
+        final int n = path.length();
+        QL.require(n > 1, EMPTY_PATH); // TODO: message
+        final double[] values = path.getValues_();
+        final int first = (path.getTimeGrid_().mandatoryTimes().get(0) == 0.0) ? 0 : 1;
+        double sum = runningSum;
+        for (int i = first; i < n; i++) {
+            sum += values[i];
+        }
+        final double averagePrice = sum / (pastFixings + n - first);
+        return discount * payoff.get(averagePrice);
+    }
+
+}
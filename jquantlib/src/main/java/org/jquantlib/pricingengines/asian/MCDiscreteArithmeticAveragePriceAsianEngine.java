@@ -0,0 +1,198 @@
+/*
+ Copyright (C) 2011 Richard Gomes
+
+ This source code is release under the BSD License.
+
+ This file is part of JQuantLib, a free-software/open-source library
+ for financial quantitative analysts and developers - http://jquantlib.org/
+
+ JQuantLib is free software: you can redistribute it and/or modify it
+ under the terms of the JQuantLib license.  You should have received a
+ copy of the license along with this program; if not, please email
+ <jquant-devel@lists.sourceforge.net>. The license is also available online at
+ <http://www.jquantlib.org/index.php/LICENSE.TXT>.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE.  See the license for more details.
+
+ JQuantLib is based on QuantLib. http://quantlib.org/
+ When applicable, the original copyright notice follows this notice.
+ */
+
+
+package org.jquantlib.pricingengines.asian;
+
+import org.jquantlib.QL;
+import org.jquantlib.exercise.Exercise;
+import org.jquantlib.instruments.AverageType;
+import org.jquantlib.instruments.DiscreteAveragingAsianOption;
+import org.jquantlib.instruments.PlainVanillaPayoff;
+import org.jquantlib.math.Constants;
+import org.jquantlib.math.matrixutilities.Array;
+import org.jquantlib.methods.montecarlo.Path;
+import org.jquantlib.methods.montecarlo.PathPricer;
+import org.jquantlib.pricingengines.MCPathCache;
+import org.jquantlib.pricingengines.MCSimulation;
+import org.jquantlib.processes.GeneralizedBlackScholesProcess;
+import org.jquantlib.time.Date;
+import org.jquantlib.time.TimeGrid;
+
+/**
+ * Monte Carlo pricing engine for discrete arithmetic average price Asian options
+ * <p>
+ * Paths are simulated on the remaining fixing dates only. When the control variate is enabled, the discrete geometric average
+ * price option on the same fixings is employed as control: its value is given by
+ * {@link AnalyticDiscreteGeometricAveragePriceAsianEngine} and, the two averages being very highly correlated, the error of
+ * the estimate is usually reduced by one order of magnitude or more for the same number of paths.
+ * <p>
+ * When a {@link MCPathCache} is given, paths are taken from the cache, so that all options with the same fixing times are
+ * priced from a single simulation.
+ *
+ * @see MakeMCDiscreteArithmeticAveragePriceAsianEngine
+ * @see MCSimulation
+ * @see MCPathCache
+ *
+ * @category asianengines
+ */
+public class MCDiscreteArithmeticAveragePriceAsianEngine extends DiscreteAveragingAsianOption.EngineImpl {
+
+    private static final String NOT_AN_EUROPEAN_OPTION = "not an European Option";
+    private static final String NON_PLAIN_PAYOFF_GIVEN = "non-plain payoff given";
+    private static final String NOT_AN_ARITHMETIC_AVERAGE = "not an arithmetic average option";
+    private static final String NO_FUTURE_FIXINGS = "no future fixings given";
+
+
+    //
+    // private final fields
+    //
+
+    private final GeneralizedBlackScholesProcess process;
+    private final DiscreteAveragingAsianOption.ArgumentsImpl a;
+    private final DiscreteAveragingAsianOption.ResultsImpl r;
+    private final boolean controlVariate;
+    private final MCSimulation simulation;
+    private final MCPathCache cache;
+
+
+    //
+    // public constructors
+    //
+
+    /**
+     * @param process is the underlying process
+     * @param brownianBridge tells whether paths are built by means of a Brownian bridge
+     * @param antitheticVariate tells whether antithetic paths are added to each sample
+     * @param controlVariate tells whether the geometric average price option is employed as control variate
+     * @param requiredSamples is the number of samples, for each replica when low-discrepancy sequences are used
+     * @param seed is the seed of the random number generator
+     * @param replicas is the number of randomized low-discrepancy replicas, or zero for pseudo-random sampling
+     */
+    public MCDiscreteArithmeticAveragePriceAsianEngine(
+            final GeneralizedBlackScholesProcess process,
+            final boolean brownianBridge,
+            final boolean antitheticVariate,
+            final boolean controlVariate,
+            final /*@NonNegative*/ int requiredSamples,
+            final /*@NonNegative*/ long seed,
+            final /*@NonNegative*/ int replicas) {
+        this.a = (DiscreteAveragingAsianOption.ArgumentsImpl)arguments_;
+        this.r = (DiscreteAveragingAsianOption.ResultsImpl)results_;
+        this.process = process;
+        this.controlVariate = controlVariate;
+        this.simulation = new MCSimulation(process, brownianBridge, antitheticVariate, requiredSamples, seed, replicas);
+        this.cache = null;
+        this.process.addObserver(this);
+    }
+
+    /**
+     * @param process is the underlying process, which must be the process of the cache
+     * @param cache provides the simulated paths
+     * @param controlVariate tells whether the geometric average price option is employed as control variate
+     */
+    public MCDiscreteArithmeticAveragePriceAsianEngine(
+            final GeneralizedBlackScholesProcess process,
+            final MCPathCache cache,
+            final boolean controlVariate) {
+        this.a = (DiscreteAveragingAsianOption.ArgumentsImpl)arguments_;
+        this.r = (DiscreteAveragingAsianOption.ResultsImpl)results_;
+        this.process = process;
+        this.controlVariate = controlVariate;
+        this.simulation = null;
+        this.cache = cache;
+        this.process.addObserver(this);
+    }
+
+
+    //
+    // implements PricingEngine
+    //
+
+    @Override
+    public void calculate() /* @ReadOnly */ {
+        QL.require(a.exercise.type() == Exercise.Type.European, NOT_AN_EUROPEAN_OPTION); // TODO: message
+        QL.require(a.payoff instanceof PlainVanillaPayoff, NON_PLAIN_PAYOFF_GIVEN); // TODO: message
+        QL.require(a.averageType == AverageType.Arithmetic, NOT_AN_ARITHMETIC_AVERAGE); // TODO: message
+        final PlainVanillaPayoff payoff = (PlainVanillaPayoff) a.payoff;
+
+        final TimeGrid grid = timeGrid();
+        final /*@DiscountFactor*/ double discount = process.riskFreeRate().currentLink().discount(a.exercise.lastDate());
+        final PathPricer<Path> pathPricer = new ArithmeticAveragePricePathPricer(
+                payoff.optionType(), payoff.strike(), discount, a.runningAccumulator, a.pastFixings);
+
+        final PathPricer<Path> controlPathPricer =
+            controlVariate ? new GeometricAveragePricePathPricer(payoff.optionType(), payoff.strike(), discount) : null;
+        final double controlValue = controlVariate ? controlVariateValue() : Constants.NULL_REAL;
+        if (cache != null) {
+            cache.calculate(grid, pathPricer, controlPathPricer, controlValue, r);
+        } else {
+            simulation.calculate(grid, pathPricer, controlPathPricer, controlValue, null, r);
+        }
+    }
+
+
+    //
+    // private methods
+    //
+
+    /**
+     * @return a time grid whose points are the origin and the future fixing times
+     */
+    private TimeGrid timeGrid() /* @ReadOnly */ {
+        int n = 0;
+        final double[] times = new double[a.fixingDates.size()];
+        for (final Date fixingDate : a.fixingDates) {
+            final /*@Time*/ double t = process.time(fixingDate);
+            if (t >= 0.0) {
+                times[n++] = t;
+            }
+        }
+        QL.require(n > 0 && times[n-1] > 0.0, NO_FUTURE_FIXINGS); // TODO: message
+        final Array mandatoryTimes = new Array(n);
+        for (int i = 0; i < n; i++) {
+            mandatoryTimes.set(i, times[i]);
+        }
+        return new TimeGrid(mandatoryTimes);
+    }
+
+    /**
+     * Prices the geometric average price option on the same fixings in closed form
+     * <p>
+     * The average type of the arguments is left arithmetic, which tells the analytic engine to disregard past fixings, as
+     * {@link GeometricAveragePricePathPricer} does.
+     */
+    private /*@Real*/ double controlVariateValue() /* @ReadOnly */ {
+        final AnalyticDiscreteGeometricAveragePriceAsianEngine engine = new AnalyticDiscreteGeometricAveragePriceAsianEngine(process);
+        final DiscreteAveragingAsianOption.ArgumentsImpl controlArguments =
+            (DiscreteAveragingAsianOption.ArgumentsImpl) engine.getArguments();
+        controlArguments.payoff = a.payoff;
+        controlArguments.exercise = a.exercise;
+        controlArguments.averageType = a.averageType;
+        controlArguments.runningAccumulator = a.runningAccumulator;
+        controlArguments.pastFixings = 0;
+        controlArguments.fixingDates = a.fixingDates;
+        engine.calculate();
+        return ((DiscreteAveragingAsianOption.ResultsImpl) engine.getResults()).value;
+    }
+
+}
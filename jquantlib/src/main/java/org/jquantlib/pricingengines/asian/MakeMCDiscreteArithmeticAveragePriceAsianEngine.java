@@ -0,0 +1,123 @@
+/*
+ Copyright (C) 2011 Richard Gomes
+
+ This source code is release under the BSD License.
+
+ This file is part of JQuantLib, a free-software/open-source library
+ for financial quantitative analysts and developers - http://jquantlib.org/
+
+ JQuantLib is free software: you can redistribute it and/or modify it
+ under the terms of the JQuantLib license.  You should have received a
+ copy of the license along with this program; if not, please email
+ <jquant-devel@lists.sourceforge.net>. The license is also available online at
+ <http://www.jquantlib.org/index.php/LICENSE.TXT>.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE.  See the license for more details.
+
+ JQuantLib is based on QuantLib. http://quantlib.org/
+ When applicable, the original copyright notice follows this notice.
+ */
+
+
+package org.jquantlib.pricingengines.asian;
+
+import org.jquantlib.QL;
+import org.jquantlib.math.Constants;
+import org.jquantlib.pricingengines.MCPathCache;
+import org.jquantlib.pricingengines.PricingEngine;
+import org.jquantlib.processes.GeneralizedBlackScholesProcess;
+
+/**
+ * Monte Carlo discrete arithmetic average price Asian engine factory
+ * <p>
+ * Pseudo-random numbers are employed by default. {@link #withLowDiscrepancy(int)} switches to randomized low-discrepancy
+ * sequences, which are split into the given number of independent replicas in order to provide an error estimate.
+ *
+ * @see MCDiscreteArithmeticAveragePriceAsianEngine
+ */
+public class MakeMCDiscreteArithmeticAveragePriceAsianEngine {
+
+    private static final String NUMBER_OF_SAMPLES_NOT_GIVEN = "number of samples not given";
+
+    private final GeneralizedBlackScholesProcess process;
+
+    private boolean antithetic;
+    private boolean controlVariate;
+    private boolean brownianBridge;
+    private /*@NonNegative*/ int samples;
+    private /*@NonNegative*/ long seed;
+    private /*@NonNegative*/ int replicas;
+    private MCPathCache cache;
+
+
+    public MakeMCDiscreteArithmeticAveragePriceAsianEngine(final GeneralizedBlackScholesProcess process) {
+        this.process = process;
+        this.antithetic = false;
+        this.controlVariate = false;
+        this.brownianBridge = true;
+        this.samples = Constants.NULL_INTEGER;
+        this.seed = 0;
+        this.replicas = 0;
+        this.cache = null;
+    }
+
+
+    //
+    // public methods
+    //
+
+    public MakeMCDiscreteArithmeticAveragePriceAsianEngine withBrownianBridge(final boolean b) {
+        this.brownianBridge = b;
+        return this;
+    }
+
+    public MakeMCDiscreteArithmeticAveragePriceAsianEngine withAntitheticVariate(final boolean b) {
+        this.antithetic = b;
+        return this;
+    }
+
+    public MakeMCDiscreteArithmeticAveragePriceAsianEngine withControlVariate(final boolean b) {
+        this.controlVariate = b;
+        return this;
+    }
+
+    public MakeMCDiscreteArithmeticAveragePriceAsianEngine withSamples(final /*@NonNegative*/ int samples) {
+        this.samples = samples;
+        return this;
+    }
+
+    public MakeMCDiscreteArithmeticAveragePriceAsianEngine withSeed(final /*@NonNegative*/ long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Uses randomized low-discrepancy sequences instead of pseudo-random numbers
+     *
+     * @param replicas is the number of independent replicas, which must be at least 2
+     */
+    public MakeMCDiscreteArithmeticAveragePriceAsianEngine withLowDiscrepancy(final /*@NonNegative*/ int replicas) {
+        this.replicas = replicas;
+        return this;
+    }
+
+    /**
+     * Takes paths from a cache shared with other engines, which determines the number of samples, the seed and the path
+     * construction
+     */
+    public MakeMCDiscreteArithmeticAveragePriceAsianEngine withPathCache(final MCPathCache cache) {
+        this.cache = cache;
+        return this;
+    }
+
+    public PricingEngine value() /* @ReadOnly */ {
+        if (cache != null)
+            return new MCDiscreteArithmeticAveragePriceAsianEngine(process, cache, controlVariate);
+        QL.require(samples != Constants.NULL_INTEGER, NUMBER_OF_SAMPLES_NOT_GIVEN); // TODO: message
+        return new MCDiscreteArithmeticAveragePriceAsianEngine(
+                process, brownianBridge, antithetic, controlVariate, samples, seed, replicas);
+    }
+
+}
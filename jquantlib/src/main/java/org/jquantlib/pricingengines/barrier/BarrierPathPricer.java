@@ -0,0 +1,119 @@
+/*
+ Copyright (C) 2011 Richard Gomes
+
+ This source code is release under the BSD License.
+
+ This file is part of JQuantLib, a free-software/open-source library
+ for financial quantitative analysts and developers - http://jquantlib.org/
+
+ JQuantLib is free software: you can redistribute it and/or modify it
+ under the terms of the JQuantLib license.  You should have received a
+ copy of the license along with this program; if not, please email
+ <jquant-devel@lists.sourceforge.net>. The license is also available online at
+ <http://www.jquantlib.org/index.php/LICENSE.TXT>.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE.  See the license for more details.
+
+ JQuantLib is based on QuantLib. http://quantlib.org/
+ When applicable, the original copyright notice follows this notice.
+ */
+
+
+package org.jquantlib.pricingengines.barrier;
+
+import org.jquantlib.QL;
+import org.jquantlib.instruments.BarrierType;
+import org.jquantlib.instruments.Option;
+import org.jquantlib.instruments.PlainVanillaPayoff;
+import org.jquantlib.methods.montecarlo.Path;
+import org.jquantlib.methods.montecarlo.PathPricer;
+
+/**
+ * Path pricer for continuously monitored barrier options
+ * <p>
+ * Between two consecutive points of a path, the logarithm of the underlying is a Brownian bridge, which crosses the barrier
+ * with probability {@latex$ p_i = \exp(-2 \ln(S_i/B) \ln(S_{i+1}/B) / v_i) }, where {@latex$ v_i } is the variance of the
+ * logarithm over the time step. Instead of sampling crossings, the payoff of knock-out options is weighted by the survival
+ * probability {@latex$ \prod_i (1-p_i) }, which is the expectation of the payoff conditional on the path and hence has a
+ * smaller variance. Knock-in options are priced as the difference between the plain option and the knock-out option, which
+ * holds as rebates are not supported.
+ * <p>
+ * Prices are unbiased even with a single time step when volatility is deterministic.
+ *
+ * @see BiasedBarrierPathPricer
+ * @see MCBarrierEngine
+ *
+ * @category mcarlo
+ */
+public class BarrierPathPricer extends PathPricer<Path> {
+
+    private static final String NEGATIVE_STRIKE = "strike less than zero not allowed";
+    private static final String INCOMPATIBLE_VARIANCES = "one variance is required for each time step";
+    private static final String UNKNOWN_TYPE = "unknown barrier type";
+
+    private final BarrierType barrierType;
+    private final /*@Real*/ double barrier;
+    private final PlainVanillaPayoff payoff;
+    private final /*@DiscountFactor*/ double discount;
+    private final /*@Variance*/ double[] variances;
+
+
+    /**
+     * @param variances are the variances of the logarithm of the underlying over each time step
+     */
+    public BarrierPathPricer(
+            final BarrierType barrierType,
+            final /*@Real*/ double barrier,
+            final Option.Type type,
+            final /*@Real*/ double strike,
+            final /*@DiscountFactor*/ double discount,
+            final /*@Variance*/ double[] variances) {
+        QL.require(strike >= 0.0, NEGATIVE_STRIKE); // TODO: message
+        QL.require(barrierType != BarrierType.Unknown, UNKNOWN_TYPE); // TODO: message
+        this.barrierType = barrierType;
+        this.barrier = barrier;
+        this.payoff = new PlainVanillaPayoff(type, strike);
+        this.discount = discount;
+        this.variances = variances.clone();
+    }
+
+
+    //
+    // implements PathPricer
+    //
+
+    @Override
+    public Double op(final Path path) /* @ReadOnly */ {
+        final int n = path.length();
+        QL.require(n-1 == variances.length, INCOMPATIBLE_VARIANCES); // TODO: message
+        final double[] values = path.getValues_();
+        final boolean down = barrierType == BarrierType.DownIn || barrierType == BarrierType.DownOut;
+
+        double survival = 1.0;
+        double previous = Math.log(values[0] / barrier);
+        if (down ? previous <= 0.0 : previous >= 0.0) {
+            survival = 0.0;
+        }
+        for (int i = 1; i < n && survival > 0.0; i++) {
+            final double current = Math.log(values[i] / barrier);
+            if (down ? current <= 0.0 : current >= 0.0) {
+                survival = 0.0;
+            } else {
+                survival *= 1.0 - Math.exp(-2.0 * previous * current / variances[i-1]);
+            }
+            previous = current;
+        }
+
+        final double plain = payoff.get(values[n-1]) * discount;
+        switch (barrierType) {
+        case DownOut:
+        case UpOut:
+            return plain * survival;
+        default:
+            return plain * (1.0 - survival);
+        }
+    }
+
+}
@@ -0,0 +1,90 @@
+/*
+ Copyright (C) 2011 Richard Gomes
+
+ This source code is release under the BSD License.
+
+ This file is part of JQuantLib, a free-software/open-source library
+ for financial quantitative analysts and developers - http://jquantlib.org/
+
+ JQuantLib is free software: you can redistribute it and/or modify it
+ under the terms of the JQuantLib license.  You should have received a
+ copy of the license along with this program; if not, please email
+ <jquant-devel@lists.sourceforge.net>. The license is also available online at
+ <http://www.jquantlib.org/index.php/LICENSE.TXT>.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE.  See the license for more details.
+
+ JQuantLib is based on QuantLib. http://quantlib.org/
+ When applicable, the original copyright notice follows this notice.
+ */
+
+
+package org.jquantlib.pricingengines.barrier;
+
+import org.jquantlib.QL;
+import org.jquantlib.instruments.BarrierType;
+import org.jquantlib.instruments.Option;
+import org.jquantlib.instruments.PlainVanillaPayoff;
+import org.jquantlib.methods.montecarlo.Path;
+import org.jquantlib.methods.montecarlo.PathPricer;
+
+/**
+ * Path pricer for discretely monitored barrier options
+ * <p>
+ * The barrier is only checked at the points of the path after the first one. This is the exact payoff of an option whose
+ * barrier is monitored at the times of the time grid, whilst it overestimates knock-out options and underestimates knock-in
+ * options when the barrier is monitored continuously.
+ *
+ * @see BarrierPathPricer
+ * @see MCBarrierEngine
+ *
+ * @category mcarlo
+ */
+public class BiasedBarrierPathPricer extends PathPricer<Path> {
+
+    private static final String NEGATIVE_STRIKE = "strike less than zero not allowed";
+    private static final String UNKNOWN_TYPE = "unknown barrier type";
+
+    private final BarrierType barrierType;
+    private final /*@Real*/ double barrier;
+    private final PlainVanillaPayoff payoff;
+    private final /*@DiscountFactor*/ double discount;
+
+
+    public BiasedBarrierPathPricer(
+            final BarrierType barrierType,
+            final /*@Real*/ double barrier,
+            final Option.Type type,
+            final /*@Real*/ double strike,
+            final /*@DiscountFactor*/ double discount) {
+        QL.require(strike >= 0.0, NEGATIVE_STRIKE); // TODO: message
+        QL.require(barrierType != BarrierType.Unknown, UNKNOWN_TYPE); // TODO: message
+        this.barrierType = barrierType;
+        this.barrier = barrier;
+        this.payoff = new PlainVanillaPayoff(type, strike);
+        this.discount = discount;
+    }
+
+
+    //
+    // implements PathPricer
+    //
+
+    @Override
+    public Double op(final Path path) /* @ReadOnly */ {
+        final int n = path.length();
+        final double[] values = path.getValues_();
+        final boolean down = barrierType == BarrierType.DownIn || barrierType == BarrierType.DownOut;
+
+        boolean hit = false;
+        for (int i = 1; i < n && !hit; i++) {
+            hit = down ? values[i] <= barrier : values[i] >= barrier;
+        }
+
+        final boolean active = (barrierType == BarrierType.DownIn || barrierType == BarrierType.UpIn) ? hit : !hit;
+        return active ? payoff.get(values[n-1]) * discount : 0.0;
+    }
+
+}
@@ -0,0 +1,200 @@
+/*
+ Copyright (C) 2011 Richard Gomes
+
+ This source code is release under the BSD License.
+
+ This file is part of JQuantLib, a free-software/open-source library
+ for financial quantitative analysts and developers - http://jquantlib.org/
+
+ JQuantLib is free software: you can redistribute it and/or modify it
+ under the terms of the JQuantLib license.  You should have received a
+ copy of the license along with this program; if not, please email
+ <jquant-devel@lists.sourceforge.net>. The license is also available online at
+ <http://www.jquantlib.org/index.php/LICENSE.TXT>.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE.  See the license for more details.
+
+ JQuantLib is based on QuantLib. http://quantlib.org/
+ When applicable, the original copyright notice follows this notice.
+ */
+
+
+package org.jquantlib.pricingengines.barrier;
+
+import org.jquantlib.QL;
+import org.jquantlib.exercise.Exercise;
+import org.jquantlib.instruments.BarrierOption;
+import org.jquantlib.instruments.PlainVanillaPayoff;
+import org.jquantlib.math.Constants;
+import org.jquantlib.methods.montecarlo.Path;
+import org.jquantlib.methods.montecarlo.PathPricer;
+import org.jquantlib.pricingengines.MCPathCache;
+import org.jquantlib.pricingengines.MCSimulation;
+import org.jquantlib.processes.GeneralizedBlackScholesProcess;
+import org.jquantlib.termstructures.BlackVolTermStructure;
+import org.jquantlib.time.TimeGrid;
+
+/**
+ * Monte Carlo pricing engine for barrier options
+ * <p>
+ * When the engine is biased, the barrier is only monitored at the points of the time grid, which gives the exact value of
+ * a discretely monitored option. Otherwise the barrier is monitored continuously by means of {@link BarrierPathPricer},
+ * which corrects each time step with the probability that the Brownian bridge between its end points crosses the barrier.
+ * <p>
+ * When a {@link MCPathCache} is given, paths are taken from the cache, so that all options with the same time grid, such
+ * as a book of barriers with different levels and strikes on the same expiry, are priced from a single simulation.
+ * <p>
+ * Rebates are not supported.
+ *
+ * @see MakeMCBarrierEngine
+ * @see MCSimulation
+ * @see MCPathCache
+ *
+ * @category barrierengines
+ */
+public class MCBarrierEngine extends BarrierOption.EngineImpl {
+
+    private static final String NOT_AN_EUROPEAN_OPTION = "not an European Option";
+    private static final String NON_PLAIN_PAYOFF_GIVEN = "non-plain payoff given";
+    private static final String REBATE_NOT_SUPPORTED = "rebate not supported by Monte Carlo barrier engine";
+    private static final String STEPS_NOT_GIVEN = "number of steps or number of steps per year must be given";
+
+
+    //
+    // private final fields
+    //
+
+    private final GeneralizedBlackScholesProcess process;
+    private final BarrierOption.ArgumentsImpl a;
+    private final BarrierOption.ResultsImpl r;
+    private final /*@NonNegative*/ int timeSteps;
+    private final /*@NonNegative*/ int timeStepsPerYear;
+    private final boolean isBiased;
+    private final MCSimulation simulation;
+    private final MCPathCache cache;
+
+
+    //
+    // public constructors
+    //
+
+    /**
+     * @param process is the underlying process
+     * @param timeSteps is the number of time steps, or {@link Constants#NULL_INTEGER}
+     * @param timeStepsPerYear is the number of time steps per year, or {@link Constants#NULL_INTEGER}
+     * @param brownianBridge tells whether paths are built by means of a Brownian bridge
+     * @param antitheticVariate tells whether antithetic paths are added to each sample
+     * @param requiredSamples is the number of samples, for each replica when low-discrepancy sequences are used
+     * @param seed is the seed of the random number generator
+     * @param replicas is the number of randomized low-discrepancy replicas, or zero for pseudo-random sampling
+     * @param isBiased tells whether the barrier is only monitored at the points of the time grid
+     */
+    public MCBarrierEngine(
+            final GeneralizedBlackScholesProcess process,
+            final /*@NonNegative*/ int timeSteps,
+            final /*@NonNegative*/ int timeStepsPerYear,
+            final boolean brownianBridge,
+            final boolean antitheticVariate,
+            final /*@NonNegative*/ int requiredSamples,
+            final /*@NonNegative*/ long seed,
+            final /*@NonNegative*/ int replicas,
+            final boolean isBiased) {
+        this(process, timeSteps, timeStepsPerYear, isBiased,
+             new MCSimulation(process, brownianBridge, antitheticVariate, requiredSamples, seed, replicas), null);
+    }
+
+    /**
+     * @param process is the underlying process, which must be the process of the cache
+     * @param timeSteps is the number of time steps, or {@link Constants#NULL_INTEGER}
+     * @param timeStepsPerYear is the number of time steps per year, or {@link Constants#NULL_INTEGER}
+     * @param cache provides the simulated paths
+     * @param isBiased tells whether the barrier is only monitored at the points of the time grid
+     */
+    public MCBarrierEngine(
+            final GeneralizedBlackScholesProcess process,
+            final /*@NonNegative*/ int timeSteps,
+            final /*@NonNegative*/ int timeStepsPerYear,
+            final MCPathCache cache,
+            final boolean isBiased) {
+        this(process, timeSteps, timeStepsPerYear, isBiased, null, cache);
+    }
+
+    private MCBarrierEngine(
+            final GeneralizedBlackScholesProcess process,
+            final /*@NonNegative*/ int timeSteps,
+            final /*@NonNegative*/ int timeStepsPerYear,
+            final boolean isBiased,
+            final MCSimulation simulation,
+            final MCPathCache cache) {
+        QL.require(timeSteps != Constants.NULL_INTEGER || timeStepsPerYear != Constants.NULL_INTEGER, STEPS_NOT_GIVEN); // TODO: message
+        this.a = (BarrierOption.ArgumentsImpl)arguments_;
+        this.r = (BarrierOption.ResultsImpl)results_;
+        this.process = process;
+        this.timeSteps = timeSteps;
+        this.timeStepsPerYear = timeStepsPerYear;
+        this.isBiased = isBiased;
+        this.simulation = simulation;
+        this.cache = cache;
+        this.process.addObserver(this);
+    }
+
+
+    //
+    // implements PricingEngine
+    //
+
+    @Override
+    public void calculate() /* @ReadOnly */ {
+        QL.require(a.exercise.type() == Exercise.Type.European, NOT_AN_EUROPEAN_OPTION); // TODO: message
+        QL.require(a.payoff instanceof PlainVanillaPayoff, NON_PLAIN_PAYOFF_GIVEN); // TODO: message
+        QL.require(a.rebate == 0.0, REBATE_NOT_SUPPORTED); // TODO: message
+        final PlainVanillaPayoff payoff = (PlainVanillaPayoff) a.payoff;
+
+        final TimeGrid grid = timeGrid();
+        final /*@DiscountFactor*/ double discount = process.riskFreeRate().currentLink().discount(grid.back());
+        final PathPricer<Path> pathPricer;
+        if (isBiased) {
+            pathPricer = new BiasedBarrierPathPricer(a.barrierType, a.barrier, payoff.optionType(), payoff.strike(), discount);
+        } else {
+            pathPricer = new BarrierPathPricer(a.barrierType, a.barrier, payoff.optionType(), payoff.strike(), discount,
+                                               variances(grid));
+        }
+
+        if (cache != null) {
+            cache.calculate(grid, pathPricer, r);
+        } else {
+            simulation.calculate(grid, pathPricer, r);
+        }
+    }
+
+
+    //
+    // private methods
+    //
+
+    private TimeGrid timeGrid() /* @ReadOnly */ {
+        final /*@Time*/ double t = process.time(a.exercise.lastDate());
+        if (timeSteps != Constants.NULL_INTEGER)
+            return new TimeGrid(t, timeSteps);
+        final int steps = (int) (timeStepsPerYear * t);
+        return new TimeGrid(t, Math.max(steps, 1));
+    }
+
+    /**
+     * @return the variances of the logarithm of the underlying over each time step, taken at the barrier level
+     */
+    private /*@Variance*/ double[] variances(final TimeGrid grid) /* @ReadOnly */ {
+        final BlackVolTermStructure volatility = process.blackVolatility().currentLink();
+        final double[] variances = new double[grid.size()-1];
+        /*@Variance*/ double previous = 0.0;
+        for (int i = 1; i < grid.size(); i++) {
+            final /*@Variance*/ double current = volatility.blackVariance(grid.get(i), a.barrier);
+            variances[i-1] = current - previous;
+            previous = current;
+        }
+        return variances;
+    }
+
+}
@@ -0,0 +1,142 @@
+/*
+ Copyright (C) 2011 Richard Gomes
+
+ This source code is release under the BSD License.
+
+ This file is part of JQuantLib, a free-software/open-source library
+ for financial quantitative analysts and developers - http://jquantlib.org/
+
+ JQuantLib is free software: you can redistribute it and/or modify it
+ under the terms of the JQuantLib license.  You should have received a
+ copy of the license along with this program; if not, please email
+ <jquant-devel@lists.sourceforge.net>. The license is also available online at
+ <http://www.jquantlib.org/index.php/LICENSE.TXT>.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE.  See the license for more details.
+
+ JQuantLib is based on QuantLib. http://quantlib.org/
+ When applicable, the original copyright notice follows this notice.
+ */
+
+
+package org.jquantlib.pricingengines.barrier;
+
+import org.jquantlib.QL;
+import org.jquantlib.math.Constants;
+import org.jquantlib.pricingengines.MCPathCache;
+import org.jquantlib.pricingengines.PricingEngine;
+import org.jquantlib.processes.GeneralizedBlackScholesProcess;
+
+/**
+ * Monte Carlo barrier-option engine factory
+ *
+ * @see MCBarrierEngine
+ *
+ * @category barrierengines
+ */
+public class MakeMCBarrierEngine {
+
+    private static final String NUMBER_OF_STEPS_NOT_GIVEN = "number of steps not given";
+    private static final String NUMBER_OF_SAMPLES_NOT_GIVEN = "number of samples not given";
+    private static final String STEPS_OVERSPECIFIED = "number of steps overspecified";
+
+    private final GeneralizedBlackScholesProcess process;
+
+    private boolean antithetic;
+    private boolean brownianBridge;
+    private boolean biased;
+    private /*@NonNegative*/ int steps;
+    private /*@NonNegative*/ int stepsPerYear;
+    private /*@NonNegative*/ int samples;
+    private /*@NonNegative*/ long seed;
+    private /*@NonNegative*/ int replicas;
+    private MCPathCache cache;
+
+
+    public MakeMCBarrierEngine(final GeneralizedBlackScholesProcess process) {
+        this.process = process;
+        this.antithetic = false;
+        this.brownianBridge = false;
+        this.biased = false;
+        this.steps = Constants.NULL_INTEGER;
+        this.stepsPerYear = Constants.NULL_INTEGER;
+        this.samples = Constants.NULL_INTEGER;
+        this.seed = 0;
+        this.replicas = 0;
+        this.cache = null;
+    }
+
+
+    //
+    // public methods
+    //
+
+    public MakeMCBarrierEngine withSteps(final /*@NonNegative*/ int steps) {
+        this.steps = steps;
+        return this;
+    }
+
+    public MakeMCBarrierEngine withStepsPerYear(final /*@NonNegative*/ int steps) {
+        this.stepsPerYear = steps;
+        return this;
+    }
+
+    public MakeMCBarrierEngine withBrownianBridge(final boolean b) {
+        this.brownianBridge = b;
+        return this;
+    }
+
+    public MakeMCBarrierEngine withAntitheticVariate(final boolean b) {
+        this.antithetic = b;
+        return this;
+    }
+
+    /**
+     * Monitors the barrier at the points of the time grid only, instead of continuously
+     */
+    public MakeMCBarrierEngine withBias(final boolean b) {
+        this.biased = b;
+        return this;
+    }
+
+    public MakeMCBarrierEngine withSamples(final /*@NonNegative*/ int samples) {
+        this.samples = samples;
+        return this;
+    }
+
+    public MakeMCBarrierEngine withSeed(final /*@NonNegative*/ long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Uses randomized low-discrepancy sequences instead of pseudo-random numbers
+     *
+     * @param replicas is the number of independent replicas, which must be at least 2
+     */
+    public MakeMCBarrierEngine withLowDiscrepancy(final /*@NonNegative*/ int replicas) {
+        this.replicas = replicas;
+        return this;
+    }
+
+    /**
+     * Takes paths from a cache shared with other engines, which determines the number of samples, the seed and the path
+     * construction
+     */
+    public MakeMCBarrierEngine withPathCache(final MCPathCache cache) {
+        this.cache = cache;
+        return this;
+    }
+
+    public PricingEngine value() /* @ReadOnly */ {
+        QL.require(steps != Constants.NULL_INTEGER || stepsPerYear != Constants.NULL_INTEGER, NUMBER_OF_STEPS_NOT_GIVEN); // TODO: message
+        QL.require(steps == Constants.NULL_INTEGER || stepsPerYear == Constants.NULL_INTEGER, STEPS_OVERSPECIFIED); // TODO: message
+        if (cache != null)
+            return new MCBarrierEngine(process, steps, stepsPerYear, cache, biased);
+        QL.require(samples != Constants.NULL_INTEGER, NUMBER_OF_SAMPLES_NOT_GIVEN); // TODO: message
+        return new MCBarrierEngine(process, steps, stepsPerYear, brownianBridge, antithetic, samples, seed, replicas, biased);
+    }
+
+}
@@ -0,0 +1,397 @@
+/*
+ Copyright (C) 2011 Richard Gomes
+
+ This source code is release under the BSD License.
+
+ This file is part of JQuantLib, a free-software/open-source library
+ for financial quantitative analysts and developers - http://jquantlib.org/
+
+ JQuantLib is free software: you can redistribute it and/or modify it
+ under the terms of the JQuantLib license.  You should have received a
+ copy of the license along with this program; if not, please email
+ <jquant-devel@lists.sourceforge.net>. The license is also available online at
+ <http://www.jquantlib.org/index.php/LICENSE.TXT>.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE.  See the license for more details.
+
+ JQuantLib is based on QuantLib. http://quantlib.org/
+ When applicable, the original copyright notice follows this notice.
+ */
+
+
+
+package org.jquantlib.pricingengines.vanilla;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jquantlib.QL;
+import org.jquantlib.exercise.Exercise;
+import org.jquantlib.instruments.OneAssetOption;
+import org.jquantlib.instruments.Option;
+import org.jquantlib.instruments.PlainVanillaPayoff;
+import org.jquantlib.math.integrals.TabulatedGaussLegendre;
+import org.jquantlib.model.equity.HestonModel;
+import org.jquantlib.pricingengines.GenericModelEngine;
+import org.jquantlib.processes.HestonProcess;
+import org.jquantlib.time.Date;
+
+/**
+ * Semi-analytic pricing engine for European vanilla options under the Heston model
+ * <p>
+ * Options are priced by Lewis' formula
+ * <pre>
+ *     C = D(T) [ F - sqrt(F K) / pi * Integral_0^Infinity Re[ exp(i u x) phi(u - i/2) ] / (u^2 + 1/4) du ]
+ * </pre>
+ * where {@code F} is the forward, {@code x = ln(F/K)} and {@code phi} is the characteristic function of {@code ln(S(T)/F)},
+ * which is evaluated in the form given by Albrecher et al. (2007), "The Little Heston Trap", so that no branch of the
+ * complex logarithm is ever crossed.
+ * <p>
+ * The characteristic function does not depend on the strike. The integral is therefore computed on fixed nodes, obtained by
+ * splitting the integration domain into panels, each one of them integrated by a {@link TabulatedGaussLegendre} rule, and
+ * truncated where the integrand becomes negligible, whilst an adaptive rule would choose different nodes for each strike.
+ * The values of the characteristic function at the nodes are computed once for each maturity and kept until the parameters
+ * of the model change, so that a strip of strikes, or the same maturity priced again, costs a sum over the nodes for each
+ * strike. This is what makes the engine suitable for calibration, when a whole surface is priced for each trial set of
+ * parameters.
+ * <p>
+ * Derived engines add the contribution of jumps to the characteristic function by overriding
+ * {@link #addOnTerm(double, double, double, double[])}.
+ *
+ * @see HestonModel
+ * @see BatesEngine
+ * @see BatesDoubleExpEngine
+ *
+ * @category vanillaengines
+ */
+public class AnalyticHestonEngine
+        extends GenericModelEngine<HestonModel, OneAssetOption.Arguments, OneAssetOption.Results>
+        implements OneAssetOption.Engine {
+
+    private static final String NOT_AN_EUROPEAN_OPTION = "not an European Option";
+    private static final String NON_PLAIN_PAYOFF_GIVEN = "non-plain payoff given";
+    private static final String NEGATIVE_STRIKE = "strike must be positive";
+
+    /**
+     * Width of the panels integrated by the Gauss-Legendre rule, which is reached by doubling the width of the first panel
+     * <p>
+     * Panels are smaller close to the origin, as the integrand has poles at {@code u = +/- i/2}.
+     */
+    private static final double PANEL_WIDTH = 4.0;
+    private static final double FIRST_PANEL_WIDTH = 0.5;
+
+    /**
+     * Magnitude of the integrand below which the integration domain is truncated
+     */
+    private static final double TRUNCATION = 1.0e-14;
+
+    /**
+     * Upper limit of the integration domain
+     */
+    private static final double MAX_UPPER_LIMIT = 4096.0;
+
+
+    //
+    // private final fields
+    //
+
+    private final OneAssetOption.ArgumentsImpl a;
+    private final OneAssetOption.ResultsImpl r;
+    private final TabulatedGaussLegendre rule;
+    private final Map<Double, Nodes> cache;
+
+
+    //
+    // private fields
+    //
+
+    private double[] cachedParams;
+    private double kappa, theta, sigma, rho, v0;
+    private int evaluations;
+
+
+    //
+    // public constructors
+    //
+
+    public AnalyticHestonEngine(final HestonModel model) {
+        this(model, 20);
+    }
+
+    /**
+     * @param model is the Heston model
+     * @param integrationOrder is the order of the Gauss-Legendre rule applied to each panel, which is one of the orders
+     *        tabulated by {@link TabulatedGaussLegendre}
+     */
+    public AnalyticHestonEngine(final HestonModel model, final int integrationOrder) {
+        super(model, new OneAssetOption.ArgumentsImpl(), new OneAssetOption.ResultsImpl());
+        this.a = (OneAssetOption.ArgumentsImpl)arguments_;
+        this.r = (OneAssetOption.ResultsImpl)results_;
+        this.rule = new TabulatedGaussLegendre(integrationOrder);
+        this.cache = new HashMap<Double, Nodes>();
+    }
+
+
+    //
+    // public methods
+    //
+
+    /**
+     * Prices European options with the same maturity and type and different strikes
+     * <p>
+     * The characteristic function is evaluated once for all strikes, unless its values for the maturity are cached already.
+     *
+     * @param type is the type of the options
+     * @param strikes are the strikes of the options
+     * @param maturity is the maturity of the options
+     * @return the values of the options
+     */
+    public double[] values(final Option.Type type, final /*@Real*/ double[] strikes, final Date maturity) {
+        final HestonProcess process = model.process();
+        final /*@Time*/ double t = process.time(maturity);
+        final /*@DiscountFactor*/ double riskFreeDiscount = process.riskFreeRate().currentLink().discount(maturity);
+        final /*@DiscountFactor*/ double dividendDiscount = process.dividendYield().currentLink().discount(maturity);
+        final /*@Real*/ double forward = process.s0().currentLink().value() * dividendDiscount / riskFreeDiscount;
+
+        final Nodes nodes = nodes(t);
+        final int order = nodes.x.length;
+        final double[] cr = new double[order];
+        final double[] ci = new double[order];
+        final double[] values = new double[strikes.length];
+        for (int k = 0; k < strikes.length; k++) {
+            final /*@Real*/ double strike = strikes[k];
+            QL.require(strike > 0.0, NEGATIVE_STRIKE); // TODO: message
+            final double x = Math.log(forward / strike);
+
+            // exp(i u x) is the product of exp(i mid x), which is advanced by a constant factor along panels of equal width,
+            // and of exp(i half x_j x), which only changes with the width of the panels
+            double integral = 0.0;
+            double lastHalf = Double.NaN;
+            double er = 0.0, ei = 0.0, sr = 0.0, si = 0.0;
+            for (int p = 0, n = 0; p < nodes.mid.length; p++) {
+                final double half = nodes.half[p];
+                if (half != lastHalf) {
+                    for (int j = 0; j < order; j++) {
+                        cr[j] = Math.cos(half * nodes.x[j] * x);
+                        ci[j] = Math.sin(half * nodes.x[j] * x);
+                    }
+                    er = Math.cos(nodes.mid[p] * x);
+                    ei = Math.sin(nodes.mid[p] * x);
+                    sr = Math.cos(2.0 * half * x);
+                    si = Math.sin(2.0 * half * x);
+                    lastHalf = half;
+                } else {
+                    final double tr = er * sr - ei * si;
+                    ei = er * si + ei * sr;
+                    er = tr;
+                }
+                for (int j = 0; j < order; j++, n++) {
+                    final double ar = er * cr[j] - ei * ci[j];
+                    final double ai = er * ci[j] + ei * cr[j];
+                    integral += ar * nodes.re[n] - ai * nodes.im[n];
+                }
+            }
+            final double call = riskFreeDiscount * (forward - Math.sqrt(forward * strike) / Math.PI * integral);
+            final double value = (type == Option.Type.Call) ? call : call - riskFreeDiscount * (forward - strike);
+            // far out of the money, round-off can make the value slightly negative
+            values[k] = Math.max(value, 0.0);
+        }
+        return values;
+    }
+
+    /**
+     * @return the number of evaluations of the characteristic function since the engine was built
+     */
+    public int numberOfEvaluations() {
+        return evaluations;
+    }
+
+
+    //
+    // implements PricingEngine
+    //
+
+    @Override
+    public void calculate() {
+        QL.require(a.exercise.type() == Exercise.Type.European, NOT_AN_EUROPEAN_OPTION); // TODO: message
+        QL.require(a.payoff instanceof PlainVanillaPayoff, NON_PLAIN_PAYOFF_GIVEN); // TODO: message
+        final PlainVanillaPayoff payoff = (PlainVanillaPayoff) a.payoff;
+        r.value = values(payoff.optionType(), new double[] { payoff.strike() }, a.exercise.lastDate())[0];
+    }
+
+
+    //
+    // protected methods
+    //
+
+    /**
+     * Adds the contribution of further factors, such as jumps, to the logarithm of the characteristic function of
+     * {@code ln(S(T)/F)}, which is evaluated at the complex point {@code ur + i ui}
+     *
+     * @param ur is the real part of the point
+     * @param ui is the imaginary part of the point
+     * @param t is the maturity
+     * @param logPhi holds the real and imaginary parts of the logarithm of the characteristic function
+     */
+    protected void addOnTerm(final double ur, final double ui, final /*@Time*/ double t, final double[] logPhi) {
+        // nothing
+    }
+
+
+    //
+    // private methods
+    //
+
+    /**
+     * Returns the nodes of a given maturity, which are evaluated if they are not cached already
+     */
+    private Nodes nodes(final /*@Time*/ double t) {
+        final double[] params = model.params().$;
+        if (cachedParams == null || !Arrays.equals(params, cachedParams)) {
+            cache.clear();
+            cachedParams = params;
+            kappa = model.kappa();
+            theta = model.theta();
+            sigma = model.sigma();
+            rho = model.rho();
+            v0 = model.v0();
+        }
+        Nodes nodes = cache.get(t);
+        if (nodes == null) {
+            nodes = new Nodes(t);
+            cache.put(t, nodes);
+        }
+        return nodes;
+    }
+
+    /**
+     * Computes the logarithm of the characteristic function of {@code ln(S(T)/F)} at the complex point {@code ur + i ui}
+     */
+    private void logCharacteristicFunction(final double ur, final double ui, final /*@Time*/ double t, final double[] logPhi) {
+        final double sigma2 = sigma * sigma;
+
+        // beta = kappa - rho sigma i u
+        final double br = kappa + rho * sigma * ui;
+        final double bi = -rho * sigma * ur;
+
+        // d = sqrt(beta^2 + sigma^2 (i u + u^2))
+        final double zr = br * br - bi * bi + sigma2 * (-ui + ur * ur - ui * ui);
+        final double zi = 2.0 * br * bi + sigma2 * (ur + 2.0 * ur * ui);
+        final double zm = Math.sqrt(zr * zr + zi * zi);
+        final double dr = Math.sqrt(0.5 * (zm + zr));
+        final double di = Math.copySign(Math.sqrt(0.5 * (zm - zr)), zi);
+
+        // g = (beta - d) / (beta + d)
+        final double mr = br - dr;
+        final double mi = bi - di;
+        final double pr = br + dr;
+        final double pi = bi + di;
+        final double pm = pr * pr + pi * pi;
+        final double gr = (mr * pr + mi * pi) / pm;
+        final double gi = (mi * pr - mr * pi) / pm;
+
+        // e = exp(-d t)
+        final double em = Math.exp(-dr * t);
+        final double er = em * Math.cos(di * t);
+        final double ei = -em * Math.sin(di * t);
+
+        // n = 1 - g e
+        final double nr = 1.0 - (gr * er - gi * ei);
+        final double ni = -(gr * ei + gi * er);
+
+        // q = n / (1 - g)
+        final double qr0 = 1.0 - gr;
+        final double qi0 = -gi;
+        final double qm = qr0 * qr0 + qi0 * qi0;
+        final double qr = (nr * qr0 + ni * qi0) / qm;
+        final double qi = (ni * qr0 - nr * qi0) / qm;
+
+        // C = kappa theta / sigma^2 [ (beta - d) t - 2 ln(q) ]
+        final double c = kappa * theta / sigma2;
+        final double cr = c * (mr * t - Math.log(qr * qr + qi * qi));
+        final double ci = c * (mi * t - 2.0 * Math.atan2(qi, qr));
+
+        // D = (beta - d) / sigma^2 (1 - e) / n
+        final double fr = 1.0 - er;
+        final double fi = -ei;
+        final double nm = nr * nr + ni * ni;
+        final double hr = (fr * nr + fi * ni) / nm;
+        final double hi = (fi * nr - fr * ni) / nm;
+        final double Dr = (mr * hr - mi * hi) / sigma2;
+        final double Di = (mr * hi + mi * hr) / sigma2;
+
+        logPhi[0] = cr + Dr * v0;
+        logPhi[1] = ci + Di * v0;
+        addOnTerm(ur, ui, t, logPhi);
+        evaluations++;
+    }
+
+
+    //
+    // private inner classes
+    //
+
+    /**
+     * Nodes of the integration domain of a maturity, together with the weighted values of the integrand at the nodes for
+     * {@code x = 0}
+     * <p>
+     * Node {@code j} of panel {@code p} is {@code mid[p] + half[p] * x[j]}.
+     */
+    private final class Nodes {
+
+        private final double[] x;
+        private final double[] mid;
+        private final double[] half;
+        private final double[] re;
+        private final double[] im;
+
+        public Nodes(final /*@Time*/ double t) {
+            final double[] logPhi = new double[2];
+
+            // truncate the domain where the integrand becomes negligible
+            double upper = 1.0;
+            while (upper < MAX_UPPER_LIMIT) {
+                logCharacteristicFunction(upper, -0.5, t, logPhi);
+                if (Math.exp(logPhi[0]) / (upper * upper + 0.25) < TRUNCATION) {
+                    break;
+                }
+                upper *= 2.0;
+            }
+
+            int panels = 0;
+            for (double lower = 0.0; lower < upper; lower += width(lower)) {
+                panels++;
+            }
+
+            final double[] w = rule.weights();
+            this.x = rule.abscissas();
+            this.mid = new double[panels];
+            this.half = new double[panels];
+            this.re = new double[panels * x.length];
+            this.im = new double[re.length];
+            int p = 0, k = 0;
+            for (double lower = 0.0; lower < upper; lower += width(lower), p++) {
+                half[p] = 0.5 * width(lower);
+                mid[p] = lower + half[p];
+                for (int j = 0; j < x.length; j++, k++) {
+                    final double uk = mid[p] + half[p] * x[j];
+                    logCharacteristicFunction(uk, -0.5, t, logPhi);
+                    final double scale = half[p] * w[j] * Math.exp(logPhi[0]) / (uk * uk + 0.25);
+                    re[k] = scale * Math.cos(logPhi[1]);
+                    im[k] = scale * Math.sin(logPhi[1]);
+                }
+            }
+        }
+
+        /**
+         * @return the width of the panel starting at <code>lower</code>
+         */
+        private double width(final double lower) {
+            return Math.min(PANEL_WIDTH, Math.max(FIRST_PANEL_WIDTH, lower));
+        }
+    }
+
+}
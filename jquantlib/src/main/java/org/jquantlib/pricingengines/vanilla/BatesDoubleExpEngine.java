@@ -0,0 +1,93 @@
+/*
+ Copyright (C) 2011 Richard Gomes
+
+ This source code is release under the BSD License.
+
+ This file is part of JQuantLib, a free-software/open-source library
+ for financial quantitative analysts and developers - http://jquantlib.org/
+
+ JQuantLib is free software: you can redistribute it and/or modify it
+ under the terms of the JQuantLib license.  You should have received a
+ copy of the license along with this program; if not, please email
+ <jquant-devel@lists.sourceforge.net>. The license is also available online at
+ <http://www.jquantlib.org/index.php/LICENSE.TXT>.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE.  See the license for more details.
+
+ JQuantLib is based on QuantLib. http://quantlib.org/
+ When applicable, the original copyright notice follows this notice.
+ */
+
+
+
+package org.jquantlib.pricingengines.vanilla;
+
+import org.jquantlib.QL;
+import org.jquantlib.model.equity.BatesDoubleExpModel;
+
+/**
+ * Semi-analytic pricing engine for European vanilla options under the Bates model with double-exponential jumps
+ * <p>
+ * The logarithm of the jump size is exponentially distributed with mean {@code nuUp} with probability {@code p}, and is the
+ * opposite of an exponential variate with mean {@code nuDown} otherwise. Jumps arrive with intensity {@code lambda}, and
+ * their contribution to the characteristic function of {@code ln(S(T)/F)} is
+ * <pre>
+ *     lambda T [ p / (1 - i u nuUp) + (1 - p) / (1 + i u nuDown) - 1 - i u (p / (1 - nuUp) + (1 - p) / (1 + nuDown) - 1) ]
+ * </pre>
+ * The intensity is constant: models with a deterministic, time-dependent intensity such as
+ * {@link BatesDoubleExpModel.BatesDoubleExpDetJumpModel} are rejected.
+ *
+ * @see BatesDoubleExpModel
+ * @see AnalyticHestonEngine
+ *
+ * @category vanillaengines
+ */
+public class BatesDoubleExpEngine extends AnalyticHestonEngine {
+
+    private static final String DETERMINISTIC_JUMP_INTENSITY = "deterministic jump intensity not supported";
+
+
+    public BatesDoubleExpEngine(final BatesDoubleExpModel model) {
+        super(model);
+        QL.require(!(model instanceof BatesDoubleExpModel.BatesDoubleExpDetJumpModel), DETERMINISTIC_JUMP_INTENSITY); // TODO: message
+    }
+
+    public BatesDoubleExpEngine(final BatesDoubleExpModel model, final int integrationOrder) {
+        super(model, integrationOrder);
+        QL.require(!(model instanceof BatesDoubleExpModel.BatesDoubleExpDetJumpModel), DETERMINISTIC_JUMP_INTENSITY); // TODO: message
+    }
+
+
+    //
+    // overrides AnalyticHestonEngine
+    //
+
+    @Override
+    protected void addOnTerm(final double ur, final double ui, final /*@Time*/ double t, final double[] logPhi) {
+        final BatesDoubleExpModel bates = (BatesDoubleExpModel) model;
+        final double p = bates.p();
+        final double nuUp = bates.nuUp();
+        final double nuDown = bates.nuDown();
+        final double lambda = bates.lambda();
+
+        // g = i u
+        final double gr = -ui;
+        final double gi = ur;
+
+        // p / (1 - g nuUp)
+        final double ar = 1.0 - gr * nuUp;
+        final double ai = -gi * nuUp;
+        final double am = ar * ar + ai * ai;
+        // (1 - p) / (1 + g nuDown)
+        final double br = 1.0 + gr * nuDown;
+        final double bi = gi * nuDown;
+        final double bm = br * br + bi * bi;
+
+        final double k = p / (1.0 - nuUp) + (1.0 - p) / (1.0 + nuDown) - 1.0;
+        logPhi[0] += lambda * t * (p * ar / am + (1.0 - p) * br / bm - 1.0 - gr * k);
+        logPhi[1] += lambda * t * (-p * ai / am - (1.0 - p) * bi / bm - gi * k);
+    }
+
+}
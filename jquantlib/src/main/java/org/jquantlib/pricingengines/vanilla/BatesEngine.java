@@ -0,0 +1,87 @@
+/*
+ Copyright (C) 2011 Richard Gomes
+
+ This source code is release under the BSD License.
+
+ This file is part of JQuantLib, a free-software/open-source library
+ for financial quantitative analysts and developers - http://jquantlib.org/
+
+ JQuantLib is free software: you can redistribute it and/or modify it
+ under the terms of the JQuantLib license.  You should have received a
+ copy of the license along with this program; if not, please email
+ <jquant-devel@lists.sourceforge.net>. The license is also available online at
+ <http://www.jquantlib.org/index.php/LICENSE.TXT>.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE.  See the license for more details.
+
+ JQuantLib is based on QuantLib. http://quantlib.org/
+ When applicable, the original copyright notice follows this notice.
+ */
+
+
+
+package org.jquantlib.pricingengines.vanilla;
+
+import org.jquantlib.QL;
+import org.jquantlib.model.equity.BatesModel;
+
+/**
+ * Semi-analytic pricing engine for European vanilla options under the Bates model
+ * <p>
+ * The logarithm of the jump size is normally distributed with mean {@code nu} and standard deviation {@code delta}, and jumps
+ * arrive with intensity {@code lambda}. Their contribution to the characteristic function of {@code ln(S(T)/F)} is
+ * <pre>
+ *     lambda T [ exp(i u nu - u^2 delta^2 / 2) - 1 - i u (exp(nu + delta^2 / 2) - 1) ]
+ * </pre>
+ * The intensity is constant: models with a deterministic, time-dependent intensity such as
+ * {@link BatesModel.BatesDetJumpModel} are rejected.
+ *
+ * @see BatesModel
+ * @see AnalyticHestonEngine
+ *
+ * @category vanillaengines
+ */
+public class BatesEngine extends AnalyticHestonEngine {
+
+    private static final String DETERMINISTIC_JUMP_INTENSITY = "deterministic jump intensity not supported";
+
+
+    public BatesEngine(final BatesModel model) {
+        super(model);
+        QL.require(!(model instanceof BatesModel.BatesDetJumpModel), DETERMINISTIC_JUMP_INTENSITY); // TODO: message
+    }
+
+    public BatesEngine(final BatesModel model, final int integrationOrder) {
+        super(model, integrationOrder);
+        QL.require(!(model instanceof BatesModel.BatesDetJumpModel), DETERMINISTIC_JUMP_INTENSITY); // TODO: message
+    }
+
+
+    //
+    // overrides AnalyticHestonEngine
+    //
+
+    @Override
+    protected void addOnTerm(final double ur, final double ui, final /*@Time*/ double t, final double[] logPhi) {
+        final BatesModel bates = (BatesModel) model;
+        final double nu = bates.nu();
+        final double delta2 = 0.5 * bates.delta() * bates.delta();
+        final double lambda = bates.lambda();
+
+        // g = i u
+        final double gr = -ui;
+        final double gi = ur;
+
+        // exp(nu g + delta^2/2 g^2)
+        final double er = nu * gr + delta2 * (gr * gr - gi * gi);
+        final double ei = nu * gi + delta2 * 2.0 * gr * gi;
+        final double em = Math.exp(er);
+
+        final double k = Math.exp(nu + delta2) - 1.0;
+        logPhi[0] += lambda * t * (em * Math.cos(ei) - 1.0 - gr * k);
+        logPhi[1] += lambda * t * (em * Math.sin(ei) - gi * k);
+    }
+
+}
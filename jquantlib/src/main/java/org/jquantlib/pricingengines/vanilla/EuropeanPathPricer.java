@@ -0,0 +1,70 @@
+/*
+ Copyright (C) 2011 Richard Gomes
+
+ This source code is release under the BSD License.
+
+ This file is part of JQuantLib, a free-software/open-source library
+ for financial quantitative analysts and developers - http://jquantlib.org/
+
+ JQuantLib is free software: you can redistribute it and/or modify it
+ under the terms of the JQuantLib license.  You should have received a
+ copy of the license along with this program; if not, please email
+ <jquant-devel@lists.sourceforge.net>. The license is also available online at
+ <http://www.jquantlib.org/index.php/LICENSE.TXT>.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE.  See the license for more details.
+
+ JQuantLib is based on QuantLib. http://quantlib.org/
+ When applicable, the original copyright notice follows this notice.
+ */
+
+
+package org.jquantlib.pricingengines.vanilla;
+
+import org.jquantlib.QL;
+import org.jquantlib.instruments.Option;
+import org.jquantlib.instruments.PlainVanillaPayoff;
+import org.jquantlib.methods.montecarlo.Path;
+import org.jquantlib.methods.montecarlo.PathPricer;
+
+/**
+ * Path pricer for European options
+ * <p>
+ * Returns the discounted payoff at the last point of the path.
+ *
+ * @see MCEuropeanEngine
+ *
+ * @category mcarlo
+ */
+public class EuropeanPathPricer extends PathPricer<Path> {
+
+    private static final String NEGATIVE_STRIKE = "strike less than zero not allowed";
+    private static final String EMPTY_PATH = "the path cannot be empty";
+
+    private final PlainVanillaPayoff payoff;
+    private final /*@DiscountFactor*/ double discount;
+
+
+    public EuropeanPathPricer(
+            final Option.Type type,
+            final /*@Real*/ double strike,
+            final /*@DiscountFactor*/ double discount) {
+        QL.require(strike >= 0.0, NEGATIVE_STRIKE); // TODO: message
+        this.payoff = new PlainVanillaPayoff(type, strike);
+        this.discount = discount;
+    }
+
+
+    //
+    // implements PathPricer
+    //
+
+    @Override
+    public Double op(final Path path) /* @ReadOnly */ {
+        QL.require(path.length() > 0, EMPTY_PATH); // TODO: message
+        return payoff.get(path.getValues_(path.length()-1)) * discount;
+    }
+
+}
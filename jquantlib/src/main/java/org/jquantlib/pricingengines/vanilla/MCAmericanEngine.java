@@ -0,0 +1,189 @@
+/*
+ Copyright (C) 2011 Richard Gomes
+
+ This source code is release under the BSD License.
+
+ This file is part of JQuantLib, a free-software/open-source library
+ for financial quantitative analysts and developers - http://jquantlib.org/
+
+ JQuantLib is free software: you can redistribute it and/or modify it
+ under the terms of the JQuantLib license.  You should have received a
+ copy of the license along with this program; if not, please email
+ <jquant-devel@lists.sourceforge.net>. The license is also available online at
+ <http://www.jquantlib.org/index.php/LICENSE.TXT>.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE.  See the license for more details.
+
+ JQuantLib is based on QuantLib. http://quantlib.org/
+ When applicable, the original copyright notice follows this notice.
+ */
+
+
+package org.jquantlib.pricingengines.vanilla;
+
+import java.util.Arrays;
+
+import org.jquantlib.QL;
+import org.jquantlib.exercise.Exercise;
+import org.jquantlib.instruments.StrikedTypePayoff;
+import org.jquantlib.math.Constants;
+import org.jquantlib.math.randomnumbers.InverseCumulativeRsg;
+import org.jquantlib.math.randomnumbers.MersenneTwisterUniformRng;
+import org.jquantlib.math.randomnumbers.PseudoRandom;
+import org.jquantlib.math.randomnumbers.UniformRandomSequenceGenerator;
+import org.jquantlib.methods.montecarlo.LongstaffSchwartzPathPricer;
+import org.jquantlib.methods.montecarlo.LsmBasisSystem;
+import org.jquantlib.methods.montecarlo.Path;
+import org.jquantlib.methods.montecarlo.PathCube;
+import org.jquantlib.methods.montecarlo.PathGenerator;
+import org.jquantlib.methods.montecarlo.PathPricer;
+import org.jquantlib.processes.GeneralizedBlackScholesProcess;
+import org.jquantlib.time.TimeGrid;
+import org.jquantlib.termstructures.YieldTermStructure;
+
+/**
+ * American and Bermudan option pricing engine using least-squares Monte Carlo simulation
+ * <p>
+ * The exercise strategy is first estimated by {@link LongstaffSchwartzPathPricer} on a set of calibration paths, which are
+ * stored in a {@link PathCube} and generated from pseudo-random numbers. These are drawn from the second
+ * {@link MersenneTwisterUniformRng#substreams(int) substream} of the generator initialized with the seed of the engine, whose
+ * first substream is the one of pseudo-random pricing paths, so that the two sets of paths never overlap. The option is then priced by {@link MCVanillaEngine} on independent paths, either pseudo-random or randomized
+ * low-discrepancy ones, so that the estimate is a lower bound of the true value up to the simulation error.
+ * <p>
+ * American options can be exercised at every point of the time grid after the earliest exercise date, and at the
+ * evaluation date when the earliest exercise date is not later. Bermudan exercise dates are mapped to the closest points of
+ * the time grid, so that the number of time steps should be chosen accordingly.
+ *
+ * @see MakeMCAmericanEngine
+ *
+ * @category vanillaengines
+ */
+public class MCAmericanEngine extends MCVanillaEngine {
+
+    private static final String NON_STRIKED_PAYOFF_GIVEN = "non-striked payoff given";
+    private static final String NUMBER_OF_CALIBRATION_SAMPLES_NOT_GIVEN = "number of calibration samples not given";
+
+
+    //
+    // private final fields
+    //
+
+    private final /*@NonNegative*/ int calibrationSamples;
+    private final LsmBasisSystem basisSystem;
+
+
+    //
+    // public constructors
+    //
+
+    /**
+     * @param calibrationSamples is the number of paths employed for the estimation of the exercise strategy
+     * @param basisSystem are the functions employed by the regressions
+     *
+     * @see MCVanillaEngine#MCVanillaEngine(GeneralizedBlackScholesProcess, int, int, boolean, boolean, int, long, int)
+     */
+    public MCAmericanEngine(
+            final GeneralizedBlackScholesProcess process,
+            final /*@NonNegative*/ int timeSteps,
+            final /*@NonNegative*/ int timeStepsPerYear,
+            final boolean brownianBridge,
+            final boolean antitheticVariate,
+            final /*@NonNegative*/ int requiredSamples,
+            final /*@NonNegative*/ int calibrationSamples,
+            final /*@NonNegative*/ long seed,
+            final /*@NonNegative*/ int replicas,
+            final LsmBasisSystem basisSystem) {
+        super(process, timeSteps, timeStepsPerYear, brownianBridge, antitheticVariate, requiredSamples, seed, replicas);
+        QL.require(calibrationSamples != Constants.NULL_INTEGER && calibrationSamples > 0, NUMBER_OF_CALIBRATION_SAMPLES_NOT_GIVEN); // TODO: message
+        this.calibrationSamples = calibrationSamples;
+        this.basisSystem = basisSystem;
+    }
+
+
+    //
+    // overrides MCVanillaEngine
+    //
+
+    @Override
+    public void calculate() /* @ReadOnly */ {
+        super.calculate();
+        // exercise at the evaluation date does not depend on the simulation
+        if (a.exercise.type() == Exercise.Type.American && process.time(a.exercise.date(0)) <= 0.0) {
+            r.value = Math.max(r.value, a.payoff.get(process.x0()));
+        }
+    }
+
+    @Override
+    protected PathPricer<Path> pathPricer() /* @ReadOnly */ {
+        QL.require(a.payoff instanceof StrikedTypePayoff, NON_STRIKED_PAYOFF_GIVEN); // TODO: message
+        final StrikedTypePayoff payoff = (StrikedTypePayoff) a.payoff;
+        final TimeGrid grid = timeGrid();
+        final int[] exerciseIndices = exerciseIndices(grid);
+
+        final YieldTermStructure riskFreeRate = process.riskFreeRate().currentLink();
+        final double[] discounts = new double[exerciseIndices.length];
+        for (int j = 0; j < exerciseIndices.length; j++) {
+            discounts[j] = riskFreeRate.discount(grid.get(exerciseIndices[j]));
+        }
+
+        final LongstaffSchwartzPathPricer pricer = new LongstaffSchwartzPathPricer(
+                payoff, exerciseIndices, discounts, basisSystem, payoff.strike());
+
+        final int paths = antitheticVariate ? 2*calibrationSamples : calibrationSamples;
+        pricer.calibrate(new PathCube(grid, paths).fill(calibrationPathGenerator(grid), antitheticVariate));
+        return pricer;
+    }
+
+
+    //
+    // protected methods
+    //
+
+    /**
+     * @return the generator of calibration paths, which never overlap pricing paths
+     */
+    protected PathGenerator<UniformRandomSequenceGenerator> calibrationPathGenerator(final TimeGrid grid) /* @ReadOnly */ {
+        final MersenneTwisterUniformRng rng = new MersenneTwisterUniformRng(seed).substreams(2)[1];
+        final InverseCumulativeRsg<?, ?> generator = new PseudoRandom().makeSequenceGenerator(grid.size()-1, rng);
+        return new PathGenerator<UniformRandomSequenceGenerator>(process, grid, generator, brownianBridge);
+    }
+
+
+    //
+    // private methods
+    //
+
+    /**
+     * @return the indices of the points of the time grid where exercise is allowed, excluding the origin
+     */
+    private int[] exerciseIndices(final TimeGrid grid) /* @ReadOnly */ {
+        if (a.exercise.type() == Exercise.Type.American) {
+            final /*@Time*/ double earliest = process.time(a.exercise.date(0));
+            int first = 1;
+            while (first < grid.size()-1 && grid.get(first) < earliest) {
+                first++;
+            }
+            final int[] result = new int[grid.size()-first];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = first + i;
+            }
+            return result;
+        }
+
+        final int[] result = new int[a.exercise.size()];
+        int n = 0;
+        for (int i = 0; i < a.exercise.size(); i++) {
+            final /*@Time*/ double t = process.time(a.exercise.date(i));
+            if (t > 0.0) {
+                final int index = Math.max(grid.closestIndex(t), 1);
+                if (n == 0 || index > result[n-1]) {
+                    result[n++] = index;
+                }
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+}
@@ -38,21 +38,77 @@
 
 package org.jquantlib.pricingengines.vanilla;
 
+import org.jquantlib.QL;
+import org.jquantlib.instruments.PlainVanillaPayoff;
+import org.jquantlib.methods.montecarlo.Path;
+import org.jquantlib.methods.montecarlo.PathPricer;
+import org.jquantlib.pricingengines.MCSimulation;
+import org.jquantlib.processes.GeneralizedBlackScholesProcess;
+
 /**
  * European option pricing engine using Monte Carlo simulation
  *
+ * @see MakeMCEuropeanEngine
+ *
  * @category vanillaengines
  *
  * @author Richard Gomes
  */
 //test the correctness of the returned value is tested by checking it against analytic results.
-public class MCEuropeanEngine /*extends MCVanillaEngine<
-        SingleVariate extends Variate,
-        RNG extends RandomNumberGenerator,
-        S extends Statistics>*/ {
+public class MCEuropeanEngine extends MCVanillaEngine {
+
+    private static final String NON_PLAIN_PAYOFF_GIVEN = "non-plain payoff given";
+
+
+    //
+    // public constructors
+    //
+
+    /**
+     * @see MCVanillaEngine#MCVanillaEngine(GeneralizedBlackScholesProcess, int, int, boolean, boolean, int, long, int)
+     */
+    public MCEuropeanEngine(
+            final GeneralizedBlackScholesProcess process,
+            final /*@NonNegative*/ int timeSteps,
+            final /*@NonNegative*/ int timeStepsPerYear,
+            final boolean brownianBridge,
+            final boolean antitheticVariate,
+            final /*@NonNegative*/ int requiredSamples,
+            final /*@NonNegative*/ long seed,
+            final /*@NonNegative*/ int replicas) {
+        super(process, timeSteps, timeStepsPerYear, brownianBridge, antitheticVariate, requiredSamples, seed, replicas);
+    }
+
+    /**
+     * @see MCVanillaEngine#MCVanillaEngine(GeneralizedBlackScholesProcess, int, int, boolean, boolean, boolean, int, long, int, MCSimulation.PseudoRandomGenerator)
+     */
+    public MCEuropeanEngine(
+            final GeneralizedBlackScholesProcess process,
+            final /*@NonNegative*/ int timeSteps,
+            final /*@NonNegative*/ int timeStepsPerYear,
+            final boolean brownianBridge,
+            final boolean antitheticVariate,
+            final /*@NonNegative*/ int requiredSamples,
+            final /*@NonNegative*/ long seed,
+            final /*@NonNegative*/ int replicas,
+            final MCSimulation.PseudoRandomGenerator generator) {
+        super(process, timeSteps, timeStepsPerYear, brownianBridge, antitheticVariate, false, requiredSamples, seed, replicas,
+              generator);
+    }
+
+
+    //
+    // overrides MCVanillaEngine
+    //
 
-    public MCEuropeanEngine() {
-        throw new UnsupportedOperationException("work in progress");
+    @Override
+    protected PathPricer<Path> pathPricer() /* @ReadOnly */ {
+        QL.require(a.payoff instanceof PlainVanillaPayoff, NON_PLAIN_PAYOFF_GIVEN); // TODO: message
+        final PlainVanillaPayoff payoff = (PlainVanillaPayoff) a.payoff;
+        return new EuropeanPathPricer(
+                payoff.optionType(),
+                payoff.strike(),
+                process.riskFreeRate().currentLink().discount(timeGrid().back()));
     }
 
 }
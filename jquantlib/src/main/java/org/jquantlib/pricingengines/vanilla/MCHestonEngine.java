@@ -0,0 +1,208 @@
+/*
+ Copyright (C) 2011 Richard Gomes
+
+ This source code is release under the BSD License.
+
+ This file is part of JQuantLib, a free-software/open-source library
+ for financial quantitative analysts and developers - http://jquantlib.org/
+
+ JQuantLib is free software: you can redistribute it and/or modify it
+ under the terms of the JQuantLib license.  You should have received a
+ copy of the license along with this program; if not, please email
+ <jquant-devel@lists.sourceforge.net>. The license is also available online at
+ <http://www.jquantlib.org/index.php/LICENSE.TXT>.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE.  See the license for more details.
+
+ JQuantLib is based on QuantLib. http://quantlib.org/
+ When applicable, the original copyright notice follows this notice.
+ */
+
+
+
+package org.jquantlib.pricingengines.vanilla;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.jquantlib.QL;
+import org.jquantlib.exercise.Exercise;
+import org.jquantlib.instruments.Instrument;
+import org.jquantlib.instruments.OneAssetOption;
+import org.jquantlib.instruments.Payoff;
+import org.jquantlib.math.Constants;
+import org.jquantlib.math.randomnumbers.InverseCumulativeRsg;
+import org.jquantlib.math.randomnumbers.MersenneTwisterUniformRng;
+import org.jquantlib.math.randomnumbers.PseudoRandom;
+import org.jquantlib.math.statistics.IncrementalStatistics;
+import org.jquantlib.methods.montecarlo.HestonPathGenerator;
+import org.jquantlib.methods.montecarlo.MonteCarloModel;
+import org.jquantlib.methods.montecarlo.Path;
+import org.jquantlib.methods.montecarlo.PathPricer;
+import org.jquantlib.processes.HestonProcess;
+import org.jquantlib.time.TimeGrid;
+import org.jquantlib.util.ThreadPool;
+
+/**
+ * Monte Carlo pricing engine for European options under the Heston model
+ * <p>
+ * Paths are generated by {@link HestonPathGenerator}, in batches of a fixed number of samples. Each batch has its own
+ * sequence generator, which draws from the {@link MersenneTwisterUniformRng#substreams(int) substream} of the index of the
+ * batch of a Mersenne Twister initialized with the seed of the engine, and its own {@link MonteCarloModel}, which prices the
+ * paths of the spot. Generators and models are built by the calling thread, and batches are simulated in parallel on the
+ * {@link ThreadPool}. Their statistics are merged in the order of the batches, so that results only depend on
+ * the seed and not on how batches are scheduled among threads.
+ * <p>
+ * The process should be discretized by one of the quadratic-exponential schemes, which are accurate with a few time steps per
+ * year, whilst the Euler schemes require much finer time grids.
+ *
+ * @see HestonProcess.Discretization
+ * @see HestonPathGenerator
+ *
+ * @category vanillaengines
+ */
+public class MCHestonEngine extends OneAssetOption.EngineImpl {
+
+    private static final String NOT_AN_EUROPEAN_OPTION = "not an European Option";
+    private static final String STEPS_NOT_GIVEN = "number of steps or number of steps per year must be given";
+    private static final String NUMBER_OF_SAMPLES_NOT_GIVEN = "number of samples not given";
+
+    /**
+     * Number of samples simulated by each batch
+     */
+    private static final int BATCH_SIZE = 1024;
+
+
+    //
+    // private final fields
+    //
+
+    private final HestonProcess process;
+    private final OneAssetOption.ArgumentsImpl a;
+    private final Instrument.ResultsImpl r;
+    private final /*@NonNegative*/ int timeSteps;
+    private final /*@NonNegative*/ int timeStepsPerYear;
+    private final boolean brownianBridge;
+    private final boolean antitheticVariate;
+    private final /*@NonNegative*/ int requiredSamples;
+    private final /*@NonNegative*/ long seed;
+
+
+    //
+    // public constructors
+    //
+
+    /**
+     * @param process is the underlying process
+     * @param timeSteps is the number of time steps, or {@link Constants#NULL_INTEGER}
+     * @param timeStepsPerYear is the number of time steps per year, or {@link Constants#NULL_INTEGER}
+     * @param brownianBridge tells whether paths are built by means of a Brownian bridge
+     * @param antitheticVariate tells whether antithetic paths are added to each sample
+     * @param requiredSamples is the number of samples
+     * @param seed is the seed of the random number generator
+     */
+    public MCHestonEngine(
+            final HestonProcess process,
+            final /*@NonNegative*/ int timeSteps,
+            final /*@NonNegative*/ int timeStepsPerYear,
+            final boolean brownianBridge,
+            final boolean antitheticVariate,
+            final /*@NonNegative*/ int requiredSamples,
+            final /*@NonNegative*/ long seed) {
+        QL.require(timeSteps != Constants.NULL_INTEGER || timeStepsPerYear != Constants.NULL_INTEGER, STEPS_NOT_GIVEN); // TODO: message
+        QL.require(requiredSamples != Constants.NULL_INTEGER && requiredSamples > 0, NUMBER_OF_SAMPLES_NOT_GIVEN); // TODO: message
+        this.a = (OneAssetOption.ArgumentsImpl)arguments_;
+        this.r = (Instrument.ResultsImpl)results_;
+        this.process = process;
+        this.timeSteps = timeSteps;
+        this.timeStepsPerYear = timeStepsPerYear;
+        this.brownianBridge = brownianBridge;
+        this.antitheticVariate = antitheticVariate;
+        this.requiredSamples = requiredSamples;
+        this.seed = seed;
+        this.process.addObserver(this);
+    }
+
+
+    //
+    // implements PricingEngine
+    //
+
+    @Override
+    public void calculate() /* @ReadOnly */ {
+        QL.require(a.exercise.type() == Exercise.Type.European, NOT_AN_EUROPEAN_OPTION); // TODO: message
+
+        final TimeGrid grid = timeGrid();
+        final /*@DiscountFactor*/ double discount = process.riskFreeRate().currentLink().discount(grid.back());
+        final int dimension = 2 * (grid.size()-1);
+
+        // generators and models are built sequentially, as term structures are built lazily
+        final PathPricer<Path> pathPricer = new TerminalPathPricer(a.payoff, discount);
+        final int batches = (requiredSamples + BATCH_SIZE - 1) / BATCH_SIZE;
+        final MersenneTwisterUniformRng[] streams = new MersenneTwisterUniformRng(seed).substreams(batches);
+        final List<Callable<IncrementalStatistics>> tasks = new ArrayList<Callable<IncrementalStatistics>>(batches);
+        for (int k = 0; k < batches; k++) {
+            final int samples = Math.min(BATCH_SIZE, requiredSamples - k * BATCH_SIZE);
+            final InverseCumulativeRsg<?, ?> rsg = new PseudoRandom().makeSequenceGenerator(dimension, streams[k]);
+            final HestonPathGenerator<?> generator =
+                new HestonPathGenerator<InverseCumulativeRsg<?, ?>>(process, grid, rsg, brownianBridge, samples);
+            final MonteCarloModel<IncrementalStatistics> model = new MonteCarloModel<IncrementalStatistics>(
+                    generator, pathPricer, new IncrementalStatistics(), antitheticVariate);
+            tasks.add(new Callable<IncrementalStatistics>() {
+                @Override
+                public IncrementalStatistics call() {
+                    model.addSamples(samples);
+                    return model.sampleAccumulator();
+                }
+            });
+        }
+
+        final IncrementalStatistics stats = new IncrementalStatistics();
+        for (final IncrementalStatistics batch : ThreadPool.invokeAll(tasks)) {
+            stats.merge(batch);
+        }
+        r.value = stats.mean();
+        r.errorEstimate = stats.errorEstimate();
+    }
+
+
+    //
+    // private methods
+    //
+
+    private TimeGrid timeGrid() /* @ReadOnly */ {
+        final /*@Time*/ double t = process.time(a.exercise.lastDate());
+        if (timeSteps != Constants.NULL_INTEGER)
+            return new TimeGrid(t, timeSteps);
+        final int steps = (int) (timeStepsPerYear * t);
+        return new TimeGrid(t, Math.max(steps, 1));
+    }
+
+
+    //
+    // private inner classes
+    //
+
+    /**
+     * Prices the payoff on the last point of a path of the spot
+     */
+    private static final class TerminalPathPricer extends PathPricer<Path> {
+
+        private final Payoff payoff;
+        private final /*@DiscountFactor*/ double discount;
+
+        public TerminalPathPricer(final Payoff payoff, final /*@DiscountFactor*/ double discount) {
+            this.payoff = payoff;
+            this.discount = discount;
+        }
+
+        @Override
+        public Double op(final Path path) /* @ReadOnly */ {
+            return payoff.get(path.getValues_(path.length()-1)) * discount;
+        }
+    }
+
+}
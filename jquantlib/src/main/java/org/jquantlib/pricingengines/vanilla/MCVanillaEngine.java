@@ -38,17 +38,234 @@
 
 package org.jquantlib.pricingengines.vanilla;
 
+import org.jquantlib.QL;
+import org.jquantlib.instruments.Instrument;
+import org.jquantlib.instruments.OneAssetOption;
+import org.jquantlib.instruments.Option;
+import org.jquantlib.math.Constants;
+import org.jquantlib.methods.montecarlo.Path;
+import org.jquantlib.methods.montecarlo.PathPricer;
+import org.jquantlib.pricingengines.MCSimulation;
+import org.jquantlib.pricingengines.PricingEngine;
+import org.jquantlib.processes.GeneralizedBlackScholesProcess;
+import org.jquantlib.time.TimeGrid;
+
 /**
  * Pricing engine for vanilla options using Monte Carlo simulation
+ * <p>
+ * Paths are generated either from pseudo-random numbers or, when a number of replicas is given, from randomized
+ * low-discrepancy sequences. In the latter case <i>K</i> independently scrambled Sobol sequences are priced in parallel,
+ * each one of them by means of the required number of samples. The value is the mean of the replica estimates and the error estimate is
+ * the standard deviation of the replica estimates divided by {@latex$ \sqrt{K} }, so that
+ * {@latex$ value \pm t_{K-1} \cdot errorEstimate } is a confidence interval for the price, where
+ * {@latex$ t_{K-1} } is the desired quantile of the Student's t distribution with <i>K-1</i> degrees of freedom.
+ * <p>
+ * For smooth payoffs, the error of each replica decreases at a rate close to {@latex$ O(1/N) }, rather than the
+ * {@latex$ O(1/\sqrt{N}) } of pseudo-random sampling. Brownian bridge path construction should be enabled when more than
+ * one time step is used, so that the first dimensions of the sequence determine most of the variance of the path.
+ * <p>
+ * Pseudo-random numbers are drawn from the {@link MCSimulation.PseudoRandomGenerator} given to the constructor, by
+ * default the Mersenne Twister.
+ * <p>
+ * When a control variate is required, derived classes provide its path pricer by means of {@link #controlPathPricer()} and
+ * its value either by means of {@link #controlPricingEngine()}, which is given the arguments of this engine, or by
+ * overriding {@link #controlVariateValue()}. A drift shift for importance sampling can be provided by overriding
+ * {@link #importanceSamplingDrift(TimeGrid)}.
+ *
+ * @see MCSimulation
  *
  * @category vanillaengines
  *
  * @author Richard Gomes
  */
-public class MCVanillaEngine /*extends McSimulation<MC extends Variate, RNG extends RandomNumberGenerator, S>*/ {
+public abstract class MCVanillaEngine extends OneAssetOption.EngineImpl {
+
+    private static final String TIME_STEPS_NOT_SPECIFIED = "time steps not specified";
+    private static final String TIME_STEPS_OVERSPECIFIED = "time steps overspecified";
+    private static final String NO_CONTROL_PATH_PRICER = "engine does not provide control-variation path pricer";
+    private static final String NO_CONTROL_PRICING_ENGINE = "engine does not provide control-variation pricing engine";
+
+
+    //
+    // protected final fields
+    //
+
+    protected final GeneralizedBlackScholesProcess process;
+    protected final Option.ArgumentsImpl a;
+    protected final Instrument.ResultsImpl r;
+
+    protected final /*@NonNegative*/ int timeSteps;
+    protected final /*@NonNegative*/ int timeStepsPerYear;
+    protected final boolean brownianBridge;
+    protected final boolean antitheticVariate;
+    protected final /*@NonNegative*/ int requiredSamples;
+    protected final /*@NonNegative*/ long seed;
+    protected final /*@NonNegative*/ int replicas;
+    protected final boolean controlVariate;
+    protected final MCSimulation.PseudoRandomGenerator generator;
+
+
+    //
+    // private final fields
+    //
+
+    private final MCSimulation simulation;
+
+
+    //
+    // protected constructors
+    //
+
+    /**
+     * @param process is the underlying process
+     * @param timeSteps is the number of time steps, or {@link Constants#NULL_INTEGER} when timeStepsPerYear is given
+     * @param timeStepsPerYear is the number of time steps per year, or {@link Constants#NULL_INTEGER} when timeSteps is given
+     * @param brownianBridge tells whether paths are built by means of a Brownian bridge
+     * @param antitheticVariate tells whether antithetic paths are added to each sample
+     * @param requiredSamples is the number of samples, for each replica when low-discrepancy sequences are used
+     * @param seed is the seed of the random number generator
+     * @param replicas is the number of randomized low-discrepancy replicas, or zero for pseudo-random sampling
+     */
+    protected MCVanillaEngine(
+            final GeneralizedBlackScholesProcess process,
+            final /*@NonNegative*/ int timeSteps,
+            final /*@NonNegative*/ int timeStepsPerYear,
+            final boolean brownianBridge,
+            final boolean antitheticVariate,
+            final /*@NonNegative*/ int requiredSamples,
+            final /*@NonNegative*/ long seed,
+            final /*@NonNegative*/ int replicas) {
+        this(process, timeSteps, timeStepsPerYear, brownianBridge, antitheticVariate, false, requiredSamples, seed, replicas);
+    }
+
+    /**
+     * @param controlVariate tells whether prices are corrected by means of a control variate
+     *
+     * @see #MCVanillaEngine(GeneralizedBlackScholesProcess, int, int, boolean, boolean, int, long, int)
+     */
+    protected MCVanillaEngine(
+            final GeneralizedBlackScholesProcess process,
+            final /*@NonNegative*/ int timeSteps,
+            final /*@NonNegative*/ int timeStepsPerYear,
+            final boolean brownianBridge,
+            final boolean antitheticVariate,
+            final boolean controlVariate,
+            final /*@NonNegative*/ int requiredSamples,
+            final /*@NonNegative*/ long seed,
+            final /*@NonNegative*/ int replicas) {
+        this(process, timeSteps, timeStepsPerYear, brownianBridge, antitheticVariate, controlVariate, requiredSamples, seed,
+             replicas, MCSimulation.PseudoRandomGenerator.MersenneTwister);
+    }
+
+    /**
+     * @param generator is the source of Gaussian variates for pseudo-random sampling
+     *
+     * @see #MCVanillaEngine(GeneralizedBlackScholesProcess, int, int, boolean, boolean, boolean, int, long, int)
+     */
+    protected MCVanillaEngine(
+            final GeneralizedBlackScholesProcess process,
+            final /*@NonNegative*/ int timeSteps,
+            final /*@NonNegative*/ int timeStepsPerYear,
+            final boolean brownianBridge,
+            final boolean antitheticVariate,
+            final boolean controlVariate,
+            final /*@NonNegative*/ int requiredSamples,
+            final /*@NonNegative*/ long seed,
+            final /*@NonNegative*/ int replicas,
+            final MCSimulation.PseudoRandomGenerator generator) {
+        QL.require(timeSteps != Constants.NULL_INTEGER || timeStepsPerYear != Constants.NULL_INTEGER, TIME_STEPS_NOT_SPECIFIED); // TODO: message
+        QL.require(timeSteps == Constants.NULL_INTEGER || timeStepsPerYear == Constants.NULL_INTEGER, TIME_STEPS_OVERSPECIFIED); // TODO: message
+        this.simulation = new MCSimulation(process, brownianBridge, antitheticVariate, requiredSamples, seed, replicas, generator);
+        this.a = (Option.ArgumentsImpl)arguments_;
+        this.r = (Instrument.ResultsImpl)results_;
+        this.process = process;
+        this.timeSteps = timeSteps;
+        this.timeStepsPerYear = timeStepsPerYear;
+        this.brownianBridge = brownianBridge;
+        this.antitheticVariate = antitheticVariate;
+        this.requiredSamples = requiredSamples;
+        this.seed = seed;
+        this.replicas = replicas;
+        this.controlVariate = controlVariate;
+        this.generator = generator;
+        this.process.addObserver(this);
+    }
+
+
+    //
+    // protected abstract methods
+    //
+
+    protected abstract PathPricer<Path> pathPricer() /* @ReadOnly */;
+
+
+    //
+    // protected methods
+    //
+
+    protected TimeGrid timeGrid() /* @ReadOnly */ {
+        final /*@Time*/ double t = process.time(a.exercise.lastDate());
+        if (timeSteps != Constants.NULL_INTEGER)
+            return new TimeGrid(t, timeSteps);
+        final int steps = (int) (timeStepsPerYear * t);
+        return new TimeGrid(t, Math.max(steps, 1));
+    }
+
+
+    /**
+     * @return the path pricer of the control variate, or <code>null</code> when no control variate is available
+     */
+    protected PathPricer<Path> controlPathPricer() /* @ReadOnly */ {
+        return null;
+    }
+
+    /**
+     * @return an engine which prices the control variate in closed form, or <code>null</code> when no such engine is available
+     */
+    protected PricingEngine controlPricingEngine() /* @ReadOnly */ {
+        return null;
+    }
+
+    /**
+     * Prices the control variate by means of {@link #controlPricingEngine()}, given the arguments of this engine
+     *
+     * @return the value of the control variate
+     */
+    protected /*@Real*/ double controlVariateValue() /* @ReadOnly */ {
+        final PricingEngine engine = controlPricingEngine();
+        QL.require(engine != null, NO_CONTROL_PRICING_ENGINE); // TODO: message
+        final Option.ArgumentsImpl controlArguments = (Option.ArgumentsImpl) engine.getArguments();
+        controlArguments.payoff = a.payoff;
+        controlArguments.exercise = a.exercise;
+        controlArguments.validate();
+        engine.calculate();
+        return ((Instrument.ResultsImpl) engine.getResults()).value;
+    }
+
+    /**
+     * @return the drift shift applied to the Gaussian variates of each time step, or <code>null</code> when importance
+     *         sampling is not required
+     */
+    protected double[] importanceSamplingDrift(final TimeGrid grid) /* @ReadOnly */ {
+        return null;
+    }
+
+
+    //
+    // implements PricingEngine
+    //
 
-    public MCVanillaEngine() {
-        throw new UnsupportedOperationException("work in progress");
+    @Override
+    public void calculate() /* @ReadOnly */ {
+        final TimeGrid grid = timeGrid();
+        if (controlVariate) {
+            final PathPricer<Path> controlPathPricer = controlPathPricer();
+            QL.require(controlPathPricer != null, NO_CONTROL_PATH_PRICER); // TODO: message
+            simulation.calculate(
+                    grid, pathPricer(), controlPathPricer, controlVariateValue(), importanceSamplingDrift(grid), r);
+        } else {
+            simulation.calculate(grid, pathPricer(), null, Constants.NULL_REAL, importanceSamplingDrift(grid), r);
+        }
     }
 
 }
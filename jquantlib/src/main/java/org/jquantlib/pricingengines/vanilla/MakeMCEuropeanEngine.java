@@ -0,0 +1,131 @@
+/*
+ Copyright (C) 2011 Richard Gomes
+
+ This source code is release under the BSD License.
+
+ This file is part of JQuantLib, a free-software/open-source library
+ for financial quantitative analysts and developers - http://jquantlib.org/
+
+ JQuantLib is free software: you can redistribute it and/or modify it
+ under the terms of the JQuantLib license.  You should have received a
+ copy of the license along with this program; if not, please email
+ <jquant-devel@lists.sourceforge.net>. The license is also available online at
+ <http://www.jquantlib.org/index.php/LICENSE.TXT>.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE.  See the license for more details.
+
+ JQuantLib is based on QuantLib. http://quantlib.org/
+ When applicable, the original copyright notice follows this notice.
+ */
+
+
+package org.jquantlib.pricingengines.vanilla;
+
+import org.jquantlib.QL;
+import org.jquantlib.math.Constants;
+import org.jquantlib.pricingengines.MCSimulation;
+import org.jquantlib.pricingengines.PricingEngine;
+import org.jquantlib.processes.GeneralizedBlackScholesProcess;
+
+/**
+ * Monte Carlo European engine factory
+ * <p>
+ * Pseudo-random numbers are employed by default. {@link #withLowDiscrepancy(int)} switches to randomized low-discrepancy
+ * sequences, which are split into the given number of independent replicas in order to provide an error estimate.
+ *
+ * @see MCEuropeanEngine
+ * @see MCVanillaEngine
+ */
+public class MakeMCEuropeanEngine {
+
+    private static final String NUMBER_OF_STEPS_NOT_GIVEN = "number of steps not given";
+    private static final String NUMBER_OF_STEPS_OVERSPECIFIED = "number of steps overspecified";
+    private static final String NUMBER_OF_SAMPLES_NOT_GIVEN = "number of samples not given";
+
+    private final GeneralizedBlackScholesProcess process;
+
+    private boolean antithetic;
+    private boolean brownianBridge;
+    private /*@NonNegative*/ int steps;
+    private /*@NonNegative*/ int stepsPerYear;
+    private /*@NonNegative*/ int samples;
+    private /*@NonNegative*/ long seed;
+    private /*@NonNegative*/ int replicas;
+    private MCSimulation.PseudoRandomGenerator generator;
+
+
+    public MakeMCEuropeanEngine(final GeneralizedBlackScholesProcess process) {
+        this.process = process;
+        this.antithetic = false;
+        this.brownianBridge = false;
+        this.steps = Constants.NULL_INTEGER;
+        this.stepsPerYear = Constants.NULL_INTEGER;
+        this.samples = Constants.NULL_INTEGER;
+        this.seed = 0;
+        this.replicas = 0;
+        this.generator = MCSimulation.PseudoRandomGenerator.MersenneTwister;
+    }
+
+
+    //
+    // public methods
+    //
+
+    public MakeMCEuropeanEngine withSteps(final /*@NonNegative*/ int steps) {
+        this.steps = steps;
+        return this;
+    }
+
+    public MakeMCEuropeanEngine withStepsPerYear(final /*@NonNegative*/ int steps) {
+        this.stepsPerYear = steps;
+        return this;
+    }
+
+    public MakeMCEuropeanEngine withBrownianBridge(final boolean b) {
+        this.brownianBridge = b;
+        return this;
+    }
+
+    public MakeMCEuropeanEngine withAntitheticVariate(final boolean b) {
+        this.antithetic = b;
+        return this;
+    }
+
+    public MakeMCEuropeanEngine withSamples(final /*@NonNegative*/ int samples) {
+        this.samples = samples;
+        return this;
+    }
+
+    public MakeMCEuropeanEngine withSeed(final /*@NonNegative*/ long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Uses randomized low-discrepancy sequences instead of pseudo-random numbers
+     *
+     * @param replicas is the number of independent replicas, which must be at least 2
+     */
+    public MakeMCEuropeanEngine withLowDiscrepancy(final /*@NonNegative*/ int replicas) {
+        this.replicas = replicas;
+        return this;
+    }
+
+    /**
+     * Selects the source of Gaussian variates for pseudo-random sampling
+     */
+    public MakeMCEuropeanEngine withPseudoRandomGenerator(final MCSimulation.PseudoRandomGenerator generator) {
+        this.generator = generator;
+        return this;
+    }
+
+    public PricingEngine value() /* @ReadOnly */ {
+        QL.require(steps != Constants.NULL_INTEGER || stepsPerYear != Constants.NULL_INTEGER, NUMBER_OF_STEPS_NOT_GIVEN); // TODO: message
+        QL.require(steps == Constants.NULL_INTEGER || stepsPerYear == Constants.NULL_INTEGER, NUMBER_OF_STEPS_OVERSPECIFIED); // TODO: message
+        QL.require(samples != Constants.NULL_INTEGER, NUMBER_OF_SAMPLES_NOT_GIVEN); // TODO: message
+        return new MCEuropeanEngine(process, steps, stepsPerYear, brownianBridge, antithetic, samples, seed, replicas, generator);
+    }
+
+}
@@ -22,6 +22,7 @@
 
 package org.jquantlib.processes;
 
+import org.jquantlib.QL;
 import org.jquantlib.lang.exceptions.LibraryException;
 import org.jquantlib.math.Constants;
 import org.jquantlib.math.distributions.CumulativeNormalDistribution;
@@ -43,10 +44,25 @@ public class HestonProcess extends StochasticProcess {
     private final Handle<Quote> s0_;
     private final RelinkableHandle<Quote> v0_, kappa_, theta_, sigma_, rho_;
 
-    private enum Discretization {
-        PartialTruncation, FullTruncation, Reflection, ExactVariance
+    /**
+     * Discretization schemes of the process
+     * <p>
+     * The truncation and reflection schemes are Euler schemes which differ in how they handle negative variances.
+     * <p>
+     * The quadratic-exponential schemes are described by Andersen, L. (2008), "Efficient Simulation of the Heston Stochastic
+     * Volatility Model", Journal of Computational Finance 11(3). The variance is drawn from a quadratic function of a Gaussian
+     * variate when it is far from zero, and from a mixture of a mass at zero and an exponential distribution otherwise, so
+     * that the first two moments of its exact distribution are matched and the variance never becomes negative. The spot
+     * is then evolved with the integral of the variance approximated by the trapezoidal rule. The martingale variant corrects
+     * the drift of the spot so that the discounted spot is exactly a martingale. These schemes are accurate with much larger
+     * time steps than the Euler schemes.
+     */
+    public enum Discretization {
+        PartialTruncation, FullTruncation, Reflection, ExactVariance, QuadraticExponential, QuadraticExponentialMartingale
     };
 
+    private static final String ILLEGAL_MARTINGALE_CORRECTION = "illegal value of the martingale correction";
+
     private final Discretization discretization_;
 
     private double s0v_, v0v_, kappav_, thetav_, sigmav_, rhov_, sqrhov_;
@@ -79,10 +95,6 @@ public class HestonProcess extends StochasticProcess {
         // Seems like constructor which takes a Discretization must belong to
         // StochasticProcess and not StochasticProcess1D
 
-        if (System.getProperty("EXPERIMENTAL") == null) {
-            throw new UnsupportedOperationException("Work in progress");
-        }
-
         this.riskFreeRate_ = (riskFreeRate);
         this.dividendYield_ = (dividendYield);
         this.s0_ = (s0); // TODO: code review
@@ -98,6 +110,13 @@ public class HestonProcess extends StochasticProcess {
         this.riskFreeRate_.addObserver(this);
         this.dividendYield_.addObserver(this);
         this.s0_.addObserver(this);
+        this.v0_.addObserver(this);
+        this.kappa_.addObserver(this);
+        this.theta_.addObserver(this);
+        this.sigma_.addObserver(this);
+        this.rho_.addObserver(this);
+
+        update();
     }
 
     // TODO: code review :: please verify against QL/C++ code
@@ -111,7 +130,11 @@ public class HestonProcess extends StochasticProcess {
         rhov_ = rho_.currentLink().value();
         sqrhov_ = Math.sqrt(1.0 - rhov_ * rhov_);
 
-        // this->StochasticProcess::update();
+        super.update();
+    }
+
+    public final Discretization discretization() {
+        return discretization_;
     }
 
     public final RelinkableHandle<Quote> v0() {
@@ -290,6 +313,52 @@ public class HestonProcess extends StochasticProcess {
 
                 retVal[0] = x00 * Math.exp(dy + rhov_ / sigmav_ * (retVal[1] - x01));
                 break;
+            case QuadraticExponential:
+            case QuadraticExponentialMartingale:
+                // for details of the quadratic exponential discretization scheme
+                // see Leif Andersen, "Efficient Simulation of the Heston Stochastic
+                // Volatility Model", with gamma1 = gamma2 = 1/2 (trapezoidal rule)
+                final double ex = Math.exp(-kappav_ * dt);
+                final double m = thetav_ + (x01 - thetav_) * ex;
+                final double s2 = x01 * sigmav_ * sigmav_ * ex / kappav_ * (1 - ex)
+                                + thetav_ * sigmav_ * sigmav_ / (2 * kappav_) * (1 - ex) * (1 - ex);
+                final double psi = s2 / (m * m);
+
+                double k0 = -rhov_ * kappav_ * thetav_ * dt / sigmav_;
+                final double k1 = 0.5 * dt * (kappav_ * rhov_ / sigmav_ - 0.5) - rhov_ / sigmav_;
+                final double k2 = 0.5 * dt * (kappav_ * rhov_ / sigmav_ - 0.5) + rhov_ / sigmav_;
+                final double k3 = 0.5 * dt * (1 - rhov_ * rhov_);
+                final double k4 = k3;
+                final double A = k2 + 0.5 * k4;
+
+                if (psi < 1.5) {
+                    final double b2 = 2 / psi - 1 + Math.sqrt(2 / psi * (2 / psi - 1));
+                    final double b = Math.sqrt(b2);
+                    final double a = m / (1 + b2);
+                    if (discretization_ == Discretization.QuadraticExponentialMartingale) {
+                        // martingale correction
+                        QL.require(A < 1 / (2 * a), ILLEGAL_MARTINGALE_CORRECTION); // TODO: message
+                        k0 = -A * b2 * a / (1 - 2 * A * a) + 0.5 * Math.log(1 - 2 * A * a) - (k1 + 0.5 * k3) * x01;
+                    }
+                    retVal[1] = a * (b + dw1) * (b + dw1);
+                } else {
+                    final double pp = (psi - 1) / (psi + 1);
+                    final double beta = (1 - pp) / m;
+                    final double u = new CumulativeNormalDistribution().op(dw1);
+                    if (discretization_ == Discretization.QuadraticExponentialMartingale) {
+                        // martingale correction
+                        QL.require(A < beta, ILLEGAL_MARTINGALE_CORRECTION); // TODO: message
+                        k0 = -Math.log(pp + beta * (1 - pp) / (beta - A)) - (k1 + 0.5 * k3) * x01;
+                    }
+                    retVal[1] = (u <= pp) ? 0.0 : Math.log((1 - pp) / (1 - u)) / beta;
+                }
+
+                mu = riskFreeRate_.currentLink().forwardRate(t0, t0 + dt, Compounding.Continuous).rate()
+                   - dividendYield_.currentLink().forwardRate(t0, t0 + dt, Compounding.Continuous).rate();
+
+                retVal[0] = x00 * Math.exp(mu * dt + k0 + k1 * x01 + k2 * retVal[1]
+                                           + Math.sqrt(k3 * x01 + k4 * retVal[1]) * dw0);
+                break;
             default:
                 throw new LibraryException("unknown discretization schema"); // TODO: message
         }
@@ -102,7 +102,7 @@ public abstract class LfmCovarianceParameterization {
 
         public double op(final double t) {
             final Matrix m = param_.diffusion(t);
-            return m.constRangeRow(i_).innerProduct(m.constRangeRow(j_));
+            return m.rowView(i_).dotProduct(m.rowView(j_));
         }
     }
 
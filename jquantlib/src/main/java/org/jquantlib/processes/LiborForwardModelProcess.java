@@ -207,7 +207,7 @@ public class LiborForwardModelProcess extends StochasticProcess {
             m1.set(k,y/(1+y));
 
             final double d = (m1.innerProduct(covariance.constRangeCol(k), m, k+1-m)-0.5*covariance.get(k, k)) * dt;
-            final double r = diff.rangeRow(k).innerProduct(dw)*sdt;
+            final double r = diff.rowView(k).dotProduct(dw.view())*sdt;
             final double x = y*Math.exp(d + r);
             m2.set(k, x/(1+x));
 
@@ -40,6 +40,8 @@
 
 package org.jquantlib.termstructures.volatilities;
 
+import java.nio.ByteBuffer;
+
 import org.jquantlib.QL;
 import org.jquantlib.daycounters.DayCounter;
 import org.jquantlib.math.interpolations.Interpolation2D;
@@ -50,6 +52,7 @@ import org.jquantlib.math.matrixutilities.Matrix;
 import org.jquantlib.termstructures.BlackVarianceTermStructure;
 import org.jquantlib.termstructures.TermStructure;
 import org.jquantlib.time.Date;
+import org.jquantlib.util.BinaryFormat;
 import org.jquantlib.util.PolymorphicVisitor;
 import org.jquantlib.util.Visitor;
 
@@ -85,6 +88,11 @@ public class BlackVarianceSurface extends BlackVarianceTermStructure {
     private final Extrapolation upperExtrapolation;
     private final Interpolation2D.Interpolator2D factory;
 
+    // market data, kept for serialization
+    private final Date[] dates;
+    private final /* @Real */ Array marketStrikes;
+    private final /* @Volatility */ Matrix blackVolMatrix;
+
 
     //
     // public constructors
@@ -113,6 +121,9 @@ public class BlackVarianceSurface extends BlackVarianceTermStructure {
         QL.require(dates[0].gt(referenceDate) , "cannot have dates[0] <= referenceDate"); // TODO: message
 
         this.dayCounter = dayCounter;
+        this.dates = dates.clone();
+        this.marketStrikes = strikes.clone();
+        this.blackVolMatrix = blackVolMatrix.clone();
         this.maxDate = dates[dates.length-1]; // TODO: code review: index seems to be wrong
         // TODO: code review :: use of clone()
         this.strikes = strikes.clone();
@@ -155,6 +166,54 @@ public class BlackVarianceSurface extends BlackVarianceTermStructure {
     }
 
 
+    /**
+     * Serializes the market data this surface was built from
+     * <p>
+     * The day counter is identified by name only, therefore it must be supplied again when the surface is read.
+     *
+     * @return a buffer containing a {@link BinaryFormat.Content#VarianceSurface} record
+     */
+    public ByteBuffer serialize() /* @ReadOnly */ {
+        return new BinaryFormat.Writer(BinaryFormat.Content.VarianceSurface)
+            .putDate(referenceDate())
+            .putString(dayCounter.name())
+            .putInt(lowerExtrapolation.ordinal())
+            .putInt(upperExtrapolation.ordinal())
+            .putDates(dates)
+            .putArray(marketStrikes)
+            .putMatrix(blackVolMatrix)
+            .toByteBuffer();
+    }
+
+
+    //
+    // public static methods
+    //
+
+    /**
+     * Restores a surface previously serialized by {@link #serialize()}
+     *
+     * @param buffer is positioned at the beginning of the record and is left positioned right after it
+     * @param dayCounter must have the same name of the day counter of the original surface
+     */
+    public static BlackVarianceSurface deserialize(final ByteBuffer buffer, final DayCounter dayCounter) {
+        final BinaryFormat.Reader reader = new BinaryFormat.Reader(buffer, BinaryFormat.Content.VarianceSurface);
+        final Date referenceDate = reader.getDate();
+        QL.require(dayCounter.name().equals(reader.getString()), "day counter does not match the one of the surface"); // TODO: message
+        final Extrapolation lower = extrapolation(reader.getInt());
+        final Extrapolation upper = extrapolation(reader.getInt());
+        final Date[] dates = reader.getDates();
+        final Array strikes = reader.getArray();
+        final Matrix blackVolMatrix = reader.getMatrix();
+        return new BlackVarianceSurface(referenceDate, dates, strikes, blackVolMatrix, dayCounter, lower, upper);
+    }
+
+    private static Extrapolation extrapolation(final int ordinal) {
+        QL.require(ordinal >= 0 && ordinal < Extrapolation.values().length, "unknown extrapolation"); // TODO: message
+        return Extrapolation.values()[ordinal];
+    }
+
+
     //
     // Overrides TermStructure
     //
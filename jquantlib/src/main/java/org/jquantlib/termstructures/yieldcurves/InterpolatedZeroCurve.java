@@ -130,7 +130,7 @@ public class InterpolatedZeroCurve<I extends Interpolator> extends ZeroYieldStru
 			QL.require(dates[i].gt(dates[i-1]), "Dates must be in ascending order"); // TODO: message
 			QL.require(data[0] > 0, "Negative discount"); // TODO: message
 			times[i] = dc.yearFraction(dates[0], dates[i]);
-			QL.require(Closeness.isClose(times[i], times[i-1]), "two dates correspond to the same time under this curve's day count convention"); // TODO: message
+			QL.require(!Closeness.isClose(times[i], times[i-1]), "two dates correspond to the same time under this curve's day count convention"); // TODO: message
 		}
 
         this.interpolator = interpolator==null ? constructInterpolator(classI) : interpolator;
@@ -225,6 +225,22 @@ public class InterpolatedZeroCurve<I extends Interpolator> extends ZeroYieldStru
     
     
     
+    //
+    // public methods
+    //
+
+    /**
+     * Returns an immutable copy of this curve, which can be safely shared between threads.
+     *
+     * @see YieldCurveSnapshot
+     */
+    public YieldCurveSnapshot snapshot() /* @ReadOnly */ {
+        QL.require(dates!=null && dates.length > 0, "curve has no nodes"); // TODO: message
+        return new YieldCurveSnapshot(YieldCurveSnapshot.Kind.ZeroYield, referenceDate(), calendar(), dayCounter(),
+                dates, times, data, interpolator, allowsExtrapolation());
+    }
+
+
     //
 	// implements Traits.Curve
 	//
@@ -47,6 +47,8 @@ import org.jquantlib.daycounters.DayCounter;
 import org.jquantlib.lang.exceptions.LibraryException;
 import org.jquantlib.math.interpolations.Interpolation;
 import org.jquantlib.math.interpolations.Interpolation.Interpolator;
+import org.jquantlib.math.matrixutilities.Array;
+import org.jquantlib.math.matrixutilities.Matrix;
 import org.jquantlib.quotes.Handle;
 import org.jquantlib.quotes.Quote;
 import org.jquantlib.termstructures.Bootstrap;
@@ -99,6 +101,16 @@ public class PiecewiseYieldCurve<
     //=============================================================================================
     
 	
+    //
+    // private static final fields
+    //
+
+    /**
+     * Relative size of the node bumps employed by {@link #jacobian()}
+     */
+    private static final double JACOBIAN_BUMP = 1.0e-6;
+
+
     //
     // private final fields
     //
@@ -119,6 +131,13 @@ public class PiecewiseYieldCurve<
     private Date[] jumpDates;
     private Date latestReference;
 
+    /**
+     * Sensitivities of curve nodes to instrument quotes, calculated on demand
+     *
+     * @see #jacobian()
+     */
+    private Matrix jacobian;
+
 
     //
     // package private fields
@@ -668,11 +687,149 @@ public class PiecewiseYieldCurve<
 
     @Override
     public void performCalculations() /* @ReadOnly */ {
+        // sensitivities refer to the previous set of nodes
+        jacobian = null;
         // just delegate to the bootstrapper
         bootstrap.calculate();
     }
 
 
+    //
+    // sensitivities
+    //
+
+    /**
+     * Returns the sensitivities of the bootstrapped nodes to the quotes of the instruments.
+     * <p>
+     * The bootstrap solves <i>quote<sub>i</sub> = impliedQuote<sub>i</sub>(data)</i> for every instrument. By implicit
+     * differentiation of these equations, the Jacobian of the nodes with respect to the quotes is the inverse of the Jacobian of
+     * the implied quotes with respect to the nodes. The latter is obtained by bumping each node in turn and re-evaluating the
+     * instruments on the curve already bootstrapped, which means that no further bootstraps are needed. Nodes are bumped by
+     * means of {@link Traits#updateGuess(double[], double, int)}, exactly as the bootstrap sets them, so that traits which keep
+     * the first node equal to the second one see both of them moving together.
+     * <p>
+     * Element <i>(i, j)</i> of the returned Matrix is the derivative of <code>data()[i+1]</code> with respect to the quote
+     * of <code>instruments()[j]</code>. The first node is not included: either it does not depend on any quote or, when
+     * {@link Traits#dummyInitialValue()} holds, it is equal to the second node.
+     * <p>
+     * The Jacobian is cached until the curve is bootstrapped again. Every call returns a copy of it, which the caller is free to
+     * modify.
+     *
+     * @note Instruments are kept sorted by maturity by the bootstrapper, therefore columns follow the order of
+     *       {@link #instruments()} after the curve is calculated, which may differ from the order passed to constructors.
+     *
+     * @return a <i>n x n</i> Matrix, where <i>n</i> is the number of instruments
+     */
+    public Matrix jacobian() {
+        return cachedJacobian().clone();
+    }
+
+    /**
+     * Maps sensitivities of a value with respect to curve nodes onto sensitivities with respect to instrument quotes.
+     *
+     * @param nodeSensitivities contains derivatives of a value with respect to <code>data()[1..n]</code>
+     * @return derivatives of the value with respect to the quotes of {@link #instruments()}
+     *
+     * @see #jacobian()
+     */
+    public Array quoteSensitivities(final Array nodeSensitivities) {
+        final Matrix jacobian = cachedJacobian();
+        QL.require(nodeSensitivities.size() == jacobian.rows(), "wrong number of node sensitivities"); // TODO: message
+        return jacobian.transpose().mul(nodeSensitivities);
+    }
+
+    /**
+     * Returns the cached Jacobian of nodes with respect to quotes, which must not be modified nor handed out
+     */
+    private Matrix cachedJacobian() {
+        calculate();
+        if (jacobian == null) {
+            jacobian = impliedQuoteJacobian().inverse();
+        }
+        return jacobian;
+    }
+
+    /**
+     * Calculates derivatives of implied quotes with respect to curve nodes by central differences
+     */
+    private Matrix impliedQuoteJacobian() {
+        final int n = instruments.length;
+        final double[] times = baseCurve.times();
+        final double[] data = baseCurve.data();
+        final Interpolation interpolation = baseCurve.interpolation();
+        final Matrix result = new Matrix(n, n);
+        final double[] up = new double[n];
+        try {
+            for (int j=0; j<n; j++) {
+                final double node = data[j+1];
+                final double h = JACOBIAN_BUMP * Math.max(Math.abs(node), 1.0);
+
+                traits.updateGuess(data, node + h, j+1);
+                bumpInterpolation(times, data);
+                for (int i=0; i<n; i++) {
+                    up[i] = instruments[i].impliedQuote();
+                }
+
+                traits.updateGuess(data, node - h, j+1);
+                bumpInterpolation(times, data);
+                for (int i=0; i<n; i++) {
+                    result.set(i, j, (up[i] - instruments[i].impliedQuote()) / (2.0*h));
+                }
+
+                traits.updateGuess(data, node, j+1);
+            }
+        } finally {
+            // restore the interpolation obtained by the bootstrap
+            baseCurve.setInterpolation(interpolation);
+            interpolation.update();
+        }
+        return result;
+    }
+
+    private void bumpInterpolation(final double[] times, final double[] data) {
+        final Interpolation bumped = interpolator.interpolate(new Array(times), new Array(data));
+        bumped.update();
+        baseCurve.setInterpolation(bumped);
+    }
+
+
+    //
+    // snapshots
+    //
+
+    /**
+     * Returns an immutable copy of the curve as currently bootstrapped, which can be safely shared between threads.
+     * <p>
+     * Jumps are frozen at the values of their quotes at the time the snapshot is taken.
+     *
+     * @see YieldCurveSnapshot
+     */
+    public YieldCurveSnapshot snapshot() /* @ReadOnly */ {
+        calculate();
+
+        final YieldCurveSnapshot.Kind kind;
+        if (classT == Discount.class)
+            kind = YieldCurveSnapshot.Kind.Discount;
+        else if (classT == ForwardRate.class)
+            kind = YieldCurveSnapshot.Kind.ForwardRate;
+        else if (classT == ZeroYield.class)
+            kind = YieldCurveSnapshot.Kind.ZeroYield;
+        else
+            throw new LibraryException("only Discount, ForwardRate and ZeroYield are supported"); // TODO: message
+
+        final double[] jumpValues = new double[jumps.length];
+        for (int i=0; i<jumps.length; ++i) {
+            QL.require(jumps[i].currentLink().isValid(), "invalid jump quote");
+            jumpValues[i] = jumps[i].currentLink().value();
+            QL.require(jumpValues[i] > 0.0 && jumpValues[i] <= 1.0, "invalid  jump value");
+        }
+
+        return new YieldCurveSnapshot(kind, baseCurve.referenceDate(), baseCurve.calendar(), baseCurve.dayCounter(),
+                baseCurve.dates(), baseCurve.times(), baseCurve.data(), interpolator, allowsExtrapolation(),
+                jumps.length > 0 ? jumpTimes : new double[0], jumpValues);
+    }
+
+
     //
     // implements YieldTermStructure
     //
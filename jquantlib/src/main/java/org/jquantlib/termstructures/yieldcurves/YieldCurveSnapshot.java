@@ -0,0 +1,346 @@
+/*
+ Copyright (C) 2011 Richard Gomes
+
+ This source code is release under the BSD License.
+
+ This file is part of JQuantLib, a free-software/open-source library
+ for financial quantitative analysts and developers - http://jquantlib.org/
+
+ JQuantLib is free software: you can redistribute it and/or modify it
+ under the terms of the JQuantLib license.  You should have received a
+ copy of the license along with this program; if not, please email
+ <jquant-devel@lists.sourceforge.net>. The license is also available online at
+ <http://www.jquantlib.org/index.php/LICENSE.TXT>.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE.  See the license for more details.
+
+ JQuantLib is based on QuantLib. http://quantlib.org/
+ When applicable, the original copyright notice follows this notice.
+ */
+
+package org.jquantlib.termstructures.yieldcurves;
+
+import java.nio.ByteBuffer;
+
+import org.jquantlib.QL;
+import org.jquantlib.daycounters.DayCounter;
+import org.jquantlib.lang.exceptions.LibraryException;
+import org.jquantlib.math.interpolations.CubicInterpolation.BoundaryCondition;
+import org.jquantlib.math.interpolations.CubicInterpolation.DerivativeApprox;
+import org.jquantlib.math.interpolations.Interpolation;
+import org.jquantlib.math.interpolations.Interpolation.Interpolator;
+import org.jquantlib.math.interpolations.factories.BackwardFlat;
+import org.jquantlib.math.interpolations.factories.Cubic;
+import org.jquantlib.math.interpolations.factories.ForwardFlat;
+import org.jquantlib.math.interpolations.factories.Linear;
+import org.jquantlib.math.interpolations.factories.LogCubic;
+import org.jquantlib.math.interpolations.factories.LogLinear;
+import org.jquantlib.math.matrixutilities.Array;
+import org.jquantlib.termstructures.AbstractYieldTermStructure;
+import org.jquantlib.time.Calendar;
+import org.jquantlib.time.Date;
+import org.jquantlib.util.BinaryFormat;
+
+/**
+ * Immutable copy of an interpolated yield curve
+ * <p>
+ * A snapshot keeps private copies of the node times and values of the curve it was taken from, together with an
+ * interpolation which is built once and never updated afterwards. The reference date is fixed and the snapshot neither
+ * observes the global evaluation date nor any quote, therefore it can be read concurrently by any number of threads
+ * without locking while the live curve keeps being bootstrapped again on market data updates.
+ * <p>
+ * The intended usage is to publish snapshots by means of an atomic reference swap:
+ * <pre>
+ * final AtomicReference&lt;YieldCurveSnapshot&gt; published = new AtomicReference&lt;YieldCurveSnapshot&gt;(curve.snapshot());
+ *
+ * // market data thread, after quotes have changed
+ * published.set(curve.snapshot());
+ *
+ * // pricing threads
+ * final YieldTermStructure ts = published.get();
+ * </pre>
+ * <p>
+ * Snapshots can also be saved by {@link #serialize()} and restored by {@link #deserialize(ByteBuffer, Calendar, DayCounter)},
+ * which allows a service to warm-start without bootstrapping its curves again.
+ *
+ * @see InterpolatedDiscountCurve#snapshot()
+ * @see InterpolatedZeroCurve#snapshot()
+ * @see InterpolatedForwardCurve#snapshot()
+ * @see PiecewiseYieldCurve#snapshot()
+ *
+ * @category yieldtermstructures
+ */
+public final class YieldCurveSnapshot extends AbstractYieldTermStructure {
+
+    /**
+     * Quantity interpolated at the nodes of the curve
+     */
+    public enum Kind {
+        Discount, ZeroYield, ForwardRate
+    }
+
+
+    //
+    // private final fields
+    //
+
+    private final Kind                  kind;
+    private final Date[]                dates;
+    private final /*@Time*/ double[]    times;
+    private final double[]              data;
+    private final Interpolator          interpolator;
+    private final Interpolation         interpolation;
+    private final /*@Time*/ double[]    jumpTimes;
+    private final double[]              jumpFactors;
+
+
+    //
+    // package private constructors
+    //
+
+    YieldCurveSnapshot(
+            final Kind kind,
+            final Date referenceDate,
+            final Calendar calendar,
+            final DayCounter dc,
+            final Date[] dates,
+            final /*@Time*/ double[] times,
+            final double[] data,
+            final Interpolator interpolator,
+            final boolean extrapolate) {
+        this(kind, referenceDate, calendar, dc, dates, times, data, interpolator, extrapolate, new double[0], new double[0]);
+    }
+
+    YieldCurveSnapshot(
+            final Kind kind,
+            final Date referenceDate,
+            final Calendar calendar,
+            final DayCounter dc,
+            final Date[] dates,
+            final /*@Time*/ double[] times,
+            final double[] data,
+            final Interpolator interpolator,
+            final boolean extrapolate,
+            final /*@Time*/ double[] jumpTimes,
+            final double[] jumpFactors) {
+        super(referenceDate.clone(), calendar, dc);
+
+        QL.require(kind!=null, "kind must be informed"); // TODO: message
+        QL.require(interpolator!=null, "interpolator must be informed"); // TODO: message
+        QL.require(dates.length > 0, "Dates cannot be empty"); // TODO: message
+        QL.require(dates.length == times.length && times.length == data.length, "Dates, times and data must have the same size"); // TODO: message
+        QL.require(jumpTimes.length == jumpFactors.length, "mismatch between number of jump times and jump values"); // TODO: message
+
+        this.kind = kind;
+        this.dates = new Date[dates.length];
+        for (int i = 0; i < dates.length; ++i) {
+            this.dates[i] = dates[i].clone();
+        }
+        this.times = times.clone();
+        this.data = data.clone();
+        this.jumpTimes = jumpTimes.clone();
+        this.jumpFactors = jumpFactors.clone();
+        this.interpolator = interpolator;
+
+        // Array makes its own copy of the nodes, therefore the interpolation does not share state with the source curve
+        this.interpolation = interpolator.interpolate(new Array(this.times), new Array(this.data));
+        this.interpolation.update();
+
+        if (extrapolate) {
+            enableExtrapolation();
+        }
+    }
+
+
+    //
+    // public methods
+    //
+
+    public Kind kind() /* @ReadOnly */ {
+        return kind;
+    }
+
+    public Date[] dates() /* @ReadOnly */ {
+        final Date[] result = new Date[dates.length];
+        for (int i = 0; i < dates.length; ++i) {
+            result[i] = dates[i].clone();
+        }
+        return result;
+    }
+
+    public /*@Time*/ double[] times() /* @ReadOnly */ {
+        return times.clone();
+    }
+
+    public double[] data() /* @ReadOnly */ {
+        return data.clone();
+    }
+
+    public Interpolator interpolator() /* @ReadOnly */ {
+        return interpolator;
+    }
+
+    /**
+     * Serializes this snapshot
+     * <p>
+     * Calendar and day counter are identified by name only, therefore they must be supplied again when the snapshot is read.
+     * The interpolator is identified by its class, followed by its settings in case of {@link Cubic} and {@link LogCubic}.
+     * Other interpolators must be one of {@link Linear}, {@link LogLinear}, {@link BackwardFlat} or {@link ForwardFlat},
+     * which do not take any settings.
+     *
+     * @return a buffer containing a {@link BinaryFormat.Content#YieldCurve} record
+     */
+    public ByteBuffer serialize() /* @ReadOnly */ {
+        final BinaryFormat.Writer writer = new BinaryFormat.Writer(BinaryFormat.Content.YieldCurve)
+            .putInt(kind.ordinal())
+            .putDate(referenceDate())
+            .putString(calendar().name())
+            .putString(dayCounter().name());
+        putInterpolator(writer, interpolator);
+        return writer
+            .putBoolean(allowsExtrapolation())
+            .putDates(dates)
+            .putDoubles(times)
+            .putDoubles(data)
+            .putDoubles(jumpTimes)
+            .putDoubles(jumpFactors)
+            .toByteBuffer();
+    }
+
+
+    //
+    // public static methods
+    //
+
+    /**
+     * Restores a snapshot previously serialized by {@link #serialize()}
+     *
+     * @param buffer is positioned at the beginning of the record and is left positioned right after it
+     * @param calendar must have the same name of the calendar of the original curve
+     * @param dc must have the same name of the day counter of the original curve
+     */
+    public static YieldCurveSnapshot deserialize(final ByteBuffer buffer, final Calendar calendar, final DayCounter dc) {
+        final BinaryFormat.Reader reader = new BinaryFormat.Reader(buffer, BinaryFormat.Content.YieldCurve);
+        final int ordinal = reader.getInt();
+        QL.require(ordinal >= 0 && ordinal < Kind.values().length, "unknown kind of curve"); // TODO: message
+        final Kind kind = Kind.values()[ordinal];
+        final Date referenceDate = reader.getDate();
+        QL.require(calendar.name().equals(reader.getString()), "calendar does not match the one of the snapshot"); // TODO: message
+        QL.require(dc.name().equals(reader.getString()), "day counter does not match the one of the snapshot"); // TODO: message
+        final Interpolator interpolator = getInterpolator(reader);
+        final boolean extrapolate = reader.getBoolean();
+        final Date[] dates = reader.getDates();
+        final double[] times = reader.getDoubles();
+        final double[] data = reader.getDoubles();
+        final double[] jumpTimes = reader.getDoubles();
+        final double[] jumpFactors = reader.getDoubles();
+        return new YieldCurveSnapshot(kind, referenceDate, calendar, dc,
+                dates, times, data, interpolator, extrapolate, jumpTimes, jumpFactors);
+    }
+
+
+    //
+    // private static methods
+    //
+
+    private static void putInterpolator(final BinaryFormat.Writer writer, final Interpolator interpolator) {
+        final Class<?> klass = interpolator.getClass();
+        writer.putString(klass.getName());
+        if (klass == Cubic.class) {
+            final Cubic cubic = (Cubic) interpolator;
+            writer.putInt(cubic.derivativeApprox().ordinal())
+                  .putBoolean(cubic.monotonic())
+                  .putInt(cubic.leftCondition().ordinal())
+                  .putDouble(cubic.leftConditionValue())
+                  .putInt(cubic.rightCondition().ordinal())
+                  .putDouble(cubic.rightConditionValue());
+        } else if (klass == LogCubic.class) {
+            final LogCubic cubic = (LogCubic) interpolator;
+            writer.putInt(cubic.derivativeApprox().ordinal())
+                  .putBoolean(cubic.monotonic())
+                  .putInt(cubic.leftCondition().ordinal())
+                  .putDouble(cubic.leftConditionValue())
+                  .putInt(cubic.rightCondition().ordinal())
+                  .putDouble(cubic.rightConditionValue());
+        } else {
+            QL.require(klass == Linear.class || klass == LogLinear.class || klass == BackwardFlat.class || klass == ForwardFlat.class,
+                    "interpolator cannot be serialized: " + klass.getName()); // TODO: message
+        }
+    }
+
+    private static Interpolator getInterpolator(final BinaryFormat.Reader reader) {
+        final String className = reader.getString();
+        if (className.equals(Cubic.class.getName())) {
+            return new Cubic(getDerivativeApprox(reader), reader.getBoolean(),
+                    getBoundaryCondition(reader), reader.getDouble(),
+                    getBoundaryCondition(reader), reader.getDouble());
+        } else if (className.equals(LogCubic.class.getName())) {
+            return new LogCubic(getDerivativeApprox(reader), reader.getBoolean(),
+                    getBoundaryCondition(reader), reader.getDouble(),
+                    getBoundaryCondition(reader), reader.getDouble());
+        } else if (className.equals(Linear.class.getName())) {
+            return new Linear();
+        } else if (className.equals(LogLinear.class.getName())) {
+            return new LogLinear();
+        } else if (className.equals(BackwardFlat.class.getName())) {
+            return new BackwardFlat();
+        } else if (className.equals(ForwardFlat.class.getName())) {
+            return new ForwardFlat();
+        }
+        throw new LibraryException("unknown interpolator: " + className); // TODO: message
+    }
+
+    private static DerivativeApprox getDerivativeApprox(final BinaryFormat.Reader reader) {
+        final int ordinal = reader.getInt();
+        QL.require(ordinal >= 0 && ordinal < DerivativeApprox.values().length, "unknown derivative approximation"); // TODO: message
+        return DerivativeApprox.values()[ordinal];
+    }
+
+    private static BoundaryCondition getBoundaryCondition(final BinaryFormat.Reader reader) {
+        final int ordinal = reader.getInt();
+        QL.require(ordinal >= 0 && ordinal < BoundaryCondition.values().length, "unknown boundary condition"); // TODO: message
+        return BoundaryCondition.values()[ordinal];
+    }
+
+
+    //
+    // overrides TermStructure
+    //
+
+    @Override
+    public Date maxDate() /* @ReadOnly */ {
+        return dates[dates.length-1].clone();
+    }
+
+
+    //
+    // overrides AbstractYieldTermStructure
+    //
+
+    @Override
+    protected /*@DiscountFactor*/ double discountImpl(final /*@Time*/ double t) /* @ReadOnly */ {
+        final double d;
+        switch (kind) {
+        case Discount:
+            d = interpolation.op(t, true);
+            break;
+        case ZeroYield:
+            d = Math.exp(-interpolation.op(t, true) * t);
+            break;
+        case ForwardRate:
+            d = Math.exp(-interpolation.primitive(t, true));
+            break;
+        default:
+            throw new UnsupportedOperationException();
+        }
+
+        double jumpEffect = 1.0;
+        for (int i = 0; i < jumpTimes.length && jumpTimes[i] < t; ++i) {
+            jumpEffect *= jumpFactors[i];
+        }
+        return jumpEffect * d;
+    }
+
+}
@@ -29,7 +29,6 @@ import java.util.List;
 import org.jquantlib.QL;
 import org.jquantlib.lang.annotation.NonNegative;
 import org.jquantlib.lang.annotation.Time;
-import org.jquantlib.lang.iterators.Iterables;
 import org.jquantlib.math.Closeness;
 import org.jquantlib.math.matrixutilities.Array;
 
@@ -90,46 +89,49 @@ public class TimeGrid {
     /**
      * Time grid with mandatory time points.
      * <p>
-     * Mandatory points are guaranteed to belong to the grid. No additional points are added.
+     * Mandatory points are guaranteed to belong to the grid. No additional points are added, except for the origin when it is
+     * not a mandatory point.
      *
-     * @note This constructor is not available yet
-     *
-     * @param list
+     * @param mandatoryTimes
      */
     public TimeGrid(@Time @NonNegative final Array mandatoryTimes) {
 
-        if (System.getProperty("EXPERIMENTAL")==null)
-            throw new UnsupportedOperationException("This constructor is not available yet");
-
-        //XXX this.mandatoryTimes = mandatoryTimes.clone();
-        this.mandatoryTimes = mandatoryTimes;
-        this.mandatoryTimes.sort();
+        final Array sorted = mandatoryTimes.clone();
+        sorted.sort();
 
         // THIS COMMENT COMES FROM QuantLib/C++ code
         //
         // We seem to assume that the grid begins at 0.
         // Let's enforce the assumption for the time being
         // (even though I'm not sure that I agree.)
-        QL.require(mandatoryTimes.first() < 0.0 , "negative times not allowed"); // TODO: message
+        QL.require(sorted.first() >= 0.0 , "negative times not allowed"); // TODO: message
 
         final List<Double> unique = new ArrayList<Double>();
-        double prev = this.mandatoryTimes.get(0);
+        double prev = sorted.get(0);
         unique.add(prev);
-        for (int i=1; i<this.mandatoryTimes.size(); i++) {
-            final double curr = this.mandatoryTimes.get(i);
+        for (int i=1; i<sorted.size(); i++) {
+            final double curr = sorted.get(i);
             if (! Closeness.isCloseEnough(prev, curr)) {
                 unique.add(curr);
             }
             prev = curr;
         }
 
-        this.times = new Array(unique.size());
-        int i=0;
-        for (final double d : Iterables.unmodifiableIterable(unique.iterator())) {
-            this.times.set(i, d);
-            i++;
+        this.mandatoryTimes = new Array(unique.size());
+        for (int i=0; i<unique.size(); i++) {
+            this.mandatoryTimes.set(i, unique.get(i));
+        }
+
+        final int offset = (unique.get(0) > 0.0) ? 1 : 0;
+        this.times = new Array(unique.size()+offset);
+        for (int i=0; i<unique.size(); i++) {
+            this.times.set(i+offset, unique.get(i));
+        }
+
+        this.dt = new Array(this.times.size()-1);
+        for (int i=0; i<this.dt.size(); i++) {
+            this.dt.set(i, this.times.get(i+1) - this.times.get(i));
         }
-        this.dt = this.times.adjacentDifference();
     }
 
 
@@ -0,0 +1,330 @@
+/*
+ Copyright (C) 2011 Richard Gomes
+
+ This source code is release under the BSD License.
+
+ This file is part of JQuantLib, a free-software/open-source library
+ for financial quantitative analysts and developers - http://jquantlib.org/
+
+ JQuantLib is free software: you can redistribute it and/or modify it
+ under the terms of the JQuantLib license.  You should have received a
+ copy of the license along with this program; if not, please email
+ <jquant-devel@lists.sourceforge.net>. The license is also available online at
+ <http://www.jquantlib.org/index.php/LICENSE.TXT>.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE.  See the license for more details.
+
+ JQuantLib is based on QuantLib. http://quantlib.org/
+ When applicable, the original copyright notice follows this notice.
+ */
+
+package org.jquantlib.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+import org.jquantlib.QL;
+import org.jquantlib.lang.exceptions.LibraryException;
+import org.jquantlib.math.matrixutilities.Array;
+import org.jquantlib.math.matrixutilities.Matrix;
+import org.jquantlib.time.Date;
+
+/**
+ * Compact binary format for calibrated objects
+ * <p>
+ * Objects which are expensive to obtain, like bootstrapped curves, volatility surfaces and calibrated model parameters,
+ * can be written by means of a {@link Writer} and restored later, possibly by another process, by means of a {@link Reader}.
+ * Reading works over any {@link ByteBuffer}, in particular over read-only buffers obtained from {@link #map(File)}, so that
+ * the operating system page cache can be shared by several processes.
+ * <p>
+ * Every record starts with a header made of a magic number, the version of the format and the kind of content. Integers and
+ * doubles are stored big-endian; dates are stored as serial numbers; strings are stored as UTF-8 preceded by their length.
+ *
+ * @see org.jquantlib.termstructures.yieldcurves.YieldCurveSnapshot
+ * @see org.jquantlib.termstructures.volatilities.BlackVarianceSurface
+ * @see org.jquantlib.model.CalibratedModel
+ * @see org.jquantlib.math.matrixutilities.OffHeapMatrix
+ */
+public final class BinaryFormat {
+
+    //
+    // public static final fields
+    //
+
+    public static final int MAGIC = 0x4A514C42; // "JQLB"
+    public static final short VERSION = 1;
+
+    /**
+     * Kind of object stored in a record
+     */
+    public enum Content {
+        YieldCurve, VarianceSurface, ModelParameters, Matrix
+    }
+
+
+    //
+    // private static final fields
+    //
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final int INITIAL_CAPACITY = 256;
+
+
+    //
+    // private constructors
+    //
+
+    private BinaryFormat() {
+        // only static methods
+    }
+
+
+    //
+    // public static methods
+    //
+
+    /**
+     * Maps a file in memory for reading
+     *
+     * @return a read-only buffer positioned at the beginning of the file
+     */
+    public static ByteBuffer map(final File file) {
+        try {
+            final RandomAccessFile raf = new RandomAccessFile(file, "r");
+            try {
+                final FileChannel channel = raf.getChannel();
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            } finally {
+                // the mapping remains valid after the channel is closed
+                raf.close();
+            }
+        } catch (final IOException e) {
+            throw new LibraryException("cannot map " + file, e); // TODO: message
+        }
+    }
+
+    /**
+     * Writes the remaining bytes of a buffer to a file, replacing its contents
+     */
+    public static void write(final File file, final ByteBuffer buffer) {
+        try {
+            final FileOutputStream os = new FileOutputStream(file);
+            try {
+                final FileChannel channel = os.getChannel();
+                final ByteBuffer src = buffer.duplicate();
+                while (src.hasRemaining()) {
+                    channel.write(src);
+                }
+            } finally {
+                os.close();
+            }
+        } catch (final IOException e) {
+            throw new LibraryException("cannot write " + file, e); // TODO: message
+        }
+    }
+
+
+    //
+    // public inner classes
+    //
+
+    /**
+     * Appends a record to a growable buffer
+     */
+    public static final class Writer {
+
+        private ByteBuffer buffer;
+
+        public Writer(final Content content) {
+            QL.require(content!=null, "content must be informed"); // TODO: message
+            this.buffer = ByteBuffer.allocate(INITIAL_CAPACITY);
+            buffer.putInt(MAGIC).putShort(VERSION).put((byte) content.ordinal());
+        }
+
+        public Writer putBoolean(final boolean value) {
+            ensureCapacity(1).put((byte) (value ? 1 : 0));
+            return this;
+        }
+
+        public Writer putInt(final int value) {
+            ensureCapacity(4).putInt(value);
+            return this;
+        }
+
+        public Writer putLong(final long value) {
+            ensureCapacity(8).putLong(value);
+            return this;
+        }
+
+        public Writer putDouble(final double value) {
+            ensureCapacity(8).putDouble(value);
+            return this;
+        }
+
+        public Writer putString(final String value) {
+            final byte[] bytes = value.getBytes(UTF8);
+            ensureCapacity(4 + bytes.length).putInt(bytes.length).put(bytes);
+            return this;
+        }
+
+        public Writer putDate(final Date date) {
+            return putLong(date.serialNumber());
+        }
+
+        public Writer putDates(final Date[] dates) {
+            ensureCapacity(4 + 8*dates.length).putInt(dates.length);
+            for (final Date date : dates) {
+                buffer.putLong(date.serialNumber());
+            }
+            return this;
+        }
+
+        public Writer putDoubles(final double[] values) {
+            ensureCapacity(4 + 8*values.length).putInt(values.length);
+            buffer.asDoubleBuffer().put(values);
+            buffer.position(buffer.position() + 8*values.length);
+            return this;
+        }
+
+        public Writer putArray(final Array array) {
+            final int size = array.size();
+            ensureCapacity(4 + 8*size).putInt(size);
+            for (int i = 0; i < size; i++) {
+                buffer.putDouble(array.get(i));
+            }
+            return this;
+        }
+
+        public Writer putMatrix(final Matrix matrix) {
+            final int rows = matrix.rows();
+            final int cols = matrix.columns();
+            ensureCapacity(8 + 8*rows*cols).putInt(rows).putInt(cols);
+            for (int i = 0; i < rows; i++) {
+                for (int j = 0; j < cols; j++) {
+                    buffer.putDouble(matrix.get(i, j));
+                }
+            }
+            return this;
+        }
+
+        /**
+         * @return a buffer positioned at the beginning of the record and limited to its end
+         */
+        public ByteBuffer toByteBuffer() {
+            final ByteBuffer result = buffer.duplicate();
+            result.flip();
+            return result;
+        }
+
+        private ByteBuffer ensureCapacity(final int bytes) {
+            if (buffer.remaining() < bytes) {
+                final int capacity = Math.max(2*buffer.capacity(), buffer.position() + bytes);
+                final ByteBuffer grown = ByteBuffer.allocate(capacity);
+                buffer.flip();
+                grown.put(buffer);
+                buffer = grown;
+            }
+            return buffer;
+        }
+    }
+
+
+    /**
+     * Reads a record from a buffer, advancing its position
+     */
+    public static final class Reader {
+
+        private final ByteBuffer buffer;
+        private final short version;
+
+        public Reader(final ByteBuffer buffer, final Content content) {
+            QL.require(content!=null, "content must be informed"); // TODO: message
+            QL.require(buffer.remaining() >= 7, "truncated record"); // TODO: message
+            QL.require(buffer.getInt() == MAGIC, "not a JQuantLib binary record"); // TODO: message
+            this.version = buffer.getShort();
+            QL.require(version >= 1 && version <= VERSION, "unsupported version " + version); // TODO: message
+            final int ordinal = buffer.get();
+            QL.require(ordinal == content.ordinal(), "record does not contain " + content); // TODO: message
+            this.buffer = buffer;
+        }
+
+        /**
+         * @return the version of the format the record was written with
+         */
+        public short version() {
+            return version;
+        }
+
+        public boolean getBoolean() {
+            return buffer.get() != 0;
+        }
+
+        public int getInt() {
+            return buffer.getInt();
+        }
+
+        public long getLong() {
+            return buffer.getLong();
+        }
+
+        public double getDouble() {
+            return buffer.getDouble();
+        }
+
+        public String getString() {
+            final byte[] bytes = new byte[length(1)];
+            buffer.get(bytes);
+            return new String(bytes, UTF8);
+        }
+
+        public Date getDate() {
+            return new Date(buffer.getLong());
+        }
+
+        public Date[] getDates() {
+            final Date[] result = new Date[length(8)];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = new Date(buffer.getLong());
+            }
+            return result;
+        }
+
+        public double[] getDoubles() {
+            final double[] result = new double[length(8)];
+            buffer.asDoubleBuffer().get(result);
+            buffer.position(buffer.position() + 8*result.length);
+            return result;
+        }
+
+        public Array getArray() {
+            return new Array(getDoubles());
+        }
+
+        public Matrix getMatrix() {
+            final int rows = buffer.getInt();
+            final int cols = buffer.getInt();
+            QL.require(rows >= 0 && cols >= 0 && 8L*rows*cols <= buffer.remaining(), "truncated record"); // TODO: message
+            final Matrix result = new Matrix(rows, cols);
+            for (int i = 0; i < rows; i++) {
+                for (int j = 0; j < cols; j++) {
+                    result.set(i, j, buffer.getDouble());
+                }
+            }
+            return result;
+        }
+
+        private int length(final int elementSize) {
+            final int length = buffer.getInt();
+            QL.require(length >= 0 && (long) length*elementSize <= buffer.remaining(), "truncated record"); // TODO: message
+            return length;
+        }
+    }
+
+}
@@ -0,0 +1,197 @@
+/*
+ Copyright (C) 2011 Richard Gomes
+
+ This source code is release under the BSD License.
+
+ This file is part of JQuantLib, a free-software/open-source library
+ for financial quantitative analysts and developers - http://jquantlib.org/
+
+ JQuantLib is free software: you can redistribute it and/or modify it
+ under the terms of the JQuantLib license.  You should have received a
+ copy of the license along with this program; if not, please email
+ <jquant-devel@lists.sourceforge.net>. The license is also available online at
+ <http://www.jquantlib.org/index.php/LICENSE.TXT>.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE.  See the license for more details.
+
+ JQuantLib is based on QuantLib. http://quantlib.org/
+ When applicable, the original copyright notice follows this notice.
+ */
+
+
+
+package org.jquantlib.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jquantlib.SavedSettings;
+import org.jquantlib.Settings;
+import org.jquantlib.lang.exceptions.LibraryException;
+
+/**
+ * Pool of daemon threads shared by the parallel algorithms of the library
+ * <p>
+ * The pool holds one thread for each available processor and is created when it is first needed. The calling thread takes
+ * part in the work, and tasks submitted from a thread of the pool are run in place, so that nested parallel algorithms never
+ * wait for threads which are busy waiting themselves.
+ * <p>
+ * {@link Settings} are kept by thread: tasks run by threads of the pool see the settings of the thread which submitted them,
+ * including the evaluation date, and the previous settings of the pool thread are restored afterwards.
+ *
+ * @category concurrency
+ */
+public final class ThreadPool {
+
+    //
+    // private constructors
+    //
+
+    private ThreadPool() {
+        // only static methods
+    }
+
+
+    //
+    // public static methods
+    //
+
+    /**
+     * @return the number of threads which can work at the same time on the tasks of a call to {@link #invokeAll(List)}
+     */
+    public static int parallelism() {
+        return isWorker() ? 1 : Holder.parallelism;
+    }
+
+    /**
+     * Runs the given tasks and waits for all of them to complete
+     * <p>
+     * Exceptions thrown by a task are propagated to the caller, wrapped into a {@link LibraryException} unless they are
+     * unchecked already. Tasks which have not been started yet are cancelled in such case.
+     *
+     * @return the results of the tasks, in the same order as the tasks
+     */
+    public static <T> List<T> invokeAll(final List<? extends Callable<T>> tasks) {
+        final int n = tasks.size();
+        final List<T> results = new ArrayList<T>(n);
+        if (n <= 1 || parallelism() <= 1) {
+            for (final Callable<T> task : tasks) {
+                results.add(call(task));
+            }
+            return results;
+        }
+
+        // the calling thread runs the first task while workers take the others
+        final SavedSettings settings = new SavedSettings();
+        final List<Future<T>> futures = new ArrayList<Future<T>>(n-1);
+        try {
+            for (int i = 1; i < n; i++) {
+                futures.add(Holder.executor.submit(new SettingsPropagation<T>(settings, tasks.get(i))));
+            }
+            results.add(call(tasks.get(0)));
+            for (final Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LibraryException(e); // QA:[RG]::verified
+        } catch (final ExecutionException e) {
+            throw unchecked(e.getCause());
+        } finally {
+            for (final Future<T> future : futures) {
+                future.cancel(false);
+            }
+        }
+    }
+
+
+    //
+    // private static methods
+    //
+
+    private static boolean isWorker() {
+        return Thread.currentThread() instanceof Worker;
+    }
+
+    private static <T> T call(final Callable<T> task) {
+        try {
+            return task.call();
+        } catch (final Exception e) {
+            throw unchecked(e);
+        }
+    }
+
+    private static RuntimeException unchecked(final Throwable cause) {
+        if (cause instanceof RuntimeException)
+            return (RuntimeException) cause;
+        if (cause instanceof Error)
+            throw (Error) cause;
+        return new LibraryException(cause); // QA:[RG]::verified
+    }
+
+
+    //
+    // private inner classes
+    //
+
+    /**
+     * Creates the pool on first use
+     */
+    private static final class Holder {
+        static final int parallelism = Runtime.getRuntime().availableProcessors();
+        static final ExecutorService executor = Executors.newFixedThreadPool(parallelism, new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                final Thread thread = new Worker(runnable, "jquantlib-worker-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Runs a task with the settings of the thread which submitted it
+     */
+    private static final class SettingsPropagation<T> implements Callable<T> {
+        private final SavedSettings settings;
+        private final Callable<T> task;
+
+        SettingsPropagation(final SavedSettings settings, final Callable<T> task) {
+            this.settings = settings;
+            this.task = task;
+        }
+
+        @Override
+        public T call() throws Exception {
+            final SavedSettings previous = new SavedSettings();
+            settings.restore();
+            try {
+                return task.call();
+            } finally {
+                previous.restore();
+            }
+        }
+    }
+
+    /**
+     * Marks threads of the pool
+     */
+    private static final class Worker extends Thread {
+        Worker(final Runnable runnable, final String name) {
+            super(runnable, name);
+        }
+    }
+
+}
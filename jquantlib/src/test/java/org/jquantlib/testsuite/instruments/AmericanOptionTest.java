@@ -70,10 +70,20 @@ import org.jquantlib.instruments.PlainVanillaPayoff;
 import org.jquantlib.instruments.StrikedTypePayoff;
 import org.jquantlib.instruments.VanillaOption;
 import org.jquantlib.instruments.Option.Type;
+import org.jquantlib.math.Constants;
+import org.jquantlib.math.randomnumbers.PseudoRandom;
+import org.jquantlib.math.randomnumbers.UniformRandomSequenceGenerator;
+import org.jquantlib.methods.montecarlo.LongstaffSchwartzPathPricer;
+import org.jquantlib.methods.montecarlo.LsmBasisSystem;
+import org.jquantlib.methods.montecarlo.Path;
+import org.jquantlib.methods.montecarlo.PathCube;
+import org.jquantlib.methods.montecarlo.PathGenerator;
 import org.jquantlib.pricingengines.PricingEngine;
 import org.jquantlib.pricingengines.vanilla.BaroneAdesiWhaleyApproximationEngine;
 import org.jquantlib.pricingengines.vanilla.BjerksundStenslandApproximationEngine;
 import org.jquantlib.pricingengines.vanilla.JuQuadraticApproximationEngine;
+import org.jquantlib.pricingengines.vanilla.MCAmericanEngine;
+import org.jquantlib.pricingengines.vanilla.MakeMCAmericanEngine;
 import org.jquantlib.pricingengines.vanilla.finitedifferences.FDAmericanEngine;
 import org.jquantlib.pricingengines.vanilla.finitedifferences.FDShoutEngine;
 import org.jquantlib.processes.BlackScholesMertonProcess;
@@ -86,6 +96,7 @@ import org.jquantlib.termstructures.YieldTermStructure;
 import org.jquantlib.testsuite.util.Utilities;
 import org.jquantlib.time.Date;
 import org.jquantlib.time.Period;
+import org.jquantlib.time.TimeGrid;
 import org.jquantlib.time.TimeUnit;
 import org.junit.Test;
 
@@ -501,6 +512,145 @@ public class AmericanOptionTest {
         }
     }
 
+    @Test
+    public void testMcValues() {
+        QL.info("Testing least-squares Monte Carlo engine for American options...");
+
+        final AmericanOptionData juValues[] = {
+                // type, strike, spot, q, r, t, vol, value
+                // These values are from Exhibit 3 - Short dated Put Options
+                new AmericanOptionData(Option.Type.Put, 35.00, 40.00, 0.0, 0.0488, 0.5833, 0.2, 0.433),
+                new AmericanOptionData(Option.Type.Put, 40.00, 40.00, 0.0, 0.0488, 0.5833, 0.2, 1.984),
+                new AmericanOptionData(Option.Type.Put, 45.00, 40.00, 0.0, 0.0488, 0.5833, 0.2, 5.260),
+                new AmericanOptionData(Option.Type.Put, 40.00, 40.00, 0.0, 0.0488, 0.3333, 0.3, 2.477),
+                new AmericanOptionData(Option.Type.Put, 45.00, 40.00, 0.0, 0.0488, 0.5833, 0.4, 7.367) };
+
+        final Date today = new Settings().evaluationDate();
+        final double tolerance = 5.0e-2;
+
+        for (final AmericanOptionData juValue : juValues) {
+
+            final DayCounter dc = new Actual360();
+
+            final SimpleQuote           spot  = new SimpleQuote(juValue.s);
+            final YieldTermStructure    qTS   = Utilities.flatRate(today, new SimpleQuote(juValue.q), dc);
+            final YieldTermStructure    rTS   = Utilities.flatRate(today, new SimpleQuote(juValue.r), dc);
+            final BlackVolTermStructure volTS = Utilities.flatVol(today, new SimpleQuote(juValue.v), dc);
+
+            final StrikedTypePayoff payoff = new PlainVanillaPayoff(juValue.type, juValue.strike);
+            final Date exDate = today.add(timeToDays(juValue.t));
+            final Exercise exercise = new AmericanExercise(today, exDate);
+
+            final BlackScholesMertonProcess stochProcess = new BlackScholesMertonProcess(
+                    new Handle<Quote>(spot),
+                    new Handle<YieldTermStructure>(qTS),
+                    new Handle<YieldTermStructure>(rTS),
+                    new Handle<BlackVolTermStructure>(volTS));
+
+            final PricingEngine engine = new MakeMCAmericanEngine(stochProcess)
+                .withSteps(50)
+                .withAntitheticVariate(true)
+                .withSamples(20000)
+                .withCalibrationSamples(8192)
+                .withSeed(42)
+                .value();
+            final VanillaOption option = new VanillaOption(payoff, exercise);
+            option.setPricingEngine(engine);
+
+            final double calculated = option.NPV();
+            final double error = Math.abs(calculated - juValue.result);
+
+            if (error > tolerance) {
+                reportFailure(
+                        "value", payoff, exercise,
+                        juValue.s, juValue.q, juValue.r, today, juValue.v,
+                        juValue.result, calculated, error, tolerance);
+            }
+        }
+    }
+
+    @Test
+    public void testMcCalibrationPaths() {
+        QL.info("Testing that least-squares Monte Carlo calibration paths differ from pricing paths...");
+
+        final Date today = new Settings().evaluationDate();
+        final DayCounter dc = new Actual360();
+        final BlackScholesMertonProcess process = new BlackScholesMertonProcess(
+                new Handle<Quote>(new SimpleQuote(40.0)),
+                new Handle<YieldTermStructure>(Utilities.flatRate(today, 0.0, dc)),
+                new Handle<YieldTermStructure>(Utilities.flatRate(today, 0.0488, dc)),
+                new Handle<BlackVolTermStructure>(Utilities.flatVol(today, 0.2, dc)));
+        final TimeGrid grid = new TimeGrid(0.5, 10);
+
+        // the default seed of MakeMCAmericanEngine
+        final long seed = 0;
+        final PathGenerator<UniformRandomSequenceGenerator> calibration = new MCAmericanEngine(
+                process, 10, Constants.NULL_INTEGER, false, false, 1000, 1000, seed, 0,
+                LsmBasisSystem.pathBasisSystem(2, LsmBasisSystem.PolynomType.Monomial)) {
+            @Override
+            public PathGenerator<UniformRandomSequenceGenerator> calibrationPathGenerator(final TimeGrid grid) {
+                return super.calibrationPathGenerator(grid);
+            }
+        }.calibrationPathGenerator(grid);
+        // pricing paths are drawn from the pseudo-random generator of MCSimulation
+        final PathGenerator<UniformRandomSequenceGenerator> pricing = new PathGenerator<UniformRandomSequenceGenerator>(
+                process, grid, new PseudoRandom().makeSequenceGenerator(grid.size()-1, seed), false);
+
+        for (int i = 0; i < 100; i++) {
+            final Path calibrationPath = calibration.next().value();
+            final Path pricingPath = pricing.next().value();
+            for (int j = 1; j < grid.size(); j++) {
+                if (calibrationPath.getValues_(j) == pricingPath.getValues_(j)) {
+                    fail("calibration path " + i + " equals pricing path at time " + grid.get(j));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testMcUnscaledBasis() {
+        QL.info("Testing least-squares Monte Carlo regressions on unscaled states...");
+
+        final Date today = new Settings().evaluationDate();
+        final DayCounter dc = new Actual360();
+        final double riskFreeRate = 0.0488;
+        final BlackScholesMertonProcess process = new BlackScholesMertonProcess(
+                new Handle<Quote>(new SimpleQuote(40.0)),
+                new Handle<YieldTermStructure>(Utilities.flatRate(today, 0.0, dc)),
+                new Handle<YieldTermStructure>(Utilities.flatRate(today, riskFreeRate, dc)),
+                new Handle<BlackVolTermStructure>(Utilities.flatVol(today, 0.4, dc)));
+        final int steps = 50;
+        final TimeGrid grid = new TimeGrid(0.5833, steps);
+        final int[] exerciseIndices = new int[steps];
+        final double[] discounts = new double[steps];
+        for (int j = 0; j < steps; j++) {
+            exerciseIndices[j] = j+1;
+            discounts[j] = Math.exp(-riskFreeRate * grid.get(j+1));
+        }
+        final PlainVanillaPayoff payoff = new PlainVanillaPayoff(Option.Type.Put, 45.0);
+        final LsmBasisSystem basisSystem = LsmBasisSystem.pathBasisSystem(4, LsmBasisSystem.PolynomType.Monomial);
+
+        // monomials span the same functions whatever the scale, hence both regressions should give the same strategy
+        final PathCube cube = new PathCube(grid, 8192).fill(new PathGenerator<UniformRandomSequenceGenerator>(
+                process, grid, new PseudoRandom().makeSequenceGenerator(steps, 42), false), false);
+        final LongstaffSchwartzPathPricer scaled = new LongstaffSchwartzPathPricer(
+                payoff, exerciseIndices, discounts, basisSystem, payoff.strike());
+        scaled.calibrate(cube);
+        final LongstaffSchwartzPathPricer unscaled = new LongstaffSchwartzPathPricer(
+                payoff, exerciseIndices, discounts, basisSystem, 1.0);
+        unscaled.calibrate(cube);
+
+        final PathGenerator<UniformRandomSequenceGenerator> generator = new PathGenerator<UniformRandomSequenceGenerator>(
+                process, grid, new PseudoRandom().makeSequenceGenerator(steps, 43), false);
+        double differences = 0.0;
+        for (int i = 0; i < 8192; i++) {
+            final Path path = generator.next().value();
+            differences += Math.abs(scaled.op(path) - unscaled.op(path));
+        }
+        if (differences > 1.0e-6)
+            fail("unscaled states give a different exercise strategy: total difference " + differences);
+    }
+
     @Test
     public void testFdAmericanGreeks() {
         QL.info("Testing Greeks (delta, gamma, theta for American options using FDAmericanEngine");
@@ -64,6 +64,7 @@ import org.jquantlib.instruments.Option.Type;
 import org.jquantlib.pricingengines.PricingEngine;
 import org.jquantlib.pricingengines.asian.AnalyticContinuousGeometricAveragePriceAsianEngine;
 import org.jquantlib.pricingengines.asian.AnalyticDiscreteGeometricAveragePriceAsianEngine;
+import org.jquantlib.pricingengines.asian.MakeMCDiscreteArithmeticAveragePriceAsianEngine;
 import org.jquantlib.processes.BlackScholesMertonProcess;
 import org.jquantlib.quotes.Handle;
 import org.jquantlib.quotes.Quote;
@@ -533,6 +534,76 @@ public class AsianOptionTest {
     }
 
 
+    @Test
+    public void testMcDiscreteArithmeticAveragePrice() {
+        QL.info("Testing Monte Carlo discrete arithmetic average-price Asians...");
+
+        // data from "Asian Option", Levy, 1997
+        // in "Exotic Options: The State of the Art",
+        // edited by Clewlow, Strickland
+        final Option.Type type = Option.Type.Put;
+        /* @Real */final double underlying = 90.0;
+        /* @Real */final double strike = 87.0;
+        /* @Size */final int fixings[] = { 2, 4, 8, 12, 26 };
+        /* @Real */final double expected[] = { 1.3942835683, 1.5852442983, 1.66970673, 1.6980019214, 1.7255070456 };
+        /* @Time */final double length = 11.0 / 12.0;
+
+        final Date today = new Settings().evaluationDate();
+        final DayCounter dc = new Actual360();
+
+        final SimpleQuote spot = new SimpleQuote(underlying);
+        final SimpleQuote qRate = new SimpleQuote(0.06);
+        final YieldTermStructure qTS = Utilities.flatRate(today, qRate, dc);
+        final SimpleQuote rRate = new SimpleQuote(0.025);
+        final YieldTermStructure rTS = Utilities.flatRate(today, rRate, dc);
+        final SimpleQuote vol = new SimpleQuote(0.13);
+        final BlackVolTermStructure volTS = Utilities.flatVol(today, vol, dc);
+
+        final BlackScholesMertonProcess stochProcess = new BlackScholesMertonProcess(new Handle<Quote>(spot),
+                new Handle<YieldTermStructure>(qTS), new Handle<YieldTermStructure>(rTS), new Handle<BlackVolTermStructure>(volTS));
+
+        final AverageType averageType = AverageType.Arithmetic;
+        /* @Real */final double runningSum = 0.0;
+        /* @Size */final int pastFixings = 0;
+        final StrikedTypePayoff payoff = new PlainVanillaPayoff(type, strike);
+
+        /* @Real */final double tolerance = 2.0e-2;
+        for (int l = 0; l < fixings.length; l++) {
+            /* @Time */final double dt = length / (fixings[l] - 1);
+            final List<Date> fixingDates = new ArrayList<Date>(fixings[l]);
+            for (int i = 0; i < fixings[l]; i++) {
+                fixingDates.add(today.add((int) (i * dt * 360 + 0.5)));
+            }
+            final Exercise exercise = new EuropeanExercise(fixingDates.get(fixings[l] - 1));
+
+            final DiscreteAveragingAsianOption option = new DiscreteAveragingAsianOption(
+                    averageType, runningSum, pastFixings, fixingDates, payoff, exercise);
+
+            option.setPricingEngine(new MakeMCDiscreteArithmeticAveragePriceAsianEngine(stochProcess)
+                .withSamples(4095)
+                .withSeed(42)
+                .value());
+            final double uncontrolledError = option.errorEstimate();
+
+            option.setPricingEngine(new MakeMCDiscreteArithmeticAveragePriceAsianEngine(stochProcess)
+                .withControlVariate(true)
+                .withSamples(4095)
+                .withSeed(42)
+                .value());
+            /* @Real */final double calculated = option.NPV();
+
+            if (Math.abs(calculated - expected[l]) > tolerance) {
+                reportFailure("value", averageType, runningSum, pastFixings, fixingDates, payoff, exercise, spot.value(),
+                        qRate.value(), rRate.value(), today, vol.value(), expected[l], calculated, tolerance);
+            }
+            if (!(option.errorEstimate() < uncontrolledError / 5.0)) {
+                fail("control variate does not reduce the error estimate: "
+                        + option.errorEstimate() + " with control, " + uncontrolledError + " without");
+            }
+        }
+    }
+
+
     private void reportFailure(final String greekName, final AverageType averageType, final double runningAccumulator, final int pastFixings,
             final List<Date> fixingDates, final StrikedTypePayoff payoff, final Exercise exercise, final double s, final double q, final double r, final Date today,
             final double v, final double expected, final double calculated, final double tolerance) {
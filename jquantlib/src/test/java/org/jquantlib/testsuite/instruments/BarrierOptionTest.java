@@ -35,8 +35,10 @@ import org.jquantlib.instruments.BarrierType;
 import org.jquantlib.instruments.Option;
 import org.jquantlib.instruments.PlainVanillaPayoff;
 import org.jquantlib.instruments.StrikedTypePayoff;
+import org.jquantlib.pricingengines.MCPathCache;
 import org.jquantlib.pricingengines.PricingEngine;
 import org.jquantlib.pricingengines.barrier.AnalyticBarrierEngine;
+import org.jquantlib.pricingengines.barrier.MakeMCBarrierEngine;
 import org.jquantlib.processes.BlackScholesMertonProcess;
 import org.jquantlib.quotes.Handle;
 import org.jquantlib.quotes.Quote;
@@ -331,40 +333,84 @@ public class BarrierOptionTest {
                 REPORT_FAILURE("value", value.barrierType, value.barrier, rebate, callPayoff, exercise, underlyingPrice, q,
                         r, today, value.volatility, expected, calculated, error, maxErrorAllowed);
             }
+
+            final double maxMcRelativeErrorAllowed = 0.01;
+            final PricingEngine mcEngine = new MakeMCBarrierEngine(stochProcess)
+                .withSteps(1)
+                .withBrownianBridge(true)
+                .withSamples(32767)
+                .withLowDiscrepancy(8)
+                .withSeed(10)
+                .value();
+
+            barrierCallOption.setPricingEngine(mcEngine);
+            final double mcCalculated = barrierCallOption.NPV();
+            final double mcError = Math.abs(mcCalculated - expected) / expected;
+            if (mcError > maxMcRelativeErrorAllowed) {
+                REPORT_FAILURE("value", value.barrierType, value.barrier, rebate, callPayoff, exercise, underlyingPrice, q,
+                        r, today, value.volatility, expected, mcCalculated, mcError, maxMcRelativeErrorAllowed);
+            }
         }
+    }
+
+    @Test
+    public void testMcPathCacheValues() {
 
+        QL.info("Testing Monte Carlo barrier options priced from a shared path cache...");
 
-        //TODO: MC Barrier engine not implemented yet.
-        /*
+        final BarrierType types[] = { BarrierType.DownOut, BarrierType.DownIn, BarrierType.UpOut, BarrierType.UpIn };
+        final double barriers[] = { 90.0, 90.0, 120.0, 120.0 };
+        final double strikes[] = { 90.0, 100.0, 110.0 };
+        final Option.Type optionTypes[] = { Option.Type.Call, Option.Type.Put };
 
-        final double maxMcRelativeErrorAllowed = 0.01;
-        final int timeSteps = 1;
-        final boolean brownianBridge = true;
-        final boolean antitheticVariate = false;
-        final boolean controlVariate = false;
-        final int requiredSamples = 131071; //2^17-1
-        final double requiredTolerance;
-        final int maxSamples = 1048575; // 2^20-1
-        final boolean isBiased = false;
-        final double seed = 10;
+        final double underlyingPrice = 100.0;
+        final double rebate = 0.0;
+        final double r = 0.05;
+        final double q = 0.02;
+        final double v = 0.20;
 
-        boost::shared_ptr<PricingEngine> mcEngine(
-                new MCBarrierEngine<LowDiscrepancy>(timeSteps, brownianBridge,
-                                                antitheticVariate, controlVariate,
-                                                requiredSamples, requiredTolerance,
-                                                maxSamples, isBiased, seed));
+        final DayCounter dc = new Actual360();
+        final Date today = Date.todaysDate();
+        new Settings().setEvaluationDate(today);
 
-            barrierCallOption.setPricingEngine(mcEngine);
-            calculated = barrierCallOption.NPV();
-            error = std::fabs(calculated-expected)/expected;
-            if (error>maxMcRelativeErrorAllowed) {
-                REPORT_FAILURE("value", values[i].type, values[i].barrier,
-                               rebate, callPayoff, exercise, underlyingPrice,
-                               q, r, today, values[i].volatility,
-                               expected, calculated, error,
-                               maxMcRelativeErrorAllowed);
+        final YieldTermStructure    qTS        = Utilities.flatRate(today, new SimpleQuote(q), dc);
+        final YieldTermStructure    rTS        = Utilities.flatRate(today, new SimpleQuote(r), dc);
+        final BlackVolTermStructure volTS      = Utilities.flatVol(today, new SimpleQuote(v), dc);
+
+        final BlackScholesMertonProcess stochProcess = new BlackScholesMertonProcess(
+                new Handle<Quote>(new SimpleQuote(underlyingPrice)),
+                new Handle<YieldTermStructure>(qTS),
+                new Handle<YieldTermStructure>(rTS),
+                new Handle<BlackVolTermStructure>(volTS));
+
+        final Exercise exercise = new EuropeanExercise(today.add(360));
+        final PricingEngine analyticEngine = new AnalyticBarrierEngine(stochProcess);
+        final MCPathCache cache = new MCPathCache(stochProcess, true, true, 16383, 42);
+        final PricingEngine mcEngine = new MakeMCBarrierEngine(stochProcess)
+            .withSteps(1)
+            .withPathCache(cache)
+            .value();
+
+        for (int i = 0; i < types.length; i++) {
+            for (final double strike : strikes) {
+                for (final Option.Type optionType : optionTypes) {
+                    final StrikedTypePayoff payoff = new PlainVanillaPayoff(optionType, strike);
+                    final BarrierOption option = new BarrierOption(types[i], barriers[i], rebate, payoff, exercise);
+
+                    option.setPricingEngine(analyticEngine);
+                    final double expected = option.NPV();
+                    option.setPricingEngine(mcEngine);
+                    final double calculated = option.NPV();
+                    final double error = Math.abs(calculated - expected);
+                    final double tolerance = 4.0 * option.errorEstimate() + 1.0e-3;
+
+                    if (error > tolerance) {
+                        REPORT_FAILURE("value", types[i], barriers[i], rebate, payoff, exercise, underlyingPrice, q,
+                                r, today, v, expected, calculated, error, tolerance);
+                    }
+                }
             }
-         */
+        }
     }
 
 
@@ -62,6 +62,7 @@ import org.jquantlib.instruments.PlainVanillaPayoff;
 import org.jquantlib.instruments.StrikedTypePayoff;
 import org.jquantlib.instruments.VanillaOption;
 import org.jquantlib.lang.annotation.NonNegative;
+import org.jquantlib.math.Constants;
 import org.jquantlib.methods.lattices.AdditiveEQPBinomialTree;
 import org.jquantlib.methods.lattices.CoxRossRubinstein;
 import org.jquantlib.methods.lattices.JarrowRudd;
@@ -70,9 +71,12 @@ import org.jquantlib.methods.lattices.LeisenReimer;
 import org.jquantlib.methods.lattices.Tian;
 import org.jquantlib.methods.lattices.Trigeorgis;
 import org.jquantlib.pricingengines.AnalyticEuropeanEngine;
+import org.jquantlib.pricingengines.MCSimulation;
 import org.jquantlib.pricingengines.PricingEngine;
 import org.jquantlib.pricingengines.vanilla.BinomialVanillaEngine;
 import org.jquantlib.pricingengines.vanilla.IntegralEngine;
+import org.jquantlib.pricingengines.vanilla.MCEuropeanEngine;
+import org.jquantlib.pricingengines.vanilla.MakeMCEuropeanEngine;
 import org.jquantlib.pricingengines.vanilla.finitedifferences.FDEuropeanEngine;
 import org.jquantlib.processes.BlackScholesMertonProcess;
 import org.jquantlib.processes.GeneralizedBlackScholesProcess;
@@ -84,7 +88,9 @@ import org.jquantlib.termstructures.YieldTermStructure;
 import org.jquantlib.testsuite.util.Flag;
 import org.jquantlib.testsuite.util.Utilities;
 import org.jquantlib.time.Date;
+import org.jquantlib.time.Month;
 import org.jquantlib.time.Period;
+import org.jquantlib.time.TimeGrid;
 import org.junit.Test;
 
 
@@ -218,16 +224,16 @@ public class EuropeanOptionTest {
                 engine = new IntegralEngine(stochProcess);
                 break;
 
-                //        case PseudoMonteCarlo:
-                //          engine = MakeMCEuropeanEngine<PseudoRandom>().withSteps(1)
-                //                                                       .withSamples(samples)
-                //                                                       .withSeed(42);
-                //          break;
-
-                //        case QuasiMonteCarlo:
-                //          engine = MakeMCEuropeanEngine<LowDiscrepancy>().withSteps(1)
-                //                                                         .withSamples(samples);
-                //          break;
+            case PseudoMonteCarlo:
+                engine = new MakeMCEuropeanEngine(stochProcess).withSteps(1)
+                                                               .withSamples(samples)
+                                                               .withSeed(42).value();
+                break;
+            case QuasiMonteCarlo:
+                engine = new MakeMCEuropeanEngine(stochProcess).withSteps(1)
+                                                               .withSamples(samples)
+                                                               .withLowDiscrepancy(8).value();
+                break;
 
             default:
                 throw new UnsupportedOperationException("unknown engine type: "+engineType);
@@ -1281,32 +1287,181 @@ public class EuropeanOptionTest {
     }
 
 
-    //
-    //  void EuropeanOptionTest::testMcEngines() {
-    //
-    //      BOOST_MESSAGE("Testing Monte Carlo European engines "
-    //                    "against analytic results...");
-    //
-    //      EngineType engine = PseudoMonteCarlo;
-    //      Size steps = Null<Size>();
-    //      Size samples = 40000;
-    //      std::map<std::string,Real> relativeTol;
-    //      relativeTol["value"] = 0.01;
-    //      testEngineConsistency(engine,steps,samples,relativeTol);
-    //  }
+    @Test
+    public void testMcEngines() {
+
+        QL.info("Testing Monte Carlo European engines against analytic results...");
+
+        final EngineType engine = EngineType.PseudoMonteCarlo;
+        final int steps = Constants.NULL_INTEGER;
+        final int samples = 40000;
+        final Map<String,Double> relativeTol = new HashMap<String, Double>(1);
+        relativeTol.put("value", 0.01);
+        testEngineConsistency(engine, steps, samples, relativeTol);
+    }
+
+
+    @Test
+    public void testQmcEngines() {
+
+        QL.info("Testing Quasi Monte Carlo European engines against analytic results...");
+
+        final EngineType engine = EngineType.QuasiMonteCarlo;
+        final int steps = Constants.NULL_INTEGER;
+        final int samples = 4095; // 2^12-1
+        final Map<String,Double> relativeTol = new HashMap<String, Double>(1);
+        relativeTol.put("value", 0.01);
+        testEngineConsistency(engine, steps, samples, relativeTol);
+    }
+
+    @Test
+    public void testMcEnginesWithBrownianBridge() {
+
+        QL.info("Testing multi-step Monte Carlo European engines with Brownian bridge against analytic results...");
+
+        // not today, so that threads simulating the replicas must be given the evaluation date of the calling thread
+        final Date today = new Date(15, Month.May, 1998);
+        final Settings settings = new Settings();
+        final Date saved = settings.evaluationDate().clone();
+        settings.setEvaluationDate(today);
+        try {
+            final DayCounter dc = new Actual360();
+            final GeneralizedBlackScholesProcess process = new BlackScholesMertonProcess(
+                    new Handle<Quote>(new SimpleQuote(100.0)),
+                    new Handle<YieldTermStructure>(Utilities.flatRate(today, 0.03, dc)),
+                    new Handle<YieldTermStructure>(Utilities.flatRate(today, 0.06, dc)),
+                    new Handle<BlackVolTermStructure>(Utilities.flatVol(today, 0.25, dc)));
+            final Exercise exercise = new EuropeanExercise(today.add(360));
+
+            final PricingEngine analytic = new AnalyticEuropeanEngine(process);
+            final PricingEngine[] engines = {
+                new MakeMCEuropeanEngine(process).withSteps(16)
+                                                 .withBrownianBridge(true)
+                                                 .withSamples(40000)
+                                                 .withSeed(42).value(),
+                new MakeMCEuropeanEngine(process).withSteps(16)
+                                                 .withBrownianBridge(true)
+                                                 .withSamples(4095)
+                                                 .withLowDiscrepancy(8).value() };
+            final String[] names = { "pseudo-random", "low-discrepancy" };
+
+            for (final Option.Type type : new Option.Type[] { Option.Type.Call, Option.Type.Put }) {
+                final VanillaOption option = new EuropeanOption(new PlainVanillaPayoff(type, 105.0), exercise);
+                option.setPricingEngine(analytic);
+                final double expected = option.NPV();
+                for (int i = 0; i < engines.length; i++) {
+                    option.setPricingEngine(engines[i]);
+                    final double calculated = option.NPV();
+                    final double error = option.errorEstimate();
+                    if (Math.abs(calculated - expected) > 3.0 * error) {
+                        fail(type + " option, " + names[i] + " engine:\n"
+                                + "    expected:       " + expected + "\n"
+                                + "    calculated:     " + calculated + "\n"
+                                + "    error estimate: " + error);
+                    }
+                }
+            }
+        } finally {
+            settings.setEvaluationDate(saved);
+        }
+    }
+
+    @Test
+    public void testMcEnginesWithPseudoRandomGenerators() {
+
+        QL.info("Testing Monte Carlo European engines with different pseudo-random generators against analytic results...");
+
+        final Date today = new Settings().evaluationDate();
+        final DayCounter dc = new Actual360();
+        final GeneralizedBlackScholesProcess process = new BlackScholesMertonProcess(
+                new Handle<Quote>(new SimpleQuote(100.0)),
+                new Handle<YieldTermStructure>(Utilities.flatRate(today, 0.03, dc)),
+                new Handle<YieldTermStructure>(Utilities.flatRate(today, 0.06, dc)),
+                new Handle<BlackVolTermStructure>(Utilities.flatVol(today, 0.25, dc)));
+        final Exercise exercise = new EuropeanExercise(today.add(360));
+
+        final PricingEngine analytic = new AnalyticEuropeanEngine(process);
+        for (final MCSimulation.PseudoRandomGenerator generator : MCSimulation.PseudoRandomGenerator.values()) {
+            final PricingEngine engine = new MakeMCEuropeanEngine(process).withSteps(4)
+                                                                          .withSamples(40000)
+                                                                          .withSeed(42)
+                                                                          .withPseudoRandomGenerator(generator).value();
+            for (final Option.Type type : new Option.Type[] { Option.Type.Call, Option.Type.Put }) {
+                final VanillaOption option = new EuropeanOption(new PlainVanillaPayoff(type, 105.0), exercise);
+                option.setPricingEngine(analytic);
+                final double expected = option.NPV();
+                option.setPricingEngine(engine);
+                final double calculated = option.NPV();
+                final double error = option.errorEstimate();
+                if (Math.abs(calculated - expected) > 3.0 * error) {
+                    fail(type + " option, " + generator + " generator:\n"
+                            + "    expected:       " + expected + "\n"
+                            + "    calculated:     " + calculated + "\n"
+                            + "    error estimate: " + error);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testMcEngineWithImportanceSampling() {
+
+        QL.info("Testing Monte Carlo European engine with importance sampling against analytic results...");
+
+        final Date today = new Settings().evaluationDate();
+        final DayCounter dc = new Actual360();
+        final double spot = 100.0;
+        final double strike = 160.0;
+        final double riskFreeRate = 0.05;
+        final double volatility = 0.20;
+        final GeneralizedBlackScholesProcess process = new BlackScholesMertonProcess(
+                new Handle<Quote>(new SimpleQuote(spot)),
+                new Handle<YieldTermStructure>(Utilities.flatRate(today, 0.0, dc)),
+                new Handle<YieldTermStructure>(Utilities.flatRate(today, riskFreeRate, dc)),
+                new Handle<BlackVolTermStructure>(Utilities.flatVol(today, volatility, dc)));
+        final Exercise exercise = new EuropeanExercise(today.add(360));
+        final VanillaOption option = new EuropeanOption(new PlainVanillaPayoff(Option.Type.Call, strike), exercise);
+
+        option.setPricingEngine(new AnalyticEuropeanEngine(process));
+        final double expected = option.NPV();
+
+        final int steps = 4;
+        final int samples = 20000;
+        final long seed = 42;
+        option.setPricingEngine(new MCEuropeanEngine(
+                process, steps, Constants.NULL_INTEGER, false, false, samples, seed, 0));
+        final double plainError = option.errorEstimate();
+
+        // deep out of the money: the drift shift moves the mean of the terminal log-price onto the strike
+        option.setPricingEngine(new MCEuropeanEngine(
+                process, steps, Constants.NULL_INTEGER, false, false, samples, seed, 0) {
+            @Override
+            protected double[] importanceSamplingDrift(final TimeGrid grid) {
+                final double t = grid.back();
+                final double c = (Math.log(strike/spot) - (riskFreeRate - 0.5*volatility*volatility) * t) / (volatility * t);
+                final double[] drift = new double[grid.size()-1];
+                for (int i = 0; i < drift.length; i++) {
+                    drift[i] = c * Math.sqrt(grid.dt(i));
+                }
+                return drift;
+            }
+        });
+        final double calculated = option.NPV();
+        final double error = option.errorEstimate();
+
+        if (Math.abs(calculated - expected) > 3.0 * error) {
+            fail("importance sampling:\n"
+                    + "    expected:       " + expected + "\n"
+                    + "    calculated:     " + calculated + "\n"
+                    + "    error estimate: " + error);
+        }
+        if (error > plainError / 5.0) {
+            fail("importance sampling does not reduce the error estimate enough:\n"
+                    + "    without importance sampling: " + plainError + "\n"
+                    + "    with importance sampling:    " + error);
+        }
+    }
 
-    //  void EuropeanOptionTest::testQmcEngines() {
-    //
-    //      BOOST_MESSAGE("Testing Quasi Monte Carlo European engines "
-    //                    "against analytic results...");
-    //
-    //      EngineType engine = QuasiMonteCarlo;
-    //      Size steps = Null<Size>();
-    //      Size samples = 4095; // 2^12-1
-    //      std::map<std::string,Real> relativeTol;
-    //      relativeTol["value"] = 0.01;
-    //      testEngineConsistency(engine,steps,samples,relativeTol);
-    //  }
 
     //  void EuropeanOptionTest::testPriceCurve() {
     //
@@ -25,6 +25,7 @@ package org.jquantlib.testsuite.math;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.File;
 import java.util.EnumSet;
 import java.util.Set;
 
@@ -32,11 +33,15 @@ import org.jquantlib.QL;
 import org.jquantlib.lang.annotation.QualityAssurance;
 import org.jquantlib.lang.annotation.QualityAssurance.Quality;
 import org.jquantlib.lang.annotation.QualityAssurance.Version;
+import org.jquantlib.lang.exceptions.LibraryException;
 import org.jquantlib.math.Closeness;
 import org.jquantlib.math.Constants;
 import org.jquantlib.math.matrixutilities.Array;
+import org.jquantlib.math.matrixutilities.ArrayView;
+import org.jquantlib.math.matrixutilities.CholeskyDecomposition;
 import org.jquantlib.math.matrixutilities.Identity;
 import org.jquantlib.math.matrixutilities.Matrix;
+import org.jquantlib.math.matrixutilities.OffHeapMatrix;
 import org.jquantlib.math.matrixutilities.QRDecomposition;
 import org.jquantlib.math.matrixutilities.SymmetricSchurDecomposition;
 import org.jquantlib.math.matrixutilities.internal.Address;
@@ -685,6 +690,89 @@ public class MatrixTest {
         }
     }
 
+    @Test
+    public void mulMatrixLarge() {
+        // odd dimensions exercise the remainders of the blocked kernel; the second product is calculated in parallel
+        mulMatrixLarge(3, 5, 7);
+        mulMatrixLarge(131, 70, 301);
+
+        final Matrix mA = filled(9, 9, 1.0);
+        final Matrix mB = filled(9, 9, 2.0);
+        final Matrix expected = reference(mA, mB);
+
+        // ranges are not densely stored
+        final Matrix range = mA.range(2, 5, 1, 8);
+        if (!equals(range.mul(mB.range(1, 8, 0, 9)), reference(range, mB.range(1, 8, 0, 9)), 1.0e-12)) {
+            fail("'mul' failed on ranges");
+        }
+
+        // product stored on one of its operands
+        final Matrix out = mA.clone();
+        if (out.mul(mB, out) != out || !equals(out, expected, 1.0e-12)) {
+            fail("'mul' failed when output is an operand");
+        }
+        final Matrix assigned = mA.clone();
+        if (assigned.mulAssign(mB) != assigned || !equals(assigned, expected, 1.0e-12)) {
+            fail("'mulAssign' failed");
+        }
+
+        final Matrix t = range.transpose();
+        for (int i=0; i<range.rows(); i++) {
+            for (int j=0; j<range.cols(); j++) {
+                if (t.get(j, i) != range.get(i, j)) {
+                    fail("'transpose' failed on ranges");
+                }
+            }
+        }
+    }
+
+    private void mulMatrixLarge(final int n, final int m, final int p) {
+        final Matrix mA = filled(n, m, 1.0);
+        final Matrix mB = filled(m, p, 2.0);
+        if (!equals(mA.mul(mB), reference(mA, mB), 1.0e-12)) {
+            fail("'mul' failed on " + n + "x" + m + " by " + m + "x" + p);
+        }
+        if (!equals(mA.transpose().transpose(), mA, 0.0)) {
+            fail("'transpose' failed on " + n + "x" + m);
+        }
+    }
+
+    private Matrix filled(final int rows, final int cols, final double seed) {
+        final Matrix result = new Matrix(rows, cols);
+        for (int i=0; i<rows; i++) {
+            for (int j=0; j<cols; j++) {
+                result.set(i, j, Math.sin(seed + 0.37*i + 1.13*j));
+            }
+        }
+        return result;
+    }
+
+    private Matrix reference(final Matrix mA, final Matrix mB) {
+        final Matrix result = new Matrix(mA.rows(), mB.cols());
+        for (int i=0; i<mA.rows(); i++) {
+            for (int j=0; j<mB.cols(); j++) {
+                double sum = 0.0;
+                for (int k=0; k<mA.cols(); k++) {
+                    sum += mA.get(i, k) * mB.get(k, j);
+                }
+                result.set(i, j, sum);
+            }
+        }
+        return result;
+    }
+
+    private boolean equals(final Matrix m1, final Matrix m2, final double tolerance) {
+        if (m1.rows() != m2.rows() || m1.cols() != m2.cols())
+            return false;
+        for (int i=0; i<m1.rows(); i++) {
+            for (int j=0; j<m1.cols(); j++) {
+                if (Math.abs(m1.get(i, j) - m2.get(i, j)) > tolerance * Math.max(1.0, Math.abs(m2.get(i, j))))
+                    return false;
+            }
+        }
+        return true;
+    }
+
     @Test
     public void divScalar() {
         divScalar(jFlags);
@@ -1469,6 +1557,100 @@ public class MatrixTest {
     }
 
 
+    @Test
+    public void testViews() {
+        testViews(jFlags);
+        testViews(fFlags);
+    }
+
+    private void testViews(final Set<Address.Flags> flags) {
+        final Matrix mA = new Matrix(new double[][] {
+                { 1.0, 2.0, 3.0, 4.0 },
+                { 5.0, 6.0, 7.0, 8.0 },
+                { 9.0, 1.0, 2.0, 3.0 },
+        }, flags);
+        final int offset = mA.offset();
+
+        for (int row=offset; row<mA.rows()+offset; row++) {
+            final ArrayView view = mA.rowView(row);
+            if (view.size() != mA.cols())
+                fail("'rowView' has wrong size");
+            double sum = 0.0;
+            for (int i=0; i<view.size(); i++) {
+                if (view.get(i) != mA.get(row, i+offset))
+                    fail("'rowView' failed");
+                sum += mA.get(row, i+offset) * mA.get(offset, i+offset);
+            }
+            if (view.dotProduct(mA.rowView(offset)) != sum)
+                fail("'dotProduct' on views failed");
+        }
+
+        for (int col=offset; col<mA.cols()+offset; col++) {
+            final double[] copy = mA.colView(col).copyTo(new double[mA.rows()+1], 1);
+            for (int i=0; i<mA.rows(); i++) {
+                if (copy[i+1] != mA.get(i+offset, col))
+                    fail("'copyTo' on column views failed");
+            }
+        }
+
+        // views share storage
+        mA.colView(1+offset).copyFrom(new double[] { -1.0, -2.0, -3.0 }, 0);
+        mA.rowView(2+offset).set(3, 42.0);
+        if (mA.get(offset, 1+offset) != -1.0 || mA.get(2+offset, 1+offset) != -3.0 || mA.get(2+offset, 3+offset) != 42.0)
+            fail("views do not share storage");
+
+        final Array array = new Array(new double[] { 1.0, 2.0, 3.0, 4.0 }, flags);
+        final double[] elements = array.view().toDoubleArray();
+        for (int i=0; i<elements.length; i++) {
+            if (elements[i] != array.get(i+array.begin()))
+                fail("'view' failed on Array");
+        }
+        final Array another = new Array(mA.rowView(offset).toDoubleArray(), flags);
+        if (array.dotProduct(another) != array.view().dotProduct(mA.rowView(offset)))
+            fail("'dotProduct' failed on Array");
+    }
+
+    @Test
+    public void testOffHeap() throws Exception {
+        final Matrix mA = new Matrix(new double[][] {
+                { 1.0, 2.0, 3.0 },
+                { 4.0, 5.0, 6.0 },
+                { 7.0, 8.0, 9.0 },
+                { 1.5, 2.5, 3.5 },
+        });
+        final Array x = new Array(new double[] { 1.0, -1.0, 2.0 });
+        final Array y = new Array(new double[] { 1.0, 2.0, 3.0, 4.0 });
+
+        final OffHeapMatrix direct = OffHeapMatrix.allocateDirect(4, 3).assign(0, mA);
+        if (!equals(direct.toMatrix(), mA))
+            fail("direct storage failed");
+        if (!equals(direct.range(1, 3), mA.range(1, 3, 0, 3)))
+            fail("'range' failed");
+        final Array ax = direct.mul(x);
+        final Array aty = direct.transposeMul(y);
+        final Array expectedAx = mA.mul(x);
+        final Array expectedAty = mA.transpose().mul(y);
+        for (int i=0; i<ax.size(); i++) {
+            if (ax.get(i) != expectedAx.get(i))
+                fail("'mul' failed");
+        }
+        for (int i=0; i<aty.size(); i++) {
+            if (aty.get(i) != expectedAty.get(i))
+                fail("'transposeMul' failed");
+        }
+
+        final File file = File.createTempFile("jquantlib", ".matrix");
+        file.deleteOnExit();
+        final OffHeapMatrix created = OffHeapMatrix.create(file, 4, 3).assign(0, mA);
+        created.set(3, 2, 42.0);
+        created.force();
+        final OffHeapMatrix opened = OffHeapMatrix.open(file, false);
+        if (opened.rows() != 4 || opened.columns() != 3)
+            fail("mapped file has wrong dimensions");
+        if (opened.get(3, 2) != 42.0 || opened.get(1, 1) != 5.0)
+            fail("mapped storage failed");
+    }
+
     @Test
     public void testEigenvectors() {
         testEigenvectors(jFlags);
@@ -1528,6 +1710,95 @@ public class MatrixTest {
     }
 
 
+    @Test
+    public void testLargeEigenvectors() {
+        QL.info("Testing eigenvalues and eigenvectors calculation on large matrices...");
+
+        final int n = 200;
+        final Matrix M = spd(n);
+        final SymmetricSchurDecomposition schur = M.schur();
+        final Array eigenValues = schur.eigenvalues();
+        final Matrix eigenVectors = schur.eigenvectors();
+
+        for (int i=0; i<n; i++) {
+            if (i > 0 && eigenValues.get(i) > eigenValues.get(i-1))
+                fail("Eigenvalues not sorted in decreasing order");
+            if (eigenVectors.get(0, i) < 0.0)
+                fail("Eigenvector sign not normalized");
+            final Array v = new Array(n);
+            for (int j=0; j<n; j++) {
+                v.set(j, eigenVectors.get(j, i));
+            }
+            final double tol = norm(M.mul(v).sub(v.mul(eigenValues.get(i))));
+            if (tol > 1.0e-10)
+                fail("Eigenvector definition not satisfied");
+        }
+        if (!equals(eigenVectors.mul(eigenVectors.transpose()), new Identity(n), 1.0e-10))
+            fail("Eigenvector not normalized");
+    }
+
+    @Test
+    public void testCholesky() {
+        QL.info("Testing Cholesky decomposition and its rank-one updates...");
+
+        final int n = 300;
+        final Matrix M = spd(n);
+        final CholeskyDecomposition cholesky = M.cholesky();
+        if (!cholesky.isSPD())
+            fail("Matrix should be positive definite");
+        final Matrix L = cholesky.L();
+        if (!equals(L.mul(L.transpose()), M, 1.0e-12))
+            fail("Cholesky decomposition failed");
+
+        final Array x = new Array(n);
+        for (int i=0; i<n; i++) {
+            x.set(i, Math.cos(0.3*i));
+        }
+        final Matrix updated = M.add(outer(x, x));
+        cholesky.update(x);
+        if (!equals(cholesky.L(), updated.cholesky().L(), 1.0e-10))
+            fail("Cholesky update failed");
+        cholesky.downdate(x);
+        if (!equals(cholesky.L(), L, 1.0e-10))
+            fail("Cholesky downdate failed");
+
+        final Matrix changed = M.clone();
+        changed.set(3, 7, M.get(3, 7) + 0.25);
+        changed.set(7, 3, M.get(7, 3) + 0.25);
+        cholesky.update(3, 7, 0.25);
+        if (!equals(cholesky.L(), changed.cholesky().L(), 1.0e-10))
+            fail("Cholesky update of a single element failed");
+
+        try {
+            cholesky.downdate(x.mul(1.0e3));
+            fail(MISSING_EXCEPTION);
+        } catch (final LibraryException e) {
+            // expected
+        }
+        if (!equals(cholesky.L(), changed.cholesky().L(), 1.0e-10))
+            fail("Failed downdate modified the decomposition");
+    }
+
+    private Matrix spd(final int n) {
+        final Matrix F = filled(n, n, 0.5);
+        final Matrix result = F.mul(F.transpose()).mulAssign(1.0/n);
+        for (int i=0; i<n; i++) {
+            result.set(i, i, result.get(i, i) + 1.0);
+        }
+        return result;
+    }
+
+    private Matrix outer(final Array x, final Array y) {
+        final Matrix result = new Matrix(x.size(), y.size());
+        for (int i=0; i<x.size(); i++) {
+            for (int j=0; j<y.size(); j++) {
+                result.set(i, j, x.get(i) * y.get(j));
+            }
+        }
+        return result;
+    }
+
+
     //    @Test
     //    public void testSqrt() {
     //
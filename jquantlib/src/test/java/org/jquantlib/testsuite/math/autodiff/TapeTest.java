@@ -0,0 +1,281 @@
+/*
+ Copyright (C) 2011 Richard Gomes
+
+ This source code is release under the BSD License.
+
+ This file is part of JQuantLib, a free-software/open-source library
+ for financial quantitative analysts and developers - http://jquantlib.org/
+
+ JQuantLib is free software: you can redistribute it and/or modify it
+ under the terms of the JQuantLib license.  You should have received a
+ copy of the license along with this program; if not, please email
+ <jquant-devel@lists.sourceforge.net>. The license is also available online at
+ <http://www.jquantlib.org/index.php/LICENSE.TXT>.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE.  See the license for more details.
+
+ JQuantLib is based on QuantLib. http://quantlib.org/
+ When applicable, the original copyright notice follows this notice.
+ */
+
+package org.jquantlib.testsuite.math.autodiff;
+
+import static org.junit.Assert.fail;
+
+import org.jquantlib.QL;
+import org.jquantlib.Settings;
+import org.jquantlib.daycounters.Actual365Fixed;
+import org.jquantlib.daycounters.DayCounter;
+import org.jquantlib.exercise.EuropeanExercise;
+import org.jquantlib.instruments.AssetOrNothingPayoff;
+import org.jquantlib.instruments.CashOrNothingPayoff;
+import org.jquantlib.instruments.EuropeanOption;
+import org.jquantlib.instruments.GapPayoff;
+import org.jquantlib.instruments.Option;
+import org.jquantlib.instruments.PlainVanillaPayoff;
+import org.jquantlib.instruments.StrikedTypePayoff;
+import org.jquantlib.math.autodiff.ADouble;
+import org.jquantlib.math.autodiff.Tape;
+import org.jquantlib.pricingengines.AnalyticEuropeanEngine;
+import org.jquantlib.pricingengines.BlackCalculator;
+import org.jquantlib.pricingengines.BlackFormula;
+import org.jquantlib.processes.BlackScholesMertonProcess;
+import org.jquantlib.quotes.Handle;
+import org.jquantlib.quotes.Quote;
+import org.jquantlib.quotes.SimpleQuote;
+import org.jquantlib.termstructures.BlackVolTermStructure;
+import org.jquantlib.termstructures.YieldTermStructure;
+import org.jquantlib.testsuite.util.Utilities;
+import org.jquantlib.time.Date;
+import org.jquantlib.time.Period;
+import org.jquantlib.time.TimeUnit;
+import org.junit.Test;
+
+/**
+ * Reverse mode algorithmic differentiation test cases
+ */
+public class TapeTest {
+
+    public TapeTest() {
+        QL.info("::::: " + this.getClass().getSimpleName() + " :::::");
+    }
+
+    @Test
+    public void testElementaryOperations() {
+        QL.info("Testing adjoints of elementary operations...");
+
+        final Tape tape = new Tape(2); // forces the tape to grow
+        final ADouble x = tape.variable(2.0);
+        final ADouble y = tape.variable(3.0);
+
+        // z = x*y + exp(x)/y - log(y) + sqrt(x)
+        final ADouble z = x.mul(y).add(x.exp().div(y)).sub(y.log()).add(x.sqrt());
+        tape.propagate(z);
+
+        final double tolerance = 1.0e-12;
+        final double dzdx = 3.0 + Math.exp(2.0)/3.0 + 0.5/Math.sqrt(2.0);
+        final double dzdy = 2.0 - Math.exp(2.0)/9.0 - 1.0/3.0;
+        if (Math.abs(x.adjoint() - dzdx) > tolerance)
+            fail("wrong derivative with respect to x\n"
+                    + "    calculated: " + x.adjoint() + "\n"
+                    + "    expected:   " + dzdx);
+        if (Math.abs(y.adjoint() - dzdy) > tolerance)
+            fail("wrong derivative with respect to y\n"
+                    + "    calculated: " + y.adjoint() + "\n"
+                    + "    expected:   " + dzdy);
+    }
+
+    @Test
+    public void testBlackFormulaSensitivities() {
+        QL.info("Testing adjoints of Black formula against finite differences...");
+
+        final Option.Type types[] = { Option.Type.Call, Option.Type.Put };
+        final double strikes[] = { 80.0, 100.0, 120.0 };
+        final double forward = 105.0;
+        final double stddev = 0.25;
+        final double discount = 0.95;
+        final double h = 1.0e-5;
+        final double tolerance = 1.0e-5;
+
+        final Tape tape = new Tape();
+        for (final Option.Type type : types) {
+            for (final double strike : strikes) {
+                tape.clear();
+                final ADouble k = tape.variable(strike);
+                final ADouble f = tape.variable(forward);
+                final ADouble s = tape.variable(stddev);
+                final ADouble d = tape.variable(discount);
+                final ADouble price = BlackFormula.blackFormula(type, k, f, s, d);
+                tape.propagate(price);
+
+                final double expected = BlackFormula.blackFormula(type, strike, forward, stddev, discount);
+                if (Math.abs(price.value() - expected) > 1.0e-12)
+                    fail("wrong price\n"
+                            + "    calculated: " + price.value() + "\n"
+                            + "    expected:   " + expected);
+
+                final double dk = (BlackFormula.blackFormula(type, strike+h, forward, stddev, discount)
+                                 - BlackFormula.blackFormula(type, strike-h, forward, stddev, discount)) / (2*h);
+                final double df = (BlackFormula.blackFormula(type, strike, forward+h, stddev, discount)
+                                 - BlackFormula.blackFormula(type, strike, forward-h, stddev, discount)) / (2*h);
+                final double ds = (BlackFormula.blackFormula(type, strike, forward, stddev+h, discount)
+                                 - BlackFormula.blackFormula(type, strike, forward, stddev-h, discount)) / (2*h);
+                final double dd = (BlackFormula.blackFormula(type, strike, forward, stddev, discount+h)
+                                 - BlackFormula.blackFormula(type, strike, forward, stddev, discount-h)) / (2*h);
+
+                check("strike",   type, strike, k.adjoint(), dk, tolerance);
+                check("forward",  type, strike, f.adjoint(), df, tolerance);
+                check("stddev",   type, strike, s.adjoint(), ds, tolerance);
+                check("discount", type, strike, d.adjoint(), dd, tolerance);
+            }
+        }
+    }
+
+    @Test
+    public void testDisplacedBlackFormulaSensitivities() {
+        QL.info("Testing adjoints of displaced Black formula against finite differences...");
+
+        final double strike = 0.01;
+        final double forward = 0.015;
+        final double stddev = 0.3;
+        final double discount = 0.9;
+        final double displacement = 0.02;
+        final double h = 1.0e-7;
+        final double tolerance = 1.0e-6;
+
+        final Tape tape = new Tape();
+        final ADouble k = tape.variable(strike);
+        final ADouble f = tape.variable(forward);
+        final ADouble s = tape.variable(stddev);
+        final ADouble d = tape.variable(discount);
+        final ADouble a = tape.variable(displacement);
+        final ADouble price = BlackFormula.blackFormula(Option.Type.Put, k, f, s, d, a);
+        tape.propagate(price);
+
+        final double expected = BlackFormula.blackFormula(Option.Type.Put, strike, forward, stddev, discount, displacement);
+        if (Math.abs(price.value() - expected) > 1.0e-14)
+            fail("wrong price\n"
+                    + "    calculated: " + price.value() + "\n"
+                    + "    expected:   " + expected);
+
+        final double da = (BlackFormula.blackFormula(Option.Type.Put, strike, forward, stddev, discount, displacement+h)
+                         - BlackFormula.blackFormula(Option.Type.Put, strike, forward, stddev, discount, displacement-h)) / (2*h);
+        final double dk = (BlackFormula.blackFormula(Option.Type.Put, strike+h, forward, stddev, discount, displacement)
+                         - BlackFormula.blackFormula(Option.Type.Put, strike-h, forward, stddev, discount, displacement)) / (2*h);
+        check("displacement", Option.Type.Put, strike, a.adjoint(), da, tolerance);
+        check("strike",       Option.Type.Put, strike, k.adjoint(), dk, tolerance);
+    }
+
+    @Test
+    public void testBlackCalculatorSensitivities() {
+        QL.info("Testing adjoints of Black calculator against its analytic greeks...");
+
+        final double forward = 105.0;
+        final double stddev = 0.25;
+        final double discount = 0.95;
+        final double t = 0.5;
+        final double tolerance = 1.0e-12;
+
+        final Tape tape = new Tape();
+        for (final StrikedTypePayoff payoff : payoffs()) {
+            tape.clear();
+            final ADouble k = tape.variable(payoff.strike());
+            final ADouble f = tape.variable(forward);
+            final ADouble s = tape.variable(stddev);
+            final ADouble d = tape.variable(discount);
+            final ADouble value = BlackCalculator.value(payoff, k, f, s, d);
+            tape.propagate(value);
+
+            final BlackCalculator black = new BlackCalculator(payoff, forward, stddev, discount);
+            final String name = payoff.getClass().getSimpleName() + " " + payoff.optionType();
+            check(name + " value",    payoff, value.value(),               black.value(),              tolerance);
+            check(name + " forward",  payoff, f.adjoint(),                 black.deltaForward(),       tolerance);
+            check(name + " stddev",   payoff, s.adjoint() * Math.sqrt(t),  black.vega(t),              tolerance);
+            check(name + " discount", payoff, d.adjoint() * discount,      black.value(),              tolerance);
+            check(name + " strike",   payoff, k.adjoint(),                 black.strikeSensitivity(),  tolerance);
+        }
+    }
+
+    @Test
+    public void testAnalyticEuropeanEngineSensitivities() {
+        QL.info("Testing adjoints of analytic European engine against its analytic greeks...");
+
+        final double spot = 100.0;
+        final double q = 0.03;
+        final double r = 0.06;
+        final double vol = 0.3;
+        final double tolerance = 1.0e-10;
+
+        final Date today = new Settings().evaluationDate();
+        final DayCounter dc = new Actual365Fixed();
+        final Date exDate = today.add(new Period(180, TimeUnit.Days));
+        final double t = dc.yearFraction(today, exDate);
+        final BlackScholesMertonProcess process = new BlackScholesMertonProcess(
+                new Handle<Quote>(new SimpleQuote(spot)),
+                new Handle<YieldTermStructure>(Utilities.flatRate(today, q, dc)),
+                new Handle<YieldTermStructure>(Utilities.flatRate(today, r, dc)),
+                new Handle<BlackVolTermStructure>(Utilities.flatVol(today, vol, dc)));
+
+        final Tape tape = new Tape();
+        for (final StrikedTypePayoff payoff : payoffs()) {
+            final EuropeanOption option = new EuropeanOption(payoff, new EuropeanExercise(exDate));
+            option.setPricingEngine(new AnalyticEuropeanEngine(process));
+
+            tape.clear();
+            final ADouble s = tape.variable(spot);
+            final ADouble dividendRate = tape.variable(q);
+            final ADouble riskFreeRate = tape.variable(r);
+            final ADouble sigma = tape.variable(vol);
+            final ADouble value = AnalyticEuropeanEngine.value(payoff, s,
+                    dividendRate.mul(-t).exp(), riskFreeRate.mul(-t).exp(), sigma.mul(sigma).mul(t));
+            tape.propagate(value);
+
+            final String name = payoff.getClass().getSimpleName() + " " + payoff.optionType();
+            check(name + " value",        payoff, value.value(),           option.NPV(),         tolerance);
+            check(name + " delta",        payoff, s.adjoint(),             option.delta(),       tolerance);
+            check(name + " dividend rho", payoff, dividendRate.adjoint(),  option.dividendRho(), tolerance);
+            check(name + " rho",          payoff, riskFreeRate.adjoint(),  option.rho(),         tolerance);
+            check(name + " vega",         payoff, sigma.adjoint(),         option.vega(),        tolerance);
+        }
+    }
+
+    private StrikedTypePayoff[] payoffs() {
+        return new StrikedTypePayoff[] {
+                new PlainVanillaPayoff(Option.Type.Call, 100.0),
+                new PlainVanillaPayoff(Option.Type.Put, 110.0),
+                new CashOrNothingPayoff(Option.Type.Call, 95.0, 15.0),
+                new CashOrNothingPayoff(Option.Type.Put, 105.0, 15.0),
+                new AssetOrNothingPayoff(Option.Type.Call, 95.0),
+                new AssetOrNothingPayoff(Option.Type.Put, 105.0),
+                new GapPayoff(Option.Type.Call, 100.0, 90.0),
+                new GapPayoff(Option.Type.Put, 100.0, 110.0) };
+    }
+
+    private void check(
+            final String name,
+            final StrikedTypePayoff payoff,
+            final double calculated,
+            final double expected,
+            final double tolerance) {
+        if (Math.abs(calculated - expected) > tolerance)
+            fail("wrong " + name + " with strike " + payoff.strike() + "\n"
+                    + "    calculated: " + calculated + "\n"
+                    + "    expected:   " + expected);
+    }
+
+    private void check(
+            final String name,
+            final Option.Type type,
+            final double strike,
+            final double calculated,
+            final double expected,
+            final double tolerance) {
+        if (Math.abs(calculated - expected) > tolerance)
+            fail("wrong sensitivity to " + name + " for " + type + " option with strike " + strike + "\n"
+                    + "    calculated: " + calculated + "\n"
+                    + "    expected:   " + expected);
+    }
+
+}
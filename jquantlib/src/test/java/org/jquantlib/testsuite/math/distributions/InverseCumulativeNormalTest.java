@@ -24,11 +24,13 @@ package org.jquantlib.testsuite.math.distributions;
 
 // import static org.junit.Assert.assertEquals; --> not JUnit 4.4 conform
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 
 import org.jquantlib.QL;
 import org.jquantlib.Settings;
 import org.jquantlib.math.distributions.InverseCumulativeNormal;
+import org.jquantlib.math.randomnumbers.MersenneTwisterUniformRng;
 import org.junit.Test;
 
 /**
@@ -115,4 +117,46 @@ public class InverseCumulativeNormalTest {
         settings.setRefineHighPrecisionUsingHalleysMethod(oldHighPrecision);
     }
 
+    @Test
+    public void testBulkEvaluation() {
+        QL.info("Testing bulk evaluation of inverse cumulative normal...");
+
+        final double[] x = new double[1000];
+        new MersenneTwisterUniformRng(42).fill(x, 0, x.length);
+        // make sure that both tails and the break-points are exercised
+        x[0] = 1.0e-300;
+        x[1] = 0.02425;
+        x[2] = 1.0 - 0.02425;
+        x[3] = 1.0 - 1.0e-16;
+        x[999] = 1.0e-5;
+
+        final Settings settings = new Settings();
+        final boolean oldHighPrecision = settings.isRefineHighPrecisionUsingHalleysMethod();
+        for (final boolean highPrecision : new boolean[] { false, true }) {
+            settings.setRefineHighPrecisionUsingHalleysMethod(highPrecision);
+            final InverseCumulativeNormal icn = new InverseCumulativeNormal(0.5, 2.0);
+
+            final double[] z = new double[x.length];
+            icn.op(x, z);
+            for (int i = 0; i < x.length; i++) {
+                assertEquals(icn.op(x[i]), z[i], 0.0);
+            }
+
+            // in place, on a range which is not aligned to the beginning of the array
+            final double[] y = x.clone();
+            icn.transform(y, 3, 990);
+            for (int i = 0; i < x.length; i++) {
+                assertEquals((i < 3 || i >= 993) ? x[i] : icn.op(x[i]), y[i], 0.0);
+            }
+
+            // a shorter range, on the scratch arrays left behind by the previous calls
+            final double[] w = x.clone();
+            icn.transform(w, 500, 20);
+            for (int i = 0; i < x.length; i++) {
+                assertEquals((i < 500 || i >= 520) ? x[i] : icn.op(x[i]), w[i], 0.0);
+            }
+        }
+        settings.setRefineHighPrecisionUsingHalleysMethod(oldHighPrecision);
+    }
+
 }
@@ -1035,6 +1035,44 @@ public class InterpolationTest {
     }
 
 
+    @Test
+    public void testSplineBatchEvaluationAndUpdate() {
+
+        QL.info("Testing spline batch evaluation and update in place...");
+
+        final int n = 11;
+        final Array x = xRange(-1.7, 1.9, n);
+        final Array y = gaussian(x);
+
+        final CubicInterpolation f = new CubicInterpolation(
+                x, y,
+                CubicInterpolation.DerivativeApprox.Spline, false,
+                CubicInterpolation.BoundaryCondition.SecondDerivative, 0.0,
+                CubicInterpolation.BoundaryCondition.SecondDerivative, 0.0);
+
+        final double[] points = new double[101];
+        for (int i=0; i<points.length; i++) {
+            points[i] = -1.7 + 3.6*i/(points.length-1);
+        }
+        final double[] values = new double[points.length];
+
+        for (int pass=0; pass<2; pass++) {
+            f.op(points, values);
+            for (int i=0; i<points.length; i++) {
+                final double expected = f.op(points[i]);
+                assertFalse("batch spline evaluation failed at x = "+points[i]
+                        +"\n    batch value:  "+values[i]
+                        +"\n    scalar value: "+expected,
+                        abs(values[i]-expected) > 1.0e-15);
+            }
+            // interpolated data are modified in place, and coefficients are recalculated on the same buffers
+            y.mulAssign(2.0);
+            f.update();
+            checkValues("Spline after update", f, x, y);
+        }
+    }
+
+
 
 
     @Ignore
@@ -39,7 +39,10 @@ When applicable, the original copyright notice follows this notice.
 
 package org.jquantlib.testsuite.math.randomnumbers;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
+import org.jquantlib.math.distributions.InverseCumulativeNormal;
+import org.jquantlib.math.randomnumbers.InverseCumulativeRng;
 import org.jquantlib.math.randomnumbers.MersenneTwisterUniformRng;
 import org.junit.Test;
 
@@ -169,6 +172,64 @@ public class MersenneTwisterTest {
 //        assertTrue(max < (expected + 200));
 //    }
 
+    @Test
+    public void testJump() {
+        final long[] steps = { 0, 1, 623, 624, 625, 19937, 123457 };
+        for (final long n : steps) {
+            final MersenneTwisterUniformRng mt = new MersenneTwisterUniformRng(42);
+            mt.nextInt32();
+            final MersenneTwisterUniformRng jumped = new MersenneTwisterUniformRng(mt);
+            for (long i = 0; i < n; i++) {
+                mt.nextInt32();
+            }
+            jumped.jump(n);
+            for (int i = 0; i < 1000; i++) {
+                assertEquals(mt.nextInt32(), jumped.nextInt32());
+            }
+        }
+    }
+
+    @Test
+    public void testSubstreams() {
+        final MersenneTwisterUniformRng mt = new MersenneTwisterUniformRng(42);
+        final MersenneTwisterUniformRng[] streams = mt.substreams(3);
+        assertEquals(3, streams.length);
+
+        // 2^64 steps, as four jumps of 2^62 steps
+        final MersenneTwisterUniformRng expected = new MersenneTwisterUniformRng(mt);
+        for (int i = 0; i < 4; i++) {
+            expected.jump(1L << 62);
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(mt.nextInt32(), streams[0].nextInt32());
+            assertEquals(expected.nextInt32(), streams[1].nextInt32());
+        }
+    }
+
+    @Test
+    public void testFill() {
+        final MersenneTwisterUniformRng mt = new MersenneTwisterUniformRng(42);
+        final MersenneTwisterUniformRng reference = new MersenneTwisterUniformRng(mt);
+        final double[] uniforms = new double[1002];
+        mt.fill(uniforms, 1, 1000);
+        assertEquals(0.0, uniforms[0], 0.0);
+        assertEquals(0.0, uniforms[1001], 0.0);
+        for (int i = 1; i <= 1000; i++) {
+            final double u = ((reference.nextInt32() & 0xffffffffL) + 0.5) / 4294967296.0;
+            assertEquals(u, uniforms[i], 0.0);
+            assertTrue(u > 0.0 && u < 1.0);
+        }
+
+        final InverseCumulativeNormal icn = new InverseCumulativeNormal();
+        final InverseCumulativeRng<MersenneTwisterUniformRng, InverseCumulativeNormal> rng =
+            new InverseCumulativeRng<MersenneTwisterUniformRng, InverseCumulativeNormal>(new MersenneTwisterUniformRng(42), icn);
+        final double[] gaussians = new double[1000];
+        rng.fill(gaussians, 0, gaussians.length);
+        for (int i = 0; i < gaussians.length; i++) {
+            assertEquals(icn.op(uniforms[i+1]), gaussians[i], 0.0);
+        }
+    }
+
     @Test
     public void testMakotoNishimura() {
         final MersenneTwisterUniformRng mt = new MersenneTwisterUniformRng(new int[] {0x123, 0x234, 0x345, 0x456});
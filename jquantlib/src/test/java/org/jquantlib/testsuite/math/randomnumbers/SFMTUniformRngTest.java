@@ -0,0 +1,193 @@
+/*
+ Copyright (C) 2011 Richard Gomes
+
+ This source code is release under the BSD License.
+
+ This file is part of JQuantLib, a free-software/open-source library
+ for financial quantitative analysts and developers - http://jquantlib.org/
+
+ JQuantLib is free software: you can redistribute it and/or modify it
+ under the terms of the JQuantLib license.  You should have received a
+ copy of the license along with this program; if not, please email
+ <jquant-devel@lists.sourceforge.net>. The license is also available online at
+ <http://www.jquantlib.org/index.php/LICENSE.TXT>.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE.  See the license for more details.
+
+ JQuantLib is based on QuantLib. http://quantlib.org/
+ When applicable, the original copyright notice follows this notice.
+ */
+
+
+package org.jquantlib.testsuite.math.randomnumbers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.jquantlib.QL;
+import org.jquantlib.Settings;
+import org.jquantlib.daycounters.Actual365Fixed;
+import org.jquantlib.daycounters.DayCounter;
+import org.jquantlib.math.distributions.InverseCumulativeNormal;
+import org.jquantlib.math.randomnumbers.InverseCumulativeRsg;
+import org.jquantlib.math.randomnumbers.MersenneTwisterUniformRng;
+import org.jquantlib.math.randomnumbers.RandomSequenceGenerator;
+import org.jquantlib.math.randomnumbers.SFMTPseudoRandom;
+import org.jquantlib.math.randomnumbers.SFMTUniformRng;
+import org.jquantlib.methods.montecarlo.Path;
+import org.jquantlib.methods.montecarlo.PathGenerator;
+import org.jquantlib.processes.BlackScholesMertonProcess;
+import org.jquantlib.processes.GeneralizedBlackScholesProcess;
+import org.jquantlib.quotes.Handle;
+import org.jquantlib.quotes.Quote;
+import org.jquantlib.quotes.SimpleQuote;
+import org.jquantlib.termstructures.BlackVolTermStructure;
+import org.jquantlib.termstructures.YieldTermStructure;
+import org.jquantlib.testsuite.util.Utilities;
+import org.jquantlib.time.Date;
+import org.jquantlib.time.Month;
+import org.jquantlib.time.TimeGrid;
+import org.junit.Ignore;
+import org.junit.Test;
+
+public class SFMTUniformRngTest {
+
+    public SFMTUniformRngTest() {
+        QL.info("::::: " + this.getClass().getSimpleName() + " :::::");
+    }
+
+    @Test
+    public void testReferenceValues() {
+        // first outputs of the reference implementation, after init_gen_rand(1234)
+        final SFMTUniformRng rng = new SFMTUniformRng(1234);
+        final long[] expected = { 3440181298L, 1564997079L, 1510669302L, 2930277156L };
+        for (final long value : expected) {
+            assertEquals(value, rng.nextInt32());
+        }
+    }
+
+    @Test
+    public void testJump() {
+        final long[] steps = { 0, 1, 3, 623, 624, 625, 19937, 123457 };
+        for (final long n : steps) {
+            final SFMTUniformRng rng = new SFMTUniformRng(42L);
+            rng.nextInt32();
+            final SFMTUniformRng jumped = new SFMTUniformRng(rng);
+            for (long i = 0; i < n; i++) {
+                rng.nextInt32();
+            }
+            jumped.jump(n);
+            for (int i = 0; i < 1000; i++) {
+                assertEquals(rng.nextInt32(), jumped.nextInt32());
+            }
+        }
+    }
+
+    @Test
+    public void testSubstreams() {
+        final SFMTUniformRng rng = new SFMTUniformRng(42L);
+        rng.nextInt32();
+        final SFMTUniformRng[] streams = rng.substreams(3);
+        assertEquals(3, streams.length);
+
+        // 2^64 steps, as four jumps of 2^62 steps
+        final SFMTUniformRng expected = new SFMTUniformRng(rng);
+        for (int i = 0; i < 4; i++) {
+            expected.jump(1L << 62);
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(rng.nextInt32(), streams[0].nextInt32());
+            assertEquals(expected.nextInt32(), streams[1].nextInt32());
+        }
+    }
+
+    @Test
+    public void testFill() {
+        final SFMTUniformRng rng = new SFMTUniformRng(42L);
+        final SFMTUniformRng reference = new SFMTUniformRng(rng);
+        final double[] uniforms = new double[2002];
+        rng.fill(uniforms, 1, 2000);
+        assertEquals(0.0, uniforms[0], 0.0);
+        assertEquals(0.0, uniforms[2001], 0.0);
+        for (int i = 1; i <= 2000; i++) {
+            final double u = (reference.nextInt32() + 0.5) / 4294967296.0;
+            assertEquals(u, uniforms[i], 0.0);
+            assertTrue(u > 0.0 && u < 1.0);
+        }
+        assertEquals(reference.nextInt32(), rng.nextInt32());
+    }
+
+    @Test
+    public void testPathGeneration() {
+        QL.info("Testing path generation from SFMT deviates...");
+
+        final Date today = new Date(15, Month.March, 2011);
+        new Settings().setEvaluationDate(today);
+        final DayCounter dc = new Actual365Fixed();
+        final GeneralizedBlackScholesProcess process = new BlackScholesMertonProcess(
+                new Handle<Quote>(new SimpleQuote(100.0)),
+                new Handle<YieldTermStructure>(Utilities.flatRate(today, 0.02, dc)),
+                new Handle<YieldTermStructure>(Utilities.flatRate(today, 0.05, dc)),
+                new Handle<BlackVolTermStructure>(Utilities.flatVol(today, 0.2, dc)));
+        final TimeGrid grid = new TimeGrid(1.0, 12);
+        final int steps = grid.size()-1;
+
+        final PathGenerator<InverseCumulativeRsg<RandomSequenceGenerator<SFMTUniformRng>, InverseCumulativeNormal>> generator =
+            new PathGenerator<InverseCumulativeRsg<RandomSequenceGenerator<SFMTUniformRng>, InverseCumulativeNormal>>(
+                    process, grid, new SFMTPseudoRandom().makeSequenceGenerator(steps, 42L), false);
+
+        // the same path, evolved step by step from the underlying uniform deviates
+        final SFMTUniformRng rng = new SFMTUniformRng(42L);
+        final InverseCumulativeNormal icn = new InverseCumulativeNormal();
+        for (int p = 0; p < 10; p++) {
+            final Path path = generator.next().value();
+            double x = process.x0();
+            for (int i = 0; i < steps; i++) {
+                final double dw = icn.op(rng.next().value());
+                x = process.evolve(grid.get(i), x, grid.dt(i), dw);
+                assertEquals("path " + p + ", step " + (i+1), x, path.getValues_(i+1), 1.0e-12);
+            }
+        }
+    }
+
+    // benchmark, not a test: run it by hand when comparing generators
+    @Ignore
+    @Test
+    public void testPerformance() {
+        final int size = 1000;
+        final int samples = 10000;
+        final double[] buffer = new double[size];
+
+        final MersenneTwisterUniformRng mt = new MersenneTwisterUniformRng(42L);
+        final SFMTUniformRng sfmt = new SFMTUniformRng(42L);
+
+        // warm up
+        for (int i = 0; i < samples; i++) {
+            mt.fill(buffer, 0, size);
+            sfmt.fill(buffer, 0, size);
+        }
+
+        double sum = 0.0;
+        long start = System.nanoTime();
+        for (int i = 0; i < samples; i++) {
+            mt.fill(buffer, 0, size);
+            sum += buffer[i % size];
+        }
+        final long mtTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < samples; i++) {
+            sfmt.fill(buffer, 0, size);
+            sum += buffer[i % size];
+        }
+        final long sfmtTime = System.nanoTime() - start;
+
+        QL.info("MersenneTwisterUniformRng: " + (mtTime / 1.0e6) + " ms for " + (size * samples) + " deviates");
+        QL.info("SFMTUniformRng: " + (sfmtTime / 1.0e6) + " ms for " + (size * samples) + " deviates");
+        // average of uniform deviates
+        assertEquals(0.5, sum / (2 * samples), 0.05);
+    }
+
+}
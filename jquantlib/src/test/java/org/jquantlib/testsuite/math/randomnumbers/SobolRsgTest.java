@@ -0,0 +1,136 @@
+/*
+ Copyright (C) 2011 Richard Gomes
+
+ This source code is release under the BSD License.
+
+ This file is part of JQuantLib, a free-software/open-source library
+ for financial quantitative analysts and developers - http://jquantlib.org/
+
+ JQuantLib is free software: you can redistribute it and/or modify it
+ under the terms of the JQuantLib license.  You should have received a
+ copy of the license along with this program; if not, please email
+ <jquant-devel@lists.sourceforge.net>. The license is also available online at
+ <http://www.jquantlib.org/index.php/LICENSE.TXT>.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE.  See the license for more details.
+
+ JQuantLib is based on QuantLib. http://quantlib.org/
+ When applicable, the original copyright notice follows this notice.
+ */
+
+
+package org.jquantlib.testsuite.math.randomnumbers;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.jquantlib.QL;
+import org.jquantlib.math.randomnumbers.SobolRsg;
+import org.junit.Test;
+
+public class SobolRsgTest {
+
+    public SobolRsgTest() {
+        QL.info("::::: " + this.getClass().getSimpleName() + " :::::");
+    }
+
+    @Test
+    public void testFirstPoints() {
+        final double[][] expected = {
+                { 0.5,    0.5,    0.5   },
+                { 0.75,   0.25,   0.75  },
+                { 0.25,   0.75,   0.25  },
+                { 0.375,  0.375,  0.625 },
+                { 0.875,  0.875,  0.125 },
+                { 0.625,  0.125,  0.375 },
+                { 0.125,  0.625,  0.875 },
+                { 0.1875, 0.3125, 0.3125 } };
+        final SobolRsg rsg = new SobolRsg(3);
+        final double[] point = new double[3];
+        for (final double[] p : expected) {
+            rsg.fill(point, 0, 3);
+            for (int k = 0; k < 3; k++) {
+                assertEquals(p[k], point[k], 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void testStratification() {
+        // one dimensional projections of the first 2^m points, origin included, are stratified
+        final int dimension = 400;
+        final int points = (1 << 10) - 1;
+        for (final SobolRsg.DirectionIntegers direction : SobolRsg.DirectionIntegers.values()) {
+            final SobolRsg rsg = new SobolRsg(dimension, 42, direction);
+            final double[] x = new double[points * dimension];
+            rsg.fill(x, 0, x.length);
+            assertStratified(x, dimension, points);
+        }
+    }
+
+    @Test
+    public void testSkipTo() {
+        final int dimension = 50;
+        final long[] skips = { 0, 1, 2, 7, 8, 1000, 123457 };
+        for (final long skip : skips) {
+            final SobolRsg sequential = new SobolRsg(dimension);
+            for (long i = 0; i < skip; i++) {
+                sequential.nextInt32Sequence();
+            }
+            final SobolRsg skipped = new SobolRsg(dimension);
+            skipped.nextInt32Sequence();
+            skipped.skipTo(skip);
+            for (int i = 0; i < 20; i++) {
+                final long[] expected = sequential.nextInt32Sequence();
+                final long[] calculated = skipped.nextInt32Sequence();
+                for (int k = 0; k < dimension; k++) {
+                    assertEquals(expected[k], calculated[k]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testScrambling() {
+        final int dimension = 100;
+        final int points = (1 << 10) - 1;
+        for (final SobolRsg.Scrambling scrambling : SobolRsg.Scrambling.values()) {
+            final SobolRsg rsg = new SobolRsg(dimension, 0, SobolRsg.DirectionIntegers.Jaeckel, scrambling, 17);
+            final SobolRsg replica = new SobolRsg(dimension, 0, SobolRsg.DirectionIntegers.Jaeckel, scrambling, 18);
+            final double[] x = new double[points * dimension];
+            final double[] y = new double[points * dimension];
+            rsg.fill(x, 0, x.length);
+            replica.fill(y, 0, y.length);
+
+            if (scrambling == SobolRsg.Scrambling.None) {
+                assertTrue(Arrays.equals(x, y));
+            } else {
+                assertFalse(Arrays.equals(x, y));
+                assertStratified(x, dimension, points);
+            }
+        }
+    }
+
+    /**
+     * Checks that each point falls in a different cell, the cell of the origin being left empty
+     */
+    private void assertStratified(final double[] x, final int dimension, final int points) {
+        final int cells = points + 1;
+        for (int k = 0; k < dimension; k++) {
+            final boolean[] seen = new boolean[cells];
+            for (int i = 0; i < points; i++) {
+                final double u = x[i * dimension + k];
+                assertTrue(u > 0.0 && u < 1.0);
+                final int cell = (int) (u * cells);
+                assertFalse("dimension " + k + " point " + i, seen[cell]);
+                seen[cell] = true;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,101 @@
+/*
+ Copyright (C) 2011 Richard Gomes
+
+ This source code is release under the BSD License.
+
+ This file is part of JQuantLib, a free-software/open-source library
+ for financial quantitative analysts and developers - http://jquantlib.org/
+
+ JQuantLib is free software: you can redistribute it and/or modify it
+ under the terms of the JQuantLib license.  You should have received a
+ copy of the license along with this program; if not, please email
+ <jquant-devel@lists.sourceforge.net>. The license is also available online at
+ <http://www.jquantlib.org/index.php/LICENSE.TXT>.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE.  See the license for more details.
+
+ JQuantLib is based on QuantLib. http://quantlib.org/
+ When applicable, the original copyright notice follows this notice.
+ */
+
+
+package org.jquantlib.testsuite.math.randomnumbers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.jquantlib.QL;
+import org.jquantlib.math.distributions.CumulativeNormalDistribution;
+import org.jquantlib.math.randomnumbers.ZigguratRng;
+import org.jquantlib.math.randomnumbers.ZigguratRsg;
+import org.jquantlib.math.statistics.IncrementalStatistics;
+import org.junit.Test;
+
+public class ZigguratRngTest {
+
+    public ZigguratRngTest() {
+        QL.info("::::: " + this.getClass().getSimpleName() + " :::::");
+    }
+
+    @Test
+    public void testDistribution() {
+        QL.info("Testing Gaussian deviates of ziggurat generator...");
+
+        final int samples = 1000000;
+        final int buckets = 100;
+        final double[] x = new double[samples];
+        new ZigguratRng(42).fill(x, 0, samples);
+
+        final IncrementalStatistics stats = new IncrementalStatistics();
+        final CumulativeNormalDistribution cnd = new CumulativeNormalDistribution();
+        final int[] count = new int[buckets];
+        int tail = 0;
+        for (final double value : x) {
+            stats.add(value);
+            count[Math.min((int) (cnd.op(value) * buckets), buckets - 1)]++;
+            if (Math.abs(value) > 3.442619855899) {
+                tail++;
+            }
+        }
+
+        assertEquals(0.0, stats.mean(), 0.005);
+        assertEquals(1.0, stats.variance(), 0.005);
+        assertEquals(0.0, stats.skewness(), 0.02);
+        assertEquals(0.0, stats.kurtosis(), 0.02);
+
+        // chi-square with 99 degrees of freedom, whose 99.9% quantile is about 149.4
+        final double expected = (double) samples / buckets;
+        double chi2 = 0.0;
+        for (final int n : count) {
+            chi2 += (n - expected) * (n - expected) / expected;
+        }
+        assertTrue("chi-square " + chi2 + " too large", chi2 < 149.4);
+
+        // deviates beyond the base layer are sampled from the tail
+        final double tailProbability = 2.0 * (1.0 - cnd.op(3.442619855899));
+        assertEquals(tailProbability, (double) tail / samples, 5.0 * Math.sqrt(tailProbability / samples));
+    }
+
+    @Test
+    public void testSequences() {
+        QL.info("Testing Gaussian sequences from ziggurat generator...");
+
+        final ZigguratRsg rsg = new ZigguratRsg(5, 42L);
+        final ZigguratRng reference = new ZigguratRng(42L);
+        final double[] sequences = new double[50];
+        rsg.fill(sequences, 0, sequences.length);
+        for (final double value : sequences) {
+            assertEquals(reference.nextGaussian(), value, 0.0);
+        }
+        for (int i = 45; i < 50; i++) {
+            assertEquals(sequences[i], rsg.lastSequence().value()[i - 45], 0.0);
+        }
+        final double[] next = rsg.nextSequence().value();
+        for (final double value : next) {
+            assertEquals(reference.nextGaussian(), value, 0.0);
+        }
+    }
+
+}
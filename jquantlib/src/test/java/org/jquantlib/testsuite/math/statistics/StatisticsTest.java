@@ -1,364 +1,552 @@
-/*
- Copyright (C) 2010 Richard Gomes
-
- This source code is release under the BSD License.
-
- This file is part of JQuantLib, a free-software/open-source library
- for financial quantitative analysts and developers - http://jquantlib.org/
-
- JQuantLib is free software: you can redistribute it and/or modify it
- under the terms of the JQuantLib license.  You should have received a
- copy of the license along with this program; if not, please email
- <jquant-devel@lists.sourceforge.net>. The license is also available online at
- <http://www.jquantlib.org/index.php/LICENSE.TXT>.
-
- This program is distributed in the hope that it will be useful, but WITHOUT
- ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
- FOR A PARTICULAR PURPOSE.  See the license for more details.
-
- JQuantLib is based on QuantLib. http://quantlib.org/
- When applicable, the original copyright notice follows this notice.
- */
-
-/*
- Copyright (C) 2003 Ferdinando Ametrano
- Copyright (C) 2003 RiskMap srl
- Copyright (C) 2005 Gary Kennedy
-
- This file is part of QuantLib, a free-software/open-source library
- for financial quantitative analysts and developers - http://quantlib.org/
-
- QuantLib is free software: you can redistribute it and/or modify it
- under the terms of the QuantLib license.  You should have received a
- copy of the license along with this program; if not, please email
- <quantlib-dev@lists.sf.net>. The license is also available online at
- <http://quantlib.org/license.shtml>.
-
- This program is distributed in the hope that it will be useful, but WITHOUT
- ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
- FOR A PARTICULAR PURPOSE.  See the license for more details.
-*/
-package org.jquantlib.testsuite.math.statistics;
-
-import static org.junit.Assert.fail;
-
-import java.util.List;
-
-import org.jquantlib.QL;
-import org.jquantlib.lang.annotation.Real;
-import org.jquantlib.math.matrixutilities.Array;
-import org.jquantlib.math.statistics.ConvergenceStatistics;
-import org.jquantlib.math.statistics.GenericRiskStatistics;
-import org.jquantlib.math.statistics.GenericSequenceStatistics;
-import org.jquantlib.math.statistics.IncrementalStatistics;
-import org.jquantlib.math.statistics.RiskStatistics;
-import org.jquantlib.util.Pair;
-import org.junit.Test;
-
-/**
- * Statistics test cases
- * 
- * @author Richard Gomes
- */
-public class StatisticsTest {
-
-    private final Array data;
-    private final Array weights;
-    
-
-    public StatisticsTest() {
-        QL.info("Testing volatility model construction...");
-        this.data    = new Array(new double[] { 3.0, 4.0, 5.0, 2.0, 3.0, 4.0, 5.0, 6.0, 4.0, 7.0 });
-        this.weights = new Array(new double[] { 1.0, 1.0, 1.0, 1.0, 1.0, 1.0, 1.0, 1.0, 1.0, 1.0 });
-    }
-
-    @Test
-    public void testStatistics() {
-        QL.info("Testing statistics ...");
-        check(new RiskStatistics(), "Statistics");
-    }
-
-    @Test
-    public void testIncrementalStatistics() {
-        QL.info("Testing incremental statistics ...");
-        check(new IncrementalStatistics(), "IncrementalStatistics");
-    }
-
-    
-    @Test
-    public void testSequenceStatistics() {
-        QL.info("Testing sequence statistics ...");
-        checkSequence(new RiskStatistics(), "Statistics", 5);
-        checkSequence(new IncrementalStatistics(), "IncrementalStatistics", 5);
-    }
-    
-    
-    @Test
-    public void testConvergenceStatistics() {
-        QL.info("Testing convergence statistics ...");
-        checkConvergence(new RiskStatistics(), "Statistics");
-        checkConvergence(new IncrementalStatistics(), "IncrementalStatistics");
-    }
-    
-    
-    
-    private void check(final GenericRiskStatistics s, final String name) {
-        for (int i = 0; i<data.size(); i++)
-            s.add(data.get(i), weights.get(i));
-
-        double calculated, expected;
-        double tolerance;
-
-        if (s.samples()!=data.size())
-            fail("wrong number of samples \n" +
-                    "calculated: " + s.samples() + "\n" +
-                    "expected: " + data.size());
-        
-        expected = weights.accumulate();
-        calculated = s.weightSum();
-        if (calculated != expected)
-            fail(name  + ": wrong sum of weights\n"
-            + "    calculated: " + calculated + "\n"
-            + "    expected:   " + expected);
-
-        expected = data.min();
-        calculated = s.min();
-        if (calculated != expected)
-            fail(name + ": wrong minimum value \n" +
-                    "calculated: " + calculated + "\n" +
-                    "expected: " + expected);
-
-        expected = data.max();
-        calculated = s.max();
-        if (calculated != expected)
-            fail(name + ": wrong maxmimum value \n" +
-                    "calculated: " + expected + "\n" +
-                    "expected: " + expected);
-
-        expected = 4.3;
-        tolerance = 1.0e-9;
-        calculated = s.mean();
-        if (Math.abs(calculated - expected)>tolerance)
-            fail(name + "wrong mean value" + "\n" +
-                    "calculated: " + calculated + "\n" +
-                    "expected: " + expected);
-
-        expected = 2.23333333333;
-        calculated = s.variance();
-        if (Math.abs(calculated - expected) > tolerance)
-            fail(name + "wrong variance" + "\n" +
-                    "calculated: " + calculated + "\n" +
-                    "expected: " + expected);
-
-        expected = 1.4944341181;
-        calculated = s.standardDeviation();
-        if (Math.abs(calculated-expected) > tolerance)
-            fail(name + "wrong standard deviation" + "\n" +
-                    "calculated: " + calculated + "\n" +
-                    "expected: " + expected);
-
-        expected = 0.359543071407;
-        calculated = s.skewness();
-        if (Math.abs(calculated-expected) > tolerance)
-            fail(name + "wrong skewness" + "\n" +
-                    "calculated: " + calculated + "\n" +
-                    "expected: " + expected);
-
-        expected = -0.151799637209;
-        calculated = s.kurtosis();
-        if (Math.abs(calculated-expected) > tolerance)
-            fail(name + "wrong skewness" + "\n" +
-                    "calculated: " + calculated + "\n" +
-                    "expected: " + expected);
-    }
-    
-    
-    private void checkSequence(final GenericRiskStatistics stat, final String name, int dimension) {
-
-        final GenericSequenceStatistics ss = new GenericSequenceStatistics(dimension);
-        
-        /*@Size*/ int i;
-        for (i = 0; i<data.size(); i++) {
-        	Array temp = new Array(dimension);
-        	temp.fill(data.get(i));
-            ss.add(temp, weights.get(i));
-        }
-
-        Array calculated;
-        /*@Real*/ double expected, tolerance;
-
-        if (ss.samples() != data.size())
-            fail("SequenceStatistics<" + name + ">: "
-                       + "wrong number of samples\n"
-                       + "    calculated: " + ss.samples() + "\n"
-                       + "    expected:   " + data.size());
-
-        expected = weights.accumulate(0.0);
-        if (ss.weightSum() != expected)
-            fail("SequenceStatistics<" + name + ">: "
-                       + "wrong sum of weights\n"
-                       + "    calculated: " + ss.weightSum() + "\n"
-                       + "    expected:   " + expected);
-
-        expected = data.min();
-        calculated = ss.min();
-        for (i=0; i<dimension; i++) {
-            if (calculated.get(i) != expected)
-                fail("SequenceStatistics<" + name + ">: "
-                           + (i+1) + " dimension: "
-                           + "wrong minimum value\n"
-                           + "    calculated: " + calculated.get(i) + "\n"
-                           + "    expected:   " + expected);
-        }
-
-        expected = data.max();
-        calculated = ss.max();
-        for (i=0; i<dimension; i++) {
-            if (calculated.get(i) != expected)
-                fail("SequenceStatistics<" + name + ">: "
-                           + (i+1) + " dimension: "
-                           + "wrong maximun value\n"
-                           + "    calculated: " + calculated.get(i) + "\n"
-                           + "    expected:   " + expected);
-        }
-
-        expected = 4.3;
-        tolerance = 1.0e-9;
-        calculated = ss.mean();
-        for (i=0; i<dimension; i++) {
-            if (Math.abs(calculated.get(i)-expected) > tolerance)
-                fail("SequenceStatistics<" + name + ">: "
-                           + (i+1) + " dimension: "
-                           + "wrong mean value\n"
-                           + "    calculated: " + calculated.get(i) + "\n"
-                           + "    expected:   " + expected);
-        }
-
-        expected = 2.23333333333;
-        calculated = ss.variance();
-        for (i=0; i<dimension; i++) {
-            if (Math.abs(calculated.get(i)-expected) > tolerance)
-                fail("SequenceStatistics<" + name + ">: "
-                           + (i+1) + " dimension: "
-                           + "wrong variance\n"
-                           + "    calculated: " + calculated.get(i) + "\n"
-                           + "    expected:   " + expected);
-        }
-
-        expected = 1.4944341181;
-        calculated = ss.standardDeviation();
-        for (i=0; i<dimension; i++) {
-            if (Math.abs(calculated.get(i)-expected) > tolerance)
-                fail("SequenceStatistics<" + name + ">: "
-                           + (i+1) + " dimension: "
-                           + "wrong standard deviation\n"
-                           + "    calculated: " + calculated.get(i) + "\n"
-                           + "    expected:   " + expected);
-        }
-
-        expected = 0.359543071407;
-        calculated = ss.skewness();
-        for (i=0; i<dimension; i++) {
-            if (Math.abs(calculated.get(i)-expected) > tolerance)
-                fail("SequenceStatistics<" + name + ">: "
-                           + (i+1) + " dimension: "
-                           + "wrong skewness\n"
-                           + "    calculated: " + calculated.get(i) + "\n"
-                           + "    expected:   " + expected);
-        }
-
-        expected = -0.151799637209;
-        calculated = ss.kurtosis();
-        for (i=0; i<dimension; i++) {
-            if (Math.abs(calculated.get(i)-expected) > tolerance)
-                fail("SequenceStatistics<" + name + ">: "
-                           + (i+1) + " dimension: "
-                           + "wrong kurtosis\n"
-                           + "    calculated: " + calculated.get(i) + "\n"
-                           + "    expected:   " + expected);
-        }
-    }
-    
-
-    
-    private void checkConvergence(final GenericRiskStatistics stat, final String name) {
-
-        final ConvergenceStatistics stats = new ConvergenceStatistics();
-
-        stats.add(1.0);
-        stats.add(2.0);
-        stats.add(3.0);
-        stats.add(4.0);
-        stats.add(5.0);
-        stats.add(6.0);
-        stats.add(7.0);
-        stats.add(8.0);
-
-       	final /*@Size*/ int expectedSize1 = 3;
-        /*@Size*/ int calculatedSize = stats.convergenceTable().size();
-        if (calculatedSize != expectedSize1)
-            fail("ConvergenceStatistics<" + name + ">: "
-                       + "\nwrong convergence-table size"
-                       + "\n    calculated: " + calculatedSize
-                       + "\n    expected:   " + expectedSize1);
-        
-
-        final /*@Real*/ double tolerance = 1.0e-9;
-        
-        {
-        	final /*@Real*/ double expectedValue1 = 4.0;
-	        final List<Pair<Integer, Double>> table = stats.convergenceTable();
-	        /*@Real*/ double calculatedValue = table.get(table.size()-1).second();
-	        if (Math.abs(calculatedValue-expectedValue1) > tolerance)
-	            fail("wrong last value in convergence table"
-	                       + "\n    calculated: " + calculatedValue
-	                       + "\n    expected:   " + expectedValue1);
-        }
-
-        {
-        	final /*@Size*/ int expectedSampleSize1 = 7;
-	        final List<Pair<Integer, Double>> table = stats.convergenceTable();
-	        /*@Size*/ int calculatedSamples = table.get(table.size()-1).first();
-	        if (calculatedSamples != expectedSampleSize1)
-	            fail("wrong number of samples in convergence table"
-	                       + "\n    calculated: " + calculatedSamples
-	                       + "\n    expected:   " + expectedSampleSize1);
-        }
-
-        stats.reset();
-        stats.add(1.0);
-        stats.add(2.0);
-        stats.add(3.0);
-        stats.add(4.0);
-
-        
-       	final /*@Size*/ int expectedSize2 = 2;
-        calculatedSize = stats.convergenceTable().size();
-        if (calculatedSize != expectedSize2)
-            fail("wrong convergence-table size"
-                       + "\n    calculated: " + calculatedSize
-                       + "\n    expected:   " + expectedSize2);
-        
-
-        {
-        	final /*@Real*/ double expectedValue2 = 2.0;
-	        final List<Pair<Integer, Double>> table = stats.convergenceTable();
-	        /*@Real*/ double calculatedValue = table.get(table.size()-1).second();
-	        if (Math.abs(calculatedValue-expectedValue2) > tolerance)
-	            fail("wrong last value in convergence table"
-	                       + "\n    calculated: " + calculatedValue
-	                       + "\n    expected:   " + expectedValue2);
-        }
-
-        {
-        	final /*@Size*/ int expectedSampleSize2 = 3;
-	        final List<Pair<Integer, Double>> table = stats.convergenceTable();
-	        /*@Size*/ int calculatedSamples = table.get(table.size()-1).first();
-	        if (calculatedSamples != expectedSampleSize2)
-	            fail("wrong number of samples in convergence table"
-	                       + "\n    calculated: " + calculatedSamples
-	                       + "\n    expected:   " + expectedSampleSize2);
-        }
-    }
-
-}
+/*
+ Copyright (C) 2010 Richard Gomes
+
+ This source code is release under the BSD License.
+
+ This file is part of JQuantLib, a free-software/open-source library
+ for financial quantitative analysts and developers - http://jquantlib.org/
+
+ JQuantLib is free software: you can redistribute it and/or modify it
+ under the terms of the JQuantLib license.  You should have received a
+ copy of the license along with this program; if not, please email
+ <jquant-devel@lists.sourceforge.net>. The license is also available online at
+ <http://www.jquantlib.org/index.php/LICENSE.TXT>.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE.  See the license for more details.
+
+ JQuantLib is based on QuantLib. http://quantlib.org/
+ When applicable, the original copyright notice follows this notice.
+ */
+
+/*
+ Copyright (C) 2003 Ferdinando Ametrano
+ Copyright (C) 2003 RiskMap srl
+ Copyright (C) 2005 Gary Kennedy
+
+ This file is part of QuantLib, a free-software/open-source library
+ for financial quantitative analysts and developers - http://quantlib.org/
+
+ QuantLib is free software: you can redistribute it and/or modify it
+ under the terms of the QuantLib license.  You should have received a
+ copy of the license along with this program; if not, please email
+ <quantlib-dev@lists.sf.net>. The license is also available online at
+ <http://quantlib.org/license.shtml>.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE.  See the license for more details.
+*/
+package org.jquantlib.testsuite.math.statistics;
+
+import static org.junit.Assert.fail;
+
+import java.util.List;
+
+import org.jquantlib.QL;
+import org.jquantlib.lang.annotation.Real;
+import org.jquantlib.lang.exceptions.LibraryException;
+import org.jquantlib.math.distributions.InverseCumulativeNormal;
+import org.jquantlib.math.matrixutilities.Array;
+import org.jquantlib.math.matrixutilities.Matrix;
+import org.jquantlib.math.statistics.ConvergenceStatistics;
+import org.jquantlib.math.statistics.GenericRiskStatistics;
+import org.jquantlib.math.statistics.GenericSequenceStatistics;
+import org.jquantlib.math.statistics.IncrementalStatistics;
+import org.jquantlib.math.statistics.RiskStatistics;
+import org.jquantlib.math.statistics.SketchStatistics;
+import org.jquantlib.util.Pair;
+import org.junit.Test;
+
+/**
+ * Statistics test cases
+ * 
+ * @author Richard Gomes
+ */
+public class StatisticsTest {
+
+    private final Array data;
+    private final Array weights;
+    
+
+    public StatisticsTest() {
+        QL.info("Testing volatility model construction...");
+        this.data    = new Array(new double[] { 3.0, 4.0, 5.0, 2.0, 3.0, 4.0, 5.0, 6.0, 4.0, 7.0 });
+        this.weights = new Array(new double[] { 1.0, 1.0, 1.0, 1.0, 1.0, 1.0, 1.0, 1.0, 1.0, 1.0 });
+    }
+
+    @Test
+    public void testStatistics() {
+        QL.info("Testing statistics ...");
+        check(new RiskStatistics(), "Statistics");
+    }
+
+    @Test
+    public void testIncrementalStatistics() {
+        QL.info("Testing incremental statistics ...");
+        check(new IncrementalStatistics(), "IncrementalStatistics");
+    }
+
+    
+    @Test
+    public void testSequenceStatistics() {
+        QL.info("Testing sequence statistics ...");
+        checkSequence(new RiskStatistics(), "Statistics", 5);
+        checkSequence(new IncrementalStatistics(), "IncrementalStatistics", 5);
+    }
+    
+    
+    @Test
+    public void testConvergenceStatistics() {
+        QL.info("Testing convergence statistics ...");
+        checkConvergence(new RiskStatistics(), "Statistics");
+        checkConvergence(new IncrementalStatistics(), "IncrementalStatistics");
+    }
+    
+    
+    
+    @Test
+    public void testPercentiles() {
+        QL.info("Testing percentiles on primitive storage ...");
+
+        final int n = 10001;
+        final double[] sorted = new double[n];
+        for (int i = 0; i<n; i++)
+            sorted[i] = Math.floor(100.0 * Math.sin(1.7*i));
+        final double[] copy = sorted.clone();
+        java.util.Arrays.sort(sorted);
+
+        final double[] percents = { 0.0001, 0.01, 0.05, 0.5, 0.95, 0.99, 1.0 };
+        for (final double p : percents) {
+            // selection on an unsorted sample set
+            final RiskStatistics s = new RiskStatistics();
+            s.addSequence(copy);
+            final int k = (int) Math.ceil(p*n) - 1;
+            if (s.percentile(p) != sorted[k])
+                fail("wrong percentile " + p + " by selection");
+            final RiskStatistics t = new RiskStatistics();
+            t.addSequence(copy);
+            if (t.topPercentile(p) != sorted[n - (int) Math.ceil(p*n)])
+                fail("wrong top percentile " + p + " by selection");
+            // sorting
+            if (s.percentile(p) != sorted[k] || s.min() != sorted[0] || s.max() != sorted[n-1])
+                fail("wrong percentile " + p + " after sorting");
+        }
+
+        // weighted samples are sorted together with their weights
+        final RiskStatistics s = new RiskStatistics();
+        for (int i = 0; i<n; i++)
+            s.add(copy[i], 1.0 + Math.abs(copy[i]));
+        s.sort();
+        for (int i = 0; i<n; i++) {
+            if (s.value(i) != sorted[i])
+                fail("samples not sorted");
+            if (s.weight(i) != 1.0 + Math.abs(sorted[i]))
+                fail("sample lost its weight while sorting");
+        }
+    }
+
+
+    @Test
+    public void testMerge() {
+        QL.info("Testing merge of statistics accumulators ...");
+
+        final IncrementalStatistics whole = new IncrementalStatistics();
+        final IncrementalStatistics first = new IncrementalStatistics();
+        final IncrementalStatistics second = new IncrementalStatistics();
+        final GenericSequenceStatistics sequence = new GenericSequenceStatistics(2);
+        final GenericSequenceStatistics firstSequence = new GenericSequenceStatistics(2);
+        final GenericSequenceStatistics secondSequence = new GenericSequenceStatistics();
+        for (int i = 0; i<data.size(); i++) {
+            final double x = data.get(i) - 4.0;
+            final double[] datum = { x, x*x };
+            whole.add(x, weights.get(i));
+            sequence.add(datum, weights.get(i));
+            if (i < 3) {
+                first.add(x, weights.get(i));
+                firstSequence.add(datum, weights.get(i));
+            } else {
+                second.add(x, weights.get(i));
+                secondSequence.add(datum, weights.get(i));
+            }
+        }
+        first.merge(second);
+        firstSequence.merge(secondSequence);
+
+        final double tolerance = 1.0e-12;
+        if (first.samples() != whole.samples() || first.weightSum() != whole.weightSum()
+                || first.min() != whole.min() || first.max() != whole.max())
+            fail("IncrementalStatistics: wrong merged samples");
+        if (Math.abs(first.mean() - whole.mean()) > tolerance
+                || Math.abs(first.variance() - whole.variance()) > tolerance
+                || Math.abs(first.skewness() - whole.skewness()) > tolerance
+                || Math.abs(first.kurtosis() - whole.kurtosis()) > tolerance
+                || Math.abs(first.downsideVariance() - whole.downsideVariance()) > tolerance)
+            fail("IncrementalStatistics: wrong merged moments");
+
+        final Matrix expected = sequence.covariance();
+        final Matrix calculated = firstSequence.covariance();
+        for (int i = 0; i<2; i++) {
+            for (int j = 0; j<2; j++) {
+                if (Math.abs(calculated.get(i, j) - expected.get(i, j)) > tolerance)
+                    fail("SequenceStatistics: wrong merged covariance");
+            }
+            if (firstSequence.percentile(0.5).get(i) != sequence.percentile(0.5).get(i))
+                fail("SequenceStatistics: wrong merged percentile");
+        }
+
+        // central moments do not suffer from a large average
+        final IncrementalStatistics shifted = new IncrementalStatistics();
+        for (int i = 0; i<data.size(); i++)
+            shifted.add(1.0e9 + data.get(i), weights.get(i));
+        if (Math.abs(shifted.variance() - 2.23333333333) > 1.0e-6)
+            fail("IncrementalStatistics: unstable variance " + shifted.variance());
+    }
+
+
+    @Test
+    public void testMergeIncompatible() {
+        QL.info("Testing merge of incompatible statistics accumulators ...");
+
+        final RiskStatistics general = new RiskStatistics();
+        final IncrementalStatistics incremental = new IncrementalStatistics();
+        for (int i = 0; i<data.size(); i++) {
+            general.add(data.get(i), weights.get(i));
+            incremental.add(data.get(i), weights.get(i));
+        }
+
+        try {
+            general.merge(incremental);
+            fail("GeneralStatistics merged an IncrementalStatistics");
+        } catch (final LibraryException e) {
+            // expected
+        }
+        if (general.samples() != data.size())
+            fail("GeneralStatistics modified by a rejected merge");
+
+        try {
+            incremental.merge(general);
+            fail("IncrementalStatistics merged a GeneralStatistics");
+        } catch (final LibraryException e) {
+            // expected
+        }
+        if (incremental.samples() != data.size())
+            fail("IncrementalStatistics modified by a rejected merge");
+    }
+
+
+    @Test
+    public void testSketchStatistics() {
+        QL.info("Testing risk measures on quantile sketches ...");
+        check(new SketchStatistics(), "SketchStatistics");
+
+        final InverseCumulativeNormal icn = new InverseCumulativeNormal();
+        final RiskStatistics exact = new RiskStatistics();
+        final SketchStatistics sketch = new SketchStatistics();
+        final SketchStatistics first = new SketchStatistics();
+        final SketchStatistics second = new SketchStatistics();
+        final int n = 100000;
+        for (int i = 0; i<n; i++) {
+            // Weyl sequence, which is uniformly distributed in (0, 1)
+            final double x = icn.op(((i+1) * 0.6180339887498949) % 1.0);
+            exact.add(x);
+            sketch.add(x);
+            if (i % 2 == 0)
+                first.add(x);
+            else
+                second.add(x);
+        }
+        final SketchStatistics merged = first.merge(second);
+
+        if (sketch.sketch().centroids() > 2*sketch.sketch().compression())
+            fail("too many centroids: " + sketch.sketch().centroids());
+        if (merged.samples() != n || Math.abs(merged.mean() - exact.mean()) > 1.0e-12
+                || Math.abs(merged.variance() - exact.variance()) > 1.0e-9)
+            fail("merged moments do not match");
+
+        final double tolerance = 1.0e-2;
+        for (final SketchStatistics s : new SketchStatistics[] { sketch, merged }) {
+            final double[] percents = { 0.001, 0.01, 0.05, 0.5, 0.95, 0.99, 0.999 };
+            for (final double p : percents) {
+                if (Math.abs(s.percentile(p) - exact.percentile(p)) > tolerance)
+                    fail("wrong percentile " + p + "\n"
+                            + "    calculated: " + s.percentile(p) + "\n"
+                            + "    expected:   " + exact.percentile(p));
+            }
+            if (Math.abs(s.valueAtRisk(0.99) - exact.valueAtRisk(0.99)) > tolerance)
+                fail("wrong value-at-risk");
+            if (Math.abs(s.expectedShortfall(0.99) - exact.expectedShortfall(0.99)) > tolerance)
+                fail("wrong expected shortfall\n"
+                        + "    calculated: " + s.expectedShortfall(0.99) + "\n"
+                        + "    expected:   " + exact.expectedShortfall(0.99));
+            if (Math.abs(s.shortfall(-1.0) - exact.shortfall(-1.0)) > 1.0e-3)
+                fail("wrong shortfall");
+            if (Math.abs(s.averageShortfall(-1.0) - exact.averageShortfall(-1.0)) > tolerance)
+                fail("wrong average shortfall");
+            if (Math.abs(s.regret(-1.0) - exact.regret(-1.0)) > tolerance)
+                fail("wrong regret");
+        }
+    }
+
+
+    private void check(final GenericRiskStatistics s, final String name) {
+        for (int i = 0; i<data.size(); i++)
+            s.add(data.get(i), weights.get(i));
+
+        double calculated, expected;
+        double tolerance;
+
+        if (s.samples()!=data.size())
+            fail("wrong number of samples \n" +
+                    "calculated: " + s.samples() + "\n" +
+                    "expected: " + data.size());
+        
+        expected = weights.accumulate();
+        calculated = s.weightSum();
+        if (calculated != expected)
+            fail(name  + ": wrong sum of weights\n"
+            + "    calculated: " + calculated + "\n"
+            + "    expected:   " + expected);
+
+        expected = data.min();
+        calculated = s.min();
+        if (calculated != expected)
+            fail(name + ": wrong minimum value \n" +
+                    "calculated: " + calculated + "\n" +
+                    "expected: " + expected);
+
+        expected = data.max();
+        calculated = s.max();
+        if (calculated != expected)
+            fail(name + ": wrong maxmimum value \n" +
+                    "calculated: " + expected + "\n" +
+                    "expected: " + expected);
+
+        expected = 4.3;
+        tolerance = 1.0e-9;
+        calculated = s.mean();
+        if (Math.abs(calculated - expected)>tolerance)
+            fail(name + "wrong mean value" + "\n" +
+                    "calculated: " + calculated + "\n" +
+                    "expected: " + expected);
+
+        expected = 2.23333333333;
+        calculated = s.variance();
+        if (Math.abs(calculated - expected) > tolerance)
+            fail(name + "wrong variance" + "\n" +
+                    "calculated: " + calculated + "\n" +
+                    "expected: " + expected);
+
+        expected = 1.4944341181;
+        calculated = s.standardDeviation();
+        if (Math.abs(calculated-expected) > tolerance)
+            fail(name + "wrong standard deviation" + "\n" +
+                    "calculated: " + calculated + "\n" +
+                    "expected: " + expected);
+
+        expected = 0.359543071407;
+        calculated = s.skewness();
+        if (Math.abs(calculated-expected) > tolerance)
+            fail(name + "wrong skewness" + "\n" +
+                    "calculated: " + calculated + "\n" +
+                    "expected: " + expected);
+
+        expected = -0.151799637209;
+        calculated = s.kurtosis();
+        if (Math.abs(calculated-expected) > tolerance)
+            fail(name + "wrong skewness" + "\n" +
+                    "calculated: " + calculated + "\n" +
+                    "expected: " + expected);
+    }
+    
+    
+    private void checkSequence(final GenericRiskStatistics stat, final String name, int dimension) {
+
+        final GenericSequenceStatistics ss = new GenericSequenceStatistics(dimension);
+        
+        /*@Size*/ int i;
+        for (i = 0; i<data.size(); i++) {
+        	Array temp = new Array(dimension);
+        	temp.fill(data.get(i));
+            ss.add(temp, weights.get(i));
+        }
+
+        Array calculated;
+        /*@Real*/ double expected, tolerance;
+
+        if (ss.samples() != data.size())
+            fail("SequenceStatistics<" + name + ">: "
+                       + "wrong number of samples\n"
+                       + "    calculated: " + ss.samples() + "\n"
+                       + "    expected:   " + data.size());
+
+        expected = weights.accumulate(0.0);
+        if (ss.weightSum() != expected)
+            fail("SequenceStatistics<" + name + ">: "
+                       + "wrong sum of weights\n"
+                       + "    calculated: " + ss.weightSum() + "\n"
+                       + "    expected:   " + expected);
+
+        expected = data.min();
+        calculated = ss.min();
+        for (i=0; i<dimension; i++) {
+            if (calculated.get(i) != expected)
+                fail("SequenceStatistics<" + name + ">: "
+                           + (i+1) + " dimension: "
+                           + "wrong minimum value\n"
+                           + "    calculated: " + calculated.get(i) + "\n"
+                           + "    expected:   " + expected);
+        }
+
+        expected = data.max();
+        calculated = ss.max();
+        for (i=0; i<dimension; i++) {
+            if (calculated.get(i) != expected)
+                fail("SequenceStatistics<" + name + ">: "
+                           + (i+1) + " dimension: "
+                           + "wrong maximun value\n"
+                           + "    calculated: " + calculated.get(i) + "\n"
+                           + "    expected:   " + expected);
+        }
+
+        expected = 4.3;
+        tolerance = 1.0e-9;
+        calculated = ss.mean();
+        for (i=0; i<dimension; i++) {
+            if (Math.abs(calculated.get(i)-expected) > tolerance)
+                fail("SequenceStatistics<" + name + ">: "
+                           + (i+1) + " dimension: "
+                           + "wrong mean value\n"
+                           + "    calculated: " + calculated.get(i) + "\n"
+                           + "    expected:   " + expected);
+        }
+
+        expected = 2.23333333333;
+        calculated = ss.variance();
+        for (i=0; i<dimension; i++) {
+            if (Math.abs(calculated.get(i)-expected) > tolerance)
+                fail("SequenceStatistics<" + name + ">: "
+                           + (i+1) + " dimension: "
+                           + "wrong variance\n"
+                           + "    calculated: " + calculated.get(i) + "\n"
+                           + "    expected:   " + expected);
+        }
+
+        expected = 1.4944341181;
+        calculated = ss.standardDeviation();
+        for (i=0; i<dimension; i++) {
+            if (Math.abs(calculated.get(i)-expected) > tolerance)
+                fail("SequenceStatistics<" + name + ">: "
+                           + (i+1) + " dimension: "
+                           + "wrong standard deviation\n"
+                           + "    calculated: " + calculated.get(i) + "\n"
+                           + "    expected:   " + expected);
+        }
+
+        expected = 0.359543071407;
+        calculated = ss.skewness();
+        for (i=0; i<dimension; i++) {
+            if (Math.abs(calculated.get(i)-expected) > tolerance)
+                fail("SequenceStatistics<" + name + ">: "
+                           + (i+1) + " dimension: "
+                           + "wrong skewness\n"
+                           + "    calculated: " + calculated.get(i) + "\n"
+                           + "    expected:   " + expected);
+        }
+
+        expected = -0.151799637209;
+        calculated = ss.kurtosis();
+        for (i=0; i<dimension; i++) {
+            if (Math.abs(calculated.get(i)-expected) > tolerance)
+                fail("SequenceStatistics<" + name + ">: "
+                           + (i+1) + " dimension: "
+                           + "wrong kurtosis\n"
+                           + "    calculated: " + calculated.get(i) + "\n"
+                           + "    expected:   " + expected);
+        }
+    }
+    
+
+    
+    private void checkConvergence(final GenericRiskStatistics stat, final String name) {
+
+        final ConvergenceStatistics stats = new ConvergenceStatistics();
+
+        stats.add(1.0);
+        stats.add(2.0);
+        stats.add(3.0);
+        stats.add(4.0);
+        stats.add(5.0);
+        stats.add(6.0);
+        stats.add(7.0);
+        stats.add(8.0);
+
+       	final /*@Size*/ int expectedSize1 = 3;
+        /*@Size*/ int calculatedSize = stats.convergenceTable().size();
+        if (calculatedSize != expectedSize1)
+            fail("ConvergenceStatistics<" + name + ">: "
+                       + "\nwrong convergence-table size"
+                       + "\n    calculated: " + calculatedSize
+                       + "\n    expected:   " + expectedSize1);
+        
+
+        final /*@Real*/ double tolerance = 1.0e-9;
+        
+        {
+        	final /*@Real*/ double expectedValue1 = 4.0;
+	        final List<Pair<Integer, Double>> table = stats.convergenceTable();
+	        /*@Real*/ double calculatedValue = table.get(table.size()-1).second();
+	        if (Math.abs(calculatedValue-expectedValue1) > tolerance)
+	            fail("wrong last value in convergence table"
+	                       + "\n    calculated: " + calculatedValue
+	                       + "\n    expected:   " + expectedValue1);
+        }
+
+        {
+        	final /*@Size*/ int expectedSampleSize1 = 7;
+	        final List<Pair<Integer, Double>> table = stats.convergenceTable();
+	        /*@Size*/ int calculatedSamples = table.get(table.size()-1).first();
+	        if (calculatedSamples != expectedSampleSize1)
+	            fail("wrong number of samples in convergence table"
+	                       + "\n    calculated: " + calculatedSamples
+	                       + "\n    expected:   " + expectedSampleSize1);
+        }
+
+        stats.reset();
+        stats.add(1.0);
+        stats.add(2.0);
+        stats.add(3.0);
+        stats.add(4.0);
+
+        
+       	final /*@Size*/ int expectedSize2 = 2;
+        calculatedSize = stats.convergenceTable().size();
+        if (calculatedSize != expectedSize2)
+            fail("wrong convergence-table size"
+                       + "\n    calculated: " + calculatedSize
+                       + "\n    expected:   " + expectedSize2);
+        
+
+        {
+        	final /*@Real*/ double expectedValue2 = 2.0;
+	        final List<Pair<Integer, Double>> table = stats.convergenceTable();
+	        /*@Real*/ double calculatedValue = table.get(table.size()-1).second();
+	        if (Math.abs(calculatedValue-expectedValue2) > tolerance)
+	            fail("wrong last value in convergence table"
+	                       + "\n    calculated: " + calculatedValue
+	                       + "\n    expected:   " + expectedValue2);
+        }
+
+        {
+        	final /*@Size*/ int expectedSampleSize2 = 3;
+	        final List<Pair<Integer, Double>> table = stats.convergenceTable();
+	        /*@Size*/ int calculatedSamples = table.get(table.size()-1).first();
+	        if (calculatedSamples != expectedSampleSize2)
+	            fail("wrong number of samples in convergence table"
+	                       + "\n    calculated: " + calculatedSamples
+	                       + "\n    expected:   " + expectedSampleSize2);
+        }
+    }
+
+}
@@ -0,0 +1,224 @@
+/*
+ Copyright (C) 2007 Richard Gomes
+
+ This source code is release under the BSD License.
+
+ This file is part of JQuantLib, a free-software/open-source library
+ for financial quantitative analysts and developers - http://jquantlib.org/
+
+ JQuantLib is free software: you can redistribute it and/or modify it
+ under the terms of the JQuantLib license.  You should have received a
+ copy of the license along with this program; if not, please email
+ <jquant-devel@lists.sourceforge.net>. The license is also available online at
+ <http://www.jquantlib.org/index.php/LICENSE.TXT>.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE.  See the license for more details.
+
+ JQuantLib is based on QuantLib. http://quantlib.org/
+ When applicable, the original copyright notice follows this notice.
+ */
+
+package org.jquantlib.testsuite.methods.montecarlo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.jquantlib.QL;
+import org.jquantlib.Settings;
+import org.jquantlib.daycounters.Actual365Fixed;
+import org.jquantlib.daycounters.DayCounter;
+import org.jquantlib.exercise.EuropeanExercise;
+import org.jquantlib.instruments.Option;
+import org.jquantlib.instruments.PlainVanillaPayoff;
+import org.jquantlib.instruments.VanillaOption;
+import org.jquantlib.lang.exceptions.LibraryException;
+import org.jquantlib.math.Constants;
+import org.jquantlib.math.matrixutilities.Array;
+import org.jquantlib.math.randomnumbers.InverseCumulativeRsg;
+import org.jquantlib.math.randomnumbers.PseudoRandom;
+import org.jquantlib.methods.montecarlo.HestonPathGenerator;
+import org.jquantlib.methods.montecarlo.Path;
+import org.jquantlib.pricingengines.vanilla.MCHestonEngine;
+import org.jquantlib.processes.HestonProcess;
+import org.jquantlib.quotes.Handle;
+import org.jquantlib.quotes.Quote;
+import org.jquantlib.quotes.SimpleQuote;
+import org.jquantlib.termstructures.YieldTermStructure;
+import org.jquantlib.testsuite.util.Utilities;
+import org.jquantlib.time.Date;
+import org.jquantlib.time.TimeGrid;
+import org.junit.Test;
+
+public class HestonPathGeneratorTest {
+
+    public HestonPathGeneratorTest() {
+        QL.info("::::: " + this.getClass().getSimpleName() + " :::::");
+    }
+
+    @Test
+    public void testAgainstProcess() {
+        QL.info("Testing Heston path generator against the evolution of the process...");
+
+        // high volatility of variance, so that both branches of the quadratic-exponential scheme are taken
+        checkAgainstProcess(HestonProcess.Discretization.QuadraticExponentialMartingale);
+    }
+
+    @Test
+    public void testEulerSchemesAgainstProcess() {
+        QL.info("Testing Heston path generator with Euler schemes against the evolution of the process...");
+
+        // high volatility of variance, so that the variance crosses zero and truncation or reflection takes place
+        checkAgainstProcess(HestonProcess.Discretization.PartialTruncation);
+        checkAgainstProcess(HestonProcess.Discretization.FullTruncation);
+        checkAgainstProcess(HestonProcess.Discretization.Reflection);
+    }
+
+    @Test
+    public void testPathsOneAtATime() {
+        QL.info("Testing Heston path generator handing out paths one at a time...");
+
+        final Date today = Date.todaysDate();
+        final HestonProcess process = process(today, 0.05, 0.02, 0.04, 1.5, 0.04, 0.5, -0.7,
+                HestonProcess.Discretization.QuadraticExponentialMartingale);
+        final TimeGrid grid = new TimeGrid(1.0, 4);
+        final int steps = grid.size()-1;
+        final int batchSize = 4;
+
+        final HestonPathGenerator<?> generator = new HestonPathGenerator<InverseCumulativeRsg<?, ?>>(
+                process, grid, new PseudoRandom().makeSequenceGenerator(2 * steps, 42), false, batchSize);
+        final HestonPathGenerator<?> reference = new HestonPathGenerator<InverseCumulativeRsg<?, ?>>(
+                process, grid, new PseudoRandom().makeSequenceGenerator(2 * steps, 42), false, batchSize);
+
+        // paths and their antithetics span three batches
+        final Path path = new Path(grid);
+        final double[] buffer = new double[reference.bufferSize()];
+        final double[] antithetic = new double[reference.bufferSize()];
+        for (int n = 0; n < 10; n++) {
+            final int p = n % batchSize;
+            if (p == 0) {
+                reference.next(buffer, false);
+                reference.next(antithetic, true);
+            }
+            generator.next(path, false);
+            for (int i = 0; i < grid.size(); i++) {
+                assertEquals(buffer[reference.offset(i, HestonPathGenerator.SPOT) + p], path.getValues_(i), 0.0);
+            }
+            generator.next(path, true);
+            for (int i = 0; i < grid.size(); i++) {
+                assertEquals(antithetic[reference.offset(i, HestonPathGenerator.SPOT) + p], path.getValues_(i), 0.0);
+            }
+        }
+    }
+
+    @Test(expected = LibraryException.class)
+    public void testExactVarianceNotSupported() {
+        QL.info("Testing that Heston path generator rejects the exact variance scheme...");
+
+        final HestonProcess process = process(Date.todaysDate(), 0.05, 0.02, 0.04, 1.5, 0.04, 0.5, -0.7,
+                HestonProcess.Discretization.ExactVariance);
+        final TimeGrid grid = new TimeGrid(1.0, 4);
+        new HestonPathGenerator<InverseCumulativeRsg<?, ?>>(
+                process, grid, new PseudoRandom().makeSequenceGenerator(8, 42), false, 4);
+    }
+
+    @Test
+    public void testEulerValues() {
+        QL.info("Testing Monte Carlo Heston engine with Euler scheme against reference values...");
+
+        // the reference value is obtained by Fourier inversion
+        final Date today = Date.todaysDate();
+        final HestonProcess process = process(today, 0.05, 0.02, 0.04, 1.5, 0.04, 0.5, -0.7,
+                HestonProcess.Discretization.FullTruncation);
+        final VanillaOption option = new VanillaOption(
+                new PlainVanillaPayoff(Option.Type.Call, 100.0), new EuropeanExercise(today.add(365)));
+        option.setPricingEngine(new MCHestonEngine(process, Constants.NULL_INTEGER, 50, false, true, 50000, 42));
+
+        final double calculated = option.NPV();
+        final double error = option.errorEstimate();
+        final double expected = 8.6284;
+        assertTrue("expected " + expected + ", calculated " + calculated + " +/- " + error,
+                Math.abs(calculated - expected) < 3.0 * error);
+    }
+
+    private void checkAgainstProcess(final HestonProcess.Discretization discretization) {
+        final Date today = Date.todaysDate();
+        final HestonProcess process = process(today, 0.05, 0.02, 0.04, 0.5, 0.04, 1.0, -0.9, discretization);
+        final TimeGrid grid = new TimeGrid(2.0, 8);
+        final int steps = grid.size()-1;
+        final int batchSize = 16;
+
+        final HestonPathGenerator<?> generator = new HestonPathGenerator<InverseCumulativeRsg<?, ?>>(
+                process, grid, new PseudoRandom().makeSequenceGenerator(2 * steps, 42), false, batchSize);
+        final InverseCumulativeRsg<?, ?> rsg = new PseudoRandom().makeSequenceGenerator(2 * steps, 42);
+
+        final double[] buffer = new double[generator.bufferSize()];
+        final double[][] sequences = new double[batchSize][];
+        for (final boolean antithetic : new boolean[] { false, true }) {
+            generator.next(buffer, antithetic);
+            for (int p = 0; p < batchSize; p++) {
+                if (!antithetic) {
+                    sequences[p] = rsg.nextSequence().value();
+                }
+                Array x = process.initialValues();
+                for (int i = 0; i < steps; i++) {
+                    final double z0 = sequences[p][i];
+                    final double z1 = sequences[p][steps + i];
+                    final Array dw = new Array(new double[] { antithetic ? -z0 : z0, antithetic ? -z1 : z1 });
+                    x = process.evolve(grid.get(i), x, grid.dt(i), dw);
+                    assertEquals(discretization + " spot, step " + (i+1) + ", path " + p,
+                            x.get(0), buffer[generator.offset(i+1, HestonPathGenerator.SPOT) + p], 1.0e-10);
+                    assertEquals(discretization + " variance, step " + (i+1) + ", path " + p,
+                            x.get(1), buffer[generator.offset(i+1, HestonPathGenerator.VARIANCE) + p], 1.0e-12);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testQuadraticExponentialValues() {
+        QL.info("Testing Monte Carlo Heston engine with quadratic-exponential scheme against reference values...");
+
+        // the first case is taken from Andersen, L. (2008), "Efficient Simulation of the Heston Stochastic Volatility
+        // Model", for which Euler schemes are still visibly biased with 32 time steps per year; the reference value of the
+        // second one is obtained by Fourier inversion
+        final double[][] cases = {
+                // maturity, r, q, v0, kappa, theta, sigma, rho, steps per year, expected
+                { 10.0, 0.00, 0.00, 0.04, 0.5, 0.04, 1.0, -0.9,  4, 13.0847 },
+                {  1.0, 0.05, 0.02, 0.04, 1.5, 0.04, 0.5, -0.7, 10,  8.6284 } };
+
+        final Date today = Date.todaysDate();
+        for (final double[] c : cases) {
+            final HestonProcess process = process(today, c[1], c[2], c[3], c[4], c[5], c[6], c[7],
+                    HestonProcess.Discretization.QuadraticExponentialMartingale);
+            final VanillaOption option = new VanillaOption(
+                    new PlainVanillaPayoff(Option.Type.Call, 100.0),
+                    new EuropeanExercise(today.add((int) Math.round(c[0] * 365))));
+            option.setPricingEngine(new MCHestonEngine(process, Constants.NULL_INTEGER, (int) c[8], false, true, 50000, 42));
+
+            final double calculated = option.NPV();
+            final double error = option.errorEstimate();
+            final double expected = c[9];
+            assertTrue("maturity " + c[0] + ": expected " + expected + ", calculated " + calculated + " +/- " + error,
+                    Math.abs(calculated - expected) < 3.0 * error);
+        }
+    }
+
+    private HestonProcess process(
+            final Date today,
+            final double r, final double q,
+            final double v0, final double kappa, final double theta, final double sigma, final double rho,
+            final HestonProcess.Discretization discretization) {
+        final DayCounter dc = new Actual365Fixed();
+        new Settings().setEvaluationDate(today);
+        final YieldTermStructure rTS = Utilities.flatRate(today, r, dc);
+        final YieldTermStructure qTS = Utilities.flatRate(today, q, dc);
+        return new HestonProcess(
+                new Handle<YieldTermStructure>(rTS),
+                new Handle<YieldTermStructure>(qTS),
+                new Handle<Quote>(new SimpleQuote(100.0)),
+                v0, kappa, theta, sigma, rho, discretization);
+    }
+
+}
@@ -0,0 +1,171 @@
+/*
+ Copyright (C) 2007 Richard Gomes
+
+ This source code is release under the BSD License.
+
+ This file is part of JQuantLib, a free-software/open-source library
+ for financial quantitative analysts and developers - http://jquantlib.org/
+
+ JQuantLib is free software: you can redistribute it and/or modify it
+ under the terms of the JQuantLib license.  You should have received a
+ copy of the license along with this program; if not, please email
+ <jquant-devel@lists.sourceforge.net>. The license is also available online at
+ <http://www.jquantlib.org/index.php/LICENSE.TXT>.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE.  See the license for more details.
+
+ JQuantLib is based on QuantLib. http://quantlib.org/
+ When applicable, the original copyright notice follows this notice.
+ */
+
+package org.jquantlib.testsuite.methods.montecarlo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jquantlib.QL;
+import org.jquantlib.Settings;
+import org.jquantlib.daycounters.Actual365Fixed;
+import org.jquantlib.daycounters.DayCounter;
+import org.jquantlib.math.matrixutilities.Array;
+import org.jquantlib.math.matrixutilities.Matrix;
+import org.jquantlib.math.randomnumbers.InverseCumulativeRsg;
+import org.jquantlib.math.randomnumbers.PseudoRandom;
+import org.jquantlib.methods.montecarlo.MultiPathGenerator;
+import org.jquantlib.model.shortrate.StochasticProcessArray;
+import org.jquantlib.processes.BlackScholesMertonProcess;
+import org.jquantlib.processes.StochasticProcess1D;
+import org.jquantlib.quotes.Handle;
+import org.jquantlib.quotes.Quote;
+import org.jquantlib.quotes.SimpleQuote;
+import org.jquantlib.termstructures.BlackVolTermStructure;
+import org.jquantlib.termstructures.YieldTermStructure;
+import org.jquantlib.testsuite.util.Utilities;
+import org.jquantlib.time.Date;
+import org.jquantlib.time.TimeGrid;
+import org.junit.Test;
+
+public class MultiPathGeneratorTest {
+
+    private final double[] spots = { 100.0, 90.0, 110.0 };
+    private final double[] vols = { 0.20, 0.30, 0.25 };
+    private final double[][] correlation = {
+            { 1.0, 0.6, 0.3 },
+            { 0.6, 1.0, 0.4 },
+            { 0.3, 0.4, 1.0 } };
+
+    public MultiPathGeneratorTest() {
+        QL.info("::::: " + this.getClass().getSimpleName() + " :::::");
+    }
+
+    @Test
+    public void testAgainstProcessArray() {
+        QL.info("Testing multi-path generator against the evolution of the process array...");
+
+        final StochasticProcessArray process = process();
+        final TimeGrid grid = new TimeGrid(1.0, 5);
+        final int steps = grid.size()-1;
+        final int assets = process.size();
+        final int batchSize = 8;
+
+        final MultiPathGenerator<?> generator = new MultiPathGenerator<InverseCumulativeRsg<?, ?>>(
+                process, grid, new PseudoRandom().makeSequenceGenerator(assets * steps, 42), false, batchSize);
+        final InverseCumulativeRsg<?, ?> rsg = new PseudoRandom().makeSequenceGenerator(assets * steps, 42);
+
+        final double[] buffer = new double[generator.bufferSize()];
+        final double[][] sequences = new double[batchSize][];
+        for (final boolean antithetic : new boolean[] { false, true }) {
+            generator.next(buffer, antithetic);
+            for (int p = 0; p < batchSize; p++) {
+                if (!antithetic) {
+                    sequences[p] = rsg.nextSequence().value();
+                }
+                Array x = process.initialValues();
+                for (int i = 0; i < steps; i++) {
+                    final Array dw = new Array(assets);
+                    for (int j = 0; j < assets; j++) {
+                        final double z = sequences[p][j * steps + i];
+                        dw.set(j, antithetic ? -z : z);
+                    }
+                    x = process.evolve(grid.get(i), x, grid.dt(i), dw);
+                    for (int a = 0; a < assets; a++) {
+                        assertEquals("asset " + a + ", step " + (i+1) + ", path " + p,
+                                x.get(a), buffer[generator.offset(i+1, a) + p], 1.0e-10);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCorrelation() {
+        QL.info("Testing correlation of multi-path generator increments...");
+
+        final StochasticProcessArray process = process();
+        final TimeGrid grid = new TimeGrid(1.0, 4);
+        final int steps = grid.size()-1;
+        final int assets = process.size();
+        final int batchSize = 1024;
+        final int batches = 16;
+
+        final MultiPathGenerator<?> generator = new MultiPathGenerator<InverseCumulativeRsg<?, ?>>(
+                process, grid, new PseudoRandom().makeSequenceGenerator(assets * steps, 42), true, batchSize);
+
+        // log returns over the whole grid, which are correlated as the increments
+        final double[] sum = new double[assets];
+        final double[][] sum2 = new double[assets][assets];
+        final double[] buffer = new double[generator.bufferSize()];
+        final double[] r = new double[assets];
+        for (int b = 0; b < batches; b++) {
+            generator.next(buffer, false);
+            for (int p = 0; p < batchSize; p++) {
+                for (int a = 0; a < assets; a++) {
+                    r[a] = Math.log(buffer[generator.offset(steps, a) + p] / buffer[generator.offset(0, a) + p]);
+                    sum[a] += r[a];
+                }
+                for (int a = 0; a < assets; a++) {
+                    for (int c = 0; c < assets; c++) {
+                        sum2[a][c] += r[a] * r[c];
+                    }
+                }
+            }
+        }
+
+        final int n = batches * batchSize;
+        for (int a = 0; a < assets; a++) {
+            for (int c = 0; c < assets; c++) {
+                final double covAC = sum2[a][c]/n - sum[a]/n * sum[c]/n;
+                final double varA = sum2[a][a]/n - sum[a]/n * sum[a]/n;
+                final double varC = sum2[c][c]/n - sum[c]/n * sum[c]/n;
+                final double calculated = covAC / Math.sqrt(varA * varC);
+                assertTrue("correlation between assets " + a + " and " + c + ": expected " + correlation[a][c]
+                        + ", calculated " + calculated, Math.abs(calculated - correlation[a][c]) < 0.03);
+            }
+        }
+    }
+
+    private StochasticProcessArray process() {
+        final DayCounter dc = new Actual365Fixed();
+        final Date today = Date.todaysDate();
+        new Settings().setEvaluationDate(today);
+
+        final YieldTermStructure qTS = Utilities.flatRate(today, 0.02, dc);
+        final YieldTermStructure rTS = Utilities.flatRate(today, 0.05, dc);
+        final List<StochasticProcess1D> processes = new ArrayList<StochasticProcess1D>();
+        for (int a = 0; a < spots.length; a++) {
+            final BlackVolTermStructure volTS = Utilities.flatVol(today, vols[a], dc);
+            processes.add(new BlackScholesMertonProcess(
+                    new Handle<Quote>(new SimpleQuote(spots[a])),
+                    new Handle<YieldTermStructure>(qTS),
+                    new Handle<YieldTermStructure>(rTS),
+                    new Handle<BlackVolTermStructure>(volTS)));
+        }
+        return new StochasticProcessArray(processes, new Matrix(correlation));
+    }
+
+}
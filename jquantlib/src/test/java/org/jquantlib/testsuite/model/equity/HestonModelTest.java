@@ -0,0 +1,258 @@
+/*
+ Copyright (C) 2007 Richard Gomes
+
+ This source code is release under the BSD License.
+
+ This file is part of JQuantLib, a free-software/open-source library
+ for financial quantitative analysts and developers - http://jquantlib.org/
+
+ JQuantLib is free software: you can redistribute it and/or modify it
+ under the terms of the JQuantLib license.  You should have received a
+ copy of the license along with this program; if not, please email
+ <jquant-devel@lists.sourceforge.net>. The license is also available online at
+ <http://www.jquantlib.org/index.php/LICENSE.TXT>.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE.  See the license for more details.
+
+ JQuantLib is based on QuantLib. http://quantlib.org/
+ When applicable, the original copyright notice follows this notice.
+ */
+
+package org.jquantlib.testsuite.model.equity;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+
+import org.jquantlib.QL;
+import org.jquantlib.Settings;
+import org.jquantlib.daycounters.Actual365Fixed;
+import org.jquantlib.daycounters.DayCounter;
+import org.jquantlib.exercise.EuropeanExercise;
+import org.jquantlib.instruments.Option;
+import org.jquantlib.instruments.PlainVanillaPayoff;
+import org.jquantlib.instruments.VanillaOption;
+import org.jquantlib.lang.exceptions.LibraryException;
+import org.jquantlib.math.matrixutilities.Array;
+import org.jquantlib.model.equity.BatesDoubleExpModel;
+import org.jquantlib.model.equity.BatesModel;
+import org.jquantlib.model.equity.HestonModel;
+import org.jquantlib.pricingengines.BlackFormula;
+import org.jquantlib.pricingengines.PricingEngine;
+import org.jquantlib.pricingengines.vanilla.AnalyticHestonEngine;
+import org.jquantlib.pricingengines.vanilla.BatesDoubleExpEngine;
+import org.jquantlib.pricingengines.vanilla.BatesEngine;
+import org.jquantlib.pricingengines.vanilla.JumpDiffusionEngine;
+import org.jquantlib.processes.HestonProcess;
+import org.jquantlib.processes.Merton76Process;
+import org.jquantlib.quotes.Handle;
+import org.jquantlib.quotes.Quote;
+import org.jquantlib.quotes.SimpleQuote;
+import org.jquantlib.termstructures.BlackVolTermStructure;
+import org.jquantlib.termstructures.YieldTermStructure;
+import org.jquantlib.testsuite.util.Utilities;
+import org.jquantlib.time.Date;
+import org.junit.Test;
+
+public class HestonModelTest {
+
+    private final DayCounter dc = new Actual365Fixed();
+    private final Date today = Date.todaysDate();
+
+    public HestonModelTest() {
+        QL.info("::::: " + this.getClass().getSimpleName() + " :::::");
+        new Settings().setEvaluationDate(today);
+    }
+
+    @Test
+    public void testAnalyticVsBlack() {
+        QL.info("Testing analytic Heston engine against Black formula...");
+
+        final double vol = 0.3;
+        // the variance is almost deterministic and stays at its long term level
+        final HestonModel model = new HestonModel(process(0.05, 0.02, vol*vol, 1.0, vol*vol, 1.0e-4, 0.0));
+        final AnalyticHestonEngine engine = new AnalyticHestonEngine(model);
+
+        for (final Option.Type type : new Option.Type[] { Option.Type.Call, Option.Type.Put }) {
+            for (final double strike : new double[] { 60.0, 90.0, 100.0, 110.0, 150.0 }) {
+                for (final int days : new int[] { 30, 365, 1825 }) {
+                    final double t = days / 365.0;
+                    final double discount = Math.exp(-0.05 * t);
+                    final double forward = 100.0 * Math.exp(-0.02 * t) / discount;
+                    final double expected = BlackFormula.blackFormula(type, strike, forward, vol * Math.sqrt(t), discount);
+                    final double calculated = npv(engine, type, strike, days);
+                    assertEquals(type + " strike " + strike + ", " + days + " days", expected, calculated, 1.0e-6);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testAnalyticReferenceValues() {
+        QL.info("Testing analytic Heston and Bates engines against reference values...");
+
+        // Andersen, L. (2008), "Efficient Simulation of the Heston Stochastic Volatility Model", case I
+        final HestonModel andersen = new HestonModel(process(0.0, 0.0, 0.04, 0.5, 0.04, 1.0, -0.9));
+        assertEquals(13.0847, npv(new AnalyticHestonEngine(andersen), Option.Type.Call, 100.0, 3650), 1.0e-4);
+
+        // the following values are obtained by integrating Lewis' formula with a fine midpoint rule
+        final HestonModel heston = new HestonModel(process(0.05, 0.02, 0.04, 1.5, 0.04, 0.5, -0.7));
+        assertEquals(8.62835660, npv(new AnalyticHestonEngine(heston), Option.Type.Call, 100.0, 365), 1.0e-7);
+
+        final BatesModel bates = new BatesModel(process(0.05, 0.02, 0.04, 1.5, 0.04, 0.5, -0.7), 0.5, -0.1, 0.15);
+        assertEquals(10.06660444, npv(new BatesEngine(bates), Option.Type.Call, 100.0, 365), 1.0e-7);
+
+        final BatesDoubleExpModel doubleExp =
+            new BatesDoubleExpModel(process(0.05, 0.02, 0.04, 1.5, 0.04, 0.5, -0.7), 0.5, 0.05, 0.08, 0.4);
+        assertEquals(9.08574617, npv(new BatesDoubleExpEngine(doubleExp), Option.Type.Call, 100.0, 365), 1.0e-7);
+    }
+
+    @Test
+    public void testBatesVsJumpDiffusion() {
+        QL.info("Testing analytic Bates engine against Merton jump-diffusion engine...");
+
+        final double vol = 0.2;
+        final double lambda = 2.0;
+        final double nu = -0.2;
+        final double delta = 0.2;
+
+        final BatesModel model = new BatesModel(process(0.05, 0.02, vol*vol, 1.0, vol*vol, 1.0e-4, 0.0), lambda, nu, delta);
+        final AnalyticHestonEngine bates = new BatesEngine(model);
+
+        final YieldTermStructure rTS = Utilities.flatRate(today, 0.05, dc);
+        final YieldTermStructure qTS = Utilities.flatRate(today, 0.02, dc);
+        final BlackVolTermStructure volTS = Utilities.flatVol(today, vol, dc);
+        final PricingEngine merton = new JumpDiffusionEngine(new Merton76Process(
+                new Handle<Quote>(new SimpleQuote(100.0)),
+                new Handle<YieldTermStructure>(qTS),
+                new Handle<YieldTermStructure>(rTS),
+                new Handle<BlackVolTermStructure>(volTS),
+                new Handle<Quote>(new SimpleQuote(lambda)),
+                new Handle<Quote>(new SimpleQuote(nu)),
+                new Handle<Quote>(new SimpleQuote(delta))), 1.0e-10);
+
+        for (final double strike : new double[] { 80.0, 100.0, 120.0 }) {
+            for (final int days : new int[] { 90, 730 }) {
+                final VanillaOption option = new VanillaOption(
+                        new PlainVanillaPayoff(Option.Type.Put, strike), new EuropeanExercise(today.add(days)));
+                option.setPricingEngine(merton);
+                final double expected = option.NPV();
+                final double calculated = npv(bates, Option.Type.Put, strike, days);
+                assertEquals("strike " + strike + ", " + days + " days", expected, calculated, 1.0e-5);
+            }
+        }
+    }
+
+    @Test
+    public void testStripAndCache() {
+        QL.info("Testing analytic Heston engine on strike strips and cached characteristic function...");
+
+        final HestonModel model = new HestonModel(process(0.05, 0.02, 0.04, 1.5, 0.04, 0.5, -0.7));
+        final AnalyticHestonEngine engine = new AnalyticHestonEngine(model);
+        final Date maturity = today.add(365);
+
+        final double[] strikes = new double[21];
+        for (int i = 0; i < strikes.length; i++) {
+            strikes[i] = 60.0 + 4.0 * i;
+        }
+        final double[] calls = engine.values(Option.Type.Call, strikes, maturity);
+        final int evaluations = engine.numberOfEvaluations();
+        assertTrue(evaluations > 0);
+
+        // single options of the same maturity are priced from the cached nodes
+        for (int i = 0; i < strikes.length; i++) {
+            assertEquals("strike " + strikes[i], calls[i], npv(engine, Option.Type.Call, strikes[i], 365), 1.0e-12);
+        }
+        final double[] puts = engine.values(Option.Type.Put, strikes, maturity);
+        assertEquals(evaluations, engine.numberOfEvaluations());
+
+        // put-call parity holds strike by strike
+        final double discount = Math.exp(-0.05);
+        final double forward = 100.0 * Math.exp(-0.02) / discount;
+        for (int i = 0; i < strikes.length; i++) {
+            assertEquals("strike " + strikes[i], calls[i] - puts[i], discount * (forward - strikes[i]), 1.0e-10);
+        }
+
+        // new parameters invalidate the cache
+        final Array params = model.params();
+        params.set(2, 0.6);
+        model.setParams(params);
+        final double[] updated = engine.values(Option.Type.Call, strikes, maturity);
+        assertTrue(engine.numberOfEvaluations() > evaluations);
+        final HestonModel reference = new HestonModel(process(0.05, 0.02, 0.04, 1.5, 0.04, 0.6, -0.7));
+        final double[] expected = new AnalyticHestonEngine(reference).values(Option.Type.Call, strikes, maturity);
+        for (int i = 0; i < strikes.length; i++) {
+            assertEquals("strike " + strikes[i], expected[i], updated[i], 1.0e-12);
+        }
+    }
+
+
+    @Test
+    public void testParamsSerialization() {
+        QL.info("Testing serialization of calibrated model parameters...");
+
+        final HestonModel model = new HestonModel(process(0.05, 0.02, 0.04, 1.5, 0.04, 0.5, -0.7));
+        final HestonModel other = new HestonModel(process(0.05, 0.02, 0.09, 0.8, 0.06, 0.3, -0.2));
+
+        final ByteBuffer buffer = model.serializeParams();
+        other.deserializeParams(buffer);
+        assertEquals(0, buffer.remaining());
+
+        final Array expected = model.params();
+        final Array restored = other.params();
+        assertEquals(expected.size(), restored.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals("parameter " + i, expected.get(i), restored.get(i), 0.0);
+        }
+
+        // observers of the model see the restored parameters
+        final AnalyticHestonEngine engine = new AnalyticHestonEngine(other);
+        final double npv = npv(new AnalyticHestonEngine(model), Option.Type.Call, 100.0, 365);
+        assertEquals(npv, npv(engine, Option.Type.Call, 100.0, 365), 1.0e-12);
+    }
+
+    @Test(expected = LibraryException.class)
+    public void testBatesDetJumpModelRejected() {
+        QL.info("Testing that Bates engine rejects deterministic jump intensity...");
+
+        new BatesEngine(new BatesModel.BatesDetJumpModel(process(0.05, 0.02, 0.04, 1.5, 0.04, 0.5, -0.7)));
+    }
+
+    @Test(expected = LibraryException.class)
+    public void testBatesDoubleExpDetJumpModelRejected() {
+        QL.info("Testing that Bates double-exponential engine rejects deterministic jump intensity...");
+
+        new BatesDoubleExpEngine(
+                new BatesDoubleExpModel.BatesDoubleExpDetJumpModel(process(0.05, 0.02, 0.04, 1.5, 0.04, 0.5, -0.7)), 64);
+    }
+
+    @Test(expected = LibraryException.class)
+    public void testParamsOfAnotherModel() {
+        QL.info("Testing that parameters of another model are rejected...");
+
+        final HestonModel heston = new HestonModel(process(0.05, 0.02, 0.04, 1.5, 0.04, 0.5, -0.7));
+        final BatesModel bates = new BatesModel(process(0.05, 0.02, 0.04, 1.5, 0.04, 0.5, -0.7));
+        bates.deserializeParams(heston.serializeParams());
+    }
+
+    private HestonProcess process(
+            final double r, final double q,
+            final double v0, final double kappa, final double theta, final double sigma, final double rho) {
+        return new HestonProcess(
+                new Handle<YieldTermStructure>(Utilities.flatRate(today, r, dc)),
+                new Handle<YieldTermStructure>(Utilities.flatRate(today, q, dc)),
+                new Handle<Quote>(new SimpleQuote(100.0)),
+                v0, kappa, theta, sigma, rho);
+    }
+
+    private double npv(final AnalyticHestonEngine engine, final Option.Type type, final double strike, final int days) {
+        final VanillaOption option = new VanillaOption(
+                new PlainVanillaPayoff(type, strike), new EuropeanExercise(today.add(days)));
+        option.setPricingEngine(engine);
+        return option.NPV();
+    }
+
+}
@@ -0,0 +1,274 @@
+/*
+ Copyright (C) 2007 Richard Gomes
+
+ This source code is release under the BSD License.
+
+ This file is part of JQuantLib, a free-software/open-source library
+ for financial quantitative analysts and developers - http://jquantlib.org/
+
+ JQuantLib is free software: you can redistribute it and/or modify it
+ under the terms of the JQuantLib license.  You should have received a
+ copy of the license along with this program; if not, please email
+ <jquant-devel@lists.sourceforge.net>. The license is also available online at
+ <http://www.jquantlib.org/index.php/LICENSE.TXT>.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE.  See the license for more details.
+
+ JQuantLib is based on QuantLib. http://quantlib.org/
+ When applicable, the original copyright notice follows this notice.
+ */
+
+package org.jquantlib.testsuite.model.marketmodels;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jquantlib.QL;
+import org.jquantlib.instruments.Option;
+import org.jquantlib.instruments.PlainVanillaPayoff;
+import org.jquantlib.instruments.StrikedTypePayoff;
+import org.jquantlib.math.matrixutilities.Matrix;
+import org.jquantlib.math.randomnumbers.MersenneTwisterUniformRng;
+import org.jquantlib.math.statistics.SequenceStatistics;
+import org.jquantlib.model.marketmodels.AccountingEngine;
+import org.jquantlib.model.marketmodels.BrownianGenerator;
+import org.jquantlib.model.marketmodels.EvolutionDescription;
+import org.jquantlib.model.marketmodels.MarketModel;
+import org.jquantlib.model.marketmodels.MarketModelMultiProduct;
+import org.jquantlib.model.marketmodels.browniangenerators.MTBrownianGenerator;
+import org.jquantlib.model.marketmodels.browniangenerators.MTBrownianGeneratorFactory;
+import org.jquantlib.model.marketmodels.evolvers.LogNormalFwdRatePcFactory;
+import org.jquantlib.model.marketmodels.models.FlatVol;
+import org.jquantlib.model.marketmodels.products.MultiStepBermudanSwaption;
+import org.jquantlib.model.marketmodels.products.MultiStepCoterminalSwaptions;
+import org.jquantlib.model.marketmodels.products.MultiStepSwap;
+import org.jquantlib.pricingengines.BlackFormula;
+import org.junit.Test;
+
+public class MarketModelTest {
+
+    private static final double accrual = 0.5;
+    private static final double strike = 0.045;
+    private static final long seed = 42;
+
+    private int numberOfRates;
+    private double[] rateTimes;
+    private double[] accruals;
+    private double[] forwards;
+    private double[] volatilities;
+    private double[] discounts;
+    private Matrix correlations;
+
+    public MarketModelTest() {
+        QL.info("::::: " + this.getClass().getSimpleName() + " :::::");
+    }
+
+    @Test
+    public void testSwap() {
+        QL.info("Testing market model swap pricing against the forward curve...");
+
+        setup(10);
+        double expected = 0.0;
+        for (int i=0; i<numberOfRates; i++) {
+            expected += accruals[i] * discounts[i+1] * (forwards[i] - strike);
+        }
+
+        final double[] paymentTimes = new double[numberOfRates];
+        System.arraycopy(rateTimes, 1, paymentTimes, 0, numberOfRates);
+
+        for (final boolean terminal : new boolean[] { false, true }) {
+            final MarketModelMultiProduct swap =
+                new MultiStepSwap(rateTimes, accruals, accruals, paymentTimes, strike, true);
+            final SequenceStatistics stats = simulate(swap, 3, terminal, 32768);
+            final double value = stats.mean().get(0);
+            final double error = stats.errorEstimate().get(0);
+            if (Math.abs(value - expected) > 4.0 * error) {
+                QL.error("swap value under " + (terminal ? "terminal" : "money-market") + " measure: " + value
+                        + " +/- " + error + ", expected " + expected);
+            }
+            assertTrue(Math.abs(value - expected) <= 4.0 * error);
+        }
+    }
+
+    @Test
+    public void testCoterminalSwaptions() {
+        QL.info("Testing market model coterminal swaptions against Black formula...");
+
+        setup(10);
+        final double[] expected = blackCoterminalSwaptions();
+        final MarketModelMultiProduct swaptions = coterminalSwaptions();
+        final SequenceStatistics stats = simulate(swaptions, numberOfRates, false, 8192);
+
+        for (int i=0; i<numberOfRates; i++) {
+            final double value = stats.mean().get(i);
+            final double error = stats.errorEstimate().get(i);
+            // the last swaption is a caplet, which is exactly log-normal; the volatility of the
+            // other ones is only approximated by freezing the swap rate weights
+            final double tolerance = (i == numberOfRates-1) ? 4.0 * error : 4.0 * error + 0.02 * expected[i];
+            if (Math.abs(value - expected[i]) > tolerance) {
+                QL.error("swaption " + i + ": " + value + " +/- " + error + ", expected " + expected[i]);
+            }
+            assertTrue(Math.abs(value - expected[i]) <= tolerance);
+        }
+    }
+
+    @Test
+    public void testBermudanSwaption() {
+        QL.info("Testing market model Bermudan swaption on 40 rates...");
+
+        setup(40);
+        final int paths = 8192;
+        final double[] europeans = blackCoterminalSwaptions();
+        double maxEuropean = 0.0;
+        int longest = 0;
+        double sumEuropeans = 0.0;
+        for (int i=0; i<numberOfRates; i++) {
+            if (europeans[i] > maxEuropean) {
+                maxEuropean = europeans[i];
+                longest = i;
+            }
+            sumEuropeans += europeans[i];
+        }
+
+        final StrikedTypePayoff payoff = new PlainVanillaPayoff(Option.Type.Call, strike);
+        final double[] triggers = new double[numberOfRates];
+        for (int i=0; i<numberOfRates; i++) {
+            triggers[i] = strike + 0.004 * Math.sqrt(rateTimes[numberOfRates-1] - rateTimes[i]);
+        }
+
+        final SequenceStatistics bermudan = simulate(new MultiStepBermudanSwaption(rateTimes, payoff, triggers), 3, false, paths);
+        final double value = bermudan.mean().get(0);
+        final double error = bermudan.errorEstimate().get(0);
+        if (value < maxEuropean - 3.0 * error || value > sumEuropeans) {
+            QL.error("Bermudan swaption: " + value + " +/- " + error + ", max European " + maxEuropean
+                    + ", sum of Europeans " + sumEuropeans);
+        }
+        assertTrue(value >= maxEuropean - 3.0 * error);
+        assertTrue(value <= sumEuropeans);
+
+        // the same seed must give the same paths, whatever the scheduling of the batches
+        final SequenceStatistics again = simulate(new MultiStepBermudanSwaption(rateTimes, payoff, triggers), 3, false, paths);
+        assertEquals(value, again.mean().get(0), 0.0);
+
+        // a single exercise opportunity gives the European swaption on the same paths
+        final double[] single = new double[numberOfRates];
+        for (int i=0; i<numberOfRates; i++) {
+            single[i] = (i == longest) ? 0.0 : Double.MAX_VALUE;
+        }
+        final SequenceStatistics european = simulate(new MultiStepBermudanSwaption(rateTimes, payoff, single), 3, false, paths);
+        final SequenceStatistics coterminal = simulate(coterminalSwaptions(), 3, false, paths);
+        assertEquals(coterminal.mean().get(longest), european.mean().get(0), 1.0e-12);
+    }
+
+    @Test
+    public void testBrownianGeneratorSubstreams() {
+        QL.info("Testing that Brownian generators take consecutive substreams of one Mersenne Twister...");
+
+        final int factors = 3;
+        final int steps = 5;
+        final MTBrownianGeneratorFactory factory = new MTBrownianGeneratorFactory(seed);
+        final MersenneTwisterUniformRng[] streams = new MersenneTwisterUniformRng(seed).substreams(3);
+        final double[] output = new double[factors];
+        final double[] expected = new double[factors];
+        for (int k = 0; k < streams.length; k++) {
+            final BrownianGenerator generator = factory.create(factors, steps);
+            final BrownianGenerator reference = new MTBrownianGenerator(factors, steps, streams[k]);
+            for (int path = 0; path < 2; path++) {
+                generator.nextPath();
+                reference.nextPath();
+                for (int step = 0; step < steps; step++) {
+                    generator.nextStep(output);
+                    reference.nextStep(expected);
+                    for (int f = 0; f < factors; f++) {
+                        assertEquals(expected[f], output[f], 0.0);
+                    }
+                }
+            }
+        }
+    }
+
+
+    private void setup(final int numberOfRates) {
+        this.numberOfRates = numberOfRates;
+        this.rateTimes = new double[numberOfRates+1];
+        this.accruals = new double[numberOfRates];
+        this.forwards = new double[numberOfRates];
+        this.volatilities = new double[numberOfRates];
+        this.discounts = new double[numberOfRates+1];
+        this.correlations = new Matrix(numberOfRates, numberOfRates);
+
+        for (int i=0; i<=numberOfRates; i++) {
+            rateTimes[i] = accrual * (i+1);
+        }
+        discounts[0] = Math.exp(-0.04 * rateTimes[0]);
+        for (int i=0; i<numberOfRates; i++) {
+            accruals[i] = rateTimes[i+1] - rateTimes[i];
+            forwards[i] = 0.04 + 0.0005 * i;
+            volatilities[i] = 0.20 - 0.001 * i;
+            discounts[i+1] = discounts[i] / (1.0 + accruals[i] * forwards[i]);
+            for (int j=0; j<numberOfRates; j++) {
+                correlations.set(i, j, 0.5 + 0.5 * Math.exp(-0.2 * Math.abs(rateTimes[i] - rateTimes[j])));
+            }
+        }
+    }
+
+    private SequenceStatistics simulate(
+            final MarketModelMultiProduct product,
+            final int numberOfFactors,
+            final boolean terminal,
+            final int paths) {
+        final EvolutionDescription evolution = product.evolution();
+        final MarketModel model = new FlatVol(
+                volatilities, correlations, evolution, numberOfFactors, forwards, new double[numberOfRates]);
+        final int[] numeraires = terminal
+                ? EvolutionDescription.terminalMeasure(evolution) : EvolutionDescription.moneyMarketMeasure(evolution);
+        final AccountingEngine engine = new AccountingEngine(
+                new LogNormalFwdRatePcFactory(model, new MTBrownianGeneratorFactory(seed), numeraires),
+                product, discounts[numeraires[0]]);
+        final SequenceStatistics stats = new SequenceStatistics(product.numberOfProducts());
+        engine.multiplePathValues(stats, paths);
+        return stats;
+    }
+
+    private MarketModelMultiProduct coterminalSwaptions() {
+        final double[] paymentTimes = new double[numberOfRates];
+        System.arraycopy(rateTimes, 0, paymentTimes, 0, numberOfRates);
+        final List<StrikedTypePayoff> payoffs = new ArrayList<StrikedTypePayoff>();
+        for (int i=0; i<numberOfRates; i++) {
+            payoffs.add(new PlainVanillaPayoff(Option.Type.Call, strike));
+        }
+        return new MultiStepCoterminalSwaptions(rateTimes, paymentTimes, payoffs);
+    }
+
+    /**
+     * Black prices of the payer coterminal swaptions, with the swap rate volatility obtained by freezing the weights of the
+     * forward rates in the swap rate (Rebonato's approximation).
+     */
+    private double[] blackCoterminalSwaptions() {
+        final double[] values = new double[numberOfRates];
+        for (int i=0; i<numberOfRates; i++) {
+            double annuity = 0.0;
+            for (int j=i; j<numberOfRates; j++) {
+                annuity += accruals[j] * discounts[j+1];
+            }
+            final double swapRate = (discounts[i] - discounts[numberOfRates]) / annuity;
+            double variance = 0.0;
+            for (int j=i; j<numberOfRates; j++) {
+                for (int k=i; k<numberOfRates; k++) {
+                    variance += accruals[j] * discounts[j+1] * forwards[j] * volatilities[j]
+                              * accruals[k] * discounts[k+1] * forwards[k] * volatilities[k]
+                              * correlations.get(j, k);
+                }
+            }
+            variance *= rateTimes[i] / (annuity * annuity * swapRate * swapRate);
+            values[i] = annuity * BlackFormula.blackFormula(Option.Type.Call, strike, swapRate, Math.sqrt(variance));
+        }
+        return values;
+    }
+
+}
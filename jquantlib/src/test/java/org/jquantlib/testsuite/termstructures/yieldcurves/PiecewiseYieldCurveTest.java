@@ -23,6 +23,9 @@
 package org.jquantlib.testsuite.termstructures.yieldcurves;
 
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
 import org.jquantlib.QL;
 import org.jquantlib.Settings;
 import org.jquantlib.daycounters.Actual360;
@@ -49,6 +52,7 @@ import org.jquantlib.math.interpolations.factories.Cubic;
 import org.jquantlib.math.interpolations.factories.Linear;
 import org.jquantlib.math.interpolations.factories.LogCubic;
 import org.jquantlib.math.interpolations.factories.LogLinear;
+import org.jquantlib.math.matrixutilities.Matrix;
 import org.jquantlib.pricingengines.PricingEngine;
 import org.jquantlib.pricingengines.bond.DiscountingBondEngine;
 import org.jquantlib.pricingengines.swap.DiscountingSwapEngine;
@@ -70,6 +74,7 @@ import org.jquantlib.termstructures.yieldcurves.FraRateHelper;
 import org.jquantlib.termstructures.yieldcurves.PiecewiseYieldCurve;
 import org.jquantlib.termstructures.yieldcurves.SwapRateHelper;
 import org.jquantlib.termstructures.yieldcurves.Traits;
+import org.jquantlib.termstructures.yieldcurves.YieldCurveSnapshot;
 import org.jquantlib.termstructures.yieldcurves.ZeroYield;
 import org.jquantlib.testsuite.util.Flag;
 import org.jquantlib.time.BusinessDayConvention;
@@ -201,6 +206,60 @@ public class PiecewiseYieldCurveTest {
         }
     }
 
+	@Test
+	public void testSnapshot() {
+	    QL.info("Testing snapshot of piecewise-log-linear discount curve...");
+
+	    System.setProperty("EXPERIMENTAL", "true");
+	    final CommonVars vars = new CommonVars();
+
+	    final PiecewiseYieldCurve<Discount,LogLinear,IterativeBootstrap> curve =
+	        new PiecewiseYieldCurve<Discount,LogLinear,IterativeBootstrap>(
+	                                Discount.class, LogLinear.class, IterativeBootstrap.class,
+	                                vars.today, vars.instruments,
+	                                new Actual360(),
+	                                new Handle/*<Quote>*/[0],
+	                                new Date[0],
+	                                1.0e-12);
+	    curve.enableExtrapolation();
+
+	    final YieldCurveSnapshot snapshot = curve.snapshot();
+	    final Date maxDate = snapshot.maxDate();
+	    assertEquals(curve.maxDate(), maxDate);
+
+	    // the snapshot reproduces the source curve
+	    final Date[] dates = new Date[] {
+	        vars.settlement.add(new Period(10, TimeUnit.Days)),
+	        vars.settlement.add(new Period(5, TimeUnit.Months)),
+	        vars.settlement.add(new Period(7, TimeUnit.Years)),
+	        vars.settlement.add(new Period(29, TimeUnit.Years)),
+	        maxDate
+	    };
+	    final double[] discounts = new double[dates.length];
+	    final double[] frozen = new double[dates.length];
+	    for (int i=0; i<dates.length; i++) {
+	        discounts[i] = curve.discount(dates[i]);
+	        frozen[i] = snapshot.discount(dates[i]);
+	        assertEquals(dates[i].toString(), discounts[i], frozen[i], 1.0e-12);
+	    }
+
+	    // the live curve follows its quotes, whereas the snapshot does not
+	    for (final SimpleQuote rate : vars.rates) {
+	        rate.setValue(rate.value() + 0.0010);
+	    }
+	    // discount() is forwarded to the base curve, which is bootstrapped again by data()
+	    curve.data();
+	    for (int i=0; i<dates.length; i++) {
+	        final double d = curve.discount(dates[i]);
+	        assertTrue(dates[i].toString(), Math.abs(d - discounts[i]) > 1.0e-6);
+	        assertEquals(dates[i].toString(), frozen[i], snapshot.discount(dates[i]), 0.0);
+	    }
+
+	    // dates returned by the snapshot are copies
+	    snapshot.maxDate().addAssign(1);
+	    assertEquals(maxDate, snapshot.maxDate());
+	}
+
 	private class CommonVars {
 		// global variables
 		public Calendar calendar;
@@ -1005,4 +1064,67 @@ public class PiecewiseYieldCurveTest {
 	    }
 	}	
 
+
+	@Test
+	public void testDiscountJacobian() {
+	    QL.info("Testing node/quote Jacobian of piecewise-log-linear discount curve...");
+
+	    System.setProperty("EXPERIMENTAL", "true");
+	    final CommonVars vars = new CommonVars();
+
+	    testJacobian(Discount.class, LogLinear.class, IterativeBootstrap.class, vars);
+	}
+
+	@Test
+	public void testZeroJacobian() {
+	    QL.info("Testing node/quote Jacobian of piecewise-linear zero-yield curve...");
+
+	    System.setProperty("EXPERIMENTAL", "true");
+	    final CommonVars vars = new CommonVars();
+
+	    testJacobian(ZeroYield.class, Linear.class, IterativeBootstrap.class, vars);
+	}
+
+    private <T extends Traits, I extends Interpolator, B extends Bootstrap> void testJacobian(
+    		final Class<T> classT,
+    		final Class<I> classI,
+    		final Class<B> classB,
+    		final CommonVars vars) {
+
+        // the curve starts today, before the instruments, so that the first node affects them
+        final PiecewiseYieldCurve<T,I,B> curve = new PiecewiseYieldCurve<T,I,B>(
+										classT, classI, classB,
+										vars.today, vars.instruments,
+										new Actual360(),
+										new Handle/*<Quote>*/[0],
+										new Date[0],
+										1.0e-12);
+
+        final Matrix jacobian = curve.jacobian();
+        final int n = vars.rates.length;
+        assertEquals(n, jacobian.rows());
+        assertEquals(n, jacobian.cols());
+
+        // callers receive a copy of the cached Jacobian
+        final Matrix modified = curve.jacobian();
+        modified.set(0, 0, modified.get(0, 0) + 1.0);
+        assertEquals(jacobian.get(0, 0), curve.jacobian().get(0, 0), 0.0);
+
+        // bumped quotes trigger a new bootstrap
+        final double h = 1.0e-5;
+        for (int j=0; j<n; j++) {
+            final double rate = vars.rates[j].value();
+            vars.rates[j].setValue(rate + h);
+            final double[] up = curve.data().clone();
+            vars.rates[j].setValue(rate - h);
+            final double[] down = curve.data().clone();
+            vars.rates[j].setValue(rate);
+
+            for (int i=0; i<n; i++) {
+                final double expected = (up[i+1] - down[i+1]) / (2.0*h);
+                assertEquals("node " + (i+1) + ", quote " + j, expected, jacobian.get(i, j), 1.0e-6);
+            }
+        }
+    }
+
 }
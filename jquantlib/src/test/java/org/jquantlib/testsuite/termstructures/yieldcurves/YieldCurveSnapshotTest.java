@@ -0,0 +1,143 @@
+/*
+ Copyright (C) 2011 Richard Gomes
+
+ This source code is release under the BSD License.
+
+ This file is part of JQuantLib, a free-software/open-source library
+ for financial quantitative analysts and developers - http://jquantlib.org/
+
+ JQuantLib is free software: you can redistribute it and/or modify it
+ under the terms of the JQuantLib license.  You should have received a
+ copy of the license along with this program; if not, please email
+ <jquant-devel@lists.sourceforge.net>. The license is also available online at
+ <http://www.jquantlib.org/index.php/LICENSE.TXT>.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE.  See the license for more details.
+
+ JQuantLib is based on QuantLib. http://quantlib.org/
+ When applicable, the original copyright notice follows this notice.
+ */
+
+
+
+package org.jquantlib.testsuite.termstructures.yieldcurves;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+
+import org.jquantlib.QL;
+import org.jquantlib.daycounters.Actual365Fixed;
+import org.jquantlib.daycounters.DayCounter;
+import org.jquantlib.lang.exceptions.LibraryException;
+import org.jquantlib.math.interpolations.CubicInterpolation.BoundaryCondition;
+import org.jquantlib.math.interpolations.CubicInterpolation.DerivativeApprox;
+import org.jquantlib.math.interpolations.Interpolation.Interpolator;
+import org.jquantlib.math.interpolations.factories.BackwardFlat;
+import org.jquantlib.math.interpolations.factories.Cubic;
+import org.jquantlib.math.interpolations.factories.Linear;
+import org.jquantlib.math.interpolations.factories.LogCubic;
+import org.jquantlib.math.interpolations.factories.LogLinear;
+import org.jquantlib.termstructures.yieldcurves.InterpolatedDiscountCurve;
+import org.jquantlib.termstructures.yieldcurves.YieldCurveSnapshot;
+import org.jquantlib.time.Calendar;
+import org.jquantlib.time.Date;
+import org.jquantlib.time.Month;
+import org.jquantlib.time.Period;
+import org.jquantlib.time.TimeUnit;
+import org.jquantlib.time.calendars.Target;
+import org.junit.Test;
+
+public class YieldCurveSnapshotTest {
+
+    private final Calendar calendar = new Target();
+    private final DayCounter dc = new Actual365Fixed();
+    private final Date today = new Date(15, Month.March, 2011);
+
+    public YieldCurveSnapshotTest() {
+        QL.info("::::: " + this.getClass().getSimpleName() + " :::::");
+        System.setProperty("EXPERIMENTAL", "true");
+    }
+
+    @Test
+    public void testSerialization() {
+        QL.info("Testing serialization of yield curve snapshots...");
+
+        final Interpolator[] interpolators = new Interpolator[] {
+            new Linear(),
+            new LogLinear(),
+            new BackwardFlat(),
+            new Cubic(DerivativeApprox.Spline, true, BoundaryCondition.FirstDerivative, -0.05, BoundaryCondition.SecondDerivative, 0.01),
+            new LogCubic(DerivativeApprox.Kruger, false, BoundaryCondition.SecondDerivative, 0.0, BoundaryCondition.FirstDerivative, -0.04)
+        };
+
+        for (final Interpolator interpolator : interpolators) {
+            final YieldCurveSnapshot snapshot = curve(interpolator).snapshot();
+
+            final ByteBuffer buffer = snapshot.serialize();
+            final YieldCurveSnapshot restored = YieldCurveSnapshot.deserialize(buffer, calendar, dc);
+            assertEquals(0, buffer.remaining());
+
+            final String name = interpolator.getClass().getSimpleName();
+            assertEquals(name, interpolator.getClass(), restored.interpolator().getClass());
+            assertEquals(name, snapshot.kind(), restored.kind());
+            assertEquals(name, snapshot.referenceDate(), restored.referenceDate());
+            assertEquals(name, snapshot.maxDate(), restored.maxDate());
+            assertEquals(name, snapshot.allowsExtrapolation(), restored.allowsExtrapolation());
+            for (int days=0; days<=3650; days+=73) {
+                final Date d = today.add(days);
+                assertEquals(name + " " + d, snapshot.discount(d), restored.discount(d), 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void testCubicSettingsSurviveSerialization() {
+        QL.info("Testing that cubic interpolator settings survive serialization of yield curve snapshots...");
+
+        final Cubic cubic = new Cubic(DerivativeApprox.Spline, true, BoundaryCondition.FirstDerivative, -0.05, BoundaryCondition.SecondDerivative, 0.01);
+        final YieldCurveSnapshot restored = YieldCurveSnapshot.deserialize(curve(cubic).snapshot().serialize(), calendar, dc);
+        final Cubic result = (Cubic) restored.interpolator();
+        assertEquals(cubic.derivativeApprox(), result.derivativeApprox());
+        assertEquals(cubic.monotonic(), result.monotonic());
+        assertEquals(cubic.leftCondition(), result.leftCondition());
+        assertEquals(cubic.leftConditionValue(), result.leftConditionValue(), 0.0);
+        assertEquals(cubic.rightCondition(), result.rightCondition());
+        assertEquals(cubic.rightConditionValue(), result.rightConditionValue(), 0.0);
+
+        // default settings would give a different curve between nodes
+        final Date d = today.add(new Period(18, TimeUnit.Months));
+        final double expected = curve(cubic).discount(d);
+        assertEquals(expected, restored.discount(d), 0.0);
+        assertTrue(Math.abs(curve(new Cubic()).discount(d) - expected) > 1.0e-8);
+    }
+
+    @Test(expected = LibraryException.class)
+    public void testUnsupportedInterpolator() {
+        QL.info("Testing that snapshots with unknown interpolators are not serialized...");
+
+        // an interpolator with unknown settings cannot be restored faithfully
+        final Interpolator interpolator = new Linear() { };
+        curve(interpolator).snapshot().serialize();
+    }
+
+    private InterpolatedDiscountCurve<Interpolator> curve(final Interpolator interpolator) {
+        final Date[] dates = new Date[] {
+            today,
+            today.add(new Period(6, TimeUnit.Months)),
+            today.add(new Period(1, TimeUnit.Years)),
+            today.add(new Period(2, TimeUnit.Years)),
+            today.add(new Period(5, TimeUnit.Years)),
+            today.add(new Period(10, TimeUnit.Years))
+        };
+        final double[] discounts = new double[] { 1.0, 0.985, 0.968, 0.93, 0.82, 0.64 };
+        final InterpolatedDiscountCurve<Interpolator> curve = new InterpolatedDiscountCurve<Interpolator>(
+                Interpolator.class, dates, discounts, dc, calendar, interpolator);
+        curve.enableExtrapolation();
+        return curve;
+    }
+
+}
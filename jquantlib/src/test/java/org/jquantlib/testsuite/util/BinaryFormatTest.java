@@ -0,0 +1,128 @@
+/*
+ Copyright (C) 2011 Richard Gomes
+
+ This source code is release under the BSD License.
+
+ This file is part of JQuantLib, a free-software/open-source library
+ for financial quantitative analysts and developers - http://jquantlib.org/
+
+ JQuantLib is free software: you can redistribute it and/or modify it
+ under the terms of the JQuantLib license.  You should have received a
+ copy of the license along with this program; if not, please email
+ <jquant-devel@lists.sourceforge.net>. The license is also available online at
+ <http://www.jquantlib.org/index.php/LICENSE.TXT>.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE.  See the license for more details.
+
+ JQuantLib is based on QuantLib. http://quantlib.org/
+ When applicable, the original copyright notice follows this notice.
+ */
+
+package org.jquantlib.testsuite.util;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+
+import org.jquantlib.QL;
+import org.jquantlib.daycounters.Actual365Fixed;
+import org.jquantlib.daycounters.DayCounter;
+import org.jquantlib.lang.exceptions.LibraryException;
+import org.jquantlib.math.matrixutilities.Array;
+import org.jquantlib.math.matrixutilities.Matrix;
+import org.jquantlib.termstructures.volatilities.BlackVarianceSurface;
+import org.jquantlib.time.Date;
+import org.jquantlib.time.Month;
+import org.jquantlib.util.BinaryFormat;
+import org.junit.Test;
+
+/**
+ * Unit tests for BinaryFormat
+ */
+public class BinaryFormatTest {
+
+    public BinaryFormatTest() {
+        QL.info("::::: "+this.getClass().getSimpleName()+" :::::");
+    }
+
+    @Test
+    public void testRoundTrip() {
+        final double[] values = new double[100];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Math.sin(i);
+        }
+        final Date[] dates = new Date[] { new Date(15, Month.March, 2011), new Date(15, Month.March, 2021) };
+        final Matrix matrix = new Matrix(new double[][] { { 1.0, 2.0, 3.0 }, { 4.0, 5.0, 6.0 } });
+
+        final ByteBuffer buffer = new BinaryFormat.Writer(BinaryFormat.Content.ModelParameters)
+            .putBoolean(true)
+            .putInt(-7)
+            .putString("Black-Scholes")
+            .putDoubles(values)
+            .putDates(dates)
+            .putMatrix(matrix)
+            .putDouble(Math.PI)
+            .toByteBuffer();
+
+        final BinaryFormat.Reader reader = new BinaryFormat.Reader(buffer.duplicate(), BinaryFormat.Content.ModelParameters);
+        assertTrue("wrong version", reader.version() == BinaryFormat.VERSION);
+        assertTrue("wrong boolean", reader.getBoolean());
+        assertTrue("wrong int", reader.getInt() == -7);
+        assertTrue("wrong string", reader.getString().equals("Black-Scholes"));
+        final double[] readValues = reader.getDoubles();
+        assertTrue("wrong number of doubles", readValues.length == values.length);
+        for (int i = 0; i < values.length; i++) {
+            if (readValues[i] != values[i]) {
+                fail("double #" + i + " read as " + readValues[i] + " instead of " + values[i]);
+            }
+        }
+        final Date[] readDates = reader.getDates();
+        assertTrue("wrong number of dates", readDates.length == dates.length);
+        for (int i = 0; i < dates.length; i++) {
+            assertTrue("wrong date #" + i, readDates[i].eq(dates[i]));
+        }
+        final Matrix readMatrix = reader.getMatrix();
+        assertTrue("wrong matrix size", readMatrix.rows() == 2 && readMatrix.columns() == 3);
+        for (int i = 0; i < 2; i++) {
+            for (int j = 0; j < 3; j++) {
+                assertTrue("wrong matrix element", readMatrix.get(i, j) == matrix.get(i, j));
+            }
+        }
+        assertTrue("wrong double", reader.getDouble() == Math.PI);
+
+        try {
+            new BinaryFormat.Reader(buffer.duplicate(), BinaryFormat.Content.YieldCurve);
+            fail("record of another kind was accepted");
+        } catch (final LibraryException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testMappedVarianceSurface() throws Exception {
+        final DayCounter dc = new Actual365Fixed();
+        final Date today = new Date(15, Month.March, 2011);
+        final Date[] dates = new Date[] { new Date(15, Month.June, 2011), new Date(15, Month.March, 2012) };
+        final Array strikes = new Array(new double[] { 90.0, 100.0, 110.0 });
+        final Matrix vols = new Matrix(new double[][] { { 0.22, 0.21 }, { 0.20, 0.20 }, { 0.21, 0.215 } });
+        final BlackVarianceSurface surface = new BlackVarianceSurface(today, dates, strikes, vols, dc);
+
+        final ByteBuffer expected = surface.serialize();
+        final File file = File.createTempFile("jquantlib", ".bin");
+        file.deleteOnExit();
+        BinaryFormat.write(file, expected);
+
+        final ByteBuffer mapped = BinaryFormat.map(file);
+        final BlackVarianceSurface restored = BlackVarianceSurface.deserialize(mapped, dc);
+        assertFalse("record was not fully read", mapped.hasRemaining());
+        assertTrue("wrong reference date", restored.referenceDate().eq(today));
+        assertTrue("wrong max date", restored.maxDate().eq(dates[1]));
+        assertTrue("restored surface serializes differently", restored.serialize().equals(expected));
+    }
+
+}
@@ -0,0 +1,124 @@
+/*
+ Copyright (C) 2011 Richard Gomes
+
+ This source code is release under the BSD License.
+
+ This file is part of JQuantLib, a free-software/open-source library
+ for financial quantitative analysts and developers - http://jquantlib.org/
+
+ JQuantLib is free software: you can redistribute it and/or modify it
+ under the terms of the JQuantLib license.  You should have received a
+ copy of the license along with this program; if not, please email
+ <jquant-devel@lists.sourceforge.net>. The license is also available online at
+ <http://www.jquantlib.org/index.php/LICENSE.TXT>.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE.  See the license for more details.
+
+ JQuantLib is based on QuantLib. http://quantlib.org/
+ When applicable, the original copyright notice follows this notice.
+ */
+
+
+
+package org.jquantlib.testsuite.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.jquantlib.QL;
+import org.jquantlib.Settings;
+import org.jquantlib.time.Date;
+import org.jquantlib.time.Month;
+import org.jquantlib.util.ThreadPool;
+import org.junit.Test;
+
+public class ThreadPoolTest {
+
+    public ThreadPoolTest() {
+        QL.info("::::: " + this.getClass().getSimpleName() + " :::::");
+    }
+
+    @Test
+    public void testResultsInOrder() {
+        QL.info("Testing that results of the thread pool are returned in the order of the tasks...");
+
+        final List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+        for (int i = 0; i < 100; i++) {
+            final int value = i;
+            tasks.add(new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    return value;
+                }
+            });
+        }
+        final List<Integer> results = ThreadPool.invokeAll(tasks);
+        assertEquals(tasks.size(), results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i, results.get(i).intValue());
+        }
+    }
+
+    @Test
+    public void testSettingsPropagation() {
+        QL.info("Testing that tasks run by the thread pool see the settings of the calling thread...");
+
+        final Date today = new Date(15, Month.May, 1998);
+        final Settings settings = new Settings();
+        final Date savedDate = settings.evaluationDate().clone();
+        final boolean savedHalley = settings.isRefineHighPrecisionUsingHalleysMethod();
+        settings.setEvaluationDate(today);
+        settings.setRefineHighPrecisionUsingHalleysMethod(!savedHalley);
+        try {
+            final List<Callable<Object[]>> tasks = new ArrayList<Callable<Object[]>>();
+            for (int i = 0; i < 4 * ThreadPool.parallelism(); i++) {
+                tasks.add(new Callable<Object[]>() {
+                    @Override
+                    public Object[] call() {
+                        final Settings local = new Settings();
+                        return new Object[] { local.evaluationDate().clone(), local.isRefineHighPrecisionUsingHalleysMethod() };
+                    }
+                });
+            }
+            for (final Object[] result : ThreadPool.invokeAll(tasks)) {
+                assertEquals(today, result[0]);
+                assertEquals(!savedHalley, result[1]);
+            }
+        } finally {
+            settings.setEvaluationDate(savedDate);
+            settings.setRefineHighPrecisionUsingHalleysMethod(savedHalley);
+        }
+    }
+
+    @Test
+    public void testExceptionPropagation() {
+        QL.info("Testing that exceptions thrown by tasks of the thread pool reach the calling thread...");
+
+        final List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+        for (int i = 0; i < 8; i++) {
+            final int value = i;
+            tasks.add(new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    if (value == 5)
+                        throw new IllegalArgumentException("task " + value);
+                    return value;
+                }
+            });
+        }
+        try {
+            ThreadPool.invokeAll(tasks);
+        } catch (final IllegalArgumentException e) {
+            assertEquals("task 5", e.getMessage());
+            return;
+        }
+        assertTrue("exception not propagated", false);
+    }
+
+}